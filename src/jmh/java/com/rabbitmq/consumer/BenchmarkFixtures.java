@@ -0,0 +1,97 @@
+package com.rabbitmq.consumer;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.logging.MessageLoggingProperties;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+//벤치마크에서 공통으로 사용하는 메모리상의 Message, Channel을 생성합니다. 브로커 없이 Consumer 처리 경로만 측정하기 위한 용도입니다.
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    //Producer가 Jackson2JsonMessageConverter로 MessageInfo를 전송했을때와 같은 형태의 Message를 생성합니다.
+    //Listener 메서드의 파라미터 타입으로 변환되도록 inferredArgumentType을 설정하는데 컨테이너에서 @RabbitListener를 호출할때 설정하는 값과 같습니다.
+    public static Message messageInfoMessage(long deliveryTag, String publisher, String text) {
+        String json = "{\"publisher\":\"" + publisher + "\",\"message\":\"" + text + "\"}";
+
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        messageProperties.setHeader("__TypeId__", MessageInfo.class.getName());
+        messageProperties.setInferredArgumentType(MessageInfo.class);
+        messageProperties.setDeliveryTag(deliveryTag);
+        messageProperties.setConsumerQueue("ack.test.queue");
+
+        return new Message(json.getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+    //MessageListenerAdapter -> Receiver.receiveMessage(String) 경로에서 사용하는 JSON 문자열 메시지를 생성합니다.
+    public static Message stringMessage(long deliveryTag, String text) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        messageProperties.setHeader("__TypeId__", String.class.getName());
+        messageProperties.setDeliveryTag(deliveryTag);
+        messageProperties.setConsumerQueue("ack.receiver.queue");
+
+        return new Message(("\"" + text + "\"").getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+    //application.yml의 기본값(모든 메시지, 바디 256 byte)과 같은 설정의 MessageLogging을 생성합니다.
+    public static MessageLogging messageLogging() {
+        return new MessageLogging(new MessageLoggingProperties());
+    }
+
+    //basicAck, basicNack, basicReject가 호출될때마다 frames를 증가시키는 Channel을 생성합니다.
+    //frameCost만큼 CPU를 소모하여 실제 Channel이 frame을 socket에 쓰는 비용을 흉내냅니다.
+    public static Channel countingChannel(LongAdder frames, long frameCost) {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "basicAck":
+                        case "basicNack":
+                        case "basicReject":
+                            frames.increment();
+                            org.openjdk.jmh.infra.Blackhole.consumeCPU(frameCost);
+                            return null;
+                        case "isOpen":
+                            return true;
+                        case "getChannelNumber":
+                            return 1;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "CountingChannel";
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        return null;
+    }
+
+}
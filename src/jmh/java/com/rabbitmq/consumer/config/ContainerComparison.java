@@ -0,0 +1,214 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.metrics.LatencyHistogram;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+//SimpleMessageListenerContainer와 DirectMessageListenerContainer로 같은 조건의 Queue를 처리하여 처리량, p99 지연시간, 쓰레드 수를 비교합니다.
+//container, direct 프로파일과 같이 Queue마다 컨테이너를 하나씩 만들며 Simple은 concurrentConsumers, Direct는 consumersPerQueue를 consumers로 설정합니다.
+//로컬 RabbitMQ가 필요하며 비교용 Queue(comparison.simple.*, comparison.direct.*)를 만들고 끝나면 삭제합니다.
+//[측정 방법]
+//1. 처리량: Queue마다 messages개를 미리 쌓아두고 컨테이너를 시작한 뒤 모두 처리할때까지 걸린 시간으로 계산합니다.
+//2. p99 지연시간: 컨테이너가 실행중인 상태에서 rate msg/s로 보내고 보낸 시점(x-sent-nanos 헤더)부터 Listener 호출까지의 시간을 기록합니다.
+//3. 쓰레드 수: 컨테이너를 시작하기 전보다 측정 중에 늘어난 JVM 쓰레드 수의 최대값입니다.
+//./gradlew containerComparison -PcomparisonArgs="--queues=8 --consumers=2 --messages=20000 --rate=2000 --work=0"
+public final class ContainerComparison {
+
+    private static final String SENT_NANOS_HEADER = "x-sent-nanos";
+
+    private final Map<String, String> options;
+
+    private final CachingConnectionFactory connectionFactory;
+
+    private final RabbitAdmin rabbitAdmin;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private ContainerComparison(Map<String, String> options) {
+        this.options = options;
+        this.connectionFactory = new CachingConnectionFactory(option("host", "localhost"), intOption("port", 5672));
+        this.connectionFactory.setUsername(option("username", "guest"));
+        this.connectionFactory.setPassword(option("password", "guest"));
+        this.rabbitAdmin = new RabbitAdmin(connectionFactory);
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+
+        ContainerComparison comparison = new ContainerComparison(options);
+        try {
+            List<Result> results = new ArrayList<>();
+            for (String type : new String[]{"simple", "direct"}) {
+                results.add(comparison.run(type));
+            }
+            System.out.printf("%nqueues=%d consumers=%d messages=%d rate=%d work=%d%n", comparison.intOption("queues", 4),
+                    comparison.intOption("consumers", 1), comparison.intOption("messages", 20000), comparison.intOption("rate", 2000),
+                    comparison.intOption("work", 0));
+            System.out.printf("%-8s %16s %12s %12s%n", "type", "throughput(msg/s)", "p99(ms)", "threads");
+            for (Result result : results) {
+                System.out.printf("%-8s %16.0f %12.3f %12d%n", result.type, result.throughput, result.p99Nanos / 1_000_000d, result.threads);
+            }
+        } finally {
+            comparison.connectionFactory.destroy();
+        }
+    }
+
+    private Result run(String type) throws InterruptedException {
+        int queueCount = intOption("queues", 4);
+        int messages = intOption("messages", 20000);
+        int rate = intOption("rate", 2000);
+        long work = intOption("work", 0);
+
+        List<String> queueNames = new ArrayList<>();
+        for (int i = 0; i < queueCount; i++) {
+            String queueName = "comparison." + type + "." + i;
+            rabbitAdmin.declareQueue(new Queue(queueName, false, false, false));
+            rabbitAdmin.purgeQueue(queueName, false);
+            queueNames.add(queueName);
+        }
+
+        //countDown할 latch를 측정 단계마다 바꿔서 같은 Listener로 처리량과 지연시간을 측정합니다.
+        LatencyHistogram latency = new LatencyHistogram(0);
+        CountDownLatch[] remaining = {new CountDownLatch(queueCount * messages)};
+        MessageListener listener = message -> {
+            Blackhole.consumeCPU(work);
+            Object sentNanos = message.getMessageProperties().getHeader(SENT_NANOS_HEADER);
+            if (sentNanos instanceof Long) {
+                latency.record(System.nanoTime() - (Long) sentNanos);
+            }
+            remaining[0].countDown();
+        };
+
+        for (String queueName : queueNames) {
+            for (int i = 0; i < messages; i++) {
+                rabbitTemplate.send("", queueName, message(null));
+            }
+        }
+
+        int baseThreads = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setThreadNamePrefix("comparison-monitor-");
+        taskScheduler.initialize();
+        List<AbstractMessageListenerContainer> containers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (String queueName : queueNames) {
+            AbstractMessageListenerContainer container = container(type, queueName, taskScheduler, listener);
+            container.start();
+            containers.add(container);
+        }
+        remaining[0].await();
+        double throughput = queueCount * (double) messages / ((System.nanoTime() - start) / 1_000_000_000d);
+
+        int latencyMessages = Math.max(rate * 10, queueCount);
+        remaining[0] = new CountDownLatch(latencyMessages);
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long next = System.nanoTime();
+        for (int i = 0; i < latencyMessages; i++) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            next += interval;
+            rabbitTemplate.send("", queueNames.get(i % queueCount), message(System.nanoTime()));
+        }
+        remaining[0].await();
+        int peakThreads = threads.getPeakThreadCount() - baseThreads;
+
+        for (AbstractMessageListenerContainer container : containers) {
+            container.stop();
+        }
+        taskScheduler.shutdown();
+        for (String queueName : queueNames) {
+            rabbitAdmin.deleteQueue(queueName);
+        }
+        return new Result(type, throughput, latency.percentile(0.99), peakThreads);
+    }
+
+    //RabbitMQContainerConfig, RabbitMQDirectConfig와 같은 설정(AUTO ackMode, 기본 prefetch)으로 컨테이너를 만듭니다.
+    private AbstractMessageListenerContainer container(String type, String queueName, ThreadPoolTaskScheduler taskScheduler,
+                                                       MessageListener listener) {
+        int consumers = intOption("consumers", 1);
+        AbstractMessageListenerContainer container;
+        if ("direct".equals(type)) {
+            DirectMessageListenerContainer direct = new DirectMessageListenerContainer(connectionFactory);
+            direct.setConsumersPerQueue(consumers);
+            direct.setTaskScheduler(taskScheduler);
+            container = direct;
+        } else {
+            SimpleMessageListenerContainer simple = new SimpleMessageListenerContainer(connectionFactory);
+            simple.setConcurrentConsumers(consumers);
+            container = simple;
+        }
+        container.setQueueNames(queueName);
+        container.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        container.setMessageListener(listener);
+        container.afterPropertiesSet();
+        return container;
+    }
+
+    private static Message message(Long sentNanos) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        if (sentNanos != null) {
+            messageProperties.setHeader(SENT_NANOS_HEADER, sentNanos);
+        }
+        return new Message("{\"publisher\":\"comparison\",\"message\":\"message body\"}".getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, Integer.toString(defaultValue)));
+    }
+
+    private static final class Result {
+
+        private final String type;
+
+        private final double throughput;
+
+        private final double p99Nanos;
+
+        private final int threads;
+
+        private Result(String type, double throughput, double p99Nanos, int threads) {
+            this.type = type;
+            this.throughput = throughput;
+            this.p99Nanos = p99Nanos;
+            this.threads = threads;
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.BenchmarkFixtures;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import com.rabbitmq.consumer.converter.MessageInfoMessageConverter;
+import com.rabbitmq.consumer.converter.WireFormatProperties;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.listener.AnnotationMessageListener;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.receiver.Receiver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.listener.adapter.HandlerAdapter;
+import org.springframework.amqp.rabbit.listener.adapter.MessageListenerAdapter;
+import org.springframework.amqp.rabbit.listener.adapter.MessagingMessageListenerAdapter;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//이 프로젝트에서 사용하는 Listener 방식별로 메시지 1건을 처리하는 시간을 측정합니다. 브로커 없이 메모리상의 Message와 Channel을 사용하며
+//Hot path를 수정하기 전후의 기준값으로 사용합니다. 로그 레벨은 WARN(src/jmh/resources/logback.xml)이므로 메시지 로그는 출력되지 않습니다.
+//(로그 비용은 MessageLoggerBenchmark 참고)
+//[측정 대상]
+//1. messageListener: RabbitMQContainerConfig.onlyMessageListener (MessageListener)
+//2. channelAwareMessageListener: RabbitMQContainerConfig.messageChannelListener (ChannelAwareMessageListener)
+//3. messageListenerAdapter: MessageListenerAdapter -> Receiver.receiveMessage(String) (jsonMessageConverter로 변환 포함)
+//4. rabbitListener*: @RabbitListener 메서드를 컨테이너와 같은 방식(MessagingMessageListenerAdapter + InvocableHandlerMethod)으로 호출
+//5. convert*: MessageConverter의 변환 비용만 측정
+//6. afterReceivePostProcessor: RabbitMQFactoryConfig.checkMessagePostProcessor
+//./gradlew jmh -PjmhIncludes=ListenerPipelineBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ListenerPipelineBenchmark {
+
+    private Message rawMessage;
+    private Message messageInfoMessage;
+    private Message stringMessage;
+    private Channel channel;
+
+    private MessageConverter jsonMessageConverter;
+    private MessageConverter messageInfoMessageConverter;
+    private MessageListener onlyMessageListener;
+    private ChannelAwareMessageListener messageChannelListener;
+    private MessageListenerAdapter messageListenerAdapter;
+    private MessagingMessageListenerAdapter rabbitListenerMessage;
+    private MessagingMessageListenerAdapter rabbitListenerMessageInfo;
+    private MessagingMessageListenerAdapter rabbitListenerMessageInfoStreaming;
+    private MessagePostProcessor checkMessagePostProcessor;
+
+    @Setup
+    public void setUp() throws Exception {
+        rawMessage = BenchmarkFixtures.messageInfoMessage(1, "publisher-1", "message body");
+        messageInfoMessage = BenchmarkFixtures.messageInfoMessage(1, "publisher-1", "message body");
+        stringMessage = BenchmarkFixtures.stringMessage(1, "message body");
+        channel = BenchmarkFixtures.countingChannel(new LongAdder(), 0);
+
+        RabbitMQContainerConfig containerConfig = new RabbitMQContainerConfig();
+        jsonMessageConverter = new JsonMessageConverterConfig().jsonMessageConverter();
+        messageInfoMessageConverter = new MessageInfoMessageConverter(jsonMessageConverter, true);
+        MessageLogging messageLogging = BenchmarkFixtures.messageLogging();
+        onlyMessageListener = containerConfig.onlyMessageListener(messageLogging);
+        messageChannelListener = (ChannelAwareMessageListener) containerConfig.messageChannelListener(messageLogging);
+        messageListenerAdapter = new ReceiverQueueConfig().messageListenerAdapter(new Receiver(messageLogging), new WireFormatProperties(), jsonMessageConverter);
+
+        AnnotationMessageListener annotationMessageListener = new AnnotationMessageListener(new AckCoalescers(50, 100), messageLogging, null, null); //receiveDeadLetter는 측정하지 않으므로 DeadLetterRetrier, DeadLetterIndex 없이 생성합니다.
+        rabbitListenerMessage = rabbitListener(annotationMessageListener, "receiveMessage", Message.class, jsonMessageConverter);
+        rabbitListenerMessageInfo = rabbitListener(annotationMessageListener, "receiveMessageInfo", MessageInfo.class, jsonMessageConverter);
+        rabbitListenerMessageInfoStreaming = rabbitListener(annotationMessageListener, "receiveMessageInfo", MessageInfo.class, messageInfoMessageConverter);
+
+        checkMessagePostProcessor = new RabbitMQFactoryConfig().checkMessagePostProcessor(messageLogging);
+    }
+
+    //MethodRabbitListenerEndpoint가 @RabbitListener 메서드로 MessagingMessageListenerAdapter를 만드는 과정과 같습니다.
+    private static MessagingMessageListenerAdapter rabbitListener(Object bean, String methodName, Class<?> parameterType,
+                                                                  MessageConverter messageConverter) throws NoSuchMethodException {
+        Method method = bean.getClass().getDeclaredMethod(methodName, parameterType);
+        DefaultMessageHandlerMethodFactory messageHandlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        messageHandlerMethodFactory.afterPropertiesSet();
+
+        MessagingMessageListenerAdapter adapter = new MessagingMessageListenerAdapter(bean, method);
+        adapter.setHandlerAdapter(new HandlerAdapter(messageHandlerMethodFactory.createInvocableHandlerMethod(bean, method)));
+        adapter.setMessageConverter(messageConverter);
+        return adapter;
+    }
+
+    @Benchmark
+    public void messageListener() {
+        onlyMessageListener.onMessage(rawMessage);
+    }
+
+    @Benchmark
+    public void channelAwareMessageListener() throws Exception {
+        messageChannelListener.onMessage(rawMessage, channel);
+    }
+
+    @Benchmark
+    public void messageListenerAdapter() throws Exception {
+        messageListenerAdapter.onMessage(stringMessage, channel);
+    }
+
+    @Benchmark
+    public void rabbitListenerMessage() throws Exception {
+        rabbitListenerMessage.onMessage(rawMessage, channel);
+    }
+
+    @Benchmark
+    public void rabbitListenerMessageInfo() throws Exception {
+        rabbitListenerMessageInfo.onMessage(messageInfoMessage, channel);
+    }
+
+    @Benchmark
+    public void rabbitListenerMessageInfoStreaming() throws Exception {
+        rabbitListenerMessageInfoStreaming.onMessage(messageInfoMessage, channel);
+    }
+
+    @Benchmark
+    public Object convertMessageInfo() {
+        return jsonMessageConverter.fromMessage(messageInfoMessage);
+    }
+
+    @Benchmark
+    public Object convertString() {
+        return jsonMessageConverter.fromMessage(stringMessage);
+    }
+
+    @Benchmark
+    public Message afterReceivePostProcessor() {
+        return checkMessagePostProcessor.postProcessMessage(rawMessage);
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.ConsumerApplication;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//기존 방식과 consumer.fast-boot.enabled=true(FastBootConfig)로 애플리케이션을 시작하여 첫 메시지를 받을때까지 걸린 시간을 비교합니다.
+//Pod를 순서대로 재시작하는 상황과 같이 topology가 이미 있는 상태에서 매번 새 JVM으로 ConsumerApplication을 시작합니다.
+//로컬 RabbitMQ가 필요하며 처음에 기존 방식으로 한번 시작하여 topology를 만들고(결과에서 제외) 이후 default, fast를 번갈아 runs번씩 시작합니다.
+//[측정 방법]
+//1. queue를 비우고 메시지 하나를 보낸 뒤 JVM 프로세스를 시작합니다. (queue가 없으면 만들어진 뒤에 보냄)
+//2. queue의 ready 메시지 수를 poll-millis마다 확인하여 0이 되면(Consumer에게 전달됨) 프로세스 시작부터 그때까지의 시간을 기록합니다.
+//3. 프로세스를 종료(SIGTERM)하고 끝날때까지 기다린 뒤 다음 실행을 시작합니다.
+//./gradlew startupComparison -PcomparisonArgs="--runs=5 --profile=annotation --queue=messageInfo.test.queue"
+public final class StartupComparison {
+
+    private static final String[] MODES = {"default", "fast"};
+
+    private final Map<String, String> options;
+
+    private final CachingConnectionFactory connectionFactory;
+
+    private final RabbitAdmin rabbitAdmin;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private StartupComparison(Map<String, String> options) {
+        this.options = options;
+        this.connectionFactory = new CachingConnectionFactory(option("host", "localhost"), intOption("port", 5672));
+        this.connectionFactory.setUsername(option("username", "guest"));
+        this.connectionFactory.setPassword(option("password", "guest"));
+        this.rabbitAdmin = new RabbitAdmin(connectionFactory);
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+
+        StartupComparison comparison = new StartupComparison(options);
+        try {
+            comparison.run("default");
+            int runs = comparison.intOption("runs", 5);
+            Map<String, long[]> results = new HashMap<>();
+            for (String mode : MODES) {
+                results.put(mode, new long[runs]);
+            }
+            for (int i = 0; i < runs; i++) {
+                for (String mode : MODES) {
+                    results.get(mode)[i] = comparison.run(mode);
+                }
+            }
+
+            System.out.printf("%nprofile=%s queue=%s runs=%d%n", comparison.option("profile", "annotation"),
+                    comparison.option("queue", "messageInfo.test.queue"), runs);
+            System.out.printf("%-8s %12s %12s %12s%n", "mode", "min(ms)", "median(ms)", "max(ms)");
+            for (String mode : MODES) {
+                long[] millis = results.get(mode);
+                Arrays.sort(millis);
+                System.out.printf("%-8s %12d %12d %12d%n", mode, millis[0], millis[millis.length / 2], millis[millis.length - 1]);
+            }
+        } finally {
+            comparison.connectionFactory.destroy();
+        }
+    }
+
+    //mode로 애플리케이션을 시작하여 첫 메시지가 Consumer에게 전달될때까지 걸린 시간(ms)을 반환합니다.
+    private long run(String mode) throws Exception {
+        String queue = option("queue", "messageInfo.test.queue");
+        boolean sent = false;
+        if (rabbitAdmin.getQueueInfo(queue) != null) {
+            rabbitAdmin.purgeQueue(queue, false);
+            send();
+            sent = true;
+            //메시지가 queue에 들어간 뒤에 시작해야 0이 된 것을 받은 것으로 볼 수 있습니다.
+            while (rabbitAdmin.getQueueInfo(queue).getMessageCount() == 0) {
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+        }
+
+        Process process = null;
+        try {
+            long start = System.nanoTime();
+            process = start(mode);
+            long timeoutNanos = TimeUnit.SECONDS.toNanos(intOption("timeout-seconds", 120));
+            while (System.nanoTime() - start < timeoutNanos) {
+                QueueInformation queueInformation = rabbitAdmin.getQueueInfo(queue);
+                if (queueInformation != null) {
+                    //처음 실행(topology 생성)에서는 queue가 만들어진 뒤에 보냅니다.
+                    if (!sent) {
+                        send();
+                        sent = true;
+                    } else if (queueInformation.getMessageCount() == 0) {
+                        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        System.out.printf("%-8s first message consumed after %dms%n", mode, millis);
+                        return millis;
+                    }
+                }
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("ConsumerApplication exited with " + process.exitValue());
+                }
+                TimeUnit.MILLISECONDS.sleep(intOption("poll-millis", 5));
+            }
+            throw new IllegalStateException(mode + " did not consume from " + queue + " within timeout");
+        } finally {
+            if (process != null) {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+    }
+
+    //jmh runtimeClasspath(main 클래스 포함)로 새 JVM에서 ConsumerApplication을 시작합니다. 로그는 --verbose=true인 경우에만 출력합니다.
+    private Process start(String mode) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ConsumerApplication.class.getName());
+        command.add("--spring.profiles.active=" + option("profile", "annotation"));
+        command.add("--server.port=0");
+        command.add("--spring.rabbitmq.host=" + option("host", "localhost"));
+        command.add("--spring.rabbitmq.port=" + intOption("port", 5672));
+        command.add("--spring.rabbitmq.username=" + option("username", "guest"));
+        command.add("--spring.rabbitmq.password=" + option("password", "guest"));
+        command.add("--consumer.fast-boot.enabled=" + "fast".equals(mode));
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        if (Boolean.parseBoolean(option("verbose", "false"))) {
+            processBuilder.inheritIO();
+        } else {
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD).redirectError(ProcessBuilder.Redirect.DISCARD);
+        }
+        return processBuilder.start();
+    }
+
+    private void send() {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        Message message = new Message("{\"publisher\":\"comparison\",\"message\":\"message body\"}".getBytes(StandardCharsets.UTF_8), messageProperties);
+        rabbitTemplate.send(option("exchange", "messageInfo.test.exchange"), option("routing-key", "messageInfo.routing.key"), message);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, Integer.toString(defaultValue)));
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.rabbitmq.consumer.connection;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+//여러 Queue의 Listener 컨테이너를 StripedConnectionFactory로 stripes개의 Connection에 나누어 연결했을때의 처리량을 비교합니다.
+//ConnectionStripingConfig와 같이 stripe마다 TrafficCountingSocketFactory를 사용하는 CachingConnectionFactory를 만들고
+//Queue마다 SimpleMessageListenerContainer를 하나씩 만들어서 StripedConnectionFactory가 배정한 Connection(amqp-client)으로 메시지를 받습니다.
+//로컬 RabbitMQ가 필요하며 비교용 Queue(comparison.striping.*)를 만들고 끝나면 삭제합니다.
+//[측정 방법]
+//1. Queue마다 messages개를 미리 쌓아두고(별도의 Connection으로 보냄) 컨테이너를 시작한 뒤 모두 처리할때까지 걸린 시간으로 처리량을 계산합니다.
+//2. stripe별로 받은 frame 수를 함께 출력하여 Queue가 Connection에 고르게 나누어졌는지 확인합니다.
+//Connection 하나의 frame을 읽는 쓰레드가 병목이 되는 경우(Queue, Consumer가 많고 메시지가 작은 경우)에만 stripes를 늘린 효과가 있으며
+//브로커의 Queue 처리량이나 Listener 처리 시간(work)이 병목이면 처리량은 비슷하게 측정됩니다.
+//./gradlew stripingComparison -PcomparisonArgs="--stripes=1,2,4 --queues=16 --consumers=1 --messages=20000 --body-size=128 --work=0"
+public final class StripingComparison {
+
+    private final Map<String, String> options;
+
+    //메시지를 미리 쌓아두고 Queue를 만들고 삭제할때 사용하며 측정하는 stripe와 Connection을 공유하지 않습니다.
+    private final CachingConnectionFactory adminConnectionFactory;
+
+    private final RabbitAdmin rabbitAdmin;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private StripingComparison(Map<String, String> options) {
+        this.options = options;
+        this.adminConnectionFactory = connectionFactory(new com.rabbitmq.client.ConnectionFactory());
+        this.rabbitAdmin = new RabbitAdmin(adminConnectionFactory);
+        this.rabbitTemplate = new RabbitTemplate(adminConnectionFactory);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+
+        StripingComparison comparison = new StripingComparison(options);
+        try {
+            List<Result> results = new ArrayList<>();
+            for (String stripes : comparison.option("stripes", "1,2,4").split(",")) {
+                results.add(comparison.run(Integer.parseInt(stripes.trim())));
+            }
+            System.out.printf("%nqueues=%d consumers=%d messages=%d body-size=%d work=%d%n", comparison.intOption("queues", 16),
+                    comparison.intOption("consumers", 1), comparison.intOption("messages", 20000), comparison.intOption("body-size", 128),
+                    comparison.intOption("work", 0));
+            System.out.printf("%-8s %18s  %s%n", "stripes", "throughput(msg/s)", "frames in per stripe");
+            for (Result result : results) {
+                System.out.printf("%-8d %18.0f  %s%n", result.stripes, result.throughput, Arrays.toString(result.framesIn));
+            }
+        } finally {
+            comparison.adminConnectionFactory.destroy();
+        }
+    }
+
+    private Result run(int stripeCount) throws InterruptedException {
+        int queueCount = intOption("queues", 16);
+        int messages = intOption("messages", 20000);
+        long work = intOption("work", 0);
+
+        List<String> queueNames = new ArrayList<>();
+        for (int i = 0; i < queueCount; i++) {
+            String queueName = "comparison.striping." + i;
+            rabbitAdmin.declareQueue(new Queue(queueName, false, false, false));
+            rabbitAdmin.purgeQueue(queueName, false);
+            queueNames.add(queueName);
+        }
+        byte[] body = new byte[intOption("body-size", 128)];
+        for (String queueName : queueNames) {
+            for (int i = 0; i < messages; i++) {
+                rabbitTemplate.send("", queueName, new Message(body, new MessageProperties()));
+            }
+        }
+
+        List<TrafficCountingSocketFactory> socketFactories = new ArrayList<>();
+        List<CachingConnectionFactory> stripes = new ArrayList<>();
+        for (int i = 0; i < stripeCount; i++) {
+            String stripeName = "comparison-" + i;
+            TrafficCountingSocketFactory socketFactory = new TrafficCountingSocketFactory();
+            com.rabbitmq.client.ConnectionFactory rabbitConnectionFactory = new com.rabbitmq.client.ConnectionFactory();
+            rabbitConnectionFactory.setSocketFactory(socketFactory);
+            CachingConnectionFactory stripe = connectionFactory(rabbitConnectionFactory);
+            stripe.setConnectionNameStrategy(connectionFactory -> stripeName);
+            socketFactories.add(socketFactory);
+            stripes.add(stripe);
+        }
+        StripedConnectionFactory stripedConnectionFactory = new StripedConnectionFactory("comparison", stripes);
+
+        CountDownLatch remaining = new CountDownLatch(queueCount * messages);
+        MessageListener listener = message -> {
+            Blackhole.consumeCPU(work);
+            remaining.countDown();
+        };
+        List<SimpleMessageListenerContainer> containers = new ArrayList<>();
+        try {
+            long start = System.nanoTime();
+            for (String queueName : queueNames) {
+                SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(stripedConnectionFactory);
+                container.setQueueNames(queueName);
+                container.setConcurrentConsumers(intOption("consumers", 1));
+                container.setAcknowledgeMode(AcknowledgeMode.AUTO);
+                container.setMessageListener(listener);
+                container.afterPropertiesSet();
+                container.start();
+                containers.add(container);
+            }
+            remaining.await();
+            double throughput = queueCount * (double) messages / ((System.nanoTime() - start) / 1_000_000_000d);
+
+            long[] framesIn = socketFactories.stream().mapToLong(TrafficCountingSocketFactory::getFramesIn).toArray();
+            return new Result(stripeCount, throughput, framesIn);
+        } finally {
+            for (SimpleMessageListenerContainer container : containers) {
+                container.stop();
+            }
+            stripedConnectionFactory.destroy();
+            for (String queueName : queueNames) {
+                rabbitAdmin.deleteQueue(queueName);
+            }
+        }
+    }
+
+    private CachingConnectionFactory connectionFactory(com.rabbitmq.client.ConnectionFactory rabbitConnectionFactory) {
+        CachingConnectionFactory connectionFactory = new CachingConnectionFactory(rabbitConnectionFactory);
+        connectionFactory.setHost(option("host", "localhost"));
+        connectionFactory.setPort(intOption("port", 5672));
+        connectionFactory.setUsername(option("username", "guest"));
+        connectionFactory.setPassword(option("password", "guest"));
+        return connectionFactory;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, Integer.toString(defaultValue)));
+    }
+
+    private static final class Result {
+
+        private final int stripes;
+
+        private final double throughput;
+
+        private final long[] framesIn;
+
+        private Result(int stripes, double throughput, long[] framesIn) {
+            this.stripes = stripes;
+            this.throughput = throughput;
+            this.framesIn = framesIn;
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.rabbitmq.consumer.converter;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.BenchmarkFixtures;
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import com.rabbitmq.consumer.config.ReceiverQueueConfig;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.receiver.Receiver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.listener.adapter.MessageListenerAdapter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//1 ~ 10 MB 메시지를 String(DTO)으로 변환하는 경우와 MessageBody로 넘기는 경우의 메시지당 할당량, 처리 시간을 비교합니다.
+//할당량은 -PjmhProfilers=gc로 실행하여 gc.alloc.rate.norm(B/op)으로 확인합니다. string은 body 크기 이상, view는 body 크기와 상관없이 수백 byte입니다.
+//[측정 대상]
+//1. receiver: MessageListenerAdapter -> Receiver.receiveMessage (string: jsonMessageConverter, view: consumer.wire-format.view-above 적용)
+//2. publisher: MessageInfo JSON에서 publisher만 사용하는 경우 (string: MessageInfo로 변환, view: MessageBody.valueAsString("publisher"))
+//./gradlew jmh -PjmhIncludes=LargeMessageBenchmark -PjmhProfilers=gc
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx512m"})
+public class LargeMessageBenchmark {
+
+    @Param({"string", "view"})
+    String path;
+
+    @Param({"1048576", "10485760"})
+    int messageSize;
+
+    private Message stringMessage;
+    private Message messageInfoMessage;
+    private Channel channel;
+
+    private MessageListenerAdapter messageListenerAdapter;
+    private MessageConverter messageConverter;
+
+    @Setup
+    public void setUp() {
+        String text = "x".repeat(messageSize);
+        stringMessage = BenchmarkFixtures.stringMessage(1, text);
+        messageInfoMessage = BenchmarkFixtures.messageInfoMessage(1, "publisher-1", text);
+        channel = BenchmarkFixtures.countingChannel(new LongAdder(), 0);
+
+        //애플리케이션과 같이 jsonMessageConverter Bean을 WireFormatMessageConverter로 감쌉니다. (WireFormatConfig)
+        WireFormatProperties wireFormatProperties = new WireFormatProperties();
+        wireFormatProperties.setViewAbove(path.equals("view") ? 1048576 : -1);
+        messageConverter = wireFormatProperties.toConverter(new JsonMessageConverterConfig().jsonMessageConverter());
+
+        messageListenerAdapter = new ReceiverQueueConfig().messageListenerAdapter(new Receiver(BenchmarkFixtures.messageLogging()), wireFormatProperties, messageConverter);
+    }
+
+    @Benchmark
+    public void receiver() throws Exception {
+        messageListenerAdapter.onMessage(stringMessage, channel);
+    }
+
+    @Benchmark
+    public String publisher() {
+        if (path.equals("view")) {
+            messageInfoMessage.getMessageProperties().setInferredArgumentType(MessageBody.class);
+            return ((MessageBody) messageConverter.fromMessage(messageInfoMessage)).valueAsString("publisher");
+        }
+        messageInfoMessage.getMessageProperties().setInferredArgumentType(MessageInfo.class);
+        return ((MessageInfo) messageConverter.fromMessage(messageInfoMessage)).getPublisher();
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.rabbitmq.consumer.converter;
+
+import com.rabbitmq.consumer.BenchmarkFixtures;
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+//Jackson2JsonMessageConverter와 MessageInfoMessageConverter의 메시지 1건 변환 시간(ns/op)을 비교합니다.
+//할당량(gc.alloc.rate.norm, B/op)을 함께 보려면 gc 프로파일러를 사용합니다.
+//./gradlew jmh -PjmhIncludes=MessageInfoMessageConverterBenchmark -PjmhProfilers=gc
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageInfoMessageConverterBenchmark {
+
+    private static final int PUBLISHERS = 16;
+
+    private Message[] messages;
+    private int next;
+
+    private MessageConverter jackson;
+    private MessageConverter streaming;
+    private MessageConverter streamingReuse;
+
+    @Setup
+    public void setUp() {
+        jackson = new JsonMessageConverterConfig().jsonMessageConverter();
+        streaming = new MessageInfoMessageConverter(jackson, false);
+        streamingReuse = new MessageInfoMessageConverter(jackson, true);
+
+        messages = new Message[1024];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = BenchmarkFixtures.messageInfoMessage(i + 1, "publisher-" + (i % PUBLISHERS), "message body number " + i);
+        }
+    }
+
+    private Message nextMessage() {
+        Message message = messages[next];
+        next = (next + 1) & (messages.length - 1);
+        return message;
+    }
+
+    @Benchmark
+    public Object jackson2JsonMessageConverter() {
+        return jackson.fromMessage(nextMessage());
+    }
+
+    @Benchmark
+    public Object messageInfoMessageConverter() {
+        return streaming.fromMessage(nextMessage());
+    }
+
+    @Benchmark
+    public Object messageInfoMessageConverterReuse() {
+        return streamingReuse.fromMessage(nextMessage());
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.rabbitmq.consumer.converter;
+
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+//메시지 형식(format)별로 MessageInfo 1건의 decode 시간(ns/op)과 메시지 크기(bytesPerMessage)를 비교합니다.
+//1. json: 기존 Producer와 같은 Jackson2JsonMessageConverter 형식 (MessageInfoMessageConverter로 변환)
+//2. cbor: WireFormatMessageConverter의 CBOR 형식
+//3. json-lz4, cbor-lz4: 각 형식을 LZ4로 압축한 경우
+//messageLength는 MessageInfo.message의 길이입니다. 짧은 메시지는 압축해도 크기가 거의 줄지 않고 압축 해제 비용만 늘어납니다.
+//bytesPerMessage는 결과 표의 보조 지표(decode:bytesPerMessage)로 출력됩니다.
+//./gradlew jmh -PjmhIncludes=WireFormatBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireFormatBenchmark {
+
+    private static final int PUBLISHERS = 16;
+
+    @Param({"json", "cbor", "json-lz4", "cbor-lz4"})
+    String format;
+
+    @Param({"32", "1024"})
+    int messageLength;
+
+    private Message[] messages;
+    private String[] contentEncodings;
+    private long bytesPerMessage;
+    private int next;
+
+    private MessageConverter consumer;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Size {
+
+        public long bytesPerMessage;
+
+    }
+
+    @Setup
+    public void setUp() {
+        MessageConverter json = new JsonMessageConverterConfig().jsonMessageConverter();
+        MessageConverter producer = new WireFormatMessageConverter(json, format.startsWith("cbor"), format.endsWith("lz4") ? 0 : -1);
+        consumer = new WireFormatMessageConverter(new MessageInfoMessageConverter(json, false), false, -1);
+
+        StringBuilder text = new StringBuilder();
+        messages = new Message[1024];
+        contentEncodings = new String[messages.length];
+        long totalBytes = 0;
+        for (int i = 0; i < messages.length; i++) {
+            text.setLength(0);
+            while (text.length() < messageLength) {
+                text.append("message body number ").append(i).append(' ');
+            }
+            MessageInfo messageInfo = new MessageInfo();
+            messageInfo.setPublisher("publisher-" + (i % PUBLISHERS));
+            messageInfo.setMessage(text.substring(0, messageLength));
+
+            messages[i] = producer.toMessage(messageInfo, new MessageProperties());
+            messages[i].getMessageProperties().setInferredArgumentType(MessageInfo.class);
+            contentEncodings[i] = messages[i].getMessageProperties().getContentEncoding();
+            totalBytes += messages[i].getBody().length;
+        }
+        bytesPerMessage = totalBytes / messages.length;
+    }
+
+    //보조 지표는 iteration마다 결과로 기록되므로 iteration마다 다시 설정합니다.
+    @Setup(Level.Iteration)
+    public void report(Size size) {
+        size.bytesPerMessage = bytesPerMessage;
+    }
+
+    @Benchmark
+    public Object decode(Size size) {
+        Message message = messages[next];
+        //압축을 풀면 content-encoding이 바뀌므로 보낸 상태로 되돌립니다.
+        message.getMessageProperties().setContentEncoding(contentEncodings[next]);
+        next = (next + 1) & (messages.length - 1);
+        return consumer.fromMessage(message);
+    }
+
+}
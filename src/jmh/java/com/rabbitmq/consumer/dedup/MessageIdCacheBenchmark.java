@@ -0,0 +1,64 @@
+package com.rabbitmq.consumer.dedup;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+//DeduplicationAdvice가 메시지마다 수행하는 contains + add 비용을 측정합니다. 매번 새로운 id를 사용하므로 측정하는 동안 수백만개의 id가 들어가며
+//측정이 끝나면 MessageIdCache가 사용하는 배열 크기와 GC 후 heap 사용량을 출력하여 id 수와 관계없이 메모리 사용량이 일정한지 확인합니다.
+//./gradlew jmh -PjmhIncludes=MessageIdCacheBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MessageIdCacheBenchmark {
+
+    @Param({"65536", "1048576"})
+    int capacity;
+
+    private MessageIdCache cache;
+
+    private String[] redeliveries;
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private long next = Thread.currentThread().getId() << 40;
+        private int redelivery;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new MessageIdCache(capacity, TimeUnit.MINUTES.toMillis(10));
+        redeliveries = new String[1024];
+        for (int i = 0; i < redeliveries.length; i++) {
+            redeliveries[i] = "redelivered-" + i;
+            cache.add(redeliveries[i]);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.gc();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("%n  ids seen %,d, evictions %,d, cache arrays %,d KB, heap after GC %,d KB%n",
+                cache.getHits() + cache.getMisses(), cache.getEvictions(), cache.footprintBytes() / 1024, heap / 1024);
+    }
+
+    //처음 들어오는 메시지: contains(miss) 후 add
+    @Benchmark
+    @Threads(4)
+    public boolean newMessage(Ids ids) {
+        String id = Long.toString(ids.next++);
+        boolean duplicate = cache.contains(id);
+        cache.add(id);
+        return duplicate;
+    }
+
+    //Requeue로 다시 전달된 메시지: contains(hit)
+    @Benchmark
+    @Threads(4)
+    public boolean redeliveredMessage(Ids ids) {
+        return cache.contains(redeliveries[ids.redelivery++ & (redeliveries.length - 1)]);
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.rabbitmq.consumer.listener;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.BenchmarkFixtures;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.sink.WriteBehindSink;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.ResolvableType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//메시지를 하나씩 처리하는 기존 경로(AnnotationMessageListener.receiveMessageInfo)와 batch 경로(BatchMessageListener.receiveMessageInfos)의
+//초당 처리 메시지 수를 비교합니다. 두 경로 모두 변환(Jackson2JsonMessageConverter) -> Listener 호출 -> ack 전송까지 포함합니다.
+//./gradlew jmh -PjmhIncludes=BatchListenerBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchListenerBenchmark {
+
+    //한번의 벤치마크 호출에서 처리하는 메시지 수입니다. 결과는 메시지 1개 기준(ops = message)으로 환산됩니다.
+    private static final int MESSAGES = 1000;
+
+    @Param({"10", "100"})
+    int batchSize;
+
+    //ack frame 하나를 전송하는 비용(Blackhole.consumeCPU 토큰)입니다.
+    @Param({"0", "2000"})
+    long frameCost;
+
+    private Message[] messages;
+    private MessageConverter converter;
+    private Channel channel;
+    private final LongAdder frames = new LongAdder();
+    private final AnnotationMessageListener annotationMessageListener = new AnnotationMessageListener(new AckCoalescers(50, 100), BenchmarkFixtures.messageLogging(), null, null);
+    //WriteBehindSink 없이(consumer.sink.enabled: false) Listener만 측정합니다. (WriteBehindSink는 WriteBehindSinkBenchmark 참고)
+    private final BatchMessageListener batchMessageListener = new BatchMessageListener(BenchmarkFixtures.messageLogging(),
+            new StaticListableBeanFactory().getBeanProvider(ResolvableType.forClassWithGenerics(WriteBehindSink.class, MessageInfo.class)));
+
+    @Setup
+    public void setUp() {
+        converter = new JsonMessageConverterConfig().jsonMessageConverter();
+        channel = BenchmarkFixtures.countingChannel(frames, frameCost);
+        messages = new Message[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = BenchmarkFixtures.messageInfoMessage(i + 1, "publisher-" + (i % 8), "message-" + i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void perMessage() throws IOException {
+        for (Message message : messages) {
+            annotationMessageListener.receiveMessageInfo((MessageInfo) converter.fromMessage(message));
+            channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void batch(Blackhole blackhole) throws IOException {
+        List<MessageInfo> messageInfos = new ArrayList<>(batchSize);
+        for (Message message : messages) {
+            messageInfos.add((MessageInfo) converter.fromMessage(message));
+            if (messageInfos.size() == batchSize) {
+                flush(messageInfos, message);
+            }
+        }
+        if (!messageInfos.isEmpty()) {
+            flush(messageInfos, messages[messages.length - 1]);
+        }
+        blackhole.consume(messageInfos);
+    }
+
+    private void flush(List<MessageInfo> messageInfos, Message last) throws IOException {
+        batchMessageListener.receiveMessageInfos(messageInfos);
+        channel.basicAck(last.getMessageProperties().getDeliveryTag(), true);
+        messageInfos.clear();
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.rabbitmq.consumer.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.helpers.NOPAppender;
+import com.rabbitmq.consumer.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//메시지 1건의 로그를 남기는 비용(시간, 할당량)을 기존 문자열 연결 방식과 MessageLogger로 비교합니다.
+//로그는 logback-spring.xml과 같이 AsyncAppender를 거치며 실제 출력 대신 NOPAppender로 버립니다.
+//1. level = WARN: INFO가 꺼져 있는 경우 (기존 방식은 출력하지 않아도 Message.toString()으로 바디 전체를 문자열로 만듭니다.)
+//2. level = INFO: 모든 메시지(messageLogger) 또는 1%의 메시지(messageLoggerSampled)만 로그를 남기는 경우
+//메시지 1건당 할당량은 -prof gc의 gc.alloc.rate.norm(B/op)으로 확인합니다.
+//./gradlew jmh -PjmhIncludes=MessageLoggerBenchmark -PjmhProfilers=gc
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageLoggerBenchmark {
+
+    @Param({"WARN", "INFO"})
+    String level;
+
+    private final Logger log = LoggerFactory.getLogger(MessageLoggerBenchmark.class);
+
+    private MessageLogger messageLogger;
+    private MessageLogger sampledMessageLogger;
+    private Message message;
+    private AsyncAppender asyncAppender;
+
+    @Setup
+    public void setUp() {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        NOPAppender<ILoggingEvent> nopAppender = new NOPAppender<>();
+        nopAppender.setContext(loggerContext);
+        nopAppender.start();
+        asyncAppender = new AsyncAppender();
+        asyncAppender.setContext(loggerContext);
+        asyncAppender.setQueueSize(8192);
+        asyncAppender.setNeverBlock(true);
+        asyncAppender.addAppender(nopAppender);
+        asyncAppender.start();
+
+        ch.qos.logback.classic.Logger logger = loggerContext.getLogger(MessageLoggerBenchmark.class);
+        logger.setLevel(Level.toLevel(level));
+        logger.setAdditive(false);
+        logger.addAppender(asyncAppender);
+
+        messageLogger = BenchmarkFixtures.messageLogging().getLogger(MessageLoggerBenchmark.class);
+        MessageLoggingProperties sampled = new MessageLoggingProperties();
+        sampled.setSampleRates(Map.of("ack.test.queue", 0.01));
+        sampledMessageLogger = new MessageLogging(sampled).getLogger(MessageLoggerBenchmark.class);
+
+        //실제 메시지와 비슷하게 바디가 1KB 정도인 MessageInfo 메시지를 사용합니다.
+        message = BenchmarkFixtures.messageInfoMessage(1, "publisher-1", "x".repeat(1000));
+    }
+
+    @TearDown
+    public void tearDown() {
+        asyncAppender.stop();
+    }
+
+    //기존 Listener의 방식: log.info("<==================== Message Info: " + message)
+    @Benchmark
+    public void concatenation() {
+        log.info("<==================== Message Info: " + message);
+    }
+
+    @Benchmark
+    public void messageLogger() {
+        messageLogger.info("<==================== Message Info:", message);
+    }
+
+    @Benchmark
+    public void messageLoggerSampled() {
+        sampledMessageLogger.info("<==================== Message Info:", message);
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.rabbitmq.consumer.metrics;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.BenchmarkFixtures;
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//ListenerMetricsAdvice, TimedMessageConverter를 붙였을때 메시지 1건당 늘어나는 시간을 측정합니다.
+//컨테이너의 invokeListener 대신 jsonMessageConverter로 변환한 뒤 handlerTokens만큼 CPU를 사용하는 Listener를 호출합니다.
+//handlerTokens = 0은 메트릭 자체의 비용, 2500은 메시지당 약 10us가 걸리는 Listener(Consumer 하나가 약 100k msg/s 처리)에서의 비율을 확인하는 용도입니다.
+//instrumented - plain 차이가 메시지당 메트릭 비용이며 2500에서 plain의 몇 %인지 확인합니다.
+//./gradlew jmh -PjmhIncludes=ListenerMetricsBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ListenerMetricsBenchmark {
+
+    @Param({"0", "2500"})
+    long handlerTokens;
+
+    private Message message;
+    private Channel channel;
+
+    private MessageConverter plainConverter;
+    private MessageConverter timedConverter;
+    private ListenerMetricsAdvice advice;
+
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        message = BenchmarkFixtures.messageInfoMessage(1, "publisher-1", "message body");
+        channel = BenchmarkFixtures.countingChannel(new LongAdder(), 0);
+
+        ListenerMetrics listenerMetrics = new ListenerMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), 60_000);
+        plainConverter = new JsonMessageConverterConfig().jsonMessageConverter();
+        timedConverter = listenerMetrics.timed(plainConverter);
+        advice = new ListenerMetricsAdvice(listenerMetrics);
+    }
+
+    @Benchmark
+    public Object plain() {
+        return listener(plainConverter, message);
+    }
+
+    @Benchmark
+    public Object instrumented() throws Throwable {
+        return advice.invoke(new ListenerInvocation(this, timedConverter, channel, message));
+    }
+
+    private Object listener(MessageConverter messageConverter, Message message) {
+        Object payload = messageConverter.fromMessage(message);
+        blackhole.consume(payload);
+        Blackhole.consumeCPU(handlerTokens);
+        return null;
+    }
+
+    //컨테이너가 advice를 거쳐 invokeListener(Channel, Object data)를 호출할때 전달하는 MethodInvocation과 같은 역할입니다.
+    private static final class ListenerInvocation implements MethodInvocation {
+
+        private final ListenerMetricsBenchmark benchmark;
+        private final MessageConverter messageConverter;
+        private final Object[] arguments;
+
+        ListenerInvocation(ListenerMetricsBenchmark benchmark, MessageConverter messageConverter, Channel channel, Message message) {
+            this.benchmark = benchmark;
+            this.messageConverter = messageConverter;
+            this.arguments = new Object[]{channel, message};
+        }
+
+        @Override
+        public Method getMethod() {
+            return null;
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return arguments;
+        }
+
+        @Override
+        public Object proceed() {
+            return benchmark.listener(messageConverter, (Message) arguments[1]);
+        }
+
+        @Override
+        public Object getThis() {
+            return benchmark;
+        }
+
+        @Override
+        public AccessibleObject getStaticPart() {
+            return null;
+        }
+
+    }
+
+}
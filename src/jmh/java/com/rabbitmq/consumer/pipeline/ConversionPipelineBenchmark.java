@@ -0,0 +1,127 @@
+package com.rabbitmq.consumer.pipeline;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.BenchmarkFixtures;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//깊게 중첩된 큰 JSON(orders -> items -> attributes)을 jsonMessageConverter로 변환하는 Listener의 처리량을
+//Consumer 쓰레드에서 변환하는 경우(decoders = 0)와 ConversionPipeline의 decoder 쓰레드에서 변환하는 경우로 비교합니다.
+//Consumer 하나가 메시지를 받는 상황이므로 decoders = 0이면 변환과 handler가 모두 한 쓰레드에서 실행되고
+//pipeline은 decoders개의 쓰레드가 동시에 변환하고 handler는 받은 순서대로 한 쓰레드에서 실행됩니다. (CPU 수보다 decoders가 많으면 빨라지지 않습니다.)
+//한번의 호출에서 보낸 메시지가 모두 handler 호출, ack 기록까지 끝날때까지 기다립니다.
+//./gradlew jmh -PjmhIncludes=ConversionPipelineBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+public class ConversionPipelineBenchmark {
+
+    //한번의 벤치마크 호출에서 처리하는 메시지 수입니다. 결과는 메시지 1개 기준(ops = message)으로 환산됩니다.
+    private static final int MESSAGES = 200;
+
+    @Param({"0", "2", "4", "8"})
+    int decoders;
+
+    //메시지 하나의 orders 수입니다. order마다 item 10개, item마다 attributes 객체가 있으며 10이면 약 10 KB, 100이면 약 100 KB입니다.
+    @Param({"10", "100"})
+    int orders;
+
+    private Message[] messages;
+    private Channel channel;
+    private AckCoalescers ackCoalescers;
+    private ConversionPipeline pipeline;
+    private ChannelAwareMessageListener listener;
+    private long deliveryTag;
+
+    @Setup
+    public void setUp() {
+        MessageConverter converter = new JsonMessageConverterConfig().jsonMessageConverter();
+        channel = BenchmarkFixtures.countingChannel(new LongAdder(), 0);
+        ackCoalescers = new AckCoalescers(50, 100);
+        messages = new Message[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = nestedMessage(i, orders);
+        }
+
+        Function<Message, Object> decoder = converter::fromMessage;
+        Consumer<Object> handler = payload -> Blackhole.consumeCPU(((Map<?, ?>) payload).size());
+        if (decoders == 0) {
+            //AUTO ackMode 컨테이너와 같이 Consumer 쓰레드에서 변환, handler 호출 뒤 ack를 기록합니다.
+            listener = (message, consumerChannel) -> {
+                handler.accept(decoder.apply(message));
+                ackCoalescers.forChannel(consumerChannel).ack(message.getMessageProperties().getDeliveryTag());
+            };
+        } else {
+            pipeline = new ConversionPipeline("benchmark", 256, decoders, ackCoalescers);
+            pipeline.start();
+            listener = new PipelinedMessageListener<>(pipeline, decoder, handler);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void convert() throws Exception {
+        for (Message message : messages) {
+            //AckCoalescer는 같은 Channel에서 delivery tag가 반복되면 안되므로 호출마다 이어서 증가시킵니다.
+            message.getMessageProperties().setDeliveryTag(++deliveryTag);
+            listener.onMessage(message, channel);
+        }
+        if (pipeline != null) {
+            while (pipeline.getInFlight() > 0) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    //Producer가 Jackson2JsonMessageConverter로 Map을 보낸 것과 같은 형태(__TypeId__ = LinkedHashMap)의 메시지를 생성합니다.
+    private static Message nestedMessage(int sequence, int orders) {
+        StringBuilder json = new StringBuilder("{\"publisher\":\"publisher-").append(sequence % 16).append("\",\"orders\":[");
+        for (int order = 0; order < orders; order++) {
+            if (order > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(order).append(",\"status\":\"PAID\",\"items\":[");
+            for (int item = 0; item < 10; item++) {
+                if (item > 0) {
+                    json.append(',');
+                }
+                json.append("{\"sku\":\"sku-").append(order).append('-').append(item)
+                        .append("\",\"quantity\":").append(item + 1)
+                        .append(",\"price\":").append(item * 1.5)
+                        .append(",\"attributes\":{\"color\":\"red\",\"size\":\"L\",\"tags\":[\"a\",\"b\",\"c\"]}}");
+            }
+            json.append("]}");
+        }
+        json.append("]}");
+
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        messageProperties.setHeader("__TypeId__", LinkedHashMap.class.getName());
+        messageProperties.setConsumerQueue("messageInfo.test.queue");
+        return new Message(json.toString().getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.rabbitmq.consumer.shard;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.BenchmarkFixtures;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import com.rabbitmq.consumer.converter.MessageInfoMessageConverter;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//Consumer 하나가 받은 메시지를 lane 수에 따라 얼마나 빠르게 처리하는지 측정합니다. (lanes = 1이 Consumer 하나로 순서대로 처리하는 경우와 같습니다.)
+//Consumer 쓰레드에서 변환(MessageInfoMessageConverter) -> publisher로 lane 선택 -> lane에서 Listener 처리 -> ack 기록까지 포함하며
+//한번의 호출에서 보낸 메시지가 모두 처리될때까지 기다립니다.
+//listenerCost는 Listener 하나가 소모하는 CPU(Blackhole.consumeCPU 토큰)입니다. Listener가 가벼우면 dispatch 비용 때문에 lane을 늘려도 빨라지지 않습니다.
+//./gradlew jmh -PjmhIncludes=ShardedDispatcherBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ShardedDispatcherBenchmark {
+
+    //한번의 벤치마크 호출에서 처리하는 메시지 수입니다. 결과는 메시지 1개 기준(ops = message)으로 환산됩니다.
+    private static final int MESSAGES = 1000;
+
+    @Param({"1", "2", "4", "8"})
+    int lanes;
+
+    @Param({"0", "5000"})
+    long listenerCost;
+
+    private Message[] messages;
+    private Channel channel;
+    private ShardedDispatcher dispatcher;
+    private ShardedMessageListener<MessageInfo> listener;
+    private long deliveryTag;
+
+    @Setup
+    public void setUp() {
+        MessageConverter converter = new MessageInfoMessageConverter(new JsonMessageConverterConfig().jsonMessageConverter(), false);
+        channel = BenchmarkFixtures.countingChannel(new LongAdder(), 0);
+        messages = new Message[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = BenchmarkFixtures.messageInfoMessage(i + 1, "publisher-" + (i % 64), "message-" + i);
+        }
+
+        dispatcher = new ShardedDispatcher("benchmark", lanes, 256, new AckCoalescers(50, 100));
+        dispatcher.start();
+        listener = new ShardedMessageListener<>(dispatcher, message -> (MessageInfo) converter.fromMessage(message),
+                (message, messageInfo) -> messageInfo.getPublisher(),
+                messageInfo -> Blackhole.consumeCPU(listenerCost));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void dispatch() throws Exception {
+        for (Message message : messages) {
+            //AckCoalescer는 같은 Channel에서 delivery tag가 반복되면 안되므로 호출마다 이어서 증가시킵니다.
+            message.getMessageProperties().setDeliveryTag(++deliveryTag);
+            listener.onMessage(message, channel);
+        }
+        while (dispatcher.getInFlight() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+}
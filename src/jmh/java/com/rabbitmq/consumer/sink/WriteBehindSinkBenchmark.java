@@ -0,0 +1,102 @@
+package com.rabbitmq.consumer.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//BatchMessageListener가 받은 batch(100개)를 Downstream에 보내고 ack할 수 있을때까지의 초당 메시지 수를 비교합니다.
+//1. direct: 메시지마다 Downstream을 한번씩 호출 (기존 방식)
+//2. writeBehind: WriteBehindSink.append (로컬 로그 추가 + group commit) 후 반환, Downstream은 drainer 쓰레드가 drain-batch-size개씩 호출
+//Downstream은 호출 한번에 downstreamMicros만큼 걸리는 것으로 흉내냅니다. (네트워크 왕복, DB commit 등)
+//drainedMessages(초당)는 실제로 Downstream까지 전달된 메시지 수이며 writeBehind에서 해당 값이 결과보다 작으면 로그에 backlog가 쌓이는 중입니다.
+//./gradlew jmh -PjmhIncludes=WriteBehindSinkBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WriteBehindSinkBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"direct", "writeBehind"})
+    String path;
+
+    @Param({"50", "500"})
+    long downstreamMicros;
+
+    private final List<MessageInfo> batch = new ArrayList<>(BATCH);
+    private final LongAdder drainedTotal = new LongAdder();
+
+    private Path directory;
+    private SinkWriter<MessageInfo> downstream;
+    private WriteBehindSink<MessageInfo> sink;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Drained {
+
+        public long drainedMessages;
+
+        long base;
+
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            MessageInfo messageInfo = new MessageInfo();
+            messageInfo.setPublisher("publisher-" + (i % 8));
+            messageInfo.setMessage("message body number " + i);
+            batch.add(messageInfo);
+        }
+        downstream = records -> {
+            LockSupport.parkNanos(downstreamMicros * 1000);
+            drainedTotal.add(records.size());
+        };
+
+        directory = Files.createTempDirectory("sink-benchmark");
+        SinkProperties sinkProperties = new SinkProperties();
+        sinkProperties.setDirectory(directory.toString());
+        sinkProperties.setSegmentSize(DataSize.ofMegabytes(64));
+        sink = new WriteBehindSink<>("benchmark", sinkProperties, WriteBehindSink.Codec.json(new ObjectMapper(), MessageInfo.class),
+                downstream, new SimpleMeterRegistry());
+        sink.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sink.stop();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetDrained(Drained drained) {
+        drained.base = drainedTotal.sum();
+        drained.drainedMessages = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void receiveBatch(Drained drained) throws Exception {
+        if (path.equals("direct")) {
+            for (MessageInfo messageInfo : batch) {
+                downstream.write(List.of(messageInfo));
+            }
+        } else {
+            sink.append(batch);
+        }
+        drained.drainedMessages = drainedTotal.sum() - drained.base;
+    }
+
+}
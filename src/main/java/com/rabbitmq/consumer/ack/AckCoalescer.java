@@ -0,0 +1,206 @@
+package com.rabbitmq.consumer.ack;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.metrics.DeliveryOutcome;
+import com.rabbitmq.consumer.metrics.ListenerMetrics;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+//MANUAL ackMode Listener에서 delivery tag별 처리 결과(ack, nack, reject)를 모아두었다가 최소한의 frame으로 Channel에 전송합니다.
+//[multiple = true를 사용할 수 있는 조건]
+//basicAck(tag, true), basicNack(tag, true, requeue)는 해당 Channel에서 아직 처리되지 않은 tag 이하의 모든 메시지를 한번에 처리합니다.
+//따라서 아직 Listener가 처리중인(결과가 기록되지 않은) tag보다 큰 결과는 multiple로 보내면 처리중인 메시지까지 ack 되어버립니다.
+//1. 마지막으로 처리가 끝난 tag(settledUpTo) 바로 다음부터 결과가 연속으로 기록된 구간만 multiple로 전송합니다.
+//2. 연속 구간 안에서 결과가 바뀌는 지점마다 frame을 나눕니다. (예: ack 1~3, nack 4~5, ack 6 -> frame 3개)
+//3. reject는 multiple을 지원하지 않으므로 같은 의미의 nack(requeue 동일)으로 바꿔서 전송합니다.
+//4. 처리중인 tag(gap) 뒤에 기록된 결과는 flush(true)가 호출될 때만 multiple = false로 하나씩 전송합니다.
+//5. 결과가 기록되지 않은 tag는 절대 건너뛰지 않습니다. gap 뒤에 먼저 전송된 tag는 연속 구간(settledAhead)으로 합쳐서 보관하므로
+//gap이 오래 남아있어도 메모리는 gap 수만큼만 사용합니다. 결과가 끝내 기록되지 않는 tag는 AckCoalescers가 orphan-timeout 뒤에 Channel을 닫아서
+//브로커가 다시 전달하도록 합니다. (getStalledNanos 참고)
+//[주의사항]
+//1. delivery tag는 Channel마다 1부터 증가하므로 해당 Channel의 모든 메시지 결과를 AckCoalescer로 기록해야 합니다. 일부만 channel.basicAck로 직접
+//처리하면 이미 처리된 tag로 multiple 전송을 하게되어 Channel이 닫힐 수 있습니다.
+//2. 결과를 모아두는 동안 해당 메시지는 Unacked 상태로 prefetch를 차지하므로 batchSize는 prefetch보다 작아야 합니다. (AckCoalescers의 타이머가 주기적으로 flush)
+public class AckCoalescer {
+
+    private enum Outcome { ACK, NACK_REQUEUE, NACK_DISCARD }
+
+    private final Channel channel;
+
+    private final int batchSize;
+
+    //null이 아니면 ack, nack, reject 결과와 frame 전송 시간을 기록합니다.
+    private final ListenerMetrics listenerMetrics;
+
+    //결과가 기록되었지만 아직 전송하지 않은 tag
+    private final TreeMap<Long, Outcome> pending = new TreeMap<>();
+
+    //gap 뒤에 있어서 multiple = false로 먼저 전송된 tag의 구간(시작 tag -> 끝 tag)입니다. 이어지는 tag는 하나의 구간으로 합칩니다.
+    private final TreeMap<Long, Long> settledAhead = new TreeMap<>();
+
+    //해당 tag 이하는 모두 전송이 끝난 상태입니다.
+    private long settledUpTo;
+
+    //뒤의 결과가 기록된 채로 남아있는 gap(settledUpTo + 1)과 처음 확인한 시각입니다. gap이 없으면 0입니다.
+    private long gapTag;
+
+    private long gapSinceNanos;
+
+    private long frames;
+
+    public AckCoalescer(Channel channel, int batchSize) {
+        this(channel, batchSize, null);
+    }
+
+    public AckCoalescer(Channel channel, int batchSize, ListenerMetrics listenerMetrics) {
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.listenerMetrics = listenerMetrics;
+    }
+
+    public void ack(long deliveryTag) throws IOException {
+        record(deliveryTag, Outcome.ACK);
+        if (listenerMetrics != null) {
+            listenerMetrics.recordOutcome(DeliveryOutcome.ACK, false);
+        }
+    }
+
+    public void nack(long deliveryTag, boolean requeue) throws IOException {
+        record(deliveryTag, requeue ? Outcome.NACK_REQUEUE : Outcome.NACK_DISCARD);
+        if (listenerMetrics != null) {
+            listenerMetrics.recordOutcome(DeliveryOutcome.NACK, requeue);
+        }
+    }
+
+    public void reject(long deliveryTag, boolean requeue) throws IOException {
+        record(deliveryTag, requeue ? Outcome.NACK_REQUEUE : Outcome.NACK_DISCARD);
+        if (listenerMetrics != null) {
+            listenerMetrics.recordOutcome(DeliveryOutcome.REJECT, requeue);
+        }
+    }
+
+    private synchronized void record(long deliveryTag, Outcome outcome) throws IOException {
+        if (deliveryTag <= settledUpTo || isSettledAhead(deliveryTag) || pending.putIfAbsent(deliveryTag, outcome) != null) {
+            throw new IllegalStateException("Delivery tag " + deliveryTag + " is already acknowledged");
+        }
+        if (pending.size() >= batchSize) {
+            flush(false);
+        }
+    }
+
+    //force가 false이면 연속 구간만 전송하고 true이면 gap 뒤에 기록된 결과도 하나씩 전송합니다.
+    public synchronized void flush(boolean force) throws IOException {
+        long next = settledUpTo + 1;
+        Outcome runOutcome = null;
+        long runStart = 0;
+        long runEnd = 0;
+        while (true) {
+            if (!settledAhead.isEmpty() && settledAhead.firstKey() == next) {
+                next = settledAhead.pollFirstEntry().getValue() + 1;
+                continue;
+            }
+            Outcome outcome = pending.get(next);
+            if (outcome == null) {
+                break;
+            }
+            pending.remove(next);
+            if (runOutcome != null && outcome != runOutcome) {
+                send(runOutcome, runEnd, runEnd > runStart);
+                runOutcome = null;
+            }
+            if (runOutcome == null) {
+                runOutcome = outcome;
+                runStart = next;
+            }
+            runEnd = next;
+            next++;
+        }
+        if (runOutcome != null) {
+            send(runOutcome, runEnd, runEnd > runStart);
+        }
+        settledUpTo = next - 1;
+
+        if (force) {
+            Iterator<Map.Entry<Long, Outcome>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Outcome> entry = iterator.next();
+                send(entry.getValue(), entry.getKey(), false);
+                addSettledAhead(entry.getKey());
+                iterator.remove();
+            }
+        }
+        trackGap();
+    }
+
+    private boolean isSettledAhead(long deliveryTag) {
+        Map.Entry<Long, Long> range = settledAhead.floorEntry(deliveryTag);
+        return range != null && deliveryTag <= range.getValue();
+    }
+
+    //앞뒤 구간과 이어지면 하나의 구간으로 합칩니다.
+    private void addSettledAhead(long deliveryTag) {
+        long start = deliveryTag;
+        long end = deliveryTag;
+        Map.Entry<Long, Long> before = settledAhead.floorEntry(deliveryTag - 1);
+        if (before != null && before.getValue() == deliveryTag - 1) {
+            start = before.getKey();
+        }
+        Long after = settledAhead.remove(deliveryTag + 1);
+        if (after != null) {
+            end = after;
+        }
+        settledAhead.put(start, end);
+    }
+
+    private void trackGap() {
+        long gap = pending.isEmpty() && settledAhead.isEmpty() ? 0 : settledUpTo + 1;
+        if (gap != gapTag) {
+            gapTag = gap;
+            gapSinceNanos = System.nanoTime();
+        }
+    }
+
+    //settledUpTo + 1의 결과가 기록되지 않은 채로 그 뒤의 결과가 기록되어 있던 시간입니다. (flush할때 확인, gap이 없으면 0)
+    public synchronized long getStalledNanos() {
+        return gapTag == 0 ? 0 : System.nanoTime() - gapSinceNanos;
+    }
+
+    private void send(Outcome outcome, long deliveryTag, boolean multiple) throws IOException {
+        long start = System.nanoTime();
+        switch (outcome) {
+            case ACK:
+                channel.basicAck(deliveryTag, multiple);
+                break;
+            case NACK_REQUEUE:
+                channel.basicNack(deliveryTag, multiple, true);
+                break;
+            case NACK_DISCARD:
+                channel.basicNack(deliveryTag, multiple, false);
+                break;
+        }
+        frames++;
+        if (listenerMetrics != null) {
+            listenerMetrics.recordAckFrame(System.nanoTime() - start);
+        }
+    }
+
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    synchronized int getSettledAheadRanges() {
+        return settledAhead.size();
+    }
+
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    Channel getChannel() {
+        return channel;
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.rabbitmq.consumer.ack;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.metrics.ListenerMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//Channel마다 AckCoalescer를 하나씩 만들어서 관리하고 flushIntervalMillis마다 모든 AckCoalescer를 flush(true) 합니다.
+//Listener는 channel.basicAck, basicNack, basicReject 대신 ackCoalescers.forChannel(channel)의 ack, nack, reject를 호출합니다.
+//Channel이 닫히면(Consumer 재시작 등) 해당 Channel의 AckCoalescer는 제거되며 전송되지 않은 결과는 브로커가 재전송합니다.
+//결과가 기록되지 않은 tag(gap)가 orphanTimeoutMillis보다 오래 남아있으면 해당 tag를 ack하지 않고 Channel을 닫습니다.
+//gap 뒤의 결과는 multiple로 전송할 수 없어서 하나씩 전송되므로 Channel을 닫아 브로커가 gap의 메시지를 다시 전달하게 합니다. (0 이하이면 닫지 않음)
+@Slf4j
+public class AckCoalescers implements SmartLifecycle {
+
+    private final Map<Channel, AckCoalescer> coalescers = new ConcurrentHashMap<>();
+
+    private final int batchSize;
+
+    private final long flushIntervalMillis;
+
+    private final long orphanTimeoutMillis;
+
+    private final ListenerMetrics listenerMetrics;
+
+    private ScheduledExecutorService scheduler;
+
+    public AckCoalescers(int batchSize, long flushIntervalMillis) {
+        this(batchSize, flushIntervalMillis, null);
+    }
+
+    public AckCoalescers(int batchSize, long flushIntervalMillis, ListenerMetrics listenerMetrics) {
+        this(batchSize, flushIntervalMillis, 0, listenerMetrics);
+    }
+
+    public AckCoalescers(int batchSize, long flushIntervalMillis, long orphanTimeoutMillis, ListenerMetrics listenerMetrics) {
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.orphanTimeoutMillis = orphanTimeoutMillis;
+        this.listenerMetrics = listenerMetrics;
+    }
+
+    //이미 닫힌 Channel은 addShutdownListener에서 바로 Listener가 호출되므로 Map을 변경하는 중(computeIfAbsent)에 등록하지 않습니다.
+    public AckCoalescer forChannel(Channel channel) {
+        AckCoalescer coalescer = coalescers.get(channel);
+        if (coalescer != null) {
+            return coalescer;
+        }
+        AckCoalescer created = new AckCoalescer(channel, batchSize, listenerMetrics);
+        coalescer = coalescers.putIfAbsent(channel, created);
+        if (coalescer != null) {
+            return coalescer;
+        }
+        channel.addShutdownListener(cause -> coalescers.remove(channel));
+        return created;
+    }
+
+    public void flushAll() {
+        for (AckCoalescer coalescer : coalescers.values()) {
+            if (!coalescer.getChannel().isOpen()) {
+                coalescers.remove(coalescer.getChannel());
+                continue;
+            }
+            try {
+                coalescer.flush(true);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to flush acknowledgements on {}", coalescer.getChannel(), e);
+            }
+            if (orphanTimeoutMillis > 0 && coalescer.getStalledNanos() > TimeUnit.MILLISECONDS.toNanos(orphanTimeoutMillis)) {
+                close(coalescer.getChannel());
+            }
+        }
+    }
+
+    private void close(Channel channel) {
+        log.warn("Closing {}: a delivery has had no acknowledgement for more than {} ms, the broker will redeliver it",
+                channel, orphanTimeoutMillis);
+        coalescers.remove(channel);
+        try {
+            channel.close();
+        } catch (IOException | TimeoutException | RuntimeException e) {
+            log.debug("Failed to close {}", channel, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ack-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //멈추기 전에 남은 결과를 전송합니다. 이미 닫힌 Channel의 결과는 전송할 수 없으며 해당 메시지는 브로커가 다시 전송합니다.
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        flushAll();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    //SmartLifecycle은 phase가 낮을수록 나중에 멈추므로 Listener 컨테이너(Integer.MAX_VALUE)가 처리중인 메시지를 마무리한 뒤에 멈추도록 합니다.
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+}
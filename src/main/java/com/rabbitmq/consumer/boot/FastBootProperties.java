@@ -0,0 +1,21 @@
+package com.rabbitmq.consumer.boot;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//consumer.fast-boot로 시작하는 application.yml 설정값입니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.fast-boot")
+public class FastBootProperties {
+
+    private boolean enabled = false;
+
+    //Connection이 만들어질때 Queue, Exchange가 모두 있으면 RabbitAdmin의 선언(declare)을 건너뜁니다.
+    private boolean skipExistingTopology = true;
+
+    //Listener 컨테이너를 동시에 시작할 쓰레드 수입니다. 1이면 기존과 같이 하나씩 시작하지만 애플리케이션 시작을 기다리게 하지는 않습니다.
+    private int startThreads = 4;
+
+}
@@ -0,0 +1,124 @@
+package com.rabbitmq.consumer.boot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//Listener 컨테이너를 애플리케이션 시작 쓰레드에서 하나씩 시작하지 않고 startThreads개의 쓰레드에서 동시에 시작합니다.
+//SimpleMessageListenerContainer.start()는 Consumer가 basicConsume을 마칠때까지 기다리므로 컨테이너가 많으면 시작 시간이 컨테이너 수만큼 늘어나며
+//애플리케이션(actuator 포함)은 모든 컨테이너가 시작된 뒤에야 시작이 끝납니다.
+//[동작 방식]
+//1. 컨테이너(phase Integer.MAX_VALUE)보다 먼저 시작되어 autoStartup인 컨테이너의 autoStartup을 false로 바꿉니다.
+//Spring의 LifecycleProcessor와 RabbitListenerEndpointRegistry는 컨테이너를 시작하기 직전에 autoStartup을 다시 확인하므로 해당 컨테이너를 시작하지 않습니다.
+//2. 모든 phase의 SmartLifecycle(ShardedDispatcher, ConversionPipeline, AckCoalescers, WriteBehindSink 등)이 시작된 뒤
+//ContextRefreshedEvent를 받으면 바꾼 컨테이너를 startThreads개의 쓰레드에서 시작하고 기다리지 않고 반환합니다. (lazy start)
+//컨테이너가 먼저 메시지를 받으면 dispatcher, pipeline은 실행중이 아니어서 nack(requeue)하고 AckCoalescers는 flush 타이머 없이 ack를 모으게 됩니다.
+//3. 컨테이너를 멈추는 것은 기존과 같이 Spring(컨테이너 Bean, RabbitListenerEndpointRegistry)이 담당합니다.
+@Slf4j
+public class ParallelContainerStarter implements SmartLifecycle, ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware {
+
+    private final Supplier<Collection<MessageListenerContainer>> containers;
+
+    private final int startThreads;
+
+    private ApplicationContext applicationContext;
+
+    //start()에서 autoStartup을 끄고 ContextRefreshedEvent에서 시작할 컨테이너입니다.
+    private List<MessageListenerContainer> deferred;
+
+    private volatile boolean running;
+
+    private ExecutorService executor;
+
+    public ParallelContainerStarter(Supplier<Collection<MessageListenerContainer>> containers, int startThreads) {
+        this.containers = containers;
+        this.startThreads = startThreads;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public synchronized void start() {
+        deferred = new ArrayList<>();
+        for (MessageListenerContainer container : containers.get()) {
+            if (container instanceof AbstractMessageListenerContainer && container.isAutoStartup() && !container.isRunning()) {
+                ((AbstractMessageListenerContainer) container).setAutoStartup(false);
+                deferred.add(container);
+            }
+        }
+        running = true;
+    }
+
+    //ContextRefreshedEvent는 LifecycleProcessor가 모든 phase를 시작한 뒤에 발행됩니다.
+    //actuator 등 자식 ApplicationContext의 이벤트도 전달되므로 이 Bean이 속한 ApplicationContext의 이벤트만 처리합니다.
+    @Override
+    public synchronized void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != applicationContext || deferred == null || !running) {
+            return;
+        }
+        List<MessageListenerContainer> starting = deferred;
+        deferred = null;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, startThreads), runnable -> {
+            Thread thread = new Thread(runnable, "container-starter-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startNanos = System.nanoTime();
+        CompletableFuture<?>[] starts = new CompletableFuture<?>[starting.size()];
+        for (int i = 0; i < starts.length; i++) {
+            MessageListenerContainer container = starting.get(i);
+            starts[i] = CompletableFuture.runAsync(container::start, executor).whenComplete((result, e) -> {
+                if (e != null) {
+                    log.error("Failed to start listener container {}", container.getListenerId(), e);
+                }
+            });
+        }
+        CompletableFuture.allOf(starts).whenComplete((result, e) ->
+                log.info("Started {} listener containers in {}ms", starts.length, (System.nanoTime() - startNanos) / 1_000_000));
+        //시작이 모두 끝나면 쓰레드를 정리합니다. (shutdown은 이미 제출된 작업을 취소하지 않음)
+        executor.shutdown();
+    }
+
+    //ContextRefreshedEvent 전에 멈추면 컨테이너를 시작하지 않습니다.
+    @Override
+    public synchronized void stop() {
+        running = false;
+        deferred = null;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //autoStartup은 컨테이너(Integer.MAX_VALUE)가 시작되기 전에 꺼야 하므로 Integer.MAX_VALUE - 1 phase의
+    //ShardedDispatcher, ConversionPipeline, AckCoalescers, WriteBehindSink보다 먼저 시작되지만 컨테이너는 ContextRefreshedEvent에서 시작합니다.
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2;
+    }
+
+}
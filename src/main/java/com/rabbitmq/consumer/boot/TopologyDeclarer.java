@@ -0,0 +1,114 @@
+package com.rabbitmq.consumer.boot;
+
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+//RabbitAdmin 대신 Connection이 만들어질때 호출되어 Queue, Exchange가 모두 있는 경우에는 선언(declare)을 건너뜁니다.
+//RabbitAdmin은 Connection이 만들어질때마다 @QueueBinding, exchange(), queue(), binding() 등 모든 Declarable을 하나씩 선언하므로
+//Pod를 순서대로 재시작할때(rolling restart) 이미 있는 topology를 매번 다시 선언하게 됩니다.
+//[동작 방식]
+//1. 하나의 Channel로 Queue는 queueDeclarePassive, Exchange는 exchangeDeclarePassive로 있는지만 확인합니다.
+//2. 하나라도 없으면(404로 Channel이 닫힘) RabbitAdmin.initialize()로 기존과 같이 모두 선언합니다.
+//Binding은 passive로 확인할 수 없으므로 Queue, Exchange가 모두 있으면 Binding도 있는 것으로 봅니다. Binding만 바꾼 경우에는
+//consumer.fast-boot.skip-existing-topology를 false로 설정하고 한번 시작해야 합니다.
+//Queue의 arguments(x-dead-letter-exchange 등)가 다른지도 확인하지 않으므로 arguments를 바꾼 경우도 같습니다.
+@Slf4j
+public class TopologyDeclarer implements ConnectionListener {
+
+    private final RabbitAdmin rabbitAdmin;
+
+    private final Supplier<Collection<Declarable>> declarables;
+
+    private volatile long skipped;
+
+    private volatile long declared;
+
+    public TopologyDeclarer(RabbitAdmin rabbitAdmin, Supplier<Collection<Declarable>> declarables) {
+        this.rabbitAdmin = rabbitAdmin;
+        this.declarables = declarables;
+    }
+
+    @Override
+    public void onCreate(Connection connection) {
+        String missing = findMissing(connection);
+        if (missing == null) {
+            skipped++;
+            log.info("Topology already exists, skip declarations");
+            return;
+        }
+        declared++;
+        log.info("{} does not exist, declare topology", missing);
+        rabbitAdmin.initialize();
+    }
+
+    //없는 Queue 또는 Exchange의 이름을 반환하며 모두 있으면 null을 반환합니다.
+    String findMissing(Connection connection) {
+        Channel channel = connection.createChannel(false);
+        try {
+            for (Declarable declarable : declarables.get()) {
+                if (!declarable.shouldDeclare()) {
+                    continue;
+                }
+                if (declarable instanceof Queue) {
+                    String name = ((Queue) declarable).getActualName();
+                    if (!exists(() -> channel.queueDeclarePassive(name))) {
+                        return "Queue " + name;
+                    }
+                } else if (declarable instanceof Exchange) {
+                    String name = ((Exchange) declarable).getName();
+                    if (!exists(() -> channel.exchangeDeclarePassive(name))) {
+                        return "Exchange " + name;
+                    }
+                }
+            }
+            return null;
+        } finally {
+            close(channel);
+        }
+    }
+
+    private static boolean exists(PassiveDeclaration declaration) {
+        try {
+            declaration.declare();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void close(Channel channel) {
+        try {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+        } catch (IOException | TimeoutException e) {
+            log.debug("Failed to close passive declaration channel", e);
+        }
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getDeclared() {
+        return declared;
+    }
+
+    private interface PassiveDeclaration {
+
+        void declare() throws IOException;
+
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.connection.ConnectionStripingProperties;
+import com.rabbitmq.consumer.connection.StripedConnectionFactory;
+import com.rabbitmq.consumer.connection.TrafficCountingSocketFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//[Connection 분산]
+//consumer.connection.enabled가 true이면 모든 프로파일의 Listener 컨테이너, RabbitTemplate, RabbitAdmin이 사용하는 ConnectionFactory를
+//StripedConnectionFactory로 등록합니다. ConnectionFactory Bean이 있으면 Spring Boot는 CachingConnectionFactory를 만들지 않습니다.
+//1. spring.rabbitmq의 addresses(host, port), username, password, virtual-host, requested-heartbeat, connection-timeout으로
+//consumer.connection.stripes개의 CachingConnectionFactory를 만들고 컨테이너를 Queue별로 나누어 배정합니다.
+//2. Connection마다 TrafficCountingSocketFactory로 주고받은 byte, frame 수를 기록합니다. (rabbitmq.consumer.connection.*)
+//3. Connection 이름은 consumer-{stripe}이며 RabbitMQ 관리자 콘솔의 Connections에서 확인할 수 있습니다.
+//spring.rabbitmq.ssl은 지원하지 않으므로 TLS를 사용하는 경우 consumer.connection.enabled를 false로 설정해야 합니다.
+@Configuration
+@ConditionalOnProperty(name = "consumer.connection.enabled", havingValue = "true")
+@EnableConfigurationProperties(ConnectionStripingProperties.class)
+public class ConnectionStripingConfig {
+
+    static final String connectionName = "consumer";
+
+    @Bean
+    public StripedConnectionFactory rabbitConnectionFactory(RabbitProperties rabbitProperties, ConnectionStripingProperties stripingProperties,
+                                                            MeterRegistry meterRegistry) {
+        if (rabbitProperties.getSsl().determineEnabled()) {
+            throw new IllegalStateException("consumer.connection.enabled does not support spring.rabbitmq.ssl");
+        }
+
+        List<CachingConnectionFactory> stripes = new ArrayList<>();
+        for (int i = 0; i < stripingProperties.getStripes(); i++) {
+            String stripeName = connectionName + "-" + i;
+            com.rabbitmq.client.ConnectionFactory rabbitConnectionFactory = new com.rabbitmq.client.ConnectionFactory();
+            rabbitConnectionFactory.setSocketFactory(new TrafficCountingSocketFactory(stripeName, meterRegistry));
+
+            PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+            map.from(rabbitProperties::getRequestedHeartbeat).asInt(duration -> (int) duration.getSeconds())
+                    .to(rabbitConnectionFactory::setRequestedHeartbeat);
+            map.from(rabbitProperties::getConnectionTimeout).asInt(duration -> (int) duration.toMillis())
+                    .to(rabbitConnectionFactory::setConnectionTimeout);
+
+            CachingConnectionFactory stripe = new CachingConnectionFactory(rabbitConnectionFactory);
+            stripe.setAddresses(rabbitProperties.determineAddresses());
+            stripe.setUsername(rabbitProperties.determineUsername());
+            stripe.setPassword(rabbitProperties.determinePassword());
+            stripe.setVirtualHost(rabbitProperties.determineVirtualHost());
+            stripe.setChannelCacheSize(stripingProperties.getChannelCacheSize());
+            stripe.setChannelCheckoutTimeout(stripingProperties.getChannelCheckoutTimeout().toMillis());
+            stripe.setConnectionNameStrategy(connectionFactory -> stripeName);
+            stripe.afterPropertiesSet();
+            stripes.add(stripe);
+        }
+
+        return new StripedConnectionFactory(connectionName, stripes);
+    }
+
+}
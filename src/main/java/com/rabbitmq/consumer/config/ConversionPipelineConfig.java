@@ -0,0 +1,81 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import com.rabbitmq.consumer.converter.MessageBody;
+import com.rabbitmq.consumer.converter.MessageInfoMessageConverter;
+import com.rabbitmq.consumer.converter.WireFormatProperties;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.listener.AnnotationMessageListener;
+import com.rabbitmq.consumer.metrics.ListenerMetrics;
+import com.rabbitmq.consumer.pipeline.ConversionPipeline;
+import com.rabbitmq.consumer.pipeline.PipelineProperties;
+import com.rabbitmq.consumer.pipeline.PipelinedMessageListener;
+import com.rabbitmq.consumer.receiver.Receiver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//[변환 pipeline]
+//consumer.pipeline.enabled가 true이면 아래 Listener의 메시지 변환을 Consumer 쓰레드가 아닌 ConversionPipeline의 decoder 쓰레드에서 실행합니다.
+//1. annotation 프로파일: @RabbitListener(id = "messageInfo")의 receiveMessageInfo (RabbitMQAnnotationConfig의 ContainerCustomizer에서 Listener를 바꿈)
+//2. container 프로파일: simpleMessageListenerContainerUseReceiver의 Receiver (MessageListenerAdapter 대신 사용)
+//두 컨테이너는 MANUAL ackMode로 바뀌며 handler 호출이 끝난 메시지만 AckCoalescers로 ack합니다. (ConversionPipeline 참고)
+//listenerMetricsAdvice의 process, deliveries는 ring buffer에 넣기까지를 기록하며 변환, handler 실패는 rabbitmq.consumer.pipeline.failures로 확인합니다.
+@Configuration
+@ConditionalOnProperty(name = "consumer.pipeline.enabled", havingValue = "true")
+@EnableConfigurationProperties(PipelineProperties.class)
+public class ConversionPipelineConfig {
+
+    @Profile("annotation")
+    @Bean
+    public ConversionPipeline messageInfoPipeline(PipelineProperties pipelineProperties, AckCoalescers ackCoalescers, MeterRegistry meterRegistry) {
+        return pipelineProperties.toPipeline("messageInfo", ackCoalescers, meterRegistry);
+    }
+
+    //MessageInfo는 decoder 쓰레드에서 handoff 쓰레드로 넘어가므로 인스턴스를 재사용하지 않습니다.
+    //Bean이 아니므로 WireFormatMessageConverter(CBOR, LZ4), TimedMessageConverter로 직접 감싸서 변환 시간을 측정합니다.
+    @Profile("annotation")
+    @Bean
+    public PipelinedMessageListener<MessageInfo> messageInfoPipelinedListener(ConversionPipeline messageInfoPipeline,
+                                                                              AnnotationMessageListener annotationMessageListener,
+                                                                              ListenerMetrics listenerMetrics,
+                                                                              WireFormatProperties wireFormatProperties,
+                                                                              MessageConverter jsonMessageConverter) {
+        MessageConverter messageInfoMessageConverter = listenerMetrics.timed(
+                wireFormatProperties.toConverter(new MessageInfoMessageConverter(jsonMessageConverter, false)));
+        return new PipelinedMessageListener<>(messageInfoPipeline,
+                message -> {
+                    message.getMessageProperties().setInferredArgumentType(MessageInfo.class);
+                    return (MessageInfo) messageInfoMessageConverter.fromMessage(message);
+                },
+                annotationMessageListener::receiveMessageInfo);
+    }
+
+    @Profile("container")
+    @Bean
+    public ConversionPipeline receiverPipeline(PipelineProperties pipelineProperties, AckCoalescers ackCoalescers, MeterRegistry meterRegistry) {
+        return pipelineProperties.toPipeline("receiver", ackCoalescers, meterRegistry);
+    }
+
+    //MessageListenerAdapter와 같은 MessageConverter로 변환하고 변환된 타입(String, MessageBody)으로 Receiver의 메서드를 선택합니다.
+    @Profile("container")
+    @Bean
+    public PipelinedMessageListener<Object> receiverPipelinedListener(ConversionPipeline receiverPipeline, Receiver receiver,
+                                                                      WireFormatProperties wireFormatProperties,
+                                                                      MessageConverter jsonMessageConverter) {
+        MessageConverter adapterConverter = wireFormatProperties.toAdapterConverter(jsonMessageConverter);
+        return new PipelinedMessageListener<>(receiverPipeline, adapterConverter::fromMessage,
+                payload -> {
+                    if (payload instanceof MessageBody) {
+                        receiver.receiveMessage((MessageBody) payload);
+                    } else {
+                        receiver.receiveMessage((String) payload);
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.retry.DeadLetterIndex;
+import com.rabbitmq.consumer.retry.DeadLetterRetrier;
+import com.rabbitmq.consumer.retry.RetryProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//[Dead Letter 재처리]
+//annotation 프로파일의 messageInfo.test.queue, nack.test.queue 등은 x-dead-letter-exchange로 dead.letter.queue에 Dead Letter를 보내고
+//AnnotationMessageListener.receiveDeadLetter가 dead.letter.queue의 메시지를 DeadLetterRetrier로 넘깁니다.
+//1. 재시도 대기 Queue(dead.letter.retry.{delay}ms): consumer.retry.delays 단계별로 기다린 뒤 원래 Queue로 돌아갑니다.
+//2. parking lot Queue(dead.letter.parking.queue): max-attempts를 넘었거나 TTL 만료 등으로 Dead Letter가 된 메시지를 보관합니다.
+//3. POST /dead-letters/replay?limit=100: parking lot Queue의 메시지를 원래 Queue로 다시 보냅니다. (DeadLetterReplayController)
+//4. GET /dead-letters/summary?top=10: 가져온 Dead Letter 수를 원래 Queue, reason, publisher, 시간 구간별로 조회합니다. (DeadLetterIndexController)
+//재시도 대기 Queue와 parking lot Queue는 RabbitAdmin이 Declarables로 생성하며 dead.letter.exchange, dead.letter.queue는 기존과 같이 직접 생성해야 합니다.
+@Profile("annotation")
+@Configuration
+@EnableConfigurationProperties(RetryProperties.class)
+public class DeadLetterRetryConfig {
+
+    @Bean
+    public Declarables deadLetterRetryTopology(RetryProperties retryProperties) {
+        return retryProperties.toDeclarables();
+    }
+
+    //Spring Boot가 등록하는 RabbitTemplate으로 재시도 대기 Queue, parking lot Queue에 메시지를 보냅니다.
+    //replay는 RabbitTemplate.execute의 Channel로 parking lot Queue의 메시지를 ack 없이 꺼내고 publisher confirm 뒤에 ack합니다.
+    @Bean
+    public DeadLetterRetrier deadLetterRetrier(RabbitOperations rabbitOperations, RetryProperties retryProperties, MeterRegistry meterRegistry) {
+        return new DeadLetterRetrier(rabbitOperations, retryProperties, meterRegistry);
+    }
+
+    @Bean
+    public DeadLetterIndex deadLetterIndex(RetryProperties retryProperties) {
+        return retryProperties.getIndex().toIndex();
+    }
+
+}
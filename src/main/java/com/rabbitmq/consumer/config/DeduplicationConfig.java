@@ -0,0 +1,44 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.dedup.DeduplicationAdvice;
+import com.rabbitmq.consumer.dedup.MessageIdCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//setDefaultRequeueRejected(true)로 Requeue된 메시지나 Producer가 다시 보낸 메시지를 중복으로 처리하지 않도록
+//최근에 처리한 메시지의 id를 기억하는 MessageIdCache와 컨테이너의 adviceChain에 등록할 DeduplicationAdvice를 등록합니다.
+//AUTO ackMode를 사용하는 container, direct, factory 프로파일의 컨테이너에 적용됩니다.
+@Profile({"container", "direct", "factory"})
+@Configuration
+public class DeduplicationConfig {
+
+    //capacity * 16 byte의 메모리를 사용합니다. (기본값 1048576개 = 16MB)
+    @Bean
+    public MessageIdCache messageIdCache(@Value("${consumer.dedup.capacity:1048576}") int capacity,
+                                         @Value("${consumer.dedup.ttl-millis:600000}") long ttlMillis,
+                                         MeterRegistry meterRegistry) {
+        MessageIdCache messageIdCache = new MessageIdCache(capacity, ttlMillis);
+
+        //rabbitmq.consumer.dedup.lookups(result=hit)가 중복으로 처리하지 않은 메시지 수입니다.
+        FunctionCounter.builder("rabbitmq.consumer.dedup.lookups", messageIdCache, MessageIdCache::getHits)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("rabbitmq.consumer.dedup.lookups", messageIdCache, MessageIdCache::getMisses)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("rabbitmq.consumer.dedup.removals", messageIdCache, MessageIdCache::getEvictions)
+                .tag("cause", "eviction").register(meterRegistry);
+        FunctionCounter.builder("rabbitmq.consumer.dedup.removals", messageIdCache, MessageIdCache::getExpirations)
+                .tag("cause", "expiration").register(meterRegistry);
+
+        return messageIdCache;
+    }
+
+    @Bean
+    public DeduplicationAdvice deduplicationAdvice(MessageIdCache messageIdCache) {
+        return new DeduplicationAdvice(messageIdCache);
+    }
+
+}
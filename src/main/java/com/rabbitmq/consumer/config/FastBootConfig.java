@@ -0,0 +1,81 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.boot.FastBootProperties;
+import com.rabbitmq.consumer.boot.ParallelContainerStarter;
+import com.rabbitmq.consumer.boot.TopologyDeclarer;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.rabbit.config.RabbitListenerConfigUtils;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+//[빠른 시작]
+//consumer.fast-boot.enabled가 true이면 Pod를 순서대로 재시작할때(rolling restart) 시작 시간을 줄이기 위해 아래와 같이 시작합니다.
+//1. skip-existing-topology: Spring Boot가 등록하는 RabbitAdmin은 Connection이 만들어질때 선언하지 않고 TopologyDeclarer가 Queue, Exchange가
+//모두 있는지 확인하여 없는 경우에만 RabbitAdmin.initialize()로 선언합니다. (@QueueBinding, exchange(), queue(), binding(), Declarables 모두 해당)
+//2. start-threads: 모든 프로파일의 Listener 컨테이너(Bean, @RabbitListener)를 ParallelContainerStarter가 동시에 시작하며 애플리케이션은
+//컨테이너의 시작을 기다리지 않고 시작을 마칩니다.
+//MessageConverter는 설정과 관계없이 모든 프로파일이 JsonMessageConverterConfig의 jsonMessageConverter 하나를 공유합니다.
+//기존 방식과의 시작 시간(첫 메시지를 받을때까지) 비교는 StartupComparison을 참고합니다.
+@Configuration
+@ConditionalOnProperty(name = "consumer.fast-boot.enabled", havingValue = "true")
+@EnableConfigurationProperties(FastBootProperties.class)
+public class FastBootConfig {
+
+    //RabbitAdmin.afterPropertiesSet에서 Connection 생성시 선언하는 ConnectionListener를 등록하지 않도록 그 전에 autoStartup을 끕니다.
+    //BeanPostProcessor는 다른 Bean보다 먼저 만들어지므로 static으로 선언하고 FastBootProperties는 RabbitAdmin이 만들어질때 가져옵니다.
+    @Bean
+    public static BeanPostProcessor skipDeclarationPostProcessor(ObjectProvider<FastBootProperties> fastBootProperties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RabbitAdmin && fastBootProperties.getObject().isSkipExistingTopology()) {
+                    ((RabbitAdmin) bean).setAutoStartup(false);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "consumer.fast-boot.skip-existing-topology", havingValue = "true", matchIfMissing = true)
+    public TopologyDeclarer topologyDeclarer(RabbitAdmin rabbitAdmin, ConnectionFactory connectionFactory, ListableBeanFactory beanFactory) {
+        //RabbitAdmin과 같이 Declarable Bean과 Declarables Bean에 포함된 Declarable을 확인합니다.
+        TopologyDeclarer topologyDeclarer = new TopologyDeclarer(rabbitAdmin, () -> {
+            List<Declarable> declarables = new ArrayList<>(beanFactory.getBeansOfType(Declarable.class, false, true).values());
+            for (Declarables group : beanFactory.getBeansOfType(Declarables.class, false, true).values()) {
+                declarables.addAll(group.getDeclarables());
+            }
+            return declarables;
+        });
+        connectionFactory.addConnectionListener(topologyDeclarer);
+        return topologyDeclarer;
+    }
+
+    @Bean
+    public ParallelContainerStarter parallelContainerStarter(ListableBeanFactory beanFactory, FastBootProperties fastBootProperties) {
+        return new ParallelContainerStarter(() -> {
+            List<MessageListenerContainer> containers = new ArrayList<>(beanFactory.getBeansOfType(MessageListenerContainer.class, false, false).values());
+            if (beanFactory.containsBean(RabbitListenerConfigUtils.RABBIT_LISTENER_ENDPOINT_REGISTRY_BEAN_NAME)) {
+                Collection<MessageListenerContainer> registered = beanFactory.getBean(
+                        RabbitListenerConfigUtils.RABBIT_LISTENER_ENDPOINT_REGISTRY_BEAN_NAME, RabbitListenerEndpointRegistry.class).getListenerContainers();
+                containers.addAll(registered);
+            }
+            return containers;
+        }, fastBootProperties.getStartThreads());
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.rabbitmq.consumer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+//모든 프로파일에서 공유하는 jsonMessageConverter입니다. 프로파일별 Config마다 ObjectMapper를 새로 만들지 않고 하나의 ObjectMapper를 사용하며
+//각 Config, ShardedListenerConfig, @RabbitListener(messageConverter = "jsonMessageConverter")는 해당 Bean을 주입받아 사용합니다.
+//Bean으로 등록되므로 WireFormatMessageConverter, TimedMessageConverter로 한번만 감싸집니다. (WireFormatConfig, MetricsConfig 참고)
+@Configuration
+public class JsonMessageConverterConfig {
+
+    //annotation 프로파일은 MessageConverter Bean이 messageInfoMessageConverter와 함께 두개이므로 @Primary로 기본 MessageConverter를 지정합니다.
+    @Primary
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        //LocalDateTime serializable을 위해
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
+        objectMapper.registerModule(dateTimeModule());
+
+        return new Jackson2JsonMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public JavaTimeModule dateTimeModule() {
+        return new JavaTimeModule();
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.executor.ListenerExecutorFactory;
+import com.rabbitmq.consumer.executor.ListenerExecutorMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Locale;
+
+//Listener 컨테이너가 Consumer를 실행할 Executor를 만드는 ListenerExecutorFactory를 등록합니다. 모든 프로파일에서 공통으로 사용합니다.
+//Executor 타입으로 Bean을 등록하면 Spring Boot의 applicationTaskExecutor가 등록되지 않으므로 Factory만 Bean으로 등록하고
+//Executor는 각 컨테이너를 만들때 생성합니다.
+@Configuration
+public class ListenerExecutorConfig {
+
+    @Bean
+    public ListenerExecutorFactory listenerExecutorFactory(
+            @Value("${consumer.executor.mode:platform}") String mode,
+            @Value("${consumer.executor.parallelism:16}") int parallelism) {
+        return new ListenerExecutorFactory(ListenerExecutorMode.valueOf(mode.toUpperCase(Locale.ROOT).replace('-', '_')), parallelism);
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.flow.ListenerSchedulerProperties;
+import com.rabbitmq.consumer.flow.WeightedFairScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//[Listener별 속도 제한과 weighted fair scheduling]
+//annotation 프로파일의 @RabbitListener(ack, messageInfo, nack, reject, ttl, deadLetter)는 같은 CPU, Downstream을 나누어 사용하므로
+//한 Queue에 메시지가 몰리면 해당 Listener의 Consumer들이 자원을 차지하여 다른 Listener가 늦어집니다.
+//consumer.scheduler.enabled가 true이면 모든 @RabbitListener 컨테이너에 FairSchedulingAdvice를 등록하여
+//1. consumer.scheduler.listeners.{id}.permits-per-second로 Listener별 초당 실행 수를 제한하고
+//2. 동시에 실행되는 Listener를 consumer.scheduler.workers개로 제한하며 worker가 부족하면 Listener별 weight 비율대로 나누어 실행합니다.
+//Listener별 실행 수와 대기 시간은 rabbitmq.consumer.scheduler.* 메트릭으로 확인할 수 있습니다.
+@Profile("annotation")
+@Configuration
+@ConditionalOnProperty(name = "consumer.scheduler.enabled", havingValue = "true")
+@EnableConfigurationProperties(ListenerSchedulerProperties.class)
+public class ListenerSchedulingConfig {
+
+    //RabbitMQAnnotationConfig의 ContainerCustomizer가 컨테이너의 listenerId(@RabbitListener id)로 FairSchedulingAdvice를 만듭니다.
+    @Bean
+    public WeightedFairScheduler listenerScheduler(ListenerSchedulerProperties listenerSchedulerProperties, MeterRegistry meterRegistry) {
+        return listenerSchedulerProperties.toScheduler(meterRegistry);
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.logging.MessageLoggingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//모든 프로파일의 Listener, Receiver에서 메시지 로그를 남길때 사용하는 MessageLogging을 등록합니다.
+//consumer.logging에서 Queue별 sampling 비율과 바디 길이 제한을 설정하며 출력은 logback-spring.xml의 AsyncAppender를 통해 처리됩니다.
+@Configuration
+@EnableConfigurationProperties(MessageLoggingProperties.class)
+public class MessageLoggingConfig {
+
+    @Bean
+    public MessageLogging messageLogging(MessageLoggingProperties messageLoggingProperties) {
+        return new MessageLogging(messageLoggingProperties);
+    }
+
+}
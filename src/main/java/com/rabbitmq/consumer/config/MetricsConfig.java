@@ -0,0 +1,43 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.metrics.ListenerMetrics;
+import com.rabbitmq.consumer.metrics.ListenerMetricsAdvice;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//모든 프로파일의 Listener 컨테이너에서 공통으로 사용하는 Queue별 메트릭(rabbitmq.consumer.*)을 등록합니다.
+//메트릭은 /actuator/metrics, /actuator/prometheus(port 8083)에서 확인할 수 있습니다.
+//1. listenerMetricsAdvice: 각 프로파일의 컨테이너 adviceChain 맨 앞에 등록합니다. (annotation 프로파일은 ContainerCustomizer로 등록)
+//2. MessageConverter Bean은 변환 시간을 측정하는 TimedMessageConverter로 감싸서 등록됩니다.
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public ListenerMetrics listenerMetrics(MeterRegistry meterRegistry,
+                                           @Value("${consumer.metrics.window-millis:60000}") long windowMillis) {
+        return new ListenerMetrics(meterRegistry, windowMillis);
+    }
+
+    @Bean
+    public ListenerMetricsAdvice listenerMetricsAdvice(ListenerMetrics listenerMetrics) {
+        return new ListenerMetricsAdvice(listenerMetrics);
+    }
+
+    //jsonMessageConverter(), messageInfoMessageConverter() Bean을 수정하지 않고 변환 시간을 측정할 수 있도록 BeanPostProcessor로 감쌉니다.
+    //BeanPostProcessor는 다른 Bean보다 먼저 만들어지므로 static으로 선언하고 ListenerMetrics는 MessageConverter Bean이 만들어질때 가져옵니다.
+    @Bean
+    public static BeanPostProcessor timedMessageConverterPostProcessor(ObjectProvider<ListenerMetrics> listenerMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof MessageConverter ? listenerMetrics.getObject().timed((MessageConverter) bean) : bean;
+            }
+        };
+    }
+
+}
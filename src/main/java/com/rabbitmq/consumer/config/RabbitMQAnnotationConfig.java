@@ -1,14 +1,23 @@
 package com.rabbitmq.consumer.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import com.rabbitmq.consumer.converter.MessageInfoMessageConverter;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.flow.FairSchedulingAdvice;
+import com.rabbitmq.consumer.flow.WeightedFairScheduler;
+import com.rabbitmq.consumer.metrics.ListenerMetrics;
+import com.rabbitmq.consumer.metrics.ListenerMetricsAdvice;
+import com.rabbitmq.consumer.pipeline.PipelinedMessageListener;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -91,19 +100,46 @@ public class RabbitMQAnnotationConfig {
         return BindingBuilder.bind(queue).to(exchange).with("ack.routing.key");
     }
 
+    //메시지가 많이 들어오는 messageInfo.test.queue에서 사용하는 MessageConverter입니다. MessageInfo는 JsonParser로 직접 변환하고
+    //그 외의 타입은 jsonMessageConverter로 변환합니다. receiveMessageInfo는 MessageInfo를 Listener 밖으로 넘기지 않으므로 인스턴스를 재사용합니다.
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        //LocalDateTime serializable을 위해
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
-        objectMapper.registerModule(dateTimeModule());
+    public MessageConverter messageInfoMessageConverter(MessageConverter jsonMessageConverter) {
+        return new MessageInfoMessageConverter(jsonMessageConverter, true);
+    }
 
-        return new Jackson2JsonMessageConverter(objectMapper);
+    //MANUAL ackMode Listener(nackMessage, rejectMessage)의 ack, nack, reject 결과를 Channel별로 모아서 전송합니다.
+    //batch-size개의 결과가 모이거나 flush-interval-millis가 지나면 전송되며 batch-size는 prefetch(기본값 250)보다 작아야 합니다.
+    @Bean
+    public AckCoalescers ackCoalescers(@Value("${consumer.ack.batch-size:50}") int batchSize,
+                                       @Value("${consumer.ack.flush-interval-millis:100}") long flushIntervalMillis,
+                                       @Value("${consumer.ack.orphan-timeout-millis:300000}") long orphanTimeoutMillis,
+                                       ListenerMetrics listenerMetrics) {
+        return new AckCoalescers(batchSize, flushIntervalMillis, orphanTimeoutMillis, listenerMetrics);
     }
 
+    //annotation 프로파일은 Spring Boot가 등록하는 rabbitListenerContainerFactory를 사용하므로 @RabbitListener마다 만들어지는 컨테이너에
+    //ContainerCustomizer로 Queue별 메트릭을 기록하는 advice를 등록합니다. (MetricsConfig 참고)
+    //consumer.scheduler.enabled가 true이면 메트릭 다음에 @RabbitListener id별 FairSchedulingAdvice를 등록합니다. (ListenerSchedulingConfig 참고)
+    //consumer.pipeline.enabled가 true이면 messageInfo 컨테이너의 Listener를 PipelinedMessageListener로 바꾸고 MANUAL ackMode로 실행합니다. (ConversionPipelineConfig 참고)
+    //Spring Boot는 ContainerCustomizer Bean이 하나인 경우에만 사용하므로 같은 ContainerCustomizer에서 등록합니다.
     @Bean
-    public JavaTimeModule dateTimeModule() {
-        return new JavaTimeModule();
+    public ContainerCustomizer<SimpleMessageListenerContainer> listenerMetricsContainerCustomizer(ListenerMetricsAdvice listenerMetricsAdvice,
+                                                                                                 ObjectProvider<WeightedFairScheduler> listenerScheduler,
+                                                                                                 ObjectProvider<PipelinedMessageListener<MessageInfo>> messageInfoPipelinedListener) {
+        return container -> {
+            PipelinedMessageListener<MessageInfo> pipelinedListener = messageInfoPipelinedListener.getIfAvailable();
+            if (pipelinedListener != null && "messageInfo".equals(container.getListenerId())) {
+                container.setMessageListener(pipelinedListener);
+                container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+                container.setPrefetchCount(pipelinedListener.getPipeline().getCapacity()); //ring buffer가 비지 않도록 capacity만큼 미리 받아둡니다.
+            }
+            WeightedFairScheduler scheduler = listenerScheduler.getIfAvailable();
+            if (scheduler == null) {
+                container.setAdviceChain(listenerMetricsAdvice);
+            } else {
+                container.setAdviceChain(listenerMetricsAdvice, new FairSchedulingAdvice(scheduler, container.getListenerId()));
+            }
+        };
     }
 
 }
@@ -1,55 +1,37 @@
 package com.rabbitmq.consumer.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.rabbitmq.client.Channel;
-import com.rabbitmq.consumer.receiver.Receiver;
-import lombok.extern.slf4j.Slf4j;
+import com.rabbitmq.consumer.dedup.DeduplicationAdvice;
+import com.rabbitmq.consumer.executor.ListenerExecutorFactory;
+import com.rabbitmq.consumer.flow.AutoscalerProperties;
+import com.rabbitmq.consumer.flow.BackpressureController;
+import com.rabbitmq.consumer.flow.BackpressureProperties;
+import com.rabbitmq.consumer.flow.ContainerAutoscaler;
+import com.rabbitmq.consumer.flow.ListenerActivityMonitor;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.metrics.ListenerMetricsAdvice;
+import com.rabbitmq.consumer.pipeline.PipelinedMessageListener;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
 import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
 import org.springframework.amqp.rabbit.listener.adapter.MessageListenerAdapter;
 import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
-import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
-import java.util.HashMap;
-import java.util.Map;
-
-@Slf4j
 @Profile("container")
 @Configuration
+@EnableConfigurationProperties({AutoscalerProperties.class, BackpressureProperties.class})
 public class RabbitMQContainerConfig {
 
-    static final String topicExchangeName = "ack.receiver.exchange";
-
-    static final String queueName = "ack.receiver.queue";
-
-    @Bean
-    DirectExchange exchange() {
-        return new DirectExchange(topicExchangeName);
-    }
-
-    @Bean
-    Queue queue() {
-        Map<String, Object> arguments = new HashMap<>();
-
-        arguments.put("x-dead-letter-exchange", "x.dead.exchange");
-        arguments.put("x-dead-letter-routing-key", "dlx.routing.key");
-
-        return new Queue(queueName, false, false, false, arguments);
-    }
-
-    @Bean
-    Binding binding(Queue queue, DirectExchange exchange) {
-        return BindingBuilder.bind(queue).to(exchange).with("ack.receiver.routing.key");
-    }
-
     //[RabbitMQ의 Simple, Direct]
     //RabbitMQ의 MessageListenerContainer는 SimpleMessageListenerContainer, DirectMessageListenerContainer 두 가지가 있습니다.(factory도 Simple, Direct로 나뉘어져 있음)
     //SimpleMessageListenerContainer은 기존에 사용하던 MessageListenerContainer이며 DirectMessageListenerContainer는 버전업이 되면서
@@ -57,7 +39,7 @@ public class RabbitMQContainerConfig {
     //등록하는 것으로 DirectMessageListenerContainer로 바꾸어서 사용할 수 있습니다. 이와 마찬가지로 RabbitMQ 관련 application.yml의 속성도
     //simple, direct로 구분되어 있으며 설정을 따로따로 적용할 수 있습니다. Simpe과 Direct는 각자 지원하는 기능과 지원하지 않는 기능이 다르므로
     //필요한 케이스에 따라서 선택적으로 사용하는 것이 좋습니다. 일반적인 케이스는 웬만해선 Simple로 대응이 가능하며 Direct만 지원하는 기능이 필요한 경우
-    //변경해서 사용하는 것이 보편적입니다.
+    //변경해서 사용하는 것이 보편적입니다. 같은 Queue를 DirectMessageListenerContainer로 처리하려면 spring.profiles.active를 direct로 설정합니다. (RabbitMQDirectConfig 참고)
 
     //[SimpleMessageListenerContainer의 특징]
     //1. SimpleMessageListenerContainer는 Message Listener Container이며 AbstractMessageListenerContainer를 상속받고 있고
@@ -71,28 +53,39 @@ public class RabbitMQContainerConfig {
     //MessageListener를 정의하여 setMessageListener에 할당해서 사용하는 방식의 SimpleMessageListenerContainer를
     //Bean으로 등록해서 메시지를 전달받습니다.
     @Bean
-    SimpleMessageListenerContainer simpleMessageListenerContainer(ConnectionFactory connectionFactory) {
+    SimpleMessageListenerContainer simpleMessageListenerContainer(ConnectionFactory connectionFactory, ListenerExecutorFactory listenerExecutorFactory,
+                                                                  AutoscalerProperties autoscalerProperties,
+                                                                  ListenerMetricsAdvice listenerMetricsAdvice, DeduplicationAdvice deduplicationAdvice,
+                                                                  @Qualifier("onlyMessageListener") MessageListener onlyMessageListener) {
         SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
 
         container.setConnectionFactory(connectionFactory);
-        container.setMessageListener(onlyMessageListener()); //Message 정보 출력
-        //container.setMessageListener(messageChannelListener()); //Message, Channel 정보 출력
+        //Consumer를 실행할 쓰레드(consumer.executor.mode). Autoscaler를 사용하면 max-consumers까지 Consumer가 늘어날 수 있습니다.
+        container.setTaskExecutor(listenerExecutorFactory.create("simpleMessageListenerContainer", autoscalerProperties.maxConsumersOf(1)));
+        container.setMessageListener(onlyMessageListener); //Message 정보 출력
+        //container.setMessageListener(messageChannelListener); //Message, Channel 정보 출력(파라미터를 @Qualifier("messageChannelListener")로 변경)
         container.setQueueNames("ack.test.queue"); //spring.profiles.active가 container인 경우 ack.test.queue를 생성하는 로직이 없으므로
         //spring.profiles.active를 annotation 또는 factory로 설정하여 한번 생성한 뒤 다시 spring.profiles.active를 container로 설정하여 테스트해야 합니다.
         //이미 ack.test.queue가 존재하는 경우는 바로 spring.profiles.active를 container로 테스트하면 됩니다.
         container.setAcknowledgeMode(AcknowledgeMode.AUTO);
         container.setDefaultRequeueRejected(true);
+        //1. listenerMetricsAdvice: Queue별 처리 시간, 결과(ack, nack, reject) 메트릭 기록(MetricsConfig 참고)
+        //2. deduplicationAdvice: 이미 처리한 messageId의 메시지는 Listener를 호출하지 않고 ack 처리
+        //3. simpleMessageListenerContainerActivity: Listener 처리 시간, 처리 건수 측정(ContainerAutoscaler에서 사용)
+        container.setAdviceChain(listenerMetricsAdvice, deduplicationAdvice, simpleMessageListenerContainerActivity());
 
         return container;
     }
 
     //SimpleMessageListenerContainer에 등록한 Queue의 Message를 반환받으려는 경우 MessageListener의 
     //onMessage를 재정의하여 사용하면 됩니다.
+    //메시지 로그는 consumer.logging 설정에 따라 sampling, 바디 길이 제한을 적용하여 남깁니다. (MessageLoggingConfig 참고)
     @Bean
-    MessageListener onlyMessageListener() {
+    MessageListener onlyMessageListener(MessageLogging messageLogging) {
+        MessageLogger messageLogger = messageLogging.getLogger(RabbitMQContainerConfig.class);
         return new MessageListener() {
             public void onMessage(Message message) {
-                log.info("<==================== Message Info: " + message);
+                messageLogger.info("<==================== Message Info:", message);
             }
         };
     }
@@ -100,11 +93,12 @@ public class RabbitMQContainerConfig {
     //SimpleMessageListenerContainer에 등록한 Queue의 Message와 Channel을 반환받으려는 경우 ChannelAwareMessageListener의
     //onMessage를 재정의하여 사용하면 됩니다.
     @Bean
-    MessageListener messageChannelListener() {
+    MessageListener messageChannelListener(MessageLogging messageLogging) {
+        MessageLogger messageLogger = messageLogging.getLogger(RabbitMQContainerConfig.class);
         return new ChannelAwareMessageListener() {
             public void onMessage(Message message, Channel channel) {
-                log.info("<==================== Message Info: " + message);
-                log.info("<==================== Channel Info: " + channel);
+                messageLogger.info("<==================== Message Info:", message);
+                messageLogger.info("<==================== Channel Info:", message.getMessageProperties().getConsumerQueue(), channel);
             }
         };
     }
@@ -112,40 +106,91 @@ public class RabbitMQContainerConfig {
     //MessageListenerAdapter를 정의하여 setMessageListener에 할당해서 사용하는 방식의 SimpleMessageListenerContainer를
     //Bean으로 등록해서 메시지를 전달받습니다.
     @Bean
-    SimpleMessageListenerContainer simpleMessageListenerContainerUseReceiver(ConnectionFactory connectionFactory, MessageListenerAdapter messageListenerAdapter) {
-        messageListenerAdapter.setMessageConverter(jsonMessageConverter()); //해당 설정 없을시 메시지 타입이 맞지 않는 오류가 발생합니다.
-
+    SimpleMessageListenerContainer simpleMessageListenerContainerUseReceiver(ConnectionFactory connectionFactory, MessageListenerAdapter messageListenerAdapter,
+                                                                             ListenerExecutorFactory listenerExecutorFactory,
+                                                                             AutoscalerProperties autoscalerProperties,
+                                                                             ListenerMetricsAdvice listenerMetricsAdvice,
+                                                                             DeduplicationAdvice deduplicationAdvice,
+                                                                             ObjectProvider<PipelinedMessageListener<Object>> receiverPipelinedListener) {
         SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
 
         container.setConnectionFactory(connectionFactory);
-        container.setMessageListener(messageListenerAdapter);
-        container.setQueueNames(queueName);
-        container.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        container.setTaskExecutor(listenerExecutorFactory.create("simpleMessageListenerContainerUseReceiver", autoscalerProperties.maxConsumersOf(1)));
+        container.setQueueNames(ReceiverQueueConfig.queueName);
         container.setDefaultRequeueRejected(true);
 
+        //consumer.pipeline.enabled가 true이면 변환과 Receiver 호출을 ConversionPipeline에서 실행합니다. (ConversionPipelineConfig 참고)
+        //deduplicationAdvice는 Listener가 반환될때 id를 기록하는데 handler 호출이 끝나기 전에 반환되므로 등록하지 않습니다.
+        PipelinedMessageListener<Object> pipelinedListener = receiverPipelinedListener.getIfAvailable();
+        if (pipelinedListener != null) {
+            container.setMessageListener(pipelinedListener);
+            container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+            container.setPrefetchCount(pipelinedListener.getPipeline().getCapacity());
+            container.setAdviceChain(listenerMetricsAdvice, simpleMessageListenerContainerUseReceiverActivity());
+        } else {
+            container.setMessageListener(messageListenerAdapter);
+            container.setAcknowledgeMode(AcknowledgeMode.AUTO);
+            container.setAdviceChain(listenerMetricsAdvice, deduplicationAdvice, simpleMessageListenerContainerUseReceiverActivity());
+        }
+
         return container;
     }
 
-    //Receiver라는 이름으로 정의한 Bean의 receiveMessage 메서드를 통해 Message의 바디(메시지 내용)를 수신받습니다. 해당 방식은 Message, Channel과 같은 상세항 정보는
-    //받을 수 없으며 만약 Message, Channel 정보가 필요한 경우 위에서 사용한것 처럼 MessageListener를 정의하여 setMessageListener에 할당해서 사용해야 합니다.
     @Bean
-    MessageListenerAdapter messageListenerAdapter(Receiver receiver) {
-        return new MessageListenerAdapter(receiver, "receiveMessage");
+    ListenerActivityMonitor simpleMessageListenerContainerActivity() {
+        return new ListenerActivityMonitor();
+    }
+
+    @Bean
+    ListenerActivityMonitor simpleMessageListenerContainerUseReceiverActivity() {
+        return new ListenerActivityMonitor();
+    }
+
+    //[Consumer 수, prefetch 자동 조절]
+    //consumer.autoscaler.enabled가 true인 경우 각 SimpleMessageListenerContainer마다 ContainerAutoscaler를 등록합니다.
+    //ContainerAutoscaler는 Listener 처리 시간(사용률), Queue에 쌓인 메시지 수를 보고 consumer.autoscaler에 설정한 범위 안에서
+    //setConcurrentConsumers, setMaxConcurrentConsumers, setPrefetchCount를 조절합니다.
+    @Bean
+    @ConditionalOnProperty(name = "consumer.autoscaler.enabled", havingValue = "true")
+    ContainerAutoscaler simpleMessageListenerContainerAutoscaler(
+            @Qualifier("simpleMessageListenerContainer") SimpleMessageListenerContainer container,
+            AmqpAdmin amqpAdmin, AutoscalerProperties autoscalerProperties, MeterRegistry meterRegistry) {
+        return new ContainerAutoscaler("simpleMessageListenerContainer", container, simpleMessageListenerContainerActivity(),
+                amqpAdmin, autoscalerProperties, meterRegistry);
     }
 
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        //LocalDateTime serializable을 위해
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
-        objectMapper.registerModule(dateTimeModule());
+    @ConditionalOnProperty(name = "consumer.autoscaler.enabled", havingValue = "true")
+    ContainerAutoscaler simpleMessageListenerContainerUseReceiverAutoscaler(
+            @Qualifier("simpleMessageListenerContainerUseReceiver") SimpleMessageListenerContainer container,
+            AmqpAdmin amqpAdmin, AutoscalerProperties autoscalerProperties, MeterRegistry meterRegistry) {
+        return new ContainerAutoscaler("simpleMessageListenerContainerUseReceiver", container, simpleMessageListenerContainerUseReceiverActivity(),
+                amqpAdmin, autoscalerProperties, meterRegistry);
+    }
 
-        return new Jackson2JsonMessageConverter(objectMapper);
+    //[Backpressure]
+    //consumer.backpressure.enabled가 true인 경우 각 SimpleMessageListenerContainer마다 BackpressureController를 등록합니다.
+    //Listener의 Downstream이 느려져서 처리 시간, 처리중인 메시지 수, heap 사용률이 high 값을 넘으면 컨테이너를 멈추고(stop)
+    //cooldown이 지난 뒤 모두 low 값 아래이면 다시 시작(start)해보고 probe-windows 주기 동안 low 값 아래로 유지되는지 확인합니다.
+    //멈춘 동안 메시지는 Consumer가 아닌 Queue에 쌓입니다.
+    @Bean
+    @ConditionalOnProperty(name = "consumer.backpressure.enabled", havingValue = "true")
+    BackpressureController simpleMessageListenerContainerBackpressure(
+            @Qualifier("simpleMessageListenerContainer") SimpleMessageListenerContainer container,
+            BackpressureProperties backpressureProperties, MeterRegistry meterRegistry) {
+        ListenerActivityMonitor monitor = simpleMessageListenerContainerActivity();
+        return new BackpressureController("simpleMessageListenerContainer", container, monitor, monitor::getInFlight,
+                backpressureProperties, meterRegistry);
     }
 
     @Bean
-    public JavaTimeModule dateTimeModule() {
-        return new JavaTimeModule();
+    @ConditionalOnProperty(name = "consumer.backpressure.enabled", havingValue = "true")
+    BackpressureController simpleMessageListenerContainerUseReceiverBackpressure(
+            @Qualifier("simpleMessageListenerContainerUseReceiver") SimpleMessageListenerContainer container,
+            BackpressureProperties backpressureProperties, MeterRegistry meterRegistry) {
+        ListenerActivityMonitor monitor = simpleMessageListenerContainerUseReceiverActivity();
+        return new BackpressureController("simpleMessageListenerContainerUseReceiver", container, monitor, monitor::getInFlight,
+                backpressureProperties, meterRegistry);
     }
 
 }
@@ -0,0 +1,92 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.dedup.DeduplicationAdvice;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.metrics.ListenerMetricsAdvice;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.adapter.MessageListenerAdapter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+//container 프로파일과 같은 Queue(ack.test.queue, ack.receiver.queue)를 DirectMessageListenerContainer로 처리합니다.
+//ack.receiver.queue 구성과 messageListenerAdapter는 container 프로파일과 같은 Bean을 사용합니다. (ReceiverQueueConfig)
+//[SimpleMessageListenerContainer와 다른 점]
+//1. SimpleMessageListenerContainer는 Consumer마다 taskExecutor의 쓰레드 하나를 점유하고 브로커에서 받은 메시지를 내부 BlockingQueue에 넣었다가
+//해당 쓰레드에서 Listener를 호출합니다. DirectMessageListenerContainer는 Consumer마다 쓰레드를 두지 않고 amqp-client가 메시지를 받은
+//ConnectionFactory의 쓰레드(ConsumerWorkService)에서 바로 Listener를 호출하므로 Queue와 Consumer가 많아도 쓰레드 수가 늘어나지 않습니다.
+//따라서 consumer.executor.mode는 적용되지 않습니다.
+//2. Consumer 수는 concurrency 대신 Queue마다 consumers-per-queue개로 정해지며 실행중에 setConsumersPerQueue, addQueueNames로 바로 늘리거나 줄일 수 있습니다.
+//3. Consumer가 멈춘 경우 다시 시작하거나 idle 이벤트를 발생시키는 monitor가 monitor-interval마다 실행되며 모든 컨테이너가 하나의 TaskScheduler를 공유합니다.
+//어떤 컨테이너가 Queue에 더 적합한지는 ContainerComparison(src/jmh)으로 처리량, p99 지연시간, 쓰레드 수를 비교해서 결정합니다.
+@Profile("direct")
+@Configuration
+public class RabbitMQDirectConfig {
+
+    //DirectMessageListenerContainer의 monitor, Consumer 재시작을 실행합니다. 컨테이너마다 TaskScheduler를 만들지 않도록 Bean 하나를 공유합니다.
+    @Bean
+    ThreadPoolTaskScheduler directContainerTaskScheduler(@Value("${consumer.direct.scheduler-pool-size:1}") int poolSize) {
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(poolSize);
+        taskScheduler.setThreadNamePrefix("direct-container-monitor-");
+        return taskScheduler;
+    }
+
+    //ack.test.queue를 생성하는 로직이 없으므로 container 프로파일과 같이 annotation 또는 factory 프로파일로 한번 생성한 뒤 테스트해야 합니다.
+    @Bean
+    DirectMessageListenerContainer directMessageListenerContainer(ConnectionFactory connectionFactory,
+                                                                  ThreadPoolTaskScheduler directContainerTaskScheduler,
+                                                                  ListenerMetricsAdvice listenerMetricsAdvice, DeduplicationAdvice deduplicationAdvice,
+                                                                  @Qualifier("onlyMessageListener") MessageListener onlyMessageListener,
+                                                                  @Value("${consumer.direct.consumers-per-queue:1}") int consumersPerQueue,
+                                                                  @Value("${consumer.direct.monitor-interval:10000}") long monitorInterval) {
+        DirectMessageListenerContainer container = new DirectMessageListenerContainer(connectionFactory);
+
+        container.setMessageListener(onlyMessageListener);
+        container.setQueueNames("ack.test.queue");
+        container.setConsumersPerQueue(consumersPerQueue);
+        container.setTaskScheduler(directContainerTaskScheduler);
+        container.setMonitorInterval(monitorInterval);
+        container.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        container.setDefaultRequeueRejected(true);
+        container.setAdviceChain(listenerMetricsAdvice, deduplicationAdvice);
+
+        return container;
+    }
+
+    @Bean
+    DirectMessageListenerContainer directMessageListenerContainerUseReceiver(ConnectionFactory connectionFactory,
+                                                                             ThreadPoolTaskScheduler directContainerTaskScheduler,
+                                                                             MessageListenerAdapter messageListenerAdapter,
+                                                                             ListenerMetricsAdvice listenerMetricsAdvice,
+                                                                             DeduplicationAdvice deduplicationAdvice,
+                                                                             @Value("${consumer.direct.consumers-per-queue:1}") int consumersPerQueue,
+                                                                             @Value("${consumer.direct.monitor-interval:10000}") long monitorInterval) {
+        DirectMessageListenerContainer container = new DirectMessageListenerContainer(connectionFactory);
+
+        container.setMessageListener(messageListenerAdapter);
+        container.setQueueNames(ReceiverQueueConfig.queueName);
+        container.setConsumersPerQueue(consumersPerQueue);
+        container.setTaskScheduler(directContainerTaskScheduler);
+        container.setMonitorInterval(monitorInterval);
+        container.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        container.setDefaultRequeueRejected(true);
+        container.setAdviceChain(listenerMetricsAdvice, deduplicationAdvice);
+
+        return container;
+    }
+
+    //메시지 로그는 consumer.logging 설정에 따라 sampling, 바디 길이 제한을 적용하여 남깁니다. (MessageLoggingConfig 참고)
+    @Bean
+    MessageListener onlyMessageListener(MessageLogging messageLogging) {
+        MessageLogger messageLogger = messageLogging.getLogger(RabbitMQDirectConfig.class);
+        return message -> messageLogger.info("<==================== Direct Message Info:", message);
+    }
+
+}
@@ -1,16 +1,22 @@
 package com.rabbitmq.consumer.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import lombok.extern.slf4j.Slf4j;
+import com.rabbitmq.consumer.converter.MessageInfoMessageConverter;
+import com.rabbitmq.consumer.converter.WireFormatProperties;
+import com.rabbitmq.consumer.dedup.DeduplicationAdvice;
+import com.rabbitmq.consumer.executor.ListenerExecutorFactory;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.metrics.ListenerMetrics;
+import com.rabbitmq.consumer.metrics.ListenerMetricsAdvice;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
 import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,7 +25,6 @@ import org.springframework.context.annotation.Profile;
 import java.util.HashMap;
 import java.util.Map;
 
-@Slf4j
 @Profile("factory")
 @Configuration
 public class RabbitMQFactoryConfig {
@@ -55,36 +60,83 @@ public class RabbitMQFactoryConfig {
     //설정한 AcknowledgeMode, Requeue, MessageConverter 등의 설정들이 @RabbitListener에 적용됩니다.
     @Bean
     public RabbitListenerContainerFactory<SimpleMessageListenerContainer> rabbitListenerContainerFactory(
-            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            ListenerExecutorFactory listenerExecutorFactory, RabbitProperties rabbitProperties, ListenerMetricsAdvice listenerMetricsAdvice,
+            DeduplicationAdvice deduplicationAdvice, MessagePostProcessor checkMessagePostProcessor,
+            MessageConverter jsonMessageConverter) {
 
         SimpleRabbitListenerContainerFactory simpleRabbitListenerContainerFactory = new SimpleRabbitListenerContainerFactory();
         configurer.configure(simpleRabbitListenerContainerFactory, connectionFactory);
 
+        //@RabbitListener마다 만들어지는 컨테이너에 각자의 Executor를 설정합니다. consumer.executor.mode가 bounded인 경우
+        //spring.rabbitmq.listener.simple의 Consumer 수가 parallelism보다 크면 컨테이너를 만들때(애플리케이션 시작시) 에러가 발생합니다.
+        simpleRabbitListenerContainerFactory.setContainerCustomizer(taskExecutorCustomizer(listenerExecutorFactory, rabbitProperties));
         simpleRabbitListenerContainerFactory.setAcknowledgeMode(AcknowledgeMode.AUTO);
         simpleRabbitListenerContainerFactory.setDefaultRequeueRejected(true);
-        simpleRabbitListenerContainerFactory.setMessageConverter(jsonMessageConverter());
-        simpleRabbitListenerContainerFactory.setAfterReceivePostProcessors(message -> { //메지시를 전송받은 후 실행될 로직을 정의할 수 있습니다.
-            log.info("Check Message: " + message);
-
-            return message;
-        });
+        simpleRabbitListenerContainerFactory.setMessageConverter(jsonMessageConverter);
+        simpleRabbitListenerContainerFactory.setAfterReceivePostProcessors(checkMessagePostProcessor); //메지시를 전송받은 후 실행될 로직을 정의할 수 있습니다.
+        //Queue별 메트릭을 기록한 뒤(MetricsConfig 참고) 이미 처리한 messageId의 메시지는 변환, Listener 호출 없이 ack 처리합니다.
+        simpleRabbitListenerContainerFactory.setAdviceChain(listenerMetricsAdvice, deduplicationAdvice);
 
         return simpleRabbitListenerContainerFactory;
     }
 
+    //afterReceivePostProcessors에 등록되어 Listener가 호출되기 전에 모든 메시지에 대해 실행됩니다.
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        //LocalDateTime serializable을 위해
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
-        objectMapper.registerModule(dateTimeModule());
+    public MessagePostProcessor checkMessagePostProcessor(MessageLogging messageLogging) {
+        MessageLogger messageLogger = messageLogging.getLogger(RabbitMQFactoryConfig.class);
+        return message -> {
+            messageLogger.info("Check Message:", message);
 
-        return new Jackson2JsonMessageConverter(objectMapper);
+            return message;
+        };
     }
 
+    //[Batch Listener]
+    //spring.profiles.active에 factory와 함께 batch를 추가하면(factory,batch) @RabbitListener에서 메시지를 하나씩 받지 않고 List로 묶어서 받습니다.
+    //1. setConsumerBatchEnabled(true): Consumer가 Queue에서 가져온 메시지를 batchSize 만큼 모아서 한번에 Listener로 전달합니다.
+    //2. setBatchListener(true): Listener 메서드의 파라미터를 List<MessageInfo>와 같이 List로 받을 수 있게 합니다. List의 제네릭 타입으로 메시지 변환이 수행됩니다.
+    //3. batchSize개의 메시지가 모이거나 receiveTimeout(ms) 동안 새로운 메시지가 도착하지 않으면 그때까지 모인 메시지만으로 Listener를 호출합니다.
+    //4. AcknowledgeMode가 AUTO인 경우 Listener가 정상 종료되면 batch의 마지막 delivery tag로 basicAck(deliveryTag, multiple = true)를 한번만 보내서
+    //batch 전체를 ack 처리합니다. Listener에서 에러가 발생하면 batch 전체가 nack 처리되므로 batch 단위로 재처리 된다는 점에 주의해야 합니다.
+    //5. prefetchCount가 batchSize보다 작으면 batchSize로 맞춰지므로 별도로 설정하지 않아도 됩니다.
+    @Profile("batch")
     @Bean
-    public JavaTimeModule dateTimeModule() {
-        return new JavaTimeModule();
+    public RabbitListenerContainerFactory<SimpleMessageListenerContainer> batchRabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${consumer.batch.size:100}") int batchSize,
+            @Value("${consumer.batch.receive-timeout:1000}") long receiveTimeout,
+            ListenerExecutorFactory listenerExecutorFactory, RabbitProperties rabbitProperties, ListenerMetrics listenerMetrics,
+            ListenerMetricsAdvice listenerMetricsAdvice, DeduplicationAdvice deduplicationAdvice,
+            WireFormatProperties wireFormatProperties, MessageConverter jsonMessageConverter) {
+
+        SimpleRabbitListenerContainerFactory simpleRabbitListenerContainerFactory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(simpleRabbitListenerContainerFactory, connectionFactory);
+        simpleRabbitListenerContainerFactory.setContainerCustomizer(taskExecutorCustomizer(listenerExecutorFactory, rabbitProperties));
+
+        simpleRabbitListenerContainerFactory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        simpleRabbitListenerContainerFactory.setDefaultRequeueRejected(true);
+        //batch Listener는 List<MessageInfo>를 한번에 전달받으므로 MessageInfo 인스턴스를 재사용하지 않는 MessageInfoMessageConverter를 사용합니다.
+        //Bean이 아니므로 WireFormatMessageConverter(CBOR, LZ4), TimedMessageConverter로 직접 감싸서 변환 시간을 측정합니다.
+        simpleRabbitListenerContainerFactory.setMessageConverter(listenerMetrics.timed(
+                wireFormatProperties.toConverter(new MessageInfoMessageConverter(jsonMessageConverter, false))));
+        simpleRabbitListenerContainerFactory.setBatchListener(true);
+        simpleRabbitListenerContainerFactory.setConsumerBatchEnabled(true);
+        simpleRabbitListenerContainerFactory.setBatchSize(batchSize);
+        simpleRabbitListenerContainerFactory.setReceiveTimeout(receiveTimeout);
+        simpleRabbitListenerContainerFactory.setAdviceChain(listenerMetricsAdvice, deduplicationAdvice); //batch에서 이미 처리한 messageId의 메시지를 제외하고 Listener를 호출합니다.
+
+        return simpleRabbitListenerContainerFactory;
+    }
+
+    //컨테이너의 listenerId(@RabbitListener id 또는 자동 생성된 id)를 쓰레드 이름으로 사용합니다.
+    //@RabbitListener의 concurrency 속성은 사용하지 않으므로 Consumer 수는 spring.rabbitmq.listener.simple의 max-concurrency(없으면 concurrency, 기본값 1)입니다.
+    private static ContainerCustomizer<SimpleMessageListenerContainer> taskExecutorCustomizer(ListenerExecutorFactory listenerExecutorFactory,
+                                                                                             RabbitProperties rabbitProperties) {
+        RabbitProperties.SimpleContainer simple = rabbitProperties.getListener().getSimple();
+        int maxConsumers = simple.getMaxConcurrency() != null ? simple.getMaxConcurrency()
+                : simple.getConcurrency() != null ? simple.getConcurrency() : 1;
+        return container -> container.setTaskExecutor(listenerExecutorFactory.create(container.getListenerId(), maxConsumers));
     }
 
 }
@@ -0,0 +1,60 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.converter.WireFormatProperties;
+import com.rabbitmq.consumer.receiver.Receiver;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.listener.adapter.MessageListenerAdapter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//container, direct 프로파일이 함께 사용하는 ack.receiver.queue 구성과 Receiver로 메시지를 넘기는 MessageListenerAdapter입니다.
+//container 프로파일은 SimpleMessageListenerContainer(RabbitMQContainerConfig), direct 프로파일은 DirectMessageListenerContainer(RabbitMQDirectConfig)로
+//같은 Queue를 처리하므로 Exchange, Queue, Binding을 한곳에서 선언합니다.
+@Profile({"container", "direct"})
+@Configuration
+public class ReceiverQueueConfig {
+
+    static final String topicExchangeName = "ack.receiver.exchange";
+
+    static final String queueName = "ack.receiver.queue";
+
+    @Bean
+    DirectExchange exchange() {
+        return new DirectExchange(topicExchangeName);
+    }
+
+    @Bean
+    Queue queue() {
+        Map<String, Object> arguments = new HashMap<>();
+
+        arguments.put("x-dead-letter-exchange", "x.dead.exchange");
+        arguments.put("x-dead-letter-routing-key", "dlx.routing.key");
+
+        return new Queue(queueName, false, false, false, arguments);
+    }
+
+    @Bean
+    Binding binding(Queue queue, DirectExchange exchange) {
+        return BindingBuilder.bind(queue).to(exchange).with("ack.receiver.routing.key");
+    }
+
+    //Receiver라는 이름으로 정의한 Bean의 receiveMessage 메서드를 통해 Message의 바디(메시지 내용)를 수신받습니다. 해당 방식은 Message, Channel과 같은 상세항 정보는
+    //받을 수 없으며 만약 Message, Channel 정보가 필요한 경우 RabbitMQContainerConfig와 같이 MessageListener를 정의하여 setMessageListener에 할당해서 사용해야 합니다.
+    //MessageConverter 설정이 없을시 메시지 타입이 맞지 않는 오류가 발생합니다. body가 consumer.wire-format.view-above 이상이면 MessageBody로 변환합니다.
+    //Bean을 사용하는 컨테이너에서 설정을 바꾸지 않도록 생성할때 설정합니다.
+    @Bean
+    public MessageListenerAdapter messageListenerAdapter(Receiver receiver, WireFormatProperties wireFormatProperties, MessageConverter jsonMessageConverter) {
+        MessageListenerAdapter messageListenerAdapter = new MessageListenerAdapter(receiver, "receiveMessage");
+        messageListenerAdapter.setMessageConverter(wireFormatProperties.toAdapterConverter(jsonMessageConverter));
+        return messageListenerAdapter;
+    }
+
+}
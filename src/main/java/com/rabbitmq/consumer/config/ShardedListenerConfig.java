@@ -0,0 +1,104 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import com.rabbitmq.consumer.converter.MessageInfoMessageConverter;
+import com.rabbitmq.consumer.converter.WireFormatProperties;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.executor.ListenerExecutorFactory;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.metrics.ListenerMetrics;
+import com.rabbitmq.consumer.metrics.ListenerMetricsAdvice;
+import com.rabbitmq.consumer.shard.ShardedDispatcher;
+import com.rabbitmq.consumer.shard.ShardedMessageListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//[key별 순서를 지키는 병렬 처리]
+//sharded.test.queue의 메시지를 Consumer 하나로 받아서 MessageInfo.publisher(x-shard-key 헤더가 있으면 헤더 값)별로 consumer.sharding.lanes개의
+//lane에 나누어 처리합니다. 같은 publisher의 메시지는 보낸 순서대로 처리되며 서로 다른 publisher의 메시지는 동시에 처리됩니다. (ShardedDispatcher 참고)
+//1. lane에서 처리가 끝난 메시지만 ack하므로 MANUAL ackMode와 AckCoalescers를 사용합니다.
+//2. deduplicationAdvice는 Listener가 반환될때 id를 기록하는데 lane 처리가 끝나기 전에 반환되므로 등록하지 않습니다.
+//3. listenerMetricsAdvice의 process, deliveries는 lane에 넘기기까지를 기록합니다. lane에서 실패한 메시지는 rabbitmq.consumer.shard.failures로 확인합니다.
+@Profile("container")
+@Configuration
+public class ShardedListenerConfig {
+
+    static final String queueName = "sharded.test.queue";
+
+    @Bean
+    Declarables shardedQueueTopology() {
+        Map<String, Object> arguments = new HashMap<>();
+
+        arguments.put("x-dead-letter-exchange", "x.dead.exchange");
+        arguments.put("x-dead-letter-routing-key", "dlx.routing.key");
+
+        Queue queue = new Queue(queueName, false, false, false, arguments);
+        DirectExchange exchange = new DirectExchange(ReceiverQueueConfig.topicExchangeName);
+        return new Declarables(queue, BindingBuilder.bind(queue).to(exchange).with("sharded.routing.key"));
+    }
+
+    //container 프로파일에서 MANUAL ackMode를 사용하는 컨테이너는 shardedMessageListenerContainer뿐입니다.
+    @Bean
+    AckCoalescers ackCoalescers(@Value("${consumer.ack.batch-size:50}") int batchSize,
+                                @Value("${consumer.ack.flush-interval-millis:100}") long flushIntervalMillis,
+                                @Value("${consumer.ack.orphan-timeout-millis:300000}") long orphanTimeoutMillis,
+                                ListenerMetrics listenerMetrics) {
+        return new AckCoalescers(batchSize, flushIntervalMillis, orphanTimeoutMillis, listenerMetrics);
+    }
+
+    @Bean
+    ShardedDispatcher shardedDispatcher(@Value("${consumer.sharding.lanes:8}") int lanes,
+                                        @Value("${consumer.sharding.max-in-flight:256}") int maxInFlight,
+                                        AckCoalescers ackCoalescers, MeterRegistry meterRegistry) {
+        return new ShardedDispatcher("shardedMessageListenerContainer", lanes, maxInFlight, ackCoalescers, meterRegistry);
+    }
+
+    @Bean
+    SimpleMessageListenerContainer shardedMessageListenerContainer(ConnectionFactory connectionFactory, ListenerExecutorFactory listenerExecutorFactory,
+                                                                   ListenerMetrics listenerMetrics, ListenerMetricsAdvice listenerMetricsAdvice,
+                                                                   MessageConverter jsonMessageConverter, ShardedDispatcher shardedDispatcher,
+                                                                   @Value("${consumer.sharding.max-in-flight:256}") int maxInFlight,
+                                                                   MessageLogging messageLogging, WireFormatProperties wireFormatProperties) {
+        //MessageInfo는 lane 쓰레드로 넘어가므로 인스턴스를 재사용하지 않습니다.
+        MessageConverter messageInfoMessageConverter = listenerMetrics.timed(
+                wireFormatProperties.toConverter(new MessageInfoMessageConverter(jsonMessageConverter, false)));
+        MessageLogger messageLogger = messageLogging.getLogger(ShardedListenerConfig.class);
+
+        ShardedMessageListener<MessageInfo> listener = new ShardedMessageListener<>(shardedDispatcher,
+                message -> {
+                    message.getMessageProperties().setInferredArgumentType(MessageInfo.class);
+                    return (MessageInfo) messageInfoMessageConverter.fromMessage(message);
+                },
+                ShardedMessageListener.header("x-shard-key", (message, messageInfo) -> messageInfo.getPublisher()),
+                messageInfo -> messageLogger.info("<==================== Sharded Receive MessageInfo", queueName, messageInfo));
+
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(listenerExecutorFactory.create("shardedMessageListenerContainer", 1));
+        container.setMessageListener(listener);
+        container.setQueueNames(queueName);
+        container.setConcurrentConsumers(1); //Consumer가 여러개이면 같은 key의 메시지가 다른 Consumer로 전달되어 순서가 바뀔 수 있습니다.
+        container.setPrefetchCount(maxInFlight); //lane이 처리중인 메시지 수만큼 미리 받아둡니다.
+        container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        container.setAdviceChain(listenerMetricsAdvice);
+
+        return container;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.rabbitmq.consumer.config;
+
+import com.rabbitmq.consumer.converter.WireFormatProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+//[메시지 형식]
+//모든 프로파일의 MessageConverter Bean(jsonMessageConverter, messageInfoMessageConverter)을 WireFormatMessageConverter로 감싸서
+//JSON 외에 CBOR(application/cbor), LZ4 압축(content-encoding lz4) 메시지도 같은 Listener에서 받을 수 있게 합니다.
+//Bean이 아닌 MessageConverter(batch, sharded Listener)는 각 Config에서 WireFormatProperties.toConverter로 직접 감쌉니다.
+@Configuration
+@EnableConfigurationProperties(WireFormatProperties.class)
+public class WireFormatConfig {
+
+    //MetricsConfig의 TimedMessageConverter가 압축 해제, CBOR 변환 시간까지 측정하도록 먼저 감쌉니다.
+    //Ordered를 구현하지 않은 BeanPostProcessor(timedMessageConverterPostProcessor)보다 먼저 실행됩니다.
+    @Bean
+    public static BeanPostProcessor wireFormatMessageConverterPostProcessor(ObjectProvider<WireFormatProperties> wireFormatProperties) {
+        return new WireFormatPostProcessor(wireFormatProperties);
+    }
+
+    static class WireFormatPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<WireFormatProperties> wireFormatProperties;
+
+        WireFormatPostProcessor(ObjectProvider<WireFormatProperties> wireFormatProperties) {
+            this.wireFormatProperties = wireFormatProperties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean instanceof MessageConverter ? wireFormatProperties.getObject().toConverter((MessageConverter) bean) : bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.rabbitmq.consumer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.sink.SinkProperties;
+import com.rabbitmq.consumer.sink.SinkWriter;
+import com.rabbitmq.consumer.sink.WriteBehindSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+
+//[Write-behind sink]
+//batch Listener(BatchMessageListener)가 받은 MessageInfo를 Downstream에 바로 보내지 않고 로컬 로그에 추가한 뒤 반환합니다.
+//AUTO ackMode이므로 batch의 ack는 로그에 반영(fsync)된 뒤에 전송되며 Downstream으로는 drainer 쓰레드가 drain-batch-size개씩 모아서 보냅니다.
+//Downstream은 SinkWriter<MessageInfo> Bean으로 등록하며 없으면 보낸 개수만 로그로 남깁니다.
+@Profile("factory & batch")
+@Configuration
+@ConditionalOnProperty(name = "consumer.sink.enabled", havingValue = "true")
+@EnableConfigurationProperties(SinkProperties.class)
+public class WriteBehindSinkConfig {
+
+    @Bean
+    public WriteBehindSink<MessageInfo> messageInfoSink(SinkProperties sinkProperties, ObjectProvider<SinkWriter<MessageInfo>> sinkWriter,
+                                                        MessageLogging messageLogging, MeterRegistry meterRegistry) throws IOException {
+        MessageLogger messageLogger = messageLogging.getLogger(WriteBehindSinkConfig.class);
+        SinkWriter<MessageInfo> writer = sinkWriter.getIfAvailable(() ->
+                records -> messageLogger.info("====================> Sink MessageInfo Size:", "ack.test.queue", records.size()));
+        //로그에는 Producer와 같은 JSON으로 저장합니다.
+        return new WriteBehindSink<>("messageInfo", sinkProperties, WriteBehindSink.Codec.json(new ObjectMapper(), MessageInfo.class), writer, meterRegistry);
+    }
+
+}
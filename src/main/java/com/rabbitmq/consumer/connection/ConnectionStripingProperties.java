@@ -0,0 +1,28 @@
+package com.rabbitmq.consumer.connection;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//consumer.connection으로 시작하는 application.yml 설정값입니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.connection")
+public class ConnectionStripingProperties {
+
+    //true인 경우에만 Spring Boot의 CachingConnectionFactory 대신 StripedConnectionFactory가 등록됩니다.
+    private boolean enabled = false;
+
+    //만들 Connection(CachingConnectionFactory) 수
+    private int stripes = 2;
+
+    //Connection마다 캐시할 Channel 수입니다. 해당 Connection에 배정된 Consumer 수와 동시에 메시지를 보내는 쓰레드 수의 합 이상이어야
+    //Channel을 매번 새로 열고 닫지 않습니다.
+    private int channelCacheSize = 25;
+
+    //0보다 크면 Channel을 channelCacheSize개까지만 열고 남은 Channel이 없을때 해당 시간만큼 기다립니다.
+    private Duration channelCheckoutTimeout = Duration.ZERO;
+
+}
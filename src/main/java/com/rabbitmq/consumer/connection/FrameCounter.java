@@ -0,0 +1,61 @@
+package com.rabbitmq.consumer.connection;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//Socket으로 주고받은 byte를 AMQP 0-9-1 frame 단위로 나누어 개수를 셉니다.
+//frame은 type(1) + channel(2) + size(4) + payload(size) + frame-end(1)로 구성되므로 header 7 byte만 읽고 나머지는 건너뜁니다.
+//Connection을 열때 Client가 먼저 보내는 protocol header("AMQP" 0 0 9 1, 8 byte)는 skip으로 건너뜁니다.
+//하나의 Stream에서만 사용해야 합니다. (amqp-client는 Connection마다 읽는 쓰레드가 하나이고 쓰기는 동기화되어 있음)
+class FrameCounter {
+
+    private static final int HEADER_SIZE = 7;
+
+    private final LongAdder frames;
+
+    private long skip;
+
+    private int headerPosition;
+
+    private long payloadSize;
+
+    FrameCounter(LongAdder frames, int skip) {
+        this.frames = frames;
+        this.skip = skip;
+    }
+
+    void update(int b) {
+        if (skip > 0) {
+            skip--;
+            return;
+        }
+        header(b);
+    }
+
+    void update(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int position = offset;
+        while (position < end) {
+            if (skip > 0) {
+                int skipped = (int) Math.min(skip, end - position);
+                skip -= skipped;
+                position += skipped;
+            } else {
+                header(bytes[position++]);
+            }
+        }
+    }
+
+    private void header(int b) {
+        //type, channel 다음 4 byte가 payload 크기(big-endian)입니다.
+        if (headerPosition >= 3) {
+            payloadSize = (payloadSize << 8) | (b & 0xff);
+        }
+        if (++headerPosition == HEADER_SIZE) {
+            frames.increment();
+            skip = payloadSize + 1;
+            headerPosition = 0;
+            payloadSize = 0;
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.rabbitmq.consumer.connection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.AbstractRoutingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Listener 컨테이너를 stripes개의 ConnectionFactory(TCP Connection)에 나누어 연결합니다.
+//[Connection 하나를 공유하는 경우의 문제]
+//CachingConnectionFactory(CHANNEL 모드)는 Connection 하나에 Channel을 여러개 열어서 사용하므로 모든 Consumer의 메시지가 하나의 Socket과
+//해당 Socket의 frame을 읽는 쓰레드 하나를 거쳐서 전달됩니다. Queue와 Consumer가 많아지면 이 쓰레드가 병목이 됩니다.
+//[동작 방식]
+//1. Listener 컨테이너는 ConnectionFactory가 RoutingConnectionFactory이면 Queue 이름으로 만든 lookup key("[queue]")로
+//getTargetConnectionFactory를 호출하여 사용할 ConnectionFactory를 정합니다.
+//2. 처음 보는 lookup key는 컨테이너가 시작된 순서대로 stripe를 돌아가며 배정하고 이후에는 같은 stripe를 사용합니다.
+//hash로 배정하면 메시지가 많은 Queue 여러개가 같은 stripe에 몰릴 수 있으므로 순서대로 배정합니다.
+//3. 컨테이너가 아닌 RabbitTemplate, RabbitAdmin은 lookup key가 없으므로 첫번째 stripe를 사용합니다.
+//같은 컨테이너의 Consumer는 모두 같은 Connection을 사용하므로 Consumer가 많은 Queue는 컨테이너를 나누어야 여러 Connection에 분산됩니다.
+@Slf4j
+public class StripedConnectionFactory extends AbstractRoutingConnectionFactory implements DisposableBean {
+
+    private final String name;
+
+    private final List<ConnectionFactory> stripes;
+
+    private final Map<Object, Integer> assignments = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextStripe = new AtomicInteger();
+
+    public StripedConnectionFactory(String name, List<? extends ConnectionFactory> stripes) {
+        if (stripes.isEmpty()) {
+            throw new IllegalArgumentException("At least one stripe is required");
+        }
+        this.name = name;
+        this.stripes = List.copyOf(stripes);
+
+        Map<Object, ConnectionFactory> targets = new LinkedHashMap<>();
+        for (int i = 0; i < this.stripes.size(); i++) {
+            targets.put(stripeName(i), this.stripes.get(i));
+        }
+        setTargetConnectionFactories(targets);
+        setDefaultTargetConnectionFactory(this.stripes.get(0));
+    }
+
+    //컨테이너가 아닌 곳에서 Connection을 만들면 기본 ConnectionFactory(첫번째 stripe)를 사용합니다.
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return null;
+    }
+
+    @Override
+    public ConnectionFactory getTargetConnectionFactory(Object key) {
+        if (key == null) {
+            return stripes.get(0);
+        }
+        return stripes.get(stripeOf(key));
+    }
+
+    public int stripeOf(Object key) {
+        return assignments.computeIfAbsent(key, k -> {
+            int stripe = Math.floorMod(nextStripe.getAndIncrement(), stripes.size());
+            log.info("Connection {}: {} assigned to {}", name, k, stripeName(stripe));
+            return stripe;
+        });
+    }
+
+    public String stripeName(int stripe) {
+        return name + "-" + stripe;
+    }
+
+    public int getStripeCount() {
+        return stripes.size();
+    }
+
+    //lookup key(Queue 이름)별로 배정된 stripe입니다.
+    public Map<Object, Integer> getAssignments() {
+        return Collections.unmodifiableMap(assignments);
+    }
+
+    @Override
+    public void destroy() {
+        for (ConnectionFactory stripe : stripes) {
+            if (stripe instanceof DisposableBean) {
+                try {
+                    ((DisposableBean) stripe).destroy();
+                } catch (Exception e) {
+                    log.warn("Connection {}: failed to close stripe", name, e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.rabbitmq.consumer.connection;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.net.SocketFactory;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.LongAdder;
+
+//amqp-client ConnectionFactory의 setSocketFactory에 등록하여 Connection 하나가 주고받은 byte, frame 수를 셉니다.
+//Connection이 끊어져서 다시 연결되면 새 Socket이 만들어지지만 같은 SocketFactory를 사용하므로 값은 계속 누적됩니다.
+//[메트릭]
+//1. rabbitmq.consumer.connection.bytes{connection, direction=in|out}
+//2. rabbitmq.consumer.connection.frames{connection, direction=in|out}: heartbeat를 포함한 AMQP frame 수
+//Connection의 reader 쓰레드가 처리하는 frame이 많아서 병목이 되는지는 frames(in)의 증가량으로 확인합니다.
+//Blocking IO(amqp-client 기본값)의 일반 TCP Socket에서만 동작합니다. (TLS, NIO는 지원하지 않음)
+public class TrafficCountingSocketFactory extends SocketFactory {
+
+    //Client가 Connection을 열때 먼저 보내는 protocol header("AMQP" 0 0 9 1)의 크기입니다.
+    private static final int PROTOCOL_HEADER_SIZE = 8;
+
+    private final LongAdder bytesIn = new LongAdder();
+
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final LongAdder framesIn = new LongAdder();
+
+    private final LongAdder framesOut = new LongAdder();
+
+    public TrafficCountingSocketFactory() {
+    }
+
+    public TrafficCountingSocketFactory(String connectionName, MeterRegistry meterRegistry) {
+        register(meterRegistry, "rabbitmq.consumer.connection.bytes", "Bytes transferred on the connection socket", connectionName, "in", bytesIn);
+        register(meterRegistry, "rabbitmq.consumer.connection.bytes", "Bytes transferred on the connection socket", connectionName, "out", bytesOut);
+        register(meterRegistry, "rabbitmq.consumer.connection.frames", "AMQP frames transferred on the connection", connectionName, "in", framesIn);
+        register(meterRegistry, "rabbitmq.consumer.connection.frames", "AMQP frames transferred on the connection", connectionName, "out", framesOut);
+    }
+
+    private static void register(MeterRegistry meterRegistry, String name, String description, String connectionName, String direction,
+                                 LongAdder value) {
+        FunctionCounter.builder(name, value, LongAdder::sum)
+                .description(description)
+                .tag("connection", connectionName)
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long getFramesIn() {
+        return framesIn.sum();
+    }
+
+    public long getFramesOut() {
+        return framesOut.sum();
+    }
+
+    //amqp-client는 연결되지 않은 Socket을 만든 뒤 connect(address, connectionTimeout)를 호출합니다.
+    @Override
+    public Socket createSocket() {
+        return new CountingSocket();
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return connect(new InetSocketAddress(host, port), null, 0);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return connect(new InetSocketAddress(host, port), localHost, localPort);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return connect(new InetSocketAddress(host, port), null, 0);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return connect(new InetSocketAddress(address, port), localAddress, localPort);
+    }
+
+    private Socket connect(InetSocketAddress address, InetAddress localAddress, int localPort) throws IOException {
+        Socket socket = createSocket();
+        if (localAddress != null || localPort != 0) {
+            socket.bind(new InetSocketAddress(localAddress, localPort));
+        }
+        socket.connect(address);
+        return socket;
+    }
+
+    private final class CountingSocket extends Socket {
+
+        private InputStream inputStream;
+
+        private OutputStream outputStream;
+
+        @Override
+        public synchronized InputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new CountingInputStream(super.getInputStream(), new FrameCounter(framesIn, 0));
+            }
+            return inputStream;
+        }
+
+        @Override
+        public synchronized OutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream(), new FrameCounter(framesOut, PROTOCOL_HEADER_SIZE));
+            }
+            return outputStream;
+        }
+
+    }
+
+    private final class CountingInputStream extends FilterInputStream {
+
+        private final FrameCounter frameCounter;
+
+        private CountingInputStream(InputStream in, FrameCounter frameCounter) {
+            super(in);
+            this.frameCounter = frameCounter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                bytesIn.increment();
+                frameCounter.update(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = in.read(bytes, offset, length);
+            if (read > 0) {
+                bytesIn.add(read);
+                frameCounter.update(bytes, offset, read);
+            }
+            return read;
+        }
+
+        //건너뛴 byte는 frame을 나눌 수 없게 되므로 읽어서 버립니다. (amqp-client는 skip을 사용하지 않음)
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+    }
+
+    private final class CountingOutputStream extends FilterOutputStream {
+
+        private final FrameCounter frameCounter;
+
+        private CountingOutputStream(OutputStream out, FrameCounter frameCounter) {
+            super(out);
+            this.frameCounter = frameCounter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytesOut.increment();
+            frameCounter.update(b);
+        }
+
+        //FilterOutputStream의 기본 구현은 1 byte씩 write(int)를 호출하므로 배열을 그대로 넘깁니다.
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            bytesOut.add(length);
+            frameCounter.update(bytes, offset, length);
+        }
+
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.rabbitmq.consumer.converter;
+
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+
+//MessageBody.value에서 사용합니다. JSON body(UTF-8 byte[])를 앞에서부터 읽으면서 path(필드 이름 순서)에 해당하는 값의 위치만 찾습니다.
+//찾는 필드가 아닌 값(큰 문자열, 객체, 배열 포함)은 byte 단위로 건너뛰므로 String이나 JsonNode를 만들지 않습니다.
+//필드 이름은 이스케이프 없이 byte 그대로 비교합니다.
+final class JsonValueLocator {
+
+    private final byte[] body;
+    private int pos;
+
+    //찾은 값의 위치입니다. 문자열이면 따옴표를 제외한 범위이며 escaped는 범위 안에 이스케이프(\)가 있는지 여부입니다.
+    int valueStart;
+    int valueEnd;
+    boolean string;
+    boolean escaped;
+
+    JsonValueLocator(byte[] body) {
+        this.body = body;
+    }
+
+    //path가 비어있으면 body 전체(최상위 값)의 위치를 찾습니다.
+    boolean locate(String... path) {
+        pos = 0;
+        for (String name : path) {
+            if (peek() != '{') {
+                return false;
+            }
+            pos++;
+            if (!findField(name.getBytes(StandardCharsets.UTF_8))) {
+                return false;
+            }
+        }
+        markValue();
+        return true;
+    }
+
+    //pos는 여는 중괄호 다음 위치여야 하며 필드를 찾으면 값의 시작 위치로 이동합니다.
+    private boolean findField(byte[] name) {
+        if (peek() == '}') {
+            return false;
+        }
+        while (true) {
+            expect('"');
+            int nameStart = pos;
+            skipString();
+            boolean matched = equals(name, nameStart, pos - 1 - nameStart);
+            expect(':');
+            if (matched) {
+                return true;
+            }
+            skipValue();
+
+            byte next = next();
+            if (next == '}') {
+                return false;
+            }
+            if (next != ',') {
+                throw error("',' or '}'");
+            }
+        }
+    }
+
+    private void markValue() {
+        if (peek() == '"') {
+            valueStart = ++pos;
+            string = true;
+            escaped = false;
+            while (pos < body.length) {
+                byte b = body[pos];
+                if (b == '"') {
+                    valueEnd = pos;
+                    return;
+                }
+                if (b == '\\') {
+                    escaped = true;
+                    pos++;
+                }
+                pos++;
+            }
+            throw error("closing '\"'");
+        }
+        valueStart = pos;
+        string = false;
+        skipValue();
+        int end = pos;
+        while (end > valueStart && isWhitespace(body[end - 1])) {
+            end--;
+        }
+        valueEnd = end;
+    }
+
+    private void skipValue() {
+        byte first = peek();
+        if (first == '"') {
+            pos++;
+            skipString();
+        } else if (first == '{' || first == '[') {
+            int depth = 0;
+            while (pos < body.length) {
+                byte b = body[pos++];
+                if (b == '"') {
+                    skipString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return;
+                }
+            }
+            throw error("end of " + (char) first);
+        } else {
+            while (pos < body.length && body[pos] != ',' && body[pos] != '}' && body[pos] != ']') {
+                pos++;
+            }
+        }
+    }
+
+    //pos는 여는 따옴표 다음 위치여야 하며 닫는 따옴표 다음으로 이동합니다.
+    private void skipString() {
+        while (pos < body.length) {
+            byte b = body[pos++];
+            if (b == '\\') {
+                pos++;
+            } else if (b == '"') {
+                return;
+            }
+        }
+        throw error("closing '\"'");
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("'" + expected + "'");
+        }
+    }
+
+    private byte next() {
+        byte b = peek();
+        pos++;
+        return b;
+    }
+
+    private byte peek() {
+        while (pos < body.length) {
+            byte b = body[pos];
+            if (!isWhitespace(b)) {
+                return b;
+            }
+            pos++;
+        }
+        throw error("more content");
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private boolean equals(byte[] expected, int offset, int length) {
+        if (expected.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (expected[i] != body[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MessageConversionException error(String expected) {
+        return new MessageConversionException("Invalid JSON: expected " + expected + " at offset " + pos);
+    }
+
+}
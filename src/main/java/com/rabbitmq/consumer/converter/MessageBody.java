@@ -0,0 +1,123 @@
+package com.rabbitmq.consumer.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//Message의 body(byte[])를 String이나 DTO로 변환하지 않고 읽기 전용으로 넘기는 view입니다.
+//수 MB 크기의 메시지를 String으로 변환하면 byte[]와 같은 크기의 String이 하나 더 생기므로 Listener가 body를 직접 읽도록 합니다.
+//Listener 메서드의 파라미터를 MessageBody로 선언하면 WireFormatMessageConverter가 변환하며 MessageListenerAdapter(Receiver)는
+//MessageBodyViewConverter가 body 크기를 보고 변환합니다. LZ4로 압축된 메시지는 압축을 푼 body를 넘깁니다.
+//asByteBuffer, asInputStream, value, valueAsStream은 body를 복사하지 않습니다. (이스케이프가 포함된 문자열 값만 해당 값을 변환해서 복사)
+public final class MessageBody {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final int PREVIEW_LENGTH = 256;
+
+    private final byte[] body;
+
+    private final MessageProperties messageProperties;
+
+    private MessageBody(byte[] body, MessageProperties messageProperties) {
+        this.body = body;
+        this.messageProperties = messageProperties;
+    }
+
+    public static MessageBody of(Message message) {
+        return new MessageBody(message.getBody(), message.getMessageProperties());
+    }
+
+    public MessageProperties getMessageProperties() {
+        return messageProperties;
+    }
+
+    public int length() {
+        return body.length;
+    }
+
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(body).asReadOnlyBuffer();
+    }
+
+    public InputStream asInputStream() {
+        return new ByteArrayInputStream(body);
+    }
+
+    //JSON body에서 path(필드 이름 순서, 예: value("order", "id"))에 해당하는 값을 반환합니다. 없으면 null을 반환합니다.
+    //문자열은 따옴표를 제외한 UTF-8 byte, 그 외(숫자, 객체, 배열 등)는 JSON 그대로의 byte입니다.
+    public ByteBuffer value(String... path) {
+        JsonValueLocator locator = locate(path);
+        if (locator == null) {
+            return null;
+        }
+        if (locator.escaped) {
+            return ByteBuffer.wrap(unescape(locator).getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        }
+        return ByteBuffer.wrap(body, locator.valueStart, locator.valueEnd - locator.valueStart).slice().asReadOnlyBuffer();
+    }
+
+    //큰 문자열 값을 다른 곳(파일, HTTP 등)으로 그대로 넘길때 사용합니다.
+    public InputStream valueAsStream(String... path) {
+        JsonValueLocator locator = locate(path);
+        if (locator == null) {
+            return null;
+        }
+        if (locator.escaped) {
+            return new ByteArrayInputStream(unescape(locator).getBytes(StandardCharsets.UTF_8));
+        }
+        return new ByteArrayInputStream(body, locator.valueStart, locator.valueEnd - locator.valueStart);
+    }
+
+    //publisher, id와 같은 작은 값을 꺼낼때 사용합니다. 해당 값만 String으로 변환하며 JSON null이면 null을 반환합니다.
+    public String valueAsString(String... path) {
+        JsonValueLocator locator = locate(path);
+        if (locator == null) {
+            return null;
+        }
+        if (locator.escaped) {
+            return unescape(locator);
+        }
+        int length = locator.valueEnd - locator.valueStart;
+        if (!locator.string && length == 4 && body[locator.valueStart] == 'n') {
+            return null;
+        }
+        return new String(body, locator.valueStart, length, StandardCharsets.UTF_8);
+    }
+
+    private JsonValueLocator locate(String[] path) {
+        String contentType = messageProperties.getContentType();
+        if (contentType != null && contentType.startsWith(WireFormatMessageConverter.CONTENT_TYPE_CBOR)) {
+            throw new MessageConversionException("MessageBody.value supports JSON content only: " + contentType);
+        }
+        JsonValueLocator locator = new JsonValueLocator(body);
+        return locator.locate(path) ? locator : null;
+    }
+
+    //이스케이프가 포함된 문자열은 따옴표를 포함한 해당 범위만 JsonParser로 읽습니다.
+    private String unescape(JsonValueLocator locator) {
+        try (JsonParser parser = JSON.createParser(body, locator.valueStart - 1, locator.valueEnd - locator.valueStart + 2)) {
+            parser.nextToken();
+            return parser.getText();
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to read JSON string value", e);
+        }
+    }
+
+    //로그에는 앞부분만 남깁니다. (MessageLogger가 toString 결과를 maxBodyLength로 자르기 전에 body 전체를 String으로 만들지 않도록)
+    @Override
+    public String toString() {
+        int previewLength = Math.min(body.length, PREVIEW_LENGTH);
+        return "MessageBody[contentType=" + messageProperties.getContentType() + ", length=" + body.length + "] "
+                + new String(body, 0, previewLength, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.rabbitmq.consumer.converter;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+//MessageListenerAdapter는 Listener 메서드의 파라미터 타입(inferredArgumentType)을 알려주지 않으므로 body 크기로 MessageBody 변환 여부를 정합니다.
+//body가 viewAbove byte 이상이면(LZ4 압축 메시지는 압축을 풀었을때의 길이 기준) inferredArgumentType을 MessageBody로 설정한 복사본을 delegate에 위임하며
+//delegate(WireFormatConfig가 감싼 jsonMessageConverter Bean)의 WireFormatMessageConverter가 압축을 풀고 MessageBody로 변환합니다.
+//받은 Message는 Listener의 에러 처리, 로그 등에서 그대로 사용되므로 속성을 바꾸지 않습니다. (WireFormatMessageConverter.decompress와 같이 속성을 복사)
+//MessageListenerAdapter는 변환된 객체의 타입으로 메서드를 찾으므로 Receiver에 receiveMessage(String), receiveMessage(MessageBody)를 함께 정의합니다.
+public class MessageBodyViewConverter implements MessageConverter {
+
+    private final MessageConverter delegate;
+
+    private final int viewAbove;
+
+    public MessageBodyViewConverter(MessageConverter delegate, int viewAbove) {
+        this.delegate = delegate;
+        this.viewAbove = viewAbove;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        return delegate.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        MessageProperties messageProperties = message.getMessageProperties();
+        if (messageProperties.getInferredArgumentType() != null || WireFormatMessageConverter.decodedLength(message) < viewAbove) {
+            return delegate.fromMessage(message);
+        }
+        MessageProperties viewProperties = MessagePropertiesBuilder.fromClonedProperties(messageProperties).build();
+        //Listener 메서드 정보는 AMQP 속성이 아니므로 복사되지 않아서 직접 옮깁니다.
+        viewProperties.setTargetBean(messageProperties.getTargetBean());
+        viewProperties.setTargetMethod(messageProperties.getTargetMethod());
+        viewProperties.setInferredArgumentType(MessageBody.class);
+        return delegate.fromMessage(new Message(message.getBody(), viewProperties));
+    }
+
+}
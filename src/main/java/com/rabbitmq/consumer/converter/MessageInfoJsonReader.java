@@ -0,0 +1,183 @@
+package com.rabbitmq.consumer.converter;
+
+import com.rabbitmq.consumer.dto.MessageInfo;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+
+//MessageInfo JSON(body의 UTF-8 byte[])을 앞에서부터 한번만 읽으면서 publisher, message 필드를 꺼냅니다.
+//JsonParser처럼 parser, context 객체를 만들지 않으므로 message 필드의 String 외에는 할당이 없습니다. (publisher는 StringInterner 사용)
+//이스케이프(\")가 포함된 문자열을 만나면 false를 반환하고 호출한 쪽에서 JsonParser로 다시 읽도록 합니다.
+final class MessageInfoJsonReader {
+
+    private static final byte[] PUBLISHER = "publisher".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MESSAGE = "message".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] body;
+    private int pos;
+    private int stringEnd;
+
+    private MessageInfoJsonReader(byte[] body) {
+        this.body = body;
+    }
+
+    static boolean read(byte[] body, MessageInfo messageInfo, StringInterner publishers) {
+        return new MessageInfoJsonReader(body).readObject(messageInfo, publishers);
+    }
+
+    private boolean readObject(MessageInfo messageInfo, StringInterner publishers) {
+        expect('{');
+        if (peek() == '}') {
+            return true;
+        }
+        while (true) {
+            expect('"');
+            int nameStart = pos;
+            if (!scanString()) {
+                return false;
+            }
+            int nameLength = stringEnd - nameStart;
+            expect(':');
+
+            if (equals(PUBLISHER, nameStart, nameLength) || equals(MESSAGE, nameStart, nameLength)) {
+                boolean publisher = nameLength == PUBLISHER.length;
+                String value;
+                if (peek() == 'n') {
+                    literal("null");
+                    value = null;
+                } else if (peek() == '"') {
+                    pos++;
+                    int valueStart = pos;
+                    if (!scanString()) {
+                        return false;
+                    }
+                    value = publisher ? publishers.intern(body, valueStart, stringEnd - valueStart)
+                            : new String(body, valueStart, stringEnd - valueStart, StandardCharsets.UTF_8);
+                } else {
+                    int valueStart = pos;
+                    skipValue();
+                    value = new String(body, valueStart, pos - valueStart, StandardCharsets.UTF_8).trim();
+                }
+                if (publisher) {
+                    messageInfo.setPublisher(value);
+                } else {
+                    messageInfo.setMessage(value);
+                }
+            } else {
+                skipValue();
+            }
+
+            byte next = next();
+            if (next == '}') {
+                return true;
+            }
+            if (next != ',') {
+                throw error("',' or '}'");
+            }
+        }
+    }
+
+    //pos는 여는 따옴표 다음 위치여야 하며 닫는 따옴표 다음으로 이동합니다. 문자열의 끝(닫는 따옴표 위치)은 stringEnd에 저장합니다.
+    private boolean scanString() {
+        byte[] body = this.body;
+        for (int i = pos; i < body.length; i++) {
+            byte b = body[i];
+            if (b == '"') {
+                stringEnd = i;
+                pos = i + 1;
+                return true;
+            }
+            if (b == '\\') {
+                return false;
+            }
+        }
+        throw error("closing '\"'");
+    }
+
+    private void skipValue() {
+        byte first = peek();
+        if (first == '"') {
+            pos++;
+            skipEscapedString();
+        } else if (first == '{' || first == '[') {
+            int depth = 0;
+            while (pos < body.length) {
+                byte b = body[pos++];
+                if (b == '"') {
+                    skipEscapedString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return;
+                }
+            }
+            throw error("end of " + (char) first);
+        } else {
+            while (pos < body.length && body[pos] != ',' && body[pos] != '}' && body[pos] != ']') {
+                pos++;
+            }
+        }
+    }
+
+    private void skipEscapedString() {
+        while (pos < body.length) {
+            byte b = body[pos++];
+            if (b == '\\') {
+                pos++;
+            } else if (b == '"') {
+                return;
+            }
+        }
+        throw error("closing '\"'");
+    }
+
+    private void literal(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (pos >= body.length || body[pos++] != literal.charAt(i)) {
+                throw error(literal);
+            }
+        }
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("'" + expected + "'");
+        }
+    }
+
+    //공백을 건너뛴 뒤 다음 문자를 반환하고 위치를 한칸 이동합니다.
+    private byte next() {
+        byte b = peek();
+        pos++;
+        return b;
+    }
+
+    //공백을 건너뛴 뒤 다음 문자를 반환합니다. 위치는 이동하지 않습니다.
+    private byte peek() {
+        while (pos < body.length) {
+            byte b = body[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b;
+            }
+            pos++;
+        }
+        throw error("more content");
+    }
+
+    private boolean equals(byte[] expected, int offset, int length) {
+        if (expected.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (expected[i] != body[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MessageConversionException error(String expected) {
+        return new MessageConversionException("Invalid MessageInfo JSON: expected " + expected + " at offset " + pos);
+    }
+
+}
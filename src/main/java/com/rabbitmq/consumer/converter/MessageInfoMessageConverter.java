@@ -0,0 +1,98 @@
+package com.rabbitmq.consumer.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+
+//MessageInfo로 변환해야 하는 JSON 메시지는 JsonParser(Streaming API)로 필드를 직접 읽어서 변환하고 그 외의 메시지는 fallback(Jackson2JsonMessageConverter)에 위임합니다.
+//[Jackson2JsonMessageConverter와 다른 점]
+//1. __TypeId__ 헤더로 클래스를 찾거나 ObjectMapper의 Deserializer를 거치지 않고 MessageInfoJsonReader로 body를 한번만 읽어서 publisher, message 필드만 꺼냅니다.
+//이스케이프 문자가 포함된 메시지는 JsonParser(Streaming API)로 다시 읽습니다.
+//2. publisher는 반복되는 값이므로 StringInterner로 같은 String 인스턴스를 재사용합니다.
+//3. reuseInstances가 true인 경우 Consumer 쓰레드마다 MessageInfo 하나를 만들어두고 재사용합니다. 이 경우 반환된 MessageInfo는 다음 메시지를 변환하기
+//전까지만 유효하므로 Listener 메서드 밖으로 참조를 넘기면 안되며 List<MessageInfo>로 받는 batch Listener에서는 사용하면 안됩니다.
+public class MessageInfoMessageConverter implements MessageConverter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final ThreadLocal<MessageInfo> REUSABLE = ThreadLocal.withInitial(MessageInfo::new);
+
+    private final MessageConverter fallback;
+
+    private final StringInterner publishers = new StringInterner(1024);
+
+    private final boolean reuseInstances;
+
+    public MessageInfoMessageConverter(MessageConverter fallback, boolean reuseInstances) {
+        this.fallback = fallback;
+        this.reuseInstances = reuseInstances;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        return fallback.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        if (!isMessageInfo(message.getMessageProperties())) {
+            return fallback.fromMessage(message);
+        }
+        MessageInfo messageInfo = reuseInstances ? REUSABLE.get() : new MessageInfo();
+        try {
+            return read(message.getBody(), messageInfo);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to convert Message content to MessageInfo", e);
+        }
+    }
+
+    MessageInfo read(byte[] body, MessageInfo messageInfo) throws IOException {
+        messageInfo.setPublisher(null);
+        messageInfo.setMessage(null);
+        if (MessageInfoJsonReader.read(body, messageInfo, publishers)) {
+            return messageInfo;
+        }
+
+        messageInfo.setPublisher(null);
+        messageInfo.setMessage(null);
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MessageConversionException("MessageInfo must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("publisher".equals(field)) {
+                    messageInfo.setPublisher(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                } else if ("message".equals(field)) {
+                    messageInfo.setMessage(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return messageInfo;
+    }
+
+    //Listener 메서드의 파라미터 타입(inferredArgumentType)이 MessageInfo이거나 Producer가 보낸 __TypeId__ 헤더의 클래스명이 MessageInfo인 경우에만 직접 변환합니다.
+    //Producer의 MessageInfo는 패키지가 다를 수 있으므로 클래스의 simple name으로 비교합니다.
+    private static boolean isMessageInfo(MessageProperties messageProperties) {
+        String contentType = messageProperties.getContentType();
+        if (contentType == null || !contentType.contains("json")) {
+            return false;
+        }
+        if (messageProperties.getInferredArgumentType() != null) {
+            return messageProperties.getInferredArgumentType() == MessageInfo.class;
+        }
+        Object typeId = messageProperties.getHeader("__TypeId__");
+        return typeId instanceof String && (typeId.equals("MessageInfo") || ((String) typeId).endsWith(".MessageInfo"));
+    }
+
+}
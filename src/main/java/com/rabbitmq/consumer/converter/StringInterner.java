@@ -0,0 +1,96 @@
+package com.rabbitmq.consumer.converter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//publisher처럼 같은 값이 반복해서 들어오는 문자열을 재사용하기 위한 고정 크기 테이블입니다.
+//메시지 body(UTF-8 byte[])의 영역과 바로 비교하므로 이미 등록된 값은 새로운 String을 생성하지 않습니다.
+//테이블이 절반 이상 차면 새로운 값은 등록하지 않고 매번 새로운 String을 반환합니다. (메모리 사용량이 늘어나지 않도록)
+public class StringInterner {
+
+    //해당 길이보다 긴 문자열은 반복될 가능성이 낮다고 보고 등록하지 않습니다.
+    private static final int MAX_LENGTH = 64;
+
+    private final Entry[] table;
+    private final int mask;
+    private int size;
+
+    public StringInterner(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.table = new Entry[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    public String intern(byte[] bytes, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        hash ^= hash >>> 16;
+
+        Entry[] table = this.table;
+        int index = hash & mask;
+        for (int probe = 0; probe < table.length; probe++) {
+            Entry entry = table[index];
+            if (entry == null) {
+                return register(hash, Arrays.copyOfRange(bytes, offset, offset + length));
+            }
+            if (entry.hash == hash && entry.matches(bytes, offset, length)) {
+                return entry.value;
+            }
+            index = (index + 1) & mask;
+        }
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    //여러 Consumer 쓰레드에서 동시에 호출될 수 있으므로 등록만 synchronized로 처리합니다.
+    //조회는 락 없이 수행하는데 Entry의 필드가 모두 final이므로 다른 쓰레드가 등록한 값을 바로 보지 못하더라도 한번 더 등록을 시도할 뿐 잘못된 값을 반환하지는 않습니다.
+    private synchronized String register(int hash, byte[] key) {
+        String value = new String(key, StandardCharsets.UTF_8);
+        if (size >= table.length / 2) {
+            return value;
+        }
+        int index = hash & mask;
+        while (table[index] != null) {
+            if (table[index].hash == hash && table[index].matches(key, 0, key.length)) {
+                return table[index].value;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = new Entry(hash, key, value);
+        size++;
+        return value;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static final class Entry {
+        private final int hash;
+        private final byte[] key;
+        private final String value;
+
+        private Entry(int hash, byte[] key, String value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        private boolean matches(byte[] bytes, int offset, int length) {
+            if (key.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key[i] != bytes[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
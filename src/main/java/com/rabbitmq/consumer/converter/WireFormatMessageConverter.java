@@ -0,0 +1,177 @@
+package com.rabbitmq.consumer.converter;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4CompressorWithLength;
+import net.jpountz.lz4.LZ4DecompressorWithLength;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+//메시지의 content-type, content-encoding을 보고 JSON 외의 형식(CBOR, LZ4 압축)을 변환하며 그 외의 메시지는 delegate(JSON MessageConverter)에 위임합니다.
+//JSON으로 보내는 기존 Producer의 메시지는 그대로 delegate가 변환하므로 Producer를 하나씩 바꿔도 같은 Queue에서 함께 처리할 수 있습니다.
+//[받는 메시지]
+//1. content-encoding이 lz4(또는 Spring AMQP의 GZipPostProcessor와 같이 lz4:UTF-8)이면 body의 압축을 먼저 풉니다.
+//body는 lz4-java의 LZ4CompressorWithLength 형식(원래 길이 4 byte(little-endian) + LZ4 block)입니다.
+//압축을 푼 뒤에는 MessageProperties를 복사하여 content-encoding을 : 뒤의 문자셋(없으면 null)으로 바꾸고 새 Message를 만들어서 변환합니다.
+//받은 Message는 바꾸지 않으므로 DeadLetterRetrier와 같이 받은 Message를 그대로 다시 보내는 경우에도 압축된 body와 content-encoding이 유지됩니다.
+//2. content-type이 application/cbor이면 CBOR(JSON과 같은 구조의 binary 형식)로 변환합니다. 변환할 타입은 Jackson2JsonMessageConverter와 같이
+//Listener 메서드의 파라미터 타입(inferredArgumentType), __TypeId__ 헤더 순서로 정하며 둘 다 없으면 Map, List 등으로 변환합니다.
+//3. 그 외의 content-type(application/json 등)은 delegate가 변환합니다.
+//Listener 메서드의 파라미터가 MessageBody(inferredArgumentType)이면 압축만 풀고 body를 변환하지 않은 MessageBody를 넘깁니다.
+//[보내는 메시지]
+//cborOutbound가 true이면 CBOR로, false이면 delegate로 변환하고 body가 compressAbove byte 이상이면 LZ4로 압축합니다. (compressAbove가 0보다 작으면 압축하지 않음)
+public class WireFormatMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE_CBOR = "application/cbor";
+
+    public static final String CONTENT_ENCODING_LZ4 = "lz4";
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final MessageConverter delegate;
+
+    private final ObjectMapper cborMapper;
+
+    private final DefaultJackson2JavaTypeMapper typeMapper = new DefaultJackson2JavaTypeMapper();
+
+    private final boolean cborOutbound;
+
+    private final int compressAbove;
+
+    private final LZ4CompressorWithLength compressor = new LZ4CompressorWithLength(LZ4.fastCompressor());
+
+    //받은 body는 잘못된 값일 수 있으므로 입력 범위를 검사하는 safeDecompressor를 사용합니다.
+    private final LZ4DecompressorWithLength decompressor = new LZ4DecompressorWithLength(LZ4.safeDecompressor());
+
+    public WireFormatMessageConverter(MessageConverter delegate, boolean cborOutbound, int compressAbove) {
+        this.delegate = delegate;
+        this.cborOutbound = cborOutbound;
+        this.compressAbove = compressAbove;
+        //LocalDateTime은 JSON(jsonMessageConverter)과 같이 timestamp로 변환합니다.
+        this.cborMapper = CBORMapper.builder()
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true)
+                .addModule(new JavaTimeModule())
+                .build();
+    }
+
+    public MessageConverter getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        Message message;
+        if (cborOutbound) {
+            try {
+                byte[] body = cborMapper.writeValueAsBytes(object);
+                messageProperties.setContentType(CONTENT_TYPE_CBOR);
+                messageProperties.setContentLength(body.length);
+                typeMapper.fromClass(object.getClass(), messageProperties);
+                message = new Message(body, messageProperties);
+            } catch (IOException e) {
+                throw new MessageConversionException("Failed to convert Message content to CBOR", e);
+            }
+        } else {
+            message = delegate.toMessage(object, messageProperties);
+        }
+
+        if (compressAbove < 0 || message.getBody().length < compressAbove) {
+            return message;
+        }
+        MessageProperties properties = message.getMessageProperties();
+        byte[] compressed = compressor.compress(message.getBody());
+        String charset = properties.getContentEncoding();
+        properties.setContentEncoding(charset == null ? CONTENT_ENCODING_LZ4 : CONTENT_ENCODING_LZ4 + ":" + charset);
+        properties.setContentLength(compressed.length);
+        return new Message(compressed, properties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        Message decoded = decompress(message);
+        if (decoded.getMessageProperties().getInferredArgumentType() == MessageBody.class) {
+            return MessageBody.of(decoded);
+        }
+        String contentType = decoded.getMessageProperties().getContentType();
+        if (contentType != null && contentType.startsWith(CONTENT_TYPE_CBOR)) {
+            return readCbor(decoded);
+        }
+        return delegate.fromMessage(decoded);
+    }
+
+    //content-encoding이 lz4 또는 lz4:{문자셋}이면 true입니다.
+    public static boolean isCompressed(MessageProperties messageProperties) {
+        String encoding = messageProperties.getContentEncoding();
+        return encoding != null && (encoding.equals(CONTENT_ENCODING_LZ4) || encoding.startsWith(CONTENT_ENCODING_LZ4 + ":"));
+    }
+
+    //압축을 풀었을때의 body 길이입니다. 압축된 경우 압축을 풀지 않고 LZ4 길이 헤더(원래 길이 4 byte)로 확인하며 헤더가 없으면 받은 body 길이를 반환합니다.
+    public static long decodedLength(Message message) {
+        byte[] body = message.getBody();
+        if (!isCompressed(message.getMessageProperties()) || body.length < 4) {
+            return body.length;
+        }
+        long length = LZ4DecompressorWithLength.getDecompressedLength(body);
+        return length < 0 ? body.length : length;
+    }
+
+    private Message decompress(Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        if (!isCompressed(messageProperties)) {
+            return message;
+        }
+        String encoding = messageProperties.getContentEncoding();
+        byte[] body;
+        try {
+            //LZ4는 최대 약 255배까지만 압축되므로 길이 헤더가 그보다 크면 배열을 할당하기 전에 잘못된 메시지로 처리합니다.
+            long length = LZ4DecompressorWithLength.getDecompressedLength(message.getBody());
+            if (length < 0 || length > message.getBody().length * 255L + 16) {
+                throw new LZ4Exception("Invalid decompressed length " + length);
+            }
+            body = decompressor.decompress(message.getBody());
+        } catch (LZ4Exception | IllegalArgumentException e) {
+            throw new MessageConversionException("Failed to decompress lz4 Message content", e);
+        }
+        int separator = encoding.indexOf(':');
+        MessageProperties decodedProperties = MessagePropertiesBuilder.fromClonedProperties(messageProperties)
+                .setContentEncoding(separator < 0 ? null : encoding.substring(separator + 1))
+                .setContentLength(body.length)
+                .build();
+        //Listener 메서드 정보는 AMQP 속성이 아니므로 복사되지 않아서 직접 옮깁니다.
+        decodedProperties.setInferredArgumentType(messageProperties.getInferredArgumentType());
+        decodedProperties.setTargetBean(messageProperties.getTargetBean());
+        decodedProperties.setTargetMethod(messageProperties.getTargetMethod());
+        return new Message(body, decodedProperties);
+    }
+
+    private Object readCbor(Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        Type inferredArgumentType = messageProperties.getInferredArgumentType();
+        JavaType targetType;
+        if (inferredArgumentType != null) {
+            targetType = cborMapper.constructType(inferredArgumentType);
+        } else if (messageProperties.getHeader(typeMapper.getClassIdFieldName()) != null) {
+            targetType = typeMapper.toJavaType(messageProperties);
+        } else {
+            targetType = cborMapper.constructType(Object.class);
+        }
+        try {
+            return cborMapper.readValue(message.getBody(), targetType);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to convert CBOR Message content", e);
+        }
+    }
+
+}
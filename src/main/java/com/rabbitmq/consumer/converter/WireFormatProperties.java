@@ -0,0 +1,40 @@
+package com.rabbitmq.consumer.converter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//consumer.wire-format으로 시작하는 application.yml 설정값입니다.
+//받는 메시지는 설정과 상관없이 content-type, content-encoding에 따라 JSON, CBOR, LZ4를 모두 변환합니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.wire-format")
+public class WireFormatProperties {
+
+    public enum Format {
+        JSON, CBOR
+    }
+
+    //RabbitTemplate 등으로 보내는 메시지의 형식
+    private Format outbound = Format.JSON;
+
+    //보내는 메시지의 body가 해당 크기(byte) 이상이면 LZ4로 압축합니다. 0보다 작으면 압축하지 않습니다.
+    private int compressAbove = -1;
+
+    //MessageListenerAdapter(Receiver)로 받는 메시지의 body가 해당 크기(byte) 이상이면 String 대신 MessageBody로 넘깁니다. 0보다 작으면 항상 String으로 변환합니다.
+    private int viewAbove = -1;
+
+    public MessageConverter toConverter(MessageConverter delegate) {
+        if (delegate instanceof WireFormatMessageConverter) {
+            return delegate;
+        }
+        return new WireFormatMessageConverter(delegate, outbound == Format.CBOR, compressAbove);
+    }
+
+    //MessageListenerAdapter의 MessageConverter로 사용합니다. delegate는 toConverter로 감싼 MessageConverter여야 합니다.
+    public MessageConverter toAdapterConverter(MessageConverter delegate) {
+        return viewAbove < 0 ? delegate : new MessageBodyViewConverter(delegate, viewAbove);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.rabbitmq.consumer.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//컨테이너의 adviceChain에 등록하여 이미 처리한 메시지(같은 messageId 또는 correlationId)가 다시 전달되면 Listener를 호출하지 않고 넘어갑니다.
+//[동작 방식]
+//1. adviceChain은 컨테이너가 메시지를 Listener(MessageListenerAdapter, @RabbitListener 등)에 넘기기 직전에 실행되므로 메시지 변환(MessageConverter) 전에 중복을 걸러냅니다.
+//2. Listener가 정상 종료된 경우에만 id를 기록합니다. Listener에서 에러가 발생해서 Requeue된 메시지(setDefaultRequeueRejected(true))는 다시 처리됩니다.
+//3. 중복 메시지는 Listener가 정상 종료된 것처럼 처리되므로 AUTO ackMode에서는 컨테이너가 ack를 보냅니다. MANUAL ackMode는 Listener에서
+//직접 ack를 보내야 하므로 해당 Advice를 사용하지 않습니다.
+//4. consumerBatchEnabled로 List<Message>가 전달되는 경우 중복 메시지만 List에서 빼고 Listener를 호출합니다.
+//5. messageId, correlationId가 모두 없는 메시지는 중복 여부를 알 수 없으므로 그대로 Listener를 호출합니다.
+//6. MessageIdCache 하나를 여러 컨테이너가 공유하므로 메시지를 받은 Queue(consumerQueue)와 id를 함께 기록합니다.
+//같은 메시지가 fanout 등으로 여러 Queue에 전달된 경우 Queue마다 한번씩 처리됩니다.
+@Slf4j
+public class DeduplicationAdvice implements MethodInterceptor {
+
+    private final MessageIdCache cache;
+
+    public DeduplicationAdvice(MessageIdCache cache) {
+        this.cache = cache;
+    }
+
+    //invokeListener(Channel channel, Object data)의 data가 Message 또는 List<Message>입니다.
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] arguments = invocation.getArguments();
+        if (arguments.length < 2) {
+            return invocation.proceed();
+        }
+        if (arguments[1] instanceof Message) {
+            return invokeSingle(invocation, (Message) arguments[1]);
+        }
+        if (arguments[1] instanceof List) {
+            return invokeBatch(invocation, arguments);
+        }
+        return invocation.proceed();
+    }
+
+    private Object invokeSingle(MethodInvocation invocation, Message message) throws Throwable {
+        String id = idOf(message);
+        if (id != null && cache.contains(id)) {
+            log.debug("Skip duplicate message {} from {}", id.substring(id.indexOf('\0') + 1),
+                    message.getMessageProperties().getConsumerQueue());
+            return null;
+        }
+        Object result = invocation.proceed();
+        if (id != null) {
+            cache.add(id);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invokeBatch(MethodInvocation invocation, Object[] arguments) throws Throwable {
+        List<Message> messages = (List<Message>) arguments[1];
+        List<Message> unique = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            String id = idOf(message);
+            if (id == null || !cache.contains(id)) {
+                unique.add(message);
+            }
+        }
+        if (unique.isEmpty()) {
+            return null;
+        }
+        if (unique.size() != messages.size()) {
+            arguments[1] = unique;
+        }
+        Object result = invocation.proceed();
+        for (Message message : unique) {
+            String id = idOf(message);
+            if (id != null) {
+                cache.add(id);
+            }
+        }
+        return result;
+    }
+
+    //consumerQueue와 id 사이에 Queue 이름에 사용되지 않는 '\0'을 넣어 Queue 이름과 id의 경계가 섞이지 않도록 합니다.
+    static String idOf(Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        String id = messageProperties.getMessageId() != null ? messageProperties.getMessageId() : messageProperties.getCorrelationId();
+        if (id == null) {
+            return null;
+        }
+        String queue = messageProperties.getConsumerQueue();
+        return (queue == null ? "" : queue) + '\0' + id;
+    }
+
+}
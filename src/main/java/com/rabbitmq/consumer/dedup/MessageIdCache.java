@@ -0,0 +1,159 @@
+package com.rabbitmq.consumer.dedup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+//최근에 처리한 메시지의 id(messageId 또는 correlationId)를 고정된 메모리 안에서 기억합니다.
+//[구조]
+//1. id를 64bit fingerprint로 바꿔서 long[]에 저장하고 마지막으로 확인한 시각을 같은 위치의 long[]에 저장합니다. (id 하나당 16 byte)
+//2. 배열의 크기는 생성할때 정해지며 이후에 늘어나지 않으므로 id가 수백만개 들어와도 메모리 사용량이 일정합니다.
+//3. 배열을 segment로 나누고 segment마다 락을 걸어서 여러 Consumer 쓰레드가 동시에 사용할 수 있도록 합니다.
+//4. id는 fingerprint로 정해지는 위치부터 PROBE_WINDOW 칸 안에만 저장됩니다. 빈칸이나 ttl이 지난 칸이 없으면 마지막 확인 시각이 가장 오래된 칸을 덮어씁니다.(LRU 근사)
+//[주의사항]
+//서로 다른 id의 fingerprint가 같으면 새로운 메시지를 중복으로 판단하게 됩니다. 64bit이므로 id 수백만개 기준 확률은 10^-7 이하입니다.
+public class MessageIdCache {
+
+    private static final int PROBE_WINDOW = 8;
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final long ttlMillis;
+
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public MessageIdCache(int capacity, long ttlMillis) {
+        this(capacity, ttlMillis, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    MessageIdCache(int capacity, long ttlMillis, LongSupplier clock) {
+        int segmentCapacity = Integer.highestOneBit(Math.max(PROBE_WINDOW, capacity / SEGMENTS - 1)) << 1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    //id가 ttl 안에 add된 적이 있으면 true를 반환하고 마지막 확인 시각을 갱신합니다.
+    public boolean contains(String id) {
+        long fingerprint = fingerprint(id);
+        boolean found = segmentFor(fingerprint).contains(fingerprint, clock.getAsLong());
+        (found ? hits : misses).increment();
+        return found;
+    }
+
+    public void add(String id) {
+        long fingerprint = fingerprint(id);
+        segmentFor(fingerprint).add(fingerprint, clock.getAsLong());
+    }
+
+    public int capacity() {
+        return segments[0].keys.length * SEGMENTS;
+    }
+
+    //id를 저장하는 배열(keys, stamps)의 크기입니다. 생성 후에 바뀌지 않습니다.
+    public long footprintBytes() {
+        return (long) capacity() * (Long.BYTES + Long.BYTES);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        return segments[(int) (fingerprint >>> 60)];
+    }
+
+    //FNV-1a 64bit로 문자를 섞은 뒤 MurmurHash3의 fmix64로 bit를 고르게 퍼뜨립니다. 0은 빈칸을 뜻하므로 사용하지 않습니다.
+    static long fingerprint(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private final class Segment {
+        private final long[] keys;
+        private final long[] stamps;
+        private final int mask;
+
+        private Segment(int capacity) {
+            this.keys = new long[capacity];
+            this.stamps = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private synchronized boolean contains(long fingerprint, long now) {
+            int start = (int) fingerprint & mask;
+            for (int i = 0; i < PROBE_WINDOW; i++) {
+                int index = (start + i) & mask;
+                if (keys[index] == fingerprint) {
+                    if (now - stamps[index] > ttlMillis) {
+                        keys[index] = 0;
+                        expirations.increment();
+                        return false;
+                    }
+                    stamps[index] = now;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized void add(long fingerprint, long now) {
+            int start = (int) fingerprint & mask;
+            int target = -1;
+            int oldest = start;
+            for (int i = 0; i < PROBE_WINDOW; i++) {
+                int index = (start + i) & mask;
+                long key = keys[index];
+                if (key == fingerprint) {
+                    stamps[index] = now;
+                    return;
+                }
+                if (target < 0 && (key == 0 || now - stamps[index] > ttlMillis)) {
+                    target = index;
+                }
+                if (stamps[index] < stamps[oldest]) {
+                    oldest = index;
+                }
+            }
+            if (target < 0) {
+                target = oldest;
+                evictions.increment();
+            } else if (keys[target] != 0) {
+                expirations.increment();
+            }
+            keys[target] = fingerprint;
+            stamps[target] = now;
+        }
+    }
+
+}
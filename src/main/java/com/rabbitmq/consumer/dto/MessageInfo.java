@@ -3,10 +3,12 @@ package com.rabbitmq.consumer.dto;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.ToString;
 
 @NoArgsConstructor
 @Getter
 @Setter
+@ToString
 public class MessageInfo {
     private String publisher;
     private String message;
@@ -0,0 +1,121 @@
+package com.rabbitmq.consumer.executor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Listener 컨테이너의 setTaskExecutor에 넣을 Executor를 consumer.executor.mode에 맞게 생성합니다.
+//[Listener가 실행되는 쓰레드]
+//SimpleMessageListenerContainer는 Consumer 하나당 taskExecutor에서 작업(AsyncMessageProcessingConsumer)을 하나 실행하고 해당 작업이
+//컨테이너가 멈출때까지 메시지를 받아서 Listener를 호출합니다. 따라서 Listener는 항상 자신의 Consumer 쓰레드에서 순서대로 호출되며
+//mode를 바꾸더라도 Consumer 하나 안에서의 메시지 순서는 그대로 유지됩니다.
+//1. PLATFORM: Consumer마다 OS 쓰레드를 사용하므로 Listener에서 I/O 대기가 긴 경우 Consumer를 늘리는 만큼 쓰레드 스택 메모리가 늘어납니다.
+//2. VIRTUAL: Listener가 I/O를 기다리는 동안 캐리어 쓰레드를 반납하므로 적은 메모리로 많은 Consumer(concurrency)를 운영할 수 있습니다.
+//Java 21 API를 사용하지만 sourceCompatibility가 11이므로 리플렉션으로 호출하며 Java 21 미만에서 실행하면 애플리케이션 시작시 에러가 발생합니다.
+//3. BOUNDED: 컨테이너마다 선언한 최대 Consumer 수(maxConsumers)로 크기를 정한 ThreadPoolExecutor를 사용합니다.
+//Consumer 작업은 컨테이너가 멈출때까지 쓰레드 하나를 점유(pinned)하므로 Listener 호출을 여러 쓰레드에 나누어 실행하지는 않으며
+//PLATFORM과 같이 Consumer마다 쓰레드 하나를 사용하지만 컨테이너가 사용할 수 있는 쓰레드 수의 상한을 둡니다.
+//SimpleMessageListenerContainer는 Consumer를 재시작할때 이전 Consumer 작업 안에서 새 작업을 실행하므로 재시작하는 동안 쓰레드가 잠시 두개 필요합니다.
+//따라서 쓰레드 상한은 maxConsumers * 2이며 쓰레드는 필요할때 만들어지고 60초 동안 사용하지 않으면 종료됩니다.
+//maxConsumers가 parallelism보다 크면 Executor를 만들때(애플리케이션 시작시) IllegalStateException이 발생합니다.
+@Slf4j
+public class ListenerExecutorFactory implements DisposableBean {
+
+    private final ListenerExecutorMode mode;
+
+    private final int parallelism;
+
+    private final List<ExecutorService> executorServices = new CopyOnWriteArrayList<>();
+
+    public ListenerExecutorFactory(ListenerExecutorMode mode, int parallelism) {
+        this.mode = mode;
+        this.parallelism = parallelism;
+    }
+
+    public ListenerExecutorMode getMode() {
+        return mode;
+    }
+
+    //name은 쓰레드 이름의 접두사로 사용됩니다. (예: simpleMessageListenerContainer-1)
+    //maxConsumers는 해당 Executor를 사용하는 컨테이너의 최대 Consumer 수이며(Autoscaler가 늘릴 수 있는 수 포함) BOUNDED에서만 사용합니다.
+    public Executor create(String name, int maxConsumers) {
+        switch (mode) {
+            case VIRTUAL:
+                return register(newVirtualThreadPerTaskExecutor(name + "-"));
+            case BOUNDED:
+                checkConsumers(name, maxConsumers);
+                int maxThreads = Math.max(1, maxConsumers) * 2;
+                return register(new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                        threadFactory(name + "-")));
+            case PLATFORM:
+            default:
+                return new SimpleAsyncTaskExecutor(name + "-");
+        }
+    }
+
+    private void checkConsumers(String name, int maxConsumers) {
+        if (maxConsumers > parallelism) {
+            throw new IllegalStateException(name + " may run up to " + maxConsumers + " consumers but consumer.executor.parallelism is "
+                    + parallelism + "; each consumer pins a thread of the bounded executor until its container stops");
+        }
+    }
+
+    private <T extends ExecutorService> T register(T executorService) {
+        executorServices.add(executorService);
+        return executorService;
+    }
+
+    //Thread.ofVirtual().name(prefix, 1).factory()로 만든 ThreadFactory로 Executors.newThreadPerTaskExecutor를 호출합니다.
+    static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("consumer.executor.mode=virtual requires Java 21 or later (running on "
+                    + Runtime.version() + ")", e);
+        }
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> new Thread(runnable, prefix + sequence.incrementAndGet());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ExecutorService executorService : executorServices) {
+            executorService.shutdown();
+        }
+        for (ExecutorService executorService : executorServices) {
+            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Listener executor did not terminate in time: {}", executorService);
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.rabbitmq.consumer.executor;
+
+//consumer.executor.mode에 설정하는 값입니다.
+public enum ListenerExecutorMode {
+
+    //Consumer마다 플랫폼(OS) 쓰레드를 하나씩 생성합니다. 컨테이너의 기본 동작(SimpleAsyncTaskExecutor)과 같습니다.
+    PLATFORM,
+
+    //Consumer마다 가상 쓰레드를 하나씩 생성합니다. Java 21 이상에서만 동작합니다.
+    VIRTUAL,
+
+    //컨테이너의 최대 Consumer 수로 크기를 정한 ThreadPoolExecutor에서 Consumer를 실행합니다. Consumer마다 쓰레드 하나를 점유합니다.
+    BOUNDED
+
+}
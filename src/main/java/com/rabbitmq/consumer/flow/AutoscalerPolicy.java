@@ -0,0 +1,90 @@
+package com.rabbitmq.consumer.flow;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+//한 주기 동안 측정한 값(Sample)으로 Consumer 수와 prefetch를 결정합니다. 상태를 가지지 않으므로 컨테이너 없이 테스트할 수 있습니다.
+//1. 사용률(utilization) = Listener 처리 시간 합계 / (주기 * Consumer 수)
+//2. 사용률이 highUtilization 이상이고 Queue에 메시지가 남아있으면 목표 사용률에 맞도록 Consumer를 늘립니다.
+//3. Queue가 비어있고 사용률이 targetUtilization보다 낮으면 목표 사용률에 맞도록 Consumer를 줄입니다.
+//4. 그 외에는 현재 Consumer 수를 유지하여 targetUtilization ~ highUtilization 사이에서 Consumer 수가 흔들리지 않도록 합니다.
+//5. prefetch는 평균 처리 시간 기준으로 prefetchWindowMillis 만큼의 메시지를 미리 받도록 계산합니다.
+@RequiredArgsConstructor
+public class AutoscalerPolicy {
+
+    public enum Action { SCALE_UP, SCALE_DOWN, HOLD }
+
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final int maxStep;
+    private final int minPrefetch;
+    private final int maxPrefetch;
+    private final long prefetchWindowMillis;
+    private final double targetUtilization;
+    private final double highUtilization;
+
+    public Decision decide(int consumers, int prefetch, Sample sample) {
+        double utilization = sample.utilization(consumers);
+        int desired = consumers;
+        Action action = Action.HOLD;
+
+        if (utilization >= highUtilization && sample.getQueueDepth() > 0) {
+            desired = Math.max(consumers + 1, (int) Math.ceil(consumers * utilization / targetUtilization));
+        } else if (utilization < targetUtilization && sample.getQueueDepth() == 0) {
+            desired = (int) Math.ceil(consumers * utilization / targetUtilization);
+        }
+
+        desired = clamp(desired, consumers - maxStep, consumers + maxStep);
+        desired = clamp(desired, minConsumers, maxConsumers);
+        if (desired > consumers) {
+            action = Action.SCALE_UP;
+        } else if (desired < consumers) {
+            action = Action.SCALE_DOWN;
+        }
+
+        int desiredPrefetch = prefetch;
+        double averageMillis = sample.averageMillis();
+        if (averageMillis > 0) {
+            desiredPrefetch = clamp((int) Math.ceil(prefetchWindowMillis / averageMillis), minPrefetch, maxPrefetch);
+        }
+
+        return new Decision(action, desired, desiredPrefetch, utilization);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    //한 주기 동안 측정한 값입니다.
+    @Getter
+    @RequiredArgsConstructor
+    public static class Sample {
+        private final long intervalNanos;
+        private final long busyNanos;
+        private final long processed;
+        private final long queueDepth;
+
+        double utilization(int consumers) {
+            if (intervalNanos <= 0 || consumers <= 0) {
+                return 0;
+            }
+            return Math.min(1.0, (double) busyNanos / ((double) intervalNanos * consumers));
+        }
+
+        double averageMillis() {
+            return processed == 0 ? 0 : (double) busyNanos / processed / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Decision {
+        private final Action action;
+        private final int consumers;
+        private final int prefetch;
+        private final double utilization;
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.rabbitmq.consumer.flow;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//consumer.autoscaler로 시작하는 application.yml 설정값입니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.autoscaler")
+public class AutoscalerProperties {
+
+    //true인 경우에만 ContainerAutoscaler가 등록됩니다.
+    private boolean enabled = false;
+
+    //Consumer 수, prefetch를 다시 계산하는 주기
+    private Duration interval = Duration.ofSeconds(5);
+
+    private int minConsumers = 1;
+
+    private int maxConsumers = 10;
+
+    //한번의 주기에서 늘리거나 줄일 수 있는 최대 Consumer 수
+    private int maxStep = 2;
+
+    private int minPrefetch = 1;
+
+    private int maxPrefetch = 250;
+
+    //Consumer 하나가 prefetch로 미리 받아둘 메시지의 처리 시간 합계(ms)입니다. 처리 시간이 긴 Listener일수록 prefetch가 작아집니다.
+    private long prefetchWindowMillis = 1000;
+
+    //목표로 하는 Consumer 사용률(Listener 처리 시간 / 경과 시간)입니다. Queue가 비어있고 사용률이 해당 값보다 낮으면 Consumer를 줄입니다.
+    private double targetUtilization = 0.7;
+
+    //사용률이 해당 값 이상이고 Queue에 메시지가 쌓여있으면 Consumer를 늘립니다.
+    private double highUtilization = 0.85;
+
+    //컨테이너가 사용할 수 있는 최대 Consumer 수입니다. Autoscaler를 사용하지 않으면 컨테이너에 설정한 Consumer 수(consumers)입니다.
+    public int maxConsumersOf(int consumers) {
+        return enabled ? Math.max(consumers, maxConsumers) : consumers;
+    }
+
+    public AutoscalerPolicy toPolicy() {
+        return new AutoscalerPolicy(minConsumers, maxConsumers, maxStep, minPrefetch, maxPrefetch, prefetchWindowMillis,
+                targetUtilization, highUtilization);
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.rabbitmq.consumer.flow;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.SmartLifecycle;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+//Listener 컨테이너의 처리중인 메시지 수, 평균 처리 시간, heap 사용률을 주기적으로 확인하여 Downstream이 느려지면 컨테이너를 멈추고 회복되면 다시 시작합니다.
+//[동작 방식]
+//1. interval마다 inFlight, ListenerActivityMonitor의 누적값 차이(평균 처리 시간), heap 사용률로 Sample을 만들어 BackpressurePolicy에 전달합니다.
+//2. PAUSE이면 container.stop()으로 Consumer를 취소합니다. 처리중인 메시지는 끝까지 처리하고 prefetch로 받아둔 메시지는 ack되지 않은 채로
+//Queue로 돌아가므로(reject가 아니므로 Dead Letter가 되지 않음) Consumer 쪽에 unacked 메시지와 requeue가 쌓이지 않습니다.
+//setPrefetchCount로 basicQos를 줄이는 방법은 새로 생성되는 Consumer부터 적용되므로(ContainerAutoscaler 참고) 사용하지 않습니다.
+//3. PROBE이면 container.start()로 Consumer를 다시 만들고 RESUME(probeWindows 주기 연속으로 low 값 이하)이 될때까지 지켜봅니다.
+//BackpressureController가 멈춘 컨테이너만 다시 시작하며 다시 시작해볼때도 Consumer 수는 그대로입니다. (Consumer 수는 ContainerAutoscaler가 정함)
+//멈춘 동안에는 처리가 끝나는 메시지가 없으므로 latency는 확인할 수 없고 cooldown이 지나야 다시 시작해봅니다. (BackpressurePolicy 참고)
+//4. 상태는 rabbitmq.consumer.backpressure.* 메트릭으로 노출됩니다. paused는 멈춘 동안 1, 다시 시작해보는 동안 0.5입니다.
+@Slf4j
+public class BackpressureController implements SmartLifecycle {
+
+    private final String name;
+    private final Lifecycle container;
+    private final ListenerActivityMonitor monitor;
+    private final LongSupplier inFlight;
+    private final BackpressurePolicy policy;
+    private final long intervalMillis;
+    private final Map<BackpressurePolicy.Action, Counter> transitions = new EnumMap<>(BackpressurePolicy.Action.class);
+
+    private volatile BackpressurePolicy.State state = BackpressurePolicy.State.RUNNING;
+    private volatile long lastInFlight;
+    private volatile double latencyMillis;
+    private volatile double heapUsage;
+
+    private long lastBusyNanos;
+    private long lastProcessed;
+    private ScheduledExecutorService scheduler;
+
+    public BackpressureController(String name, Lifecycle container, ListenerActivityMonitor monitor, LongSupplier inFlight,
+                                  BackpressureProperties properties, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.container = container;
+        this.monitor = monitor;
+        this.inFlight = inFlight;
+        this.policy = properties.toPolicy();
+        this.intervalMillis = properties.getInterval().toMillis();
+
+        Tags tags = Tags.of("container", name);
+        Gauge.builder("rabbitmq.consumer.backpressure.paused", this, BackpressureController::pausedGauge).tags(tags).register(meterRegistry);
+        Gauge.builder("rabbitmq.consumer.backpressure.in.flight", this, controller -> controller.lastInFlight).tags(tags).register(meterRegistry);
+        Gauge.builder("rabbitmq.consumer.backpressure.latency", this, controller -> controller.latencyMillis / 1000)
+                .tags(tags).baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("rabbitmq.consumer.backpressure.heap", this, controller -> controller.heapUsage).tags(tags).register(meterRegistry);
+        for (BackpressurePolicy.Action action : new BackpressurePolicy.Action[]{BackpressurePolicy.Action.PAUSE, BackpressurePolicy.Action.PROBE, BackpressurePolicy.Action.RESUME}) {
+            transitions.put(action, Counter.builder("rabbitmq.consumer.backpressure.transitions")
+                    .tags(tags).tag("action", action.name().toLowerCase()).register(meterRegistry));
+        }
+    }
+
+    void tick() {
+        long busyNanos = monitor.getBusyNanos();
+        long processed = monitor.getProcessed();
+        long completed = processed - lastProcessed;
+        //처리가 끝난 메시지가 없으면 latency는 이전 값을 유지하고 BackpressurePolicy는 latency를 확인하지 않습니다.
+        if (completed > 0) {
+            latencyMillis = (double) (busyNanos - lastBusyNanos) / completed / 1_000_000;
+        }
+        lastBusyNanos = busyNanos;
+        lastProcessed = processed;
+        lastInFlight = inFlight.getAsLong();
+        heapUsage = heapUsage();
+
+        BackpressurePolicy.Decision decision = policy.decide(new BackpressurePolicy.Sample(lastInFlight, completed, latencyMillis, heapUsage));
+        state = policy.getState();
+        switch (decision.getAction()) {
+            case PAUSE:
+                log.warn("Backpressure {}: pause consumers ({}), in-flight {}, latency {}ms, heap {}",
+                        name, decision.getReason(), lastInFlight, String.format("%.1f", latencyMillis), String.format("%.2f", heapUsage));
+                transitions.get(BackpressurePolicy.Action.PAUSE).increment();
+                if (container.isRunning()) {
+                    container.stop();
+                }
+                break;
+            case PROBE:
+                log.info("Backpressure {}: restart consumers to probe downstream, in-flight {}, heap {}",
+                        name, lastInFlight, String.format("%.2f", heapUsage));
+                transitions.get(BackpressurePolicy.Action.PROBE).increment();
+                container.start();
+                break;
+            case RESUME:
+                log.info("Backpressure {}: resumed, in-flight {}, latency {}ms, heap {}",
+                        name, lastInFlight, String.format("%.1f", latencyMillis), String.format("%.2f", heapUsage));
+                transitions.get(BackpressurePolicy.Action.RESUME).increment();
+                break;
+            default:
+                break;
+        }
+    }
+
+    //max가 정해지지 않은 경우(-Xmx 없음)에는 committed 기준으로 계산합니다.
+    private static double heapUsage() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        return max > 0 ? (double) heap.getUsed() / max : 0;
+    }
+
+    private double pausedGauge() {
+        switch (state) {
+            case PAUSED:
+                return 1;
+            case PROBING:
+                return 0.5;
+            default:
+                return 0;
+        }
+    }
+
+    public boolean isPaused() {
+        return state == BackpressurePolicy.State.PAUSED;
+    }
+
+    public BackpressurePolicy.State getState() {
+        return state;
+    }
+
+    @Override
+    public void start() {
+        lastBusyNanos = monitor.getBusyNanos();
+        lastProcessed = monitor.getProcessed();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backpressure-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                log.warn("Backpressure {} tick failed", name, e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+}
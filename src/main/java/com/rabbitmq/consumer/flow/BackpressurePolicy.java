@@ -0,0 +1,129 @@
+package com.rabbitmq.consumer.flow;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+//한 주기 동안 측정한 값(Sample)으로 Listener 컨테이너를 멈출지(PAUSE), 다시 시작해볼지(PROBE), 정상으로 돌아왔는지(RESUME) 결정합니다.
+//컨테이너 하나의 상태(RUNNING, PAUSED, PROBING)를 가지므로 컨테이너(BackpressureController)마다 toPolicy()로 생성합니다.
+//1. RUNNING: 처리중인 메시지 수(inFlight), 평균 처리 시간(latency), heap 사용률 중 하나라도 high 값 이상이면 멈춥니다.
+//2. PAUSED: cooldownWindows 주기 동안 멈춘 뒤 세 값이 모두 low 값 이하이면 컨테이너를 다시 시작하고 PROBING이 됩니다. (high와 low 사이에서는 멈춘 상태 유지)
+//3. PROBING: 다시 시작한 뒤 high 값을 넘으면 다시 멈추고 probeWindows 주기 연속으로 모두 low 값 이하이면 RUNNING이 됩니다.
+//4. high 값이 0 이하인 항목은 사용하지 않습니다.
+//latency는 처리가 끝난 메시지로만 계산되므로 처리가 끝난 메시지가 없는 주기(멈춘 동안 포함)는 latency를 알 수 없는 주기로 보고
+//해당 주기로 멈춤을 풀거나 PROBING을 끝내지 않습니다. 따라서 Downstream이 느린 동안에는 cooldown마다 한번씩만 다시 시작해보고 곧 다시 멈춥니다.
+//latency는 Downstream이 느려진 뒤 늦게 올라가므로 지연 시간의 상한을 정하려면 inFlight를 함께 사용하며
+//highInFlight는 (허용할 지연 시간 * Downstream 처리량)으로 정합니다.
+@RequiredArgsConstructor
+public class BackpressurePolicy {
+
+    public enum State { RUNNING, PAUSED, PROBING }
+
+    public enum Action { PAUSE, PROBE, RESUME, HOLD }
+
+    private final long highInFlight;
+    private final long lowInFlight;
+    private final double highLatencyMillis;
+    private final double lowLatencyMillis;
+    private final double highHeap;
+    private final double lowHeap;
+    private final int cooldownWindows;
+    private final int probeWindows;
+
+    @Getter
+    private State state = State.RUNNING;
+
+    //PAUSED이면 멈춘 뒤 지난 주기 수, PROBING이면 연속으로 low 값 이하였던 주기 수입니다.
+    private int windows;
+
+    public Decision decide(Sample sample) {
+        switch (state) {
+            case RUNNING: {
+                String reason = above(sample);
+                return reason == null ? new Decision(Action.HOLD, null) : pause(reason);
+            }
+            case PAUSED: {
+                if (++windows < cooldownWindows) {
+                    return new Decision(Action.HOLD, "cooldown");
+                }
+                String reason = notBelow(sample);
+                if (reason != null) {
+                    return new Decision(Action.HOLD, reason);
+                }
+                state = State.PROBING;
+                windows = 0;
+                return new Decision(Action.PROBE, null);
+            }
+            default: {
+                String reason = above(sample);
+                if (reason != null) {
+                    return pause(reason);
+                }
+                if (sample.getCompleted() == 0) {
+                    return new Decision(Action.HOLD, "no-sample");
+                }
+                reason = notBelow(sample);
+                if (reason != null) {
+                    windows = 0;
+                    return new Decision(Action.HOLD, reason);
+                }
+                if (++windows < probeWindows) {
+                    return new Decision(Action.HOLD, "probe");
+                }
+                state = State.RUNNING;
+                return new Decision(Action.RESUME, null);
+            }
+        }
+    }
+
+    private Decision pause(String reason) {
+        state = State.PAUSED;
+        windows = 0;
+        return new Decision(Action.PAUSE, reason);
+    }
+
+    private String above(Sample sample) {
+        if (highInFlight > 0 && sample.getInFlight() >= highInFlight) {
+            return "in-flight";
+        }
+        if (highLatencyMillis > 0 && sample.getCompleted() > 0 && sample.getLatencyMillis() >= highLatencyMillis) {
+            return "latency";
+        }
+        if (highHeap > 0 && sample.getHeapUsage() >= highHeap) {
+            return "heap";
+        }
+        return null;
+    }
+
+    //처리가 끝난 메시지가 없으면 latency는 확인하지 않습니다. (멈춘 상태에서는 cooldown, PROBING에서는 probeWindows로 확인)
+    private String notBelow(Sample sample) {
+        if (highInFlight > 0 && sample.getInFlight() > lowInFlight) {
+            return "in-flight";
+        }
+        if (highLatencyMillis > 0 && sample.getCompleted() > 0 && sample.getLatencyMillis() > lowLatencyMillis) {
+            return "latency";
+        }
+        if (highHeap > 0 && sample.getHeapUsage() > lowHeap) {
+            return "heap";
+        }
+        return null;
+    }
+
+    //한 주기 동안 측정한 값입니다. latencyMillis는 해당 주기에 처리가 끝난 메시지(completed개)의 평균 처리 시간이며 completed가 0이면 사용하지 않습니다.
+    @Getter
+    @RequiredArgsConstructor
+    public static class Sample {
+        private final long inFlight;
+        private final long completed;
+        private final double latencyMillis;
+        private final double heapUsage;
+    }
+
+    //reason은 PAUSE의 원인 또는 다시 시작하지 않고 기다리는 원인(in-flight, latency, heap, cooldown, no-sample, probe)입니다.
+    @Getter
+    @RequiredArgsConstructor
+    public static class Decision {
+        private final Action action;
+        private final String reason;
+    }
+
+}
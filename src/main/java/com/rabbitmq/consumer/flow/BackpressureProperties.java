@@ -0,0 +1,48 @@
+package com.rabbitmq.consumer.flow;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//consumer.backpressure로 시작하는 application.yml 설정값입니다. high 값이 0 이하인 항목은 사용하지 않습니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.backpressure")
+public class BackpressureProperties {
+
+    //true인 경우에만 BackpressureController가 등록됩니다.
+    private boolean enabled = false;
+
+    //측정값을 확인하는 주기
+    private Duration interval = Duration.ofSeconds(1);
+
+    //처리중인 메시지 수입니다. 기본값은 Listener를 실행중인 Consumer 수이며 Listener가 Downstream에 비동기로 넘기는 경우 Downstream의 대기 수를 사용합니다.
+    private long highInFlight = -1;
+
+    private long lowInFlight = -1;
+
+    //주기 동안 처리가 끝난 메시지의 평균 처리 시간
+    private Duration highLatency = Duration.ofSeconds(1);
+
+    private Duration lowLatency = Duration.ofMillis(200);
+
+    //heap 사용률(used / max)
+    private double highHeap = 0.9;
+
+    private double lowHeap = 0.7;
+
+    //멈춘 뒤 다시 시작해보기 전에 기다리는 최소 시간입니다. 멈춘 동안에는 처리가 끝나는 메시지가 없어 latency를 알 수 없으므로 시간으로 기다립니다.
+    private Duration cooldown = Duration.ofSeconds(5);
+
+    //다시 시작한 뒤 처리가 끝난 메시지가 있는 주기 중 연속으로 low 값 이하여야 하는 주기 수입니다. 그 전에 high 값을 넘으면 다시 멈춥니다.
+    private int probeWindows = 3;
+
+    public BackpressurePolicy toPolicy() {
+        int cooldownWindows = (int) Math.max(1, (cooldown.toMillis() + interval.toMillis() - 1) / interval.toMillis());
+        return new BackpressurePolicy(highInFlight, lowInFlight, highLatency.toNanos() / 1_000_000d, lowLatency.toNanos() / 1_000_000d,
+                highHeap, lowHeap, cooldownWindows, Math.max(1, probeWindows));
+    }
+
+}
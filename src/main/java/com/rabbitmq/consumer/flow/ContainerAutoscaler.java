@@ -0,0 +1,168 @@
+package com.rabbitmq.consumer.flow;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//SimpleMessageListenerContainer의 Consumer 수와 prefetch를 주기적으로 조절합니다.
+//[동작 방식]
+//1. interval마다 ListenerActivityMonitor의 누적값과 AmqpAdmin으로 조회한 Queue의 메시지 수(queue depth)로 Sample을 만들어 AutoscalerPolicy에 전달합니다.
+//2. Consumer 수는 setConcurrentConsumers/setMaxConcurrentConsumers로 바로 반영되며 컨테이너가 실행중인 경우 Consumer가 추가 또는 제거됩니다.
+//maxConcurrentConsumers를 concurrentConsumers와 같게 맞춰서 컨테이너 자체의 Consumer 증감 로직(consecutiveActiveTrigger)과 충돌하지 않도록 합니다.
+//3. setPrefetchCount는 이후에 새로 생성되는 Consumer부터 적용됩니다. 이미 동작중인 Consumer의 basicQos는 바뀌지 않습니다.
+//따라서 prefetch는 목표값이며 rabbitmq.consumer.autoscaler.prefetch.target 메트릭도 동작중인 Consumer에 적용된 값이 아닌 목표값입니다.
+//4. 결정 결과는 rabbitmq.consumer.autoscaler.* 메트릭으로 노출되며 /actuator/metrics에서 확인할 수 있습니다.
+@Slf4j
+public class ContainerAutoscaler implements SmartLifecycle {
+
+    private final String name;
+    private final SimpleMessageListenerContainer container;
+    private final ListenerActivityMonitor monitor;
+    private final AmqpAdmin amqpAdmin;
+    private final String queueName;
+    private final AutoscalerPolicy policy;
+    private final long intervalMillis;
+    private final Map<AutoscalerPolicy.Action, Counter> decisions = new EnumMap<>(AutoscalerPolicy.Action.class);
+
+    private volatile int consumers;
+    private volatile int targetPrefetch;
+    private volatile double utilization;
+    private volatile long queueDepth;
+
+    private long lastTick;
+    private long lastBusyNanos;
+    private long lastProcessed;
+    private ScheduledExecutorService scheduler;
+
+    public ContainerAutoscaler(String name, SimpleMessageListenerContainer container, ListenerActivityMonitor monitor,
+                               AmqpAdmin amqpAdmin, AutoscalerProperties properties, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.container = container;
+        this.monitor = monitor;
+        this.amqpAdmin = amqpAdmin;
+        this.queueName = container.getQueueNames()[0];
+        this.policy = properties.toPolicy();
+        this.intervalMillis = properties.getInterval().toMillis();
+        this.consumers = properties.getMinConsumers();
+        this.targetPrefetch = properties.getMaxPrefetch();
+
+        container.setMaxConcurrentConsumers(consumers);
+        container.setConcurrentConsumers(consumers);
+        container.setPrefetchCount(targetPrefetch);
+
+        Tags tags = Tags.of("container", name, "queue", queueName);
+        Gauge.builder("rabbitmq.consumer.autoscaler.consumers", this, autoscaler -> autoscaler.consumers).tags(tags).register(meterRegistry);
+        Gauge.builder("rabbitmq.consumer.autoscaler.prefetch.target", this, autoscaler -> autoscaler.targetPrefetch)
+                .description("Prefetch applied to consumers created from now on; running consumers keep their basicQos")
+                .tags(tags).register(meterRegistry);
+        Gauge.builder("rabbitmq.consumer.autoscaler.utilization", this, autoscaler -> autoscaler.utilization).tags(tags).register(meterRegistry);
+        Gauge.builder("rabbitmq.consumer.autoscaler.queue.depth", this, autoscaler -> autoscaler.queueDepth).tags(tags).register(meterRegistry);
+        for (AutoscalerPolicy.Action action : AutoscalerPolicy.Action.values()) {
+            decisions.put(action, Counter.builder("rabbitmq.consumer.autoscaler.decisions")
+                    .tags(tags).tag("action", action.name().toLowerCase()).register(meterRegistry));
+        }
+    }
+
+    void tick() {
+        long now = System.nanoTime();
+        long busyNanos = monitor.getBusyNanos();
+        long processed = monitor.getProcessed();
+        queueDepth = queueDepth();
+
+        AutoscalerPolicy.Sample sample = new AutoscalerPolicy.Sample(now - lastTick, busyNanos - lastBusyNanos,
+                processed - lastProcessed, queueDepth);
+        lastTick = now;
+        lastBusyNanos = busyNanos;
+        lastProcessed = processed;
+
+        apply(policy.decide(consumers, targetPrefetch, sample));
+    }
+
+    private void apply(AutoscalerPolicy.Decision decision) {
+        utilization = decision.getUtilization();
+        decisions.get(decision.getAction()).increment();
+
+        if (decision.getPrefetch() != targetPrefetch) {
+            targetPrefetch = decision.getPrefetch();
+            container.setPrefetchCount(targetPrefetch);
+        }
+
+        int target = decision.getConsumers();
+        if (target > consumers) {
+            container.setMaxConcurrentConsumers(target);
+            container.setConcurrentConsumers(target);
+        } else if (target < consumers) {
+            container.setConcurrentConsumers(target);
+            container.setMaxConcurrentConsumers(target);
+        }
+        if (target != consumers) {
+            log.info("Autoscaler {}: consumers {} -> {}, target prefetch {}, utilization {}, queue depth {}",
+                    name, consumers, target, targetPrefetch, String.format("%.2f", utilization), queueDepth);
+            consumers = target;
+        }
+    }
+
+    private long queueDepth() {
+        try {
+            QueueInformation queueInformation = amqpAdmin.getQueueInfo(queueName);
+            return queueInformation == null ? 0 : queueInformation.getMessageCount();
+        } catch (RuntimeException e) {
+            log.debug("Autoscaler {}: failed to read queue depth of {}", name, queueName, e);
+            return queueDepth;
+        }
+    }
+
+    @Override
+    public void start() {
+        lastTick = System.nanoTime();
+        lastBusyNanos = monitor.getBusyNanos();
+        lastProcessed = monitor.getProcessed();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autoscaler-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                log.warn("Autoscaler {} tick failed", name, e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    public int getConsumers() {
+        return consumers;
+    }
+
+    //setPrefetchCount로 설정한 값입니다. 이후에 생성되는 Consumer부터 적용됩니다.
+    public int getTargetPrefetch() {
+        return targetPrefetch;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.rabbitmq.consumer.flow;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+//컨테이너의 adviceChain에 등록하여 Listener 호출(invokeListener) 전에 WeightedFairScheduler의 worker를 받고 호출이 끝나면 반환합니다.
+//컨테이너(@RabbitListener id)마다 하나씩 만들며 batch Listener는 batch 한번에 worker 하나를 사용합니다.
+//worker를 기다리는 동안 Consumer 쓰레드는 다음 메시지를 받지 않으므로 prefetch를 넘는 메시지는 Queue에 남아있습니다.
+public class FairSchedulingAdvice implements MethodInterceptor {
+
+    private final WeightedFairScheduler scheduler;
+
+    private final WeightedFairScheduler.Flow flow;
+
+    public FairSchedulingAdvice(WeightedFairScheduler scheduler, String listenerId) {
+        this.scheduler = scheduler;
+        this.flow = scheduler.flow(listenerId);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        scheduler.acquire(flow);
+        try {
+            return invocation.proceed();
+        } finally {
+            scheduler.release();
+        }
+    }
+
+}
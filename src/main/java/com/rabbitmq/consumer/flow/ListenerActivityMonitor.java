@@ -0,0 +1,44 @@
+package com.rabbitmq.consumer.flow;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//컨테이너의 adviceChain에 등록하여 Listener 호출(invokeListener) 한번마다 처리 시간과 처리 건수를 누적합니다.
+//ContainerAutoscaler는 누적값의 차이로 구간별 Consumer 사용률(utilization)과 평균 처리 시간을 계산합니다.
+public class ListenerActivityMonitor implements MethodInterceptor {
+
+    private final LongAdder busyNanos = new LongAdder();
+
+    private final LongAdder processed = new LongAdder();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        inFlight.incrementAndGet();
+        try {
+            return invocation.proceed();
+        } finally {
+            inFlight.decrementAndGet();
+            busyNanos.add(System.nanoTime() - start);
+            processed.increment();
+        }
+    }
+
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.rabbitmq.consumer.flow;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//consumer.scheduler로 시작하는 application.yml 설정값입니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.scheduler")
+public class ListenerSchedulerProperties {
+
+    //true인 경우에만 annotation 프로파일의 @RabbitListener 컨테이너에 FairSchedulingAdvice가 등록됩니다.
+    private boolean enabled = false;
+
+    //모든 Listener가 동시에 실행할 수 있는 최대 수(공유 worker 수)입니다.
+    private int workers = 8;
+
+    //@RabbitListener의 id별 설정입니다. 설정하지 않은 Listener는 weight 1, 속도 제한 없음으로 실행됩니다.
+    private Map<String, ListenerProperties> listeners = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class ListenerProperties {
+
+        //worker가 부족할때 다른 Listener와 나누어 받을 실행 비율입니다. weight 2인 Listener는 weight 1인 Listener보다 두배 자주 실행됩니다.
+        private double weight = 1;
+
+        //초당 최대 실행 수입니다. 0 이하이면 제한하지 않습니다.
+        private double permitsPerSecond = 0;
+
+        private int burst = 1;
+
+        WeightedFairScheduler.Flow toFlow(String id) {
+            return new WeightedFairScheduler.Flow(id, weight, new TokenBucket(permitsPerSecond, burst));
+        }
+
+    }
+
+    public WeightedFairScheduler toScheduler(MeterRegistry meterRegistry) {
+        ListenerProperties defaults = new ListenerProperties();
+        return new WeightedFairScheduler(workers, id -> listeners.getOrDefault(id, defaults).toFlow(id), meterRegistry);
+    }
+
+}
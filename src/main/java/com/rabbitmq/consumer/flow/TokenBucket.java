@@ -0,0 +1,79 @@
+package com.rabbitmq.consumer.flow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+//초당 permitsPerSecond개의 허가(permit)를 발급하며 사용하지 않은 허가는 burst개까지 모아둘 수 있는 토큰 버킷입니다.
+//1. acquire는 허가가 없으면 다음 허가가 생길 시점까지 호출한 쓰레드를 재웁니다. 먼저 호출한 쓰레드가 먼저 허가를 예약하므로
+//여러 쓰레드가 동시에 기다려도 순서대로 깨어납니다.
+//2. tryAcquire는 기다리지 않고 허가가 있는지만 확인합니다.
+//3. permitsPerSecond가 0 이하이면 제한하지 않습니다.
+public class TokenBucket {
+
+    private final boolean unlimited;
+
+    private final double nanosPerPermit;
+
+    private final double capacity;
+
+    private final LongSupplier clock;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+        this.unlimited = permitsPerSecond <= 0;
+        this.nanosPerPermit = unlimited ? 0 : TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.capacity = Math.max(1, burst);
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    public boolean isUnlimited() {
+        return unlimited;
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public boolean tryAcquire() {
+        if (isUnlimited()) {
+            return true;
+        }
+        synchronized (this) {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    //허가 하나를 예약하고 해당 허가를 사용할 수 있을때까지 기다려야 하는 시간(ns)을 반환합니다. 남은 허가가 없으면 tokens가 음수가 됩니다.
+    synchronized long reserve() {
+        if (isUnlimited()) {
+            return 0;
+        }
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * nanosPerPermit);
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerPermit);
+        lastRefill = now;
+    }
+
+}
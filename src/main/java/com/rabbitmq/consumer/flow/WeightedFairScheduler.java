@@ -0,0 +1,211 @@
+package com.rabbitmq.consumer.flow;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+//여러 Listener(Flow)가 workers개의 실행 자리(worker)를 나누어 사용하도록 하는 weighted fair scheduler입니다.
+//Listener는 기존과 같이 컨테이너의 Consumer 쓰레드에서 실행되므로(ack 시점 유지) 실행 전에 acquire, 실행 후에 release를 호출합니다.
+//[동작 방식]
+//1. Flow의 TokenBucket으로 초당 실행 수를 제한합니다. 기다리는 동안에는 worker를 차지하지 않습니다.
+//2. 기다리는 쓰레드가 없고 남은 worker가 있으면 CAS로 바로 가져갑니다. (lock 없음, Flow별 통계는 LongAdder)
+//3. worker가 없으면 Flow의 대기열에 들어가서 기다리고 worker가 반환될때 대기중인 Flow 중 virtual finish time이 가장 작은 Flow의
+//첫번째 쓰레드를 깨웁니다. (start-time fair queuing) 깨울때마다 해당 Flow의 finish time이 1 / weight만큼 늘어나므로
+//대기중인 Flow들은 weight 비율대로 worker를 받으며 한 Queue에 메시지가 몰려도 다른 Queue의 Listener가 굶지 않습니다.
+//4. 쉬고 있던 Flow가 다시 기다리기 시작하면 finish time을 현재 virtual time으로 맞춰서 쉬는 동안의 몫을 몰아서 받지 않도록 합니다.
+public class WeightedFairScheduler {
+
+    public static class Flow {
+
+        private final String id;
+
+        private final double weight;
+
+        private final TokenBucket rateLimit;
+
+        private final LongAdder admitted = new LongAdder();
+
+        private final LongAdder waitNanos = new LongAdder();
+
+        //아래 값은 WeightedFairScheduler.lock으로 보호됩니다.
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+        private double finish;
+
+        Flow(String id, double weight, TokenBucket rateLimit) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("weight of " + id + " must be positive: " + weight);
+            }
+            this.id = id;
+            this.weight = weight;
+            this.rateLimit = rateLimit;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getAdmitted() {
+            return admitted.sum();
+        }
+
+        public long getWaitNanos() {
+            return waitNanos.sum();
+        }
+
+    }
+
+    private static final class Waiter {
+
+        private final Thread thread = Thread.currentThread();
+
+        private volatile boolean granted;
+
+    }
+
+    private final int workers;
+
+    private final AtomicInteger available;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<String, Flow> flows = new ConcurrentHashMap<>();
+
+    private final Function<String, Flow> flowFactory;
+
+    private final MeterRegistry meterRegistry;
+
+    //lock으로 보호됩니다.
+    private double virtualTime;
+
+    public WeightedFairScheduler(int workers, Function<String, Flow> flowFactory, MeterRegistry meterRegistry) {
+        this.workers = Math.max(1, workers);
+        this.available = new AtomicInteger(this.workers);
+        this.flowFactory = flowFactory;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("rabbitmq.consumer.scheduler.busy", this, scheduler -> scheduler.workers - scheduler.available.get()).register(meterRegistry);
+        Gauge.builder("rabbitmq.consumer.scheduler.waiting", waiting, AtomicInteger::get).register(meterRegistry);
+    }
+
+    //id(@RabbitListener id)의 Flow를 반환합니다. 처음 호출될때 만들어지며 rabbitmq.consumer.scheduler.* 메트릭이 등록됩니다.
+    public Flow flow(String id) {
+        return flows.computeIfAbsent(id, key -> {
+            Flow flow = flowFactory.apply(key);
+            Tags tags = Tags.of("listener", key);
+            FunctionCounter.builder("rabbitmq.consumer.scheduler.admitted", flow, Flow::getAdmitted).tags(tags).register(meterRegistry);
+            FunctionCounter.builder("rabbitmq.consumer.scheduler.wait", flow, f -> f.getWaitNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                    .tags(tags).baseUnit("seconds").register(meterRegistry);
+            return flow;
+        });
+    }
+
+    //flow(flow(id)로 받은 Flow)의 속도 제한과 worker를 기다립니다. 정상 반환된 경우 실행이 끝나면 반드시 release를 호출해야 합니다.
+    public void acquire(Flow flow) throws InterruptedException {
+        if (!flow.rateLimit.isUnlimited()) {
+            flow.rateLimit.acquire();
+        }
+        if (waiting.get() == 0 && tryTake()) {
+            flow.admitted.increment();
+            return;
+        }
+
+        long start = System.nanoTime();
+        Waiter waiter = new Waiter();
+        lock.lock();
+        try {
+            if (flow.waiters.isEmpty()) {
+                flow.finish = Math.max(flow.finish, virtualTime);
+            }
+            flow.waiters.add(waiter);
+            waiting.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        //대기열에 들어가기 전에 반환된 worker가 있을 수 있으므로 직접 한번 나누어 줍니다.
+        dispatch();
+
+        while (!waiter.granted) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                cancel(flow, waiter);
+                throw new InterruptedException();
+            }
+        }
+        flow.admitted.increment();
+        flow.waitNanos.add(System.nanoTime() - start);
+    }
+
+    public void release() {
+        available.incrementAndGet();
+        if (waiting.get() > 0) {
+            dispatch();
+        }
+    }
+
+    private boolean tryTake() {
+        for (;;) {
+            int current = available.get();
+            if (current == 0) {
+                return false;
+            }
+            if (available.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void dispatch() {
+        lock.lock();
+        try {
+            while (waiting.get() > 0 && tryTake()) {
+                Flow next = null;
+                for (Flow flow : flows.values()) {
+                    if (!flow.waiters.isEmpty() && (next == null || flow.finish < next.finish)) {
+                        next = flow;
+                    }
+                }
+                Waiter waiter = next.waiters.poll();
+                waiting.decrementAndGet();
+                virtualTime = next.finish;
+                next.finish += 1 / next.weight;
+                waiter.granted = true;
+                LockSupport.unpark(waiter.thread);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //기다리다가 interrupt된 경우 대기열에서 빠지며 그 사이에 worker를 받았으면 다시 반환합니다.
+    private void cancel(Flow flow, Waiter waiter) {
+        lock.lock();
+        try {
+            if (flow.waiters.remove(waiter)) {
+                waiting.decrementAndGet();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        release();
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+}
@@ -1,8 +1,12 @@
 package com.rabbitmq.consumer.listener;
 
 import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.ack.AckCoalescers;
 import com.rabbitmq.consumer.dto.MessageInfo;
-import lombok.extern.slf4j.Slf4j;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.retry.DeadLetterIndex;
+import com.rabbitmq.consumer.retry.DeadLetterRetrier;
 import org.springframework.amqp.core.ExchangeTypes;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.*;
@@ -12,7 +16,6 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 
 @Profile("annotation")
-@Slf4j
 @Component
 //[RabbitMQ 설정 우선순위]
 //application.yml에서 설정하는 rabbitmq의 전역 설정보다 @RabbitListener의 속성에서 하는 설정이 우선 순위가 더 높습니다.
@@ -49,37 +52,64 @@ import java.io.IOException;
 //[@RabbitListener의 concurrency]
 //concurrency를 설정하게 되면 queue에 연결되는 Consumer의 개수를 조절할 수 있습니다. default는 1로 하나의 Consumer만 연결되며
 //만약 3으로 늘리게되면 queue에 3개의 Consumer가 생성되어 3개의 Consumer가 메시지를 가져가서 처리합니다.
+//[@RabbitListener의 id]
+//컨테이너의 listenerId가 되며 consumer.scheduler.listeners에서 Listener별 weight, 속도 제한을 설정할때 사용합니다. (ListenerSchedulingConfig 참고)
 public class AnnotationMessageListener {
+
+    //MANUAL ackMode Listener의 ack, nack, reject를 모아서 multiple = true frame으로 전송합니다. (RabbitMQAnnotationConfig 참고)
+    private final AckCoalescers ackCoalescers;
+
+    //메시지 로그는 consumer.logging 설정에 따라 sampling, 바디 길이 제한을 적용하여 남깁니다. (MessageLoggingConfig 참고)
+    private final MessageLogger messageLogger;
+
+    //dead.letter.queue의 Dead Letter를 재시도 대기 Queue 또는 parking lot Queue로 보냅니다. (DeadLetterRetryConfig 참고)
+    private final DeadLetterRetrier deadLetterRetrier;
+
+    //dead.letter.queue의 Dead Letter 수를 원래 Queue, reason, publisher별로 집계합니다. (DeadLetterIndexController 참고)
+    private final DeadLetterIndex deadLetterIndex;
+
+    public AnnotationMessageListener(AckCoalescers ackCoalescers, MessageLogging messageLogging, DeadLetterRetrier deadLetterRetrier,
+                                     DeadLetterIndex deadLetterIndex) {
+        this.ackCoalescers = ackCoalescers;
+        this.messageLogger = messageLogging.getLogger(AnnotationMessageListener.class);
+        this.deadLetterRetrier = deadLetterRetrier;
+        this.deadLetterIndex = deadLetterIndex;
+    }
+
     //ack.test.queue는 RabbitMQConfig에서 arguments에 DLX 설정이 되어있는데 현재 @RabbitListener에서 ackMode 설정, nack or reject 수행을
     //하고 있지 않기 때문에 arguments에 DLX 설정이 적용되지 않는 상태입니다. 만약 DLX 설정을 유효하게 하려면 ackMode를 MANUAL로 변경하고
     //오류가 발생할 수 있는 로직에 대해서 조건문을 작성하고 조건문 내부에 channel.basicNack(requeue를 false로 설정) 또는 channel.basicReject(requeue를 false로 설정)이
     //수행되도록 로직을 구성해야 합니다.
-    @RabbitListener(queues = "ack.test.queue", messageConverter = "jsonMessageConverter")
+    @RabbitListener(id = "ack", queues = "ack.test.queue", messageConverter = "jsonMessageConverter")
     void receiveMessage(Message message) throws IOException {
-        log.info("<==================== Receive Message" + message);
+        messageLogger.info("<==================== Receive Message", message);
     }
 
     //@Exchange, @Queue에 선언된 Exchange, Queue가 없을시 자동으로 생성해주며 기존에 존재할시 모든 속성(Queue의 경우 arguments가 설정되어 있으므로 arguments 포함)이 같아야
     //정상적으로 연결됩니다.
-    @RabbitListener(bindings = @QueueBinding(
+    @RabbitListener(id = "messageInfo", bindings = @QueueBinding(
             value = @Queue(value = "messageInfo.test.queue", durable = "false", exclusive = "false", autoDelete = "false",
                     arguments = { @Argument(name = "x-dead-letter-exchange", value = "dead.letter.exchange", type = "java.lang.String"),
                             @Argument(name = "x-dead-letter-routing-key", value = "dlx.routing.key", type = "java.lang.String") }),
             exchange = @Exchange(value = "messageInfo.test.exchange", type = ExchangeTypes.DIRECT, autoDelete = "false"),
             key = "messageInfo.routing.key"),
             ackMode = "AUTO",
-            messageConverter = "jsonMessageConverter" //jsonMessageConverter를 Bean으로 동록하지 않을시 Producer에서 보낸 메시지
+            messageConverter = "messageInfoMessageConverter" //MessageInfo를 JsonParser로 직접 변환합니다. (RabbitMQAnnotationConfig 참고)
+            //[messageConverter 속성에 대해] jsonMessageConverter를 Bean으로 동록하지 않을시 Producer에서 보낸 메시지
             //타입(Producer에서 사용하고 있는 Dto 객체, Consumer 측에도 해당 Dto 객체가 있어야 함)으로 메시지를 변환하는 기능이 수행되지 못하고 따라서 메시지를 받으려고 하면 메시지 타입
-            //오류가 발생하게 됩니다. jsonMessageConverter라는 이름은 RabbitMQAnnotationConfig에 Bean으로 등록되어 있는 메서드명입니다. @Bean으로 jsonMessageConverter를
+            //오류가 발생하게 됩니다. jsonMessageConverter라는 이름은 JsonMessageConverterConfig에 Bean으로 등록되어 있는 메서드명입니다. @Bean으로 jsonMessageConverter를
             //등록만 해놓으면 별도로 @RabbitListener의 속성으로 messageConverter를 설정하지 않아도 자동으로 사용이 가능하지만 위에서는 설명을 위해서 명시적으로 속성을 표시 해놓았습니다.
+            //MessageConverter Bean이 여러개인 경우에는 @Primary로 지정된 jsonMessageConverter가 자동으로 사용됩니다.
+            //consumer.pipeline.enabled가 true이면 ContainerCustomizer가 Listener를 PipelinedMessageListener로 바꾸므로 MANUAL ackMode로 실행되고
+            //receiveMessageInfo는 ConversionPipeline의 handoff 쓰레드에서 호출됩니다. (ConversionPipelineConfig 참고)
     )
-    void receiveMessageInfo(MessageInfo messageInfo) {
-        log.info("<==================== Receive MessageInfo" + messageInfo);
+    public void receiveMessageInfo(MessageInfo messageInfo) {
+        messageLogger.info("<==================== Receive MessageInfo", "messageInfo.test.queue", messageInfo);
     }
 
     //@Exchange, @Queue에 선언된 Exchange, Queue가 없을시 자동으로 생성해주며 기존에 존재할시 모든 속성(Queue의 경우 arguments가 설정되어 있으므로 arguments 포함)이 같아야
     //정상적으로 연결됩니다.
-    @RabbitListener(bindings = @QueueBinding(
+    @RabbitListener(id = "nack", bindings = @QueueBinding(
             value = @Queue(value = "nack.test.queue", durable = "false", exclusive = "false", autoDelete = "false",
                     arguments = { @Argument(name = "x-dead-letter-exchange", value = "dead.letter.exchange", type = "java.lang.String"),
                             @Argument(name = "x-dead-letter-routing-key", value = "dlx.routing.key", type = "java.lang.String") }),
@@ -89,13 +119,15 @@ public class AnnotationMessageListener {
             messageConverter = "jsonMessageConverter"
     )
     void nackMessage(Message message, Channel channel) throws IOException {
-        log.info("<==================== Nack Message");
-        channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, false);
+        messageLogger.info("<==================== Nack Message", message.getMessageProperties().getConsumerQueue());
+        //channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, false);를 바로 호출하는 대신 결과를 기록해두고
+        //연속된 delivery tag의 결과를 basicNack(deliveryTag, multiple = true, requeue = false) 한번으로 전송합니다.
+        ackCoalescers.forChannel(channel).nack(message.getMessageProperties().getDeliveryTag(), false);
     }
 
     //@Exchange, @Queue에 선언된 Exchange, Queue가 없을시 자동으로 생성해주며 기존에 존재할시 모든 속성(Queue의 경우 arguments가 설정되어 있으므로 arguments 포함)이 같아야
     //정상적으로 연결됩니다.
-    @RabbitListener(bindings = @QueueBinding(
+    @RabbitListener(id = "reject", bindings = @QueueBinding(
             value = @Queue(value = "reject.test.queue", durable = "false", exclusive = "false", autoDelete = "false",
                     arguments = { @Argument(name = "x-dead-letter-exchange", value = "dead.letter.exchange", type = "java.lang.String"),
                             @Argument(name = "x-dead-letter-routing-key", value = "dlx.routing.key", type = "java.lang.String") }),
@@ -105,8 +137,9 @@ public class AnnotationMessageListener {
             messageConverter = "jsonMessageConverter"
     )
     void rejectMessage(Message message, Channel channel) throws IOException {
-        log.info("<==================== Reject Message");
-        channel.basicReject(message.getMessageProperties().getDeliveryTag(), false);
+        messageLogger.info("<==================== Reject Message", message.getMessageProperties().getConsumerQueue());
+        //reject는 multiple을 지원하지 않으므로 같은 의미의 basicNack(requeue = false)으로 모아서 전송됩니다.
+        ackCoalescers.forChannel(channel).reject(message.getMessageProperties().getDeliveryTag(), false);
     }
 
     //@Exchange, @Queue에 선언된 Exchange, Queue가 없을시 자동으로 생성해주며 기존에 존재할시 모든 속성(Queue의 경우 arguments가 설정되어 있으므로 arguments 포함)이 같아야
@@ -117,7 +150,7 @@ public class AnnotationMessageListener {
     //단지, DLX와 TTL arguments를 설정한 Queue를 생성하고 해당 Queue에 Consumer가 없는 상태에서 메시지를 보내주기만 하면 됩니다.
     //해당 로직에서는 아래 로직의 주석을 풀어서 어플리케이션을 동작하여 Queue를 생성후 어플리케이션을 끄고 로직을 주석처리 하고 다시 어플리케이션을 동작시켜
     //Consumer가 없는 상태로 만드는 방법으로 테스트를 하였습니다.
-    @RabbitListener(bindings = @QueueBinding(
+    @RabbitListener(id = "ttl", bindings = @QueueBinding(
             value = @Queue(value = "ttl.test.queue", durable = "false", exclusive = "false", autoDelete = "false",
                     arguments = { @Argument(name = "x-dead-letter-exchange", value = "dead.letter.exchange", type = "java.lang.String"),
                             @Argument(name = "x-dead-letter-routing-key", value = "dlx.routing.key", type = "java.lang.String"),
@@ -135,9 +168,17 @@ public class AnnotationMessageListener {
     //해당 로직을 주석 처리하는 경우 dead.letter.queue에 쌓인 메시지(Dead Letter)는 소비되지 않아 계속 쌓여있게 되고
     //해당 로직이 활성화 되어있는 경우 dead.letter.queue에서 메시지를 계속해서 가져오게 되므로 dead.letter.queue에
     //메시지가 쌓이지 않게 됩니다.
-    @RabbitListener(queues = "dead.letter.queue", messageConverter = "jsonMessageConverter")
+    //가져온 Dead Letter는 x-death 헤더의 실패 횟수에 따라 재시도 대기 Queue(대기 후 원래 Queue로 돌아감) 또는 parking lot Queue로 보냅니다.
+    //재시도, 보관하기 전에 DeadLetterIndex에 기록하므로 재시도 후 다시 Dead Letter가 된 메시지는 들어올때마다 집계됩니다.
+    //재시도 대기 Queue로 보내는 속도가 consumer.retry.redeliveries-per-second로 제한되므로 Consumer는 하나(기본값)로 유지합니다.
+    @RabbitListener(id = "deadLetter", queues = "dead.letter.queue", messageConverter = "jsonMessageConverter")
     void receiveDeadLetter(Message message) {
-        log.info("<==================== Receive Dead Letter" + message);
+        deadLetterIndex.record(message);
+        if (deadLetterRetrier.handle(message) == DeadLetterRetrier.Outcome.RETRIED) {
+            messageLogger.info("<==================== Retry Dead Letter", message);
+        } else {
+            messageLogger.info("<==================== Park Dead Letter", message);
+        }
     }
 
 }
@@ -0,0 +1,39 @@
+package com.rabbitmq.consumer.listener;
+
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
+import com.rabbitmq.consumer.sink.WriteBehindSink;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Profile("factory & batch")
+@Component
+public class BatchMessageListener {
+
+    private final MessageLogger messageLogger;
+
+    private final WriteBehindSink<MessageInfo> messageInfoSink;
+
+    //consumer.sink.enabled가 true인 경우에만 WriteBehindSink가 등록됩니다. (WriteBehindSinkConfig 참고)
+    public BatchMessageListener(MessageLogging messageLogging, ObjectProvider<WriteBehindSink<MessageInfo>> messageInfoSink) {
+        this.messageLogger = messageLogging.getLogger(BatchMessageListener.class);
+        this.messageInfoSink = messageInfoSink.getIfAvailable();
+    }
+
+    //RabbitMQFactoryConfig의 batchRabbitListenerContainerFactory를 사용하여 메시지를 batchSize 단위로 묶어서 전달받습니다.
+    //메시지 하나당 Listener 호출, ack 전송이 한번씩 일어나는 대신 batch당 한번씩만 일어나므로 메시지 처리량을 높일 수 있습니다.
+    //WriteBehindSink가 있으면 batch를 로컬 로그에 추가하고 디스크에 반영된 뒤 반환하므로 ack는 Downstream 전송과 상관없이 전송됩니다.
+    @RabbitListener(queues = "ack.test.queue", containerFactory = "batchRabbitListenerContainerFactory")
+    void receiveMessageInfos(List<MessageInfo> messageInfos) {
+        messageLogger.info("<==================== Batch Receive MessageInfo Size:", "ack.test.queue", messageInfos.size());
+        if (messageInfoSink != null) {
+            messageInfoSink.append(messageInfos);
+        }
+    }
+
+}
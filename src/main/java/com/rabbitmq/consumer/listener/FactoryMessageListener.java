@@ -1,19 +1,25 @@
 package com.rabbitmq.consumer.listener;
 
-import lombok.extern.slf4j.Slf4j;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
-@Profile("factory")
-@Slf4j
+@Profile("factory & !batch") //batch 프로파일이 함께 활성화된 경우 BatchMessageListener가 ack.test.queue를 대신 처리합니다.
 @Component
 public class FactoryMessageListener {
 
+    private final MessageLogger messageLogger;
+
+    public FactoryMessageListener(MessageLogging messageLogging) {
+        this.messageLogger = messageLogging.getLogger(FactoryMessageListener.class);
+    }
+
     @RabbitListener(queues = "ack.test.queue")
     void receiveMessage(Message message) {
-        log.info("<==================== Factory Config Test Receive Message" + message);
+        messageLogger.info("<==================== Factory Config Test Receive Message", message);
     }
 
 }
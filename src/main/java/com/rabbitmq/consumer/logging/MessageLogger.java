@@ -0,0 +1,48 @@
+package com.rabbitmq.consumer.logging;
+
+import org.slf4j.Logger;
+import org.springframework.amqp.core.Message;
+
+//Listener 클래스마다 하나씩 만들어서 메시지 로그를 남깁니다. (MessageLogging.getLogger)
+//로그 레벨은 기존과 같이 클래스 이름의 Logger 설정(logging.level.*)을 따릅니다.
+public class MessageLogger {
+
+    private final Logger logger;
+
+    private final MessageLogging messageLogging;
+
+    MessageLogger(Logger logger, MessageLogging messageLogging) {
+        this.logger = logger;
+        this.messageLogging = messageLogging;
+    }
+
+    //Message의 Queue, deliveryTag 등의 속성과 maxBodyLength까지의 바디를 남깁니다.
+    public void info(String event, Message message) {
+        if (logger.isInfoEnabled() && messageLogging.sample(message.getMessageProperties().getConsumerQueue())) {
+            logger.info("{} {}", event, new MessageSummary(message, messageLogging.getMaxBodyLength()));
+        }
+    }
+
+    //MessageConverter로 변환된 payload(String, MessageInfo, batch의 List 등)를 maxBodyLength까지만 남깁니다. (MessageSummary.summarize)
+    public void info(String event, String queue, Object payload) {
+        if (logger.isInfoEnabled() && messageLogging.sample(queue)) {
+            logger.info("{} {}", event, MessageSummary.summarize(payload, messageLogging.getMaxBodyLength()));
+        }
+    }
+
+    //메시지 내용 없이 이벤트만 남깁니다. (예: batch 크기, nack 처리)
+    public void info(String event, String queue) {
+        if (logger.isInfoEnabled() && messageLogging.sample(queue)) {
+            logger.info(event);
+        }
+    }
+
+    public boolean isEnabled(String queue) {
+        return logger.isInfoEnabled() && messageLogging.sample(queue);
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.rabbitmq.consumer.logging;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Listener에서 메시지마다 남기는 로그의 sampling, 바디 길이 제한 설정을 가지고 있으며 클래스별 MessageLogger를 만듭니다.
+//[기존 방식의 문제]
+//log.info("<==================== Message Info: " + message)는 INFO 로그가 꺼져 있어도 Message.toString()으로 바디 전체를 문자열로 만들기 때문에
+//메시지가 많을수록 Consumer에서 가장 많은 메모리를 할당하는 곳이 됩니다.
+//[MessageLogger]
+//1. INFO가 꺼져 있거나 sampling에서 제외된 메시지는 아무 객체도 만들지 않습니다.
+//2. 로그를 남기는 경우에도 {} 파라미터로 넘기며 바디는 maxBodyLength까지만 문자열로 만듭니다.
+//3. 출력은 logback-spring.xml의 AsyncAppender가 별도 쓰레드에서 처리하므로 Listener 쓰레드가 I/O를 기다리지 않습니다.
+public class MessageLogging {
+
+    private final double sampleRate;
+
+    private final Map<String, Double> sampleRates;
+
+    private final int maxBodyLength;
+
+    public MessageLogging(MessageLoggingProperties properties) {
+        this.sampleRate = properties.getSampleRate();
+        this.sampleRates = new HashMap<>(properties.getSampleRates());
+        this.maxBodyLength = properties.getMaxBodyLength();
+    }
+
+    public MessageLogger getLogger(Class<?> type) {
+        return new MessageLogger(LoggerFactory.getLogger(type), this);
+    }
+
+    //Queue별 sampleRate에 따라 해당 메시지의 로그를 남길지 결정합니다. 쓰레드마다 따로 있는 ThreadLocalRandom을 사용하므로 쓰레드 간 경합이 없습니다.
+    boolean sample(String queue) {
+        double rate = queue != null ? sampleRates.getOrDefault(queue, sampleRate) : sampleRate;
+        if (rate >= 1.0) {
+            return true;
+        }
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    int getMaxBodyLength() {
+        return maxBodyLength;
+    }
+
+}
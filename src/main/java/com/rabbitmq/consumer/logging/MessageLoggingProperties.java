@@ -0,0 +1,25 @@
+package com.rabbitmq.consumer.logging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//consumer.logging으로 시작하는 application.yml 설정값입니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.logging")
+public class MessageLoggingProperties {
+
+    //메시지 로그를 남길 비율(0.0 ~ 1.0)입니다. 1.0이면 모든 메시지, 0.01이면 100개 중 1개 정도의 메시지만 로그를 남깁니다.
+    private double sampleRate = 1.0;
+
+    //Queue별 sampleRate입니다. 설정하지 않은 Queue는 sampleRate를 사용합니다.
+    private Map<String, Double> sampleRates = new HashMap<>();
+
+    //로그에 남길 메시지 바디의 최대 길이(byte)입니다. 나머지는 생략하고 전체 길이만 남깁니다.
+    private int maxBodyLength = 256;
+
+}
@@ -0,0 +1,84 @@
+package com.rabbitmq.consumer.logging;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+//로그에 남길 Message의 요약입니다. Message.toString()은 모든 속성과 바디 전체를 문자열로 만들지만 해당 클래스는
+//로그가 실제로 출력될때(toString) 주요 속성과 maxBodyLength까지의 바디만 문자열로 만듭니다.
+final class MessageSummary {
+
+    private final Message message;
+
+    private final int maxBodyLength;
+
+    MessageSummary(Message message, int maxBodyLength) {
+        this.message = message;
+        this.maxBodyLength = maxBodyLength;
+    }
+
+    @Override
+    public String toString() {
+        MessageProperties messageProperties = message.getMessageProperties();
+        byte[] body = message.getBody();
+        int length = body != null ? body.length : 0;
+
+        StringBuilder builder = new StringBuilder(128 + Math.min(length, maxBodyLength));
+        builder.append("(queue=").append(messageProperties.getConsumerQueue())
+                .append(", deliveryTag=").append(messageProperties.getDeliveryTag());
+        if (messageProperties.getMessageId() != null) {
+            builder.append(", messageId=").append(messageProperties.getMessageId());
+        }
+        if (Boolean.TRUE.equals(messageProperties.getRedelivered())) {
+            builder.append(", redelivered=true");
+        }
+        if (messageProperties.getContentType() != null) {
+            builder.append(", contentType=").append(messageProperties.getContentType());
+        }
+        builder.append(", body[").append(length).append(" bytes]=");
+        if (length > 0) {
+            //바디가 텍스트(JSON 등)가 아닌 경우에도 그대로 UTF-8로 남깁니다. 잘린 위치의 multi-byte 문자는 대체 문자로 출력됩니다.
+            builder.append(new String(body, 0, Math.min(length, maxBodyLength), StandardCharsets.UTF_8));
+            if (length > maxBodyLength) {
+                builder.append("...");
+            }
+        }
+        return builder.append(')').toString();
+    }
+
+    static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength) + "...(" + value.length() + " chars)";
+    }
+
+    //MessageConverter로 변환된 payload를 maxLength까지만 문자열로 만듭니다.
+    //String.valueOf(payload)로 전체를 만든 뒤 자르지 않도록 byte[]는 앞부분만 디코딩하고 Collection(batch)은 maxLength를 넘으면 나머지 항목을 변환하지 않습니다.
+    //그 외의 타입은 toString 결과를 자르므로 큰 바디를 가진 타입은 MessageBody와 같이 toString에서 앞부분만 남겨야 합니다.
+    static String summarize(Object payload, int maxLength) {
+        if (payload instanceof Message) {
+            return new MessageSummary((Message) payload, maxLength).toString();
+        }
+        if (payload instanceof byte[]) {
+            byte[] body = (byte[]) payload;
+            String head = new String(body, 0, Math.min(body.length, maxLength), StandardCharsets.UTF_8);
+            return body.length <= maxLength ? head : head + "...(" + body.length + " bytes)";
+        }
+        if (payload instanceof Collection) {
+            Collection<?> items = (Collection<?>) payload;
+            StringBuilder builder = new StringBuilder(Math.min(maxLength, 1024) + 32).append('[');
+            for (Object item : items) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append(summarize(item, Math.max(0, maxLength - builder.length())));
+                if (builder.length() > maxLength) {
+                    return builder.substring(0, maxLength) + "...(" + items.size() + " items)";
+                }
+            }
+            return builder.append(']').toString();
+        }
+        return truncate(String.valueOf(payload), maxLength);
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.rabbitmq.consumer.metrics;
+
+//메시지 처리 결과입니다. requeue = false로 처리된 nack, reject는 Queue에 DLX가 설정되어 있으면 Dead Letter가 됩니다.
+public enum DeliveryOutcome {
+
+    ACK,
+
+    NACK,
+
+    REJECT
+
+}
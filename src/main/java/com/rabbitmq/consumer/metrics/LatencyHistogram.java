@@ -0,0 +1,167 @@
+package com.rabbitmq.consumer.metrics;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+//HdrHistogram과 같은 방식(log-linear bucket)으로 ns 단위 처리 시간을 기록하는 Histogram입니다.
+//[bucket 구성]
+//1. 0 ~ 31ns는 1ns 단위로 기록합니다.
+//2. 그 이상은 2의 거듭제곱 구간(32~63, 64~127, ...)마다 32개의 bucket으로 나누므로 기록된 값과 bucket 하한의 차이는 약 3% 이내입니다.
+//3. 기록은 bucket 하나와 합계에 대한 원자적 증가뿐이며 Lock, 객체 생성이 없습니다. Micrometer Timer(publishPercentiles)는 기록마다
+//여러개의 Histogram을 회전시키며 갱신하므로 메시지마다 여러번 기록하는 Listener 경로에서는 비용이 커서 직접 구현하였습니다.
+//[Micrometer 등록]
+//count, 합계는 FunctionTimer로, p50, p99, p999, max는 {name}.percentile(phi), {name}.max Gauge로 등록됩니다.
+//percentile은 누적값이 아니라 windowMillis 동안 기록된 값으로 계산하며 Gauge를 조회할때 windowMillis가 지났으면 다음 구간으로 넘어갑니다.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final long windowMillis;
+
+    private final LongSupplier clock;
+
+    //직전 구간이 끝난 시점의 누적 count와 직전 구간에 기록된 count
+    private final long[] windowStart = new long[BUCKETS];
+
+    private final long[] window = new long[BUCKETS];
+
+    private long windowEndMillis;
+
+    public LatencyHistogram(long windowMillis) {
+        this(windowMillis, System::currentTimeMillis);
+    }
+
+    LatencyHistogram(long windowMillis, LongSupplier clock) {
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.windowEndMillis = clock.getAsLong() + windowMillis;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        totalNanos.add(nanos);
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    //직전 구간(windowMillis)에 기록된 값 중 percentile 위치에 해당하는 bucket의 하한(ns)을 반환합니다. 기록된 값이 없으면 0입니다.
+    public synchronized double percentile(double percentile) {
+        rotate();
+        return percentile(window, percentile);
+    }
+
+    //구간과 관계없이 생성된 이후 기록된 모든 값으로 계산합니다. 부하 테스트 결과와 같이 실행 전체의 분포가 필요한 경우 사용합니다.
+    public double cumulativePercentile(double percentile) {
+        long[] cumulative = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative[i] = counts.get(i);
+        }
+        return percentile(cumulative, percentile);
+    }
+
+    //직전 구간에 기록된 가장 큰 값이 속한 bucket의 하한(ns)
+    public synchronized double max() {
+        rotate();
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (window[i] > 0) {
+                return lowerBound(i);
+            }
+        }
+        return 0;
+    }
+
+    private static double percentile(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return lowerBound(i);
+            }
+        }
+        return lowerBound(BUCKETS - 1);
+    }
+
+    private void rotate() {
+        long now = clock.getAsLong();
+        if (now < windowEndMillis) {
+            return;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            long cumulative = counts.get(i);
+            window[i] = cumulative - windowStart[i];
+            windowStart[i] = cumulative;
+        }
+        //windowMillis보다 오래 조회하지 않은 경우 마지막 조회 이후의 기록 전체가 하나의 구간이 됩니다.
+        windowEndMillis = now + windowMillis;
+    }
+
+    static int indexOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return subBucket << (magnitude - SUB_BUCKET_BITS);
+    }
+
+    public LatencyHistogram register(MeterRegistry meterRegistry, String name, String description, Tags tags) {
+        FunctionTimer.builder(name, this, LatencyHistogram::count, LatencyHistogram::totalNanos, TimeUnit.NANOSECONDS)
+                .description(description).tags(tags).register(meterRegistry);
+        for (double percentile : PERCENTILES) {
+            Gauge.builder(name + ".percentile", this, histogram -> histogram.percentile(percentile) / 1_000_000_000d)
+                    .description(description).tags(tags).tag("phi", Double.toString(percentile))
+                    .baseUnit("seconds").register(meterRegistry);
+        }
+        Gauge.builder(name + ".max", this, histogram -> histogram.max() / 1_000_000_000d)
+                .description(description).tags(tags).baseUnit("seconds").register(meterRegistry);
+        return this;
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.rabbitmq.consumer.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//Queue별 Listener 메트릭(rabbitmq.consumer.*)을 만들어두고 메시지마다 기록합니다.
+//[메트릭 종류]
+//1. rabbitmq.consumer.receive.lag: Producer가 보낸 시각부터 Listener가 메시지를 받기까지 걸린 시간 (x-sent-at 헤더 또는 timestamp가 있는 메시지만)
+//x-sent-at 헤더(epoch ms)가 있으면 ms 단위로 기록합니다. AMQP timestamp는 초 단위이므로 timestamp만 있는 메시지는 초 단위 값으로 기록되며
+//이런 메시지가 대부분이면 percentile도 초 단위(1s 미만은 0)로만 의미가 있습니다.
+//2. rabbitmq.consumer.convert: MessageConverter가 메시지를 변환하는데 걸린 시간 (TimedMessageConverter)
+//3. rabbitmq.consumer.handle: Listener 메서드 실행 시간 (process - convert)
+//4. rabbitmq.consumer.process: 컨테이너가 Listener를 호출(invokeListener)하고 반환되기까지 걸린 시간
+//5. rabbitmq.consumer.ack: AckCoalescer가 ack, nack frame을 전송하는데 걸린 시간 (MANUAL ackMode)
+//6. rabbitmq.consumer.deliveries(outcome=ack, nack, reject), rabbitmq.consumer.dead.letters, rabbitmq.consumer.redeliveries
+//1~5는 LatencyHistogram으로 기록하며 count, 합계와 함께 {name}.percentile(phi = 0.5, 0.99, 0.999), {name}.max로 최근 windowMillis 동안의 분포를 확인할 수 있습니다.
+//AUTO ackMode에서는 Listener가 반환된 뒤 컨테이너가 ack를 보내므로 ack 시간은 측정하지 않고 결과(outcome)만 기록합니다.
+public class ListenerMetrics {
+
+    //Producer가 메시지를 보낸 시각(epoch ms)을 담는 헤더입니다. AMQP timestamp보다 우선하여 receive.lag 계산에 사용합니다.
+    public static final String SENT_AT_HEADER = "x-sent-at";
+
+    private final MeterRegistry meterRegistry;
+
+    private final long windowMillis;
+
+    private final Map<String, QueueMeters> queues = new ConcurrentHashMap<>();
+
+    //Listener 쓰레드마다 현재 처리중인 메시지의 Queue와 변환 시간을 기록합니다. (메시지마다 객체를 만들지 않도록 재사용)
+    private final ThreadLocal<Delivery> deliveries = ThreadLocal.withInitial(Delivery::new);
+
+    private final LatencyHistogram ackFrames;
+
+    public ListenerMetrics(MeterRegistry meterRegistry, long windowMillis) {
+        this.meterRegistry = meterRegistry;
+        this.windowMillis = windowMillis;
+        this.ackFrames = new LatencyHistogram(windowMillis)
+                .register(meterRegistry, "rabbitmq.consumer.ack", "Time to send a (possibly multiple) ack or nack frame", Tags.empty());
+    }
+
+    public QueueMeters forQueue(String queue) {
+        QueueMeters meters = queues.get(queue);
+        return meters != null ? meters : queues.computeIfAbsent(queue, name -> new QueueMeters(meterRegistry, name, windowMillis));
+    }
+
+    public MessageConverter timed(MessageConverter messageConverter) {
+        return messageConverter instanceof TimedMessageConverter ? messageConverter : new TimedMessageConverter(messageConverter, this);
+    }
+
+    //Listener에서 AckCoalescer로 ack, nack, reject를 호출하면 현재 처리중인 메시지의 결과로 기록합니다.
+    public void recordOutcome(DeliveryOutcome outcome, boolean requeue) {
+        Delivery delivery = deliveries.get();
+        if (delivery.meters != null) {
+            delivery.meters.outcome(outcome, requeue, 1);
+            delivery.settled = true;
+        }
+    }
+
+    public void recordAckFrame(long nanos) {
+        ackFrames.record(nanos);
+    }
+
+    Delivery begin(QueueMeters meters) {
+        Delivery delivery = deliveries.get();
+        delivery.meters = meters;
+        delivery.convertNanos = 0;
+        delivery.converting = false;
+        delivery.settled = false;
+        return delivery;
+    }
+
+    void end(Delivery delivery) {
+        delivery.meters = null;
+    }
+
+    Delivery current() {
+        return deliveries.get();
+    }
+
+    static final class Delivery {
+
+        QueueMeters meters;
+
+        long convertNanos;
+
+        boolean converting;
+
+        boolean settled;
+
+    }
+
+    public static final class QueueMeters {
+
+        private final LatencyHistogram receiveLag;
+
+        private final LatencyHistogram convert;
+
+        private final LatencyHistogram handle;
+
+        private final LatencyHistogram process;
+
+        private final Counter acks;
+
+        private final Counter nacks;
+
+        private final Counter rejects;
+
+        private final Counter deadLetters;
+
+        private final Counter redeliveries;
+
+        QueueMeters(MeterRegistry meterRegistry, String queue, long windowMillis) {
+            Tags tags = Tags.of("queue", queue);
+            receiveLag = new LatencyHistogram(windowMillis).register(meterRegistry, "rabbitmq.consumer.receive.lag",
+                    "Time from the producer x-sent-at header (ms) or timestamp (whole seconds) until the listener received the message", tags);
+            convert = new LatencyHistogram(windowMillis).register(meterRegistry, "rabbitmq.consumer.convert",
+                    "Time spent in the message converter", tags);
+            handle = new LatencyHistogram(windowMillis).register(meterRegistry, "rabbitmq.consumer.handle",
+                    "Time spent in the listener method", tags);
+            process = new LatencyHistogram(windowMillis).register(meterRegistry, "rabbitmq.consumer.process",
+                    "Time from listener invocation until it returned", tags);
+            acks = deliveries(meterRegistry, queue, "ack");
+            nacks = deliveries(meterRegistry, queue, "nack");
+            rejects = deliveries(meterRegistry, queue, "reject");
+            deadLetters = Counter.builder("rabbitmq.consumer.dead.letters")
+                    .description("Deliveries settled with requeue = false (routed to the queue's dead letter exchange)")
+                    .tag("queue", queue).register(meterRegistry);
+            redeliveries = Counter.builder("rabbitmq.consumer.redeliveries")
+                    .description("Deliveries with the redelivered flag set by the broker")
+                    .tag("queue", queue).register(meterRegistry);
+        }
+
+        private static Counter deliveries(MeterRegistry meterRegistry, String queue, String outcome) {
+            return Counter.builder("rabbitmq.consumer.deliveries")
+                    .description("Settled deliveries by outcome")
+                    .tag("queue", queue).tag("outcome", outcome).register(meterRegistry);
+        }
+
+        void received(boolean redelivered, long timestampMillis, long nowMillis) {
+            if (redelivered) {
+                redeliveries.increment();
+            }
+            if (timestampMillis > 0 && nowMillis >= timestampMillis) {
+                receiveLag.record(TimeUnit.MILLISECONDS.toNanos(nowMillis - timestampMillis));
+            }
+        }
+
+        //batch Listener는 한번의 호출로 여러 메시지를 처리하므로 메시지당 평균 시간을 메시지 수만큼 기록합니다.
+        //MessageConverter를 사용하지 않는 Listener(MessageListener)는 convert를 기록하지 않습니다.
+        void processed(long processNanos, long convertNanos, int count) {
+            for (int i = 0; i < count; i++) {
+                process.record(processNanos / count);
+                if (convertNanos > 0) {
+                    convert.record(convertNanos / count);
+                }
+                handle.record(Math.max(0, processNanos - convertNanos) / count);
+            }
+        }
+
+        void outcome(DeliveryOutcome outcome, boolean requeue, int count) {
+            switch (outcome) {
+                case ACK:
+                    acks.increment(count);
+                    return;
+                case NACK:
+                    nacks.increment(count);
+                    break;
+                case REJECT:
+                    rejects.increment(count);
+                    break;
+            }
+            if (!requeue) {
+                deadLetters.increment(count);
+            }
+        }
+
+    }
+
+}
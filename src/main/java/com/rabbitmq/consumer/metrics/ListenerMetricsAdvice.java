@@ -0,0 +1,128 @@
+package com.rabbitmq.consumer.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.ImmediateAcknowledgeAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.util.Date;
+import java.util.List;
+
+//컨테이너의 adviceChain 맨 앞에 등록하여 Listener 호출(invokeListener) 한번마다 Queue별 메트릭을 기록합니다.
+//Listener에서 AckCoalescer로 ack, nack, reject를 호출하지 않은 경우(AUTO ackMode) 컨테이너가 보낼 결과를 예외로 판단합니다.
+//1. 정상 종료: ack
+//2. AmqpRejectAndDontRequeueException, MessageConversionException: requeue 없이 reject (ConditionalRejectingErrorHandler 기본 동작)
+//3. ImmediateAcknowledgeAmqpException: ack
+//4. 그 외의 예외: requeue nack (setDefaultRequeueRejected(true))
+public class ListenerMetricsAdvice implements MethodInterceptor {
+
+    private final ListenerMetrics listenerMetrics;
+
+    public ListenerMetricsAdvice(ListenerMetrics listenerMetrics) {
+        this.listenerMetrics = listenerMetrics;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object data = invocation.getArguments()[1];
+        Message first;
+        int count;
+        if (data instanceof Message) {
+            first = (Message) data;
+            count = 1;
+        } else if (data instanceof List && !((List<?>) data).isEmpty() && ((List<?>) data).get(0) instanceof Message) {
+            first = (Message) ((List<?>) data).get(0);
+            count = ((List<?>) data).size();
+        } else {
+            return invocation.proceed();
+        }
+
+        ListenerMetrics.QueueMeters meters = listenerMetrics.forQueue(queueOf(first));
+        if (count == 1) {
+            received(meters, first);
+        } else {
+            for (Object message : (List<?>) data) {
+                received(meters, (Message) message);
+            }
+        }
+
+        ListenerMetrics.Delivery delivery = listenerMetrics.begin(meters);
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            if (!delivery.settled) {
+                meters.outcome(DeliveryOutcome.ACK, false, count);
+            }
+            return result;
+        } catch (Throwable e) {
+            if (!delivery.settled) {
+                if (hasCause(e, ImmediateAcknowledgeAmqpException.class)) {
+                    meters.outcome(DeliveryOutcome.ACK, false, count);
+                } else if (hasCause(e, AmqpRejectAndDontRequeueException.class) || hasCause(e, MessageConversionException.class)) {
+                    meters.outcome(DeliveryOutcome.REJECT, false, count);
+                } else {
+                    meters.outcome(DeliveryOutcome.NACK, true, count);
+                }
+            }
+            throw e;
+        } finally {
+            meters.processed(System.nanoTime() - start, delivery.convertNanos, count);
+            listenerMetrics.end(delivery);
+        }
+    }
+
+    //Producer가 x-sent-at 헤더(epoch ms)를 설정한 경우 ms 단위로 receive.lag를 기록합니다.
+    //헤더가 없으면 AMQP timestamp를 사용하는데 timestamp는 초 단위(소수점 이하 버림)로 전송되므로 현재 시간도 초 단위로 버려서
+    //초 단위 값(0s, 1s, 2s, ...)으로 기록합니다. 둘 다 없으면 현재 시간도 조회하지 않습니다.
+    private static void received(ListenerMetrics.QueueMeters meters, Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        boolean redelivered = Boolean.TRUE.equals(messageProperties.getRedelivered());
+        long sentAtMillis = sentAtMillis(messageProperties.getHeader(ListenerMetrics.SENT_AT_HEADER));
+        if (sentAtMillis > 0) {
+            meters.received(redelivered, sentAtMillis, System.currentTimeMillis());
+            return;
+        }
+        Date timestamp = messageProperties.getTimestamp();
+        if (timestamp != null) {
+            meters.received(redelivered, truncateToSeconds(timestamp.getTime()), truncateToSeconds(System.currentTimeMillis()));
+        } else {
+            meters.received(redelivered, 0, 0);
+        }
+    }
+
+    private static long sentAtMillis(Object header) {
+        if (header instanceof Number) {
+            return ((Number) header).longValue();
+        }
+        if (header instanceof String) {
+            try {
+                return Long.parseLong((String) header);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static long truncateToSeconds(long millis) {
+        return millis - millis % 1000;
+    }
+
+    private static String queueOf(Message message) {
+        String queue = message.getMessageProperties().getConsumerQueue();
+        return queue != null ? queue : "unknown";
+    }
+
+    private static boolean hasCause(Throwable throwable, Class<? extends Throwable> type) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
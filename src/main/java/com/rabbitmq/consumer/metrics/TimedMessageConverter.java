@@ -0,0 +1,67 @@
+package com.rabbitmq.consumer.metrics;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+
+//MessageConverter의 fromMessage 시간을 현재 처리중인 메시지의 변환 시간(rabbitmq.consumer.convert)으로 누적합니다.
+//ListenerMetricsAdvice 밖에서 호출되는 경우(RabbitTemplate 등)와 MessageConverter 안에서 다른 MessageConverter를 호출하는 경우
+//(MessageInfoMessageConverter의 fallback)에는 시간을 측정하지 않고 그대로 위임합니다.
+public class TimedMessageConverter implements SmartMessageConverter {
+
+    private final MessageConverter delegate;
+
+    private final ListenerMetrics listenerMetrics;
+
+    public TimedMessageConverter(MessageConverter delegate, ListenerMetrics listenerMetrics) {
+        this.delegate = delegate;
+        this.listenerMetrics = listenerMetrics;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        return delegate.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        ListenerMetrics.Delivery delivery = listenerMetrics.current();
+        if (delivery.meters == null || delivery.converting) {
+            return delegate.fromMessage(message);
+        }
+        delivery.converting = true;
+        long start = System.nanoTime();
+        try {
+            return delegate.fromMessage(message);
+        } finally {
+            delivery.convertNanos += System.nanoTime() - start;
+            delivery.converting = false;
+        }
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) throws MessageConversionException {
+        if (!(delegate instanceof SmartMessageConverter)) {
+            return fromMessage(message);
+        }
+        ListenerMetrics.Delivery delivery = listenerMetrics.current();
+        if (delivery.meters == null || delivery.converting) {
+            return ((SmartMessageConverter) delegate).fromMessage(message, conversionHint);
+        }
+        delivery.converting = true;
+        long start = System.nanoTime();
+        try {
+            return ((SmartMessageConverter) delegate).fromMessage(message, conversionHint);
+        } finally {
+            delivery.convertNanos += System.nanoTime() - start;
+            delivery.converting = false;
+        }
+    }
+
+    public MessageConverter getDelegate() {
+        return delegate;
+    }
+
+}
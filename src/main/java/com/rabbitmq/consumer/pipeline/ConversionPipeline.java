@@ -0,0 +1,354 @@
+package com.rabbitmq.consumer.pipeline;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//Consumer 쓰레드는 받은 메시지를 ring buffer에 넣기만 하고 변환(decode)은 decoders개의 쓰레드가 동시에, Listener(handler) 호출은
+//handoff 쓰레드 하나가 ring buffer에 들어온 순서대로 실행합니다.
+//[Consumer 쓰레드에서 변환하는 경우와 다른 점]
+//Jackson2JsonMessageConverter 변환이 오래 걸리는 메시지(큰 바디, 깊게 중첩된 JSON)가 있어도 Consumer 쓰레드는 다음 메시지를 바로 꺼낼 수 있고
+//변환은 여러 쓰레드에서 나누어 실행됩니다. handler는 변환이 끝나는 순서와 관계없이 항상 받은 순서대로 한번에 하나씩 호출됩니다.
+//[ack]
+//1. handler가 끝난 뒤 메시지의 Channel, delivery tag로 AckCoalescer에 ack(실패한 경우 requeue 없이 nack)를 기록하므로 컨테이너는 MANUAL ackMode여야 합니다.
+//2. 변환할 수 없는 메시지는 handler를 호출하지 않고 requeue 없이 reject합니다. (Queue에 DLX가 설정되어 있으면 Dead Letter가 됩니다.)
+//3. Consumer가 재시작되어 Channel이 닫힌 메시지는 브로커가 다시 전달하므로 handler를 호출하지 않고 결과도 기록하지 않습니다.
+//[backpressure]
+//ring buffer에 handler 호출이 끝나지 않은 메시지가 capacity개이면 Consumer 쓰레드가 submit에서 기다리므로 컨테이너가 더 이상 메시지를 꺼내지 않습니다.
+//prefetch를 capacity 이상으로 설정해야 decoder가 쉬지 않고 변환할 수 있습니다.
+@Slf4j
+public class ConversionPipeline implements SmartLifecycle {
+
+    private final String name;
+
+    private final int capacity;
+
+    private final int decoders;
+
+    private final AckCoalescers ackCoalescers;
+
+    //sequence % capacity 위치에 메시지를 넣습니다. handoff 쓰레드가 handler 호출을 끝낸 위치만 다시 사용합니다.
+    private final Task<?>[] ring;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //ring buffer에 빈 자리가 생김 (Consumer 쓰레드가 기다림)
+    private final Condition notFull = lock.newCondition();
+
+    //변환할 메시지가 들어옴 (decoder가 기다림)
+    private final Condition decodable = lock.newCondition();
+
+    //다음 순서의 메시지 변환이 끝남 (handoff 쓰레드가 기다림)
+    private final Condition decoded = lock.newCondition();
+
+    private final Counter decodeFailures;
+
+    private final Counter handlerFailures;
+
+    //다음에 넣을 sequence, 다음에 변환할 sequence, 다음에 handler로 넘길 sequence입니다. (lock으로 보호)
+    //tail <= decodeCursor <= head이고 head - tail <= capacity입니다.
+    private long head;
+
+    private long decodeCursor;
+
+    private long tail;
+
+    private boolean running;
+
+    private volatile List<Thread> threads;
+
+    public ConversionPipeline(String name, int capacity, int decoders, AckCoalescers ackCoalescers) {
+        this(name, capacity, decoders, ackCoalescers, null);
+    }
+
+    public ConversionPipeline(String name, int capacity, int decoders, AckCoalescers ackCoalescers, MeterRegistry meterRegistry) {
+        if (capacity <= 0 || decoders <= 0) {
+            throw new IllegalArgumentException("capacity and decoders must be positive: " + capacity + ", " + decoders);
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.decoders = decoders;
+        this.ackCoalescers = ackCoalescers;
+        this.ring = new Task<?>[capacity];
+        if (meterRegistry != null) {
+            Gauge.builder("rabbitmq.consumer.pipeline.in.flight", this, ConversionPipeline::getInFlight)
+                    .description("Deliveries in the ring buffer whose handler has not finished")
+                    .tag("pipeline", name).register(meterRegistry);
+            this.decodeFailures = Counter.builder("rabbitmq.consumer.pipeline.failures")
+                    .description("Deliveries rejected or nacked without requeue by the conversion pipeline")
+                    .tags("pipeline", name, "stage", "decode").register(meterRegistry);
+            this.handlerFailures = Counter.builder("rabbitmq.consumer.pipeline.failures")
+                    .description("Deliveries rejected or nacked without requeue by the conversion pipeline")
+                    .tags("pipeline", name, "stage", "handler").register(meterRegistry);
+        } else {
+            this.decodeFailures = null;
+            this.handlerFailures = null;
+        }
+    }
+
+    //메시지를 ring buffer에 넣고 바로 반환합니다. ring buffer가 가득 차면 handler 호출이 하나 끝날때까지 기다립니다.
+    //기다리는 중에 interrupt되거나 pipeline이 멈춘 경우 메시지는 requeue nack 처리됩니다.
+    public <T> void submit(Channel channel, Message message, Function<Message, T> decoder, Consumer<T> handler) throws IOException {
+        Task<T> task = new Task<>(channel, message, decoder, handler);
+        lock.lock();
+        try {
+            while (running && head - tail == capacity) {
+                notFull.await();
+            }
+            if (running) {
+                ring[index(head++)] = task;
+                decodable.signal();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        ackCoalescers.forChannel(channel).nack(task.deliveryTag(), true);
+    }
+
+    private void decodeLoop() {
+        while (true) {
+            Task<?> task;
+            lock.lock();
+            try {
+                while (decodeCursor == head) {
+                    if (!running) {
+                        return;
+                    }
+                    decodable.await();
+                }
+                task = ring[index(decodeCursor++)];
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            task.decode();
+
+            lock.lock();
+            try {
+                task.decoded = true;
+                //handoff 쓰레드는 tail 위치의 메시지만 기다리므로 순서가 앞선 메시지의 변환이 끝난 경우에는 깨우지 않습니다.
+                if (ring[index(tail)] == task) {
+                    decoded.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void handOffLoop() {
+        while (true) {
+            Task<?> task;
+            lock.lock();
+            try {
+                while (tail == head || !ring[index(tail)].decoded) {
+                    if (!running && tail == head) {
+                        return;
+                    }
+                    decoded.await();
+                }
+                task = ring[index(tail)];
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            handle(task);
+
+            lock.lock();
+            try {
+                ring[index(tail++)] = null;
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void handle(Task<?> task) {
+        if (!task.channel.isOpen()) {
+            return;
+        }
+        long deliveryTag = task.deliveryTag();
+        try {
+            if (task.failure != null) {
+                log.warn("Pipeline {}: reject delivery {} from {}: failed to convert", name, deliveryTag,
+                        task.message.getMessageProperties().getConsumerQueue(), task.failure);
+                increment(decodeFailures);
+                ackCoalescers.forChannel(task.channel).reject(deliveryTag, false);
+            } else if (task.handle()) {
+                ackCoalescers.forChannel(task.channel).ack(deliveryTag);
+            } else {
+                increment(handlerFailures);
+                ackCoalescers.forChannel(task.channel).nack(deliveryTag, false);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Pipeline {}: failed to acknowledge delivery {}", name, deliveryTag, e);
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    //ring buffer에 들어왔지만 handler 호출이 끝나지 않은 메시지 수입니다.
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return (int) (head - tail);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getDecoders() {
+        return decoders;
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        List<Thread> started = new ArrayList<>();
+        for (int i = 0; i < decoders; i++) {
+            started.add(new Thread(this::decodeLoop, name + "-decoder-" + i));
+        }
+        started.add(new Thread(this::handOffLoop, name + "-handoff"));
+        for (Thread thread : started) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+        threads = started;
+    }
+
+    //ring buffer에 남은 메시지를 모두 변환하고 handler를 호출한 뒤 멈추고 기록된 결과를 전송합니다.
+    //컨테이너(phase Integer.MAX_VALUE)가 먼저 멈춰서 더 이상 submit이 호출되지 않은 뒤에 멈추도록 phase를 낮게 설정합니다.
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            notFull.signalAll();
+            decodable.signalAll();
+            decoded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+                if (thread.isAlive()) {
+                    log.warn("Pipeline {}: {} did not finish in time", name, thread.getName());
+                    thread.interrupt();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ackCoalescers.flushAll();
+    }
+
+    @Override
+    public boolean isRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+    //ring buffer의 한 칸입니다. payload, failure는 decoder가 쓰고 decoded를 lock 안에서 true로 바꾼 뒤에 handoff 쓰레드가 읽습니다.
+    private static final class Task<T> {
+
+        private final Channel channel;
+
+        private final Message message;
+
+        private final Function<Message, T> decoder;
+
+        private final Consumer<T> handler;
+
+        private T payload;
+
+        private RuntimeException failure;
+
+        private boolean decoded;
+
+        private Task(Channel channel, Message message, Function<Message, T> decoder, Consumer<T> handler) {
+            this.channel = channel;
+            this.message = message;
+            this.decoder = decoder;
+            this.handler = handler;
+        }
+
+        private long deliveryTag() {
+            return message.getMessageProperties().getDeliveryTag();
+        }
+
+        private void decode() {
+            try {
+                payload = decoder.apply(message);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        private boolean handle() {
+            try {
+                handler.accept(payload);
+                return true;
+            } catch (RuntimeException e) {
+                log.warn("Listener failed for delivery {} from {}", deliveryTag(), message.getMessageProperties().getConsumerQueue(), e);
+                return false;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.rabbitmq.consumer.pipeline;
+
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//consumer.pipeline으로 시작하는 application.yml 설정값입니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.pipeline")
+public class PipelineProperties {
+
+    //true인 경우 receiveMessageInfo(annotation 프로파일), Receiver(container 프로파일)의 메시지 변환을 ConversionPipeline에서 실행합니다.
+    private boolean enabled = false;
+
+    //ring buffer 크기(handler 호출이 끝나지 않은 최대 메시지 수)입니다. 컨테이너의 prefetch를 해당 값 이상으로 설정합니다.
+    private int capacity = 256;
+
+    //동시에 변환하는 쓰레드 수입니다.
+    private int decoders = 4;
+
+    public ConversionPipeline toPipeline(String name, AckCoalescers ackCoalescers, MeterRegistry meterRegistry) {
+        return new ConversionPipeline(name, capacity, decoders, ackCoalescers, meterRegistry);
+    }
+
+}
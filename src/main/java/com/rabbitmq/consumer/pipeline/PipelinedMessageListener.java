@@ -0,0 +1,36 @@
+package com.rabbitmq.consumer.pipeline;
+
+import com.rabbitmq.client.Channel;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//컨테이너와 Listener 사이에서 받은 메시지를 변환하지 않고 ConversionPipeline의 ring buffer로 넘깁니다.
+//변환(payloadOf)은 decoder 쓰레드에서, handler는 handoff 쓰레드에서 받은 순서대로 실행됩니다.
+//payloadOf는 여러 decoder 쓰레드에서 동시에 호출되므로 변환 결과(인스턴스)를 재사용하지 않는 MessageConverter를 사용해야 합니다.
+public class PipelinedMessageListener<T> implements ChannelAwareMessageListener {
+
+    private final ConversionPipeline pipeline;
+
+    private final Function<Message, T> payloadOf;
+
+    private final Consumer<T> handler;
+
+    public PipelinedMessageListener(ConversionPipeline pipeline, Function<Message, T> payloadOf, Consumer<T> handler) {
+        this.pipeline = pipeline;
+        this.payloadOf = payloadOf;
+        this.handler = handler;
+    }
+
+    @Override
+    public void onMessage(Message message, Channel channel) throws Exception {
+        pipeline.submit(channel, message, payloadOf, handler);
+    }
+
+    public ConversionPipeline getPipeline() {
+        return pipeline;
+    }
+
+}
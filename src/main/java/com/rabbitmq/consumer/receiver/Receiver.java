@@ -1,14 +1,29 @@
 package com.rabbitmq.consumer.receiver;
 
-import lombok.extern.slf4j.Slf4j;
+import com.rabbitmq.consumer.converter.MessageBody;
+import com.rabbitmq.consumer.logging.MessageLogger;
+import com.rabbitmq.consumer.logging.MessageLogging;
 import org.springframework.stereotype.Component;
 
-@Slf4j
 @Component
 public class Receiver {
 
+    private final MessageLogger messageLogger;
+
+    public Receiver(MessageLogging messageLogging) {
+        this.messageLogger = messageLogging.getLogger(Receiver.class);
+    }
+
+    //Receiver는 RabbitMQContainerConfig의 simpleMessageListenerContainerUseReceiver, RabbitMQDirectConfig의
+    //directMessageListenerContainerUseReceiver(ack.receiver.queue)에서만 사용합니다.
     public void receiveMessage(String message) {
-        log.info("<==================== Receive Message By Receiver: " + message);
+        messageLogger.info("<==================== Receive Message By Receiver:", "ack.receiver.queue", message);
+    }
+
+    //body가 consumer.wire-format.view-above 이상인 메시지는 String으로 변환하지 않고 MessageBody로 받습니다. (MessageBodyViewConverter 참고)
+    //MessageListenerAdapter는 변환된 객체의 타입으로 두 메서드 중 하나를 선택합니다. 로그에는 MessageBody.toString의 앞부분만 남깁니다.
+    public void receiveMessage(MessageBody message) {
+        messageLogger.info("<==================== Receive Large Message By Receiver:", "ack.receiver.queue", message);
     }
 
 }
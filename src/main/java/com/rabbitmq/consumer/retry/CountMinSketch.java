@@ -0,0 +1,77 @@
+package com.rabbitmq.consumer.retry;
+
+//key별 개수를 depth * width개의 long에 근사해서 기록하는 Count-Min Sketch입니다. key 종류가 아무리 많아도 메모리 사용량이 일정합니다.
+//[구조]
+//1. key를 64bit hash로 바꾸고 상위, 하위 32bit로 행(depth)마다 다른 열을 고릅니다. (double hashing)
+//2. add는 각 행에서 고른 칸 중 가장 작은 값만 올리고(conservative update) estimate는 각 행에서 고른 칸의 최소값을 반환합니다.
+//[오차]
+//estimate는 실제 개수보다 작지 않으며 전체 개수(total)의 e / width 이상 크게 나올 확률이 (1/e)^depth 이하입니다.
+//예: width 2048, depth 4이면 전체의 0.13% 이상 틀릴 확률이 2% 이하입니다.
+//동기화하지 않으므로 DeadLetterIndex와 같이 호출하는 쪽에서 lock을 걸어야 합니다.
+public class CountMinSketch {
+
+    private final int width;
+
+    private final long[][] counts;
+
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("width and depth must be positive: " + width + ", " + depth);
+        }
+        this.width = width;
+        this.counts = new long[depth][width];
+    }
+
+    //key를 count만큼 더하고 더한 뒤의 추정값을 반환합니다.
+    public long add(String key, long count) {
+        long fingerprint = hash(key);
+        long current = estimate(fingerprint);
+        long updated = current + count;
+        for (int row = 0; row < counts.length; row++) {
+            int column = column(fingerprint, row);
+            if (counts[row][column] < updated) {
+                counts[row][column] = updated;
+            }
+        }
+        total += count;
+        return updated;
+    }
+
+    public long estimate(String key) {
+        return estimate(hash(key));
+    }
+
+    private long estimate(long fingerprint) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            min = Math.min(min, counts[row][column(fingerprint, row)]);
+        }
+        return min;
+    }
+
+    private int column(long fingerprint, int row) {
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32) | 1;
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    //key는 원래 Queue, publisher 이름이므로 String에 캐시되는 hashCode를 사용하고 MurmurHash3의 fmix64로 64bit에 고르게 퍼뜨립니다.
+    //h2가 0이면 모든 행이 같은 열을 고르므로 column에서 홀수로 만듭니다.
+    private static long hash(String key) {
+        long hash = key.hashCode() * 0x9e3779b97f4a7c15L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    //add로 더한 개수의 합입니다.
+    public long total() {
+        return total;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.rabbitmq.consumer.retry;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.List;
+import java.util.Map;
+
+//dead.letter.queue로 전달된 메시지가 어느 Queue에서 어떤 이유로 몇번째 Dead Letter가 되었는지를 x-death 헤더에서 읽어옵니다.
+//[x-death]
+//브로커는 메시지가 Dead Letter가 될때마다 (queue, reason)별로 하나의 항목을 두고 count를 늘리며 가장 최근 항목을 맨 앞에 둡니다.
+//재시도 대기 Queue에서 만료된 기록은 reason이 expired이므로 원래 Queue에서 rejected된 항목의 count가 실패 횟수가 됩니다.
+//RabbitMQ 4.0부터는 Client가 보낸 x-death 헤더를 브로커가 이어서 세지 않으므로 DeadLetterRetrier가 기록한 x-retry-attempts와 비교하여 큰 값을 사용합니다.
+public class DeadLetter {
+
+    public static final String ORIGIN_QUEUE_HEADER = "x-retry-origin-queue";
+
+    public static final String ATTEMPTS_HEADER = "x-retry-attempts";
+
+    static final String REJECTED = "rejected";
+
+    private final String originQueue;
+
+    private final String reason;
+
+    private final int deaths;
+
+    private DeadLetter(String originQueue, String reason, int deaths) {
+        this.originQueue = originQueue;
+        this.reason = reason;
+        this.deaths = deaths;
+    }
+
+    public static DeadLetter of(Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        List<Map<String, ?>> xDeath = messageProperties.getXDeathHeader();
+        Map<String, ?> last = xDeath != null && !xDeath.isEmpty() ? xDeath.get(0) : null;
+
+        Object originHeader = messageProperties.getHeader(ORIGIN_QUEUE_HEADER);
+        String originQueue = originHeader != null ? originHeader.toString() : last != null ? stringOf(last.get("queue")) : null;
+        String reason = last != null ? stringOf(last.get("reason")) : null;
+
+        long deaths = 0;
+        if (xDeath != null && originQueue != null) {
+            for (Map<String, ?> entry : xDeath) {
+                if (originQueue.equals(stringOf(entry.get("queue"))) && REJECTED.equals(stringOf(entry.get("reason")))
+                        && entry.get("count") instanceof Number) {
+                    deaths = Math.max(deaths, ((Number) entry.get("count")).longValue());
+                }
+            }
+        }
+        Object attempts = messageProperties.getHeader(ATTEMPTS_HEADER);
+        if (attempts instanceof Number && REJECTED.equals(reason)) {
+            deaths = Math.max(deaths, ((Number) attempts).longValue() + 1);
+        }
+        return new DeadLetter(originQueue, reason, (int) Math.min(deaths, Integer.MAX_VALUE));
+    }
+
+    private static String stringOf(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    //Dead Letter가 되기 전의 Queue입니다. x-death 헤더가 없는 메시지(dead.letter.queue에 직접 보낸 메시지 등)는 null입니다.
+    public String getOriginQueue() {
+        return originQueue;
+    }
+
+    //rejected(basicNack, basicReject), expired(TTL), maxlen(x-max-length), delivery_limit 중 하나입니다.
+    public String getReason() {
+        return reason;
+    }
+
+    //원래 Queue에서 rejected된 횟수입니다. 처음 Dead Letter가 된 메시지는 1입니다.
+    public int getDeaths() {
+        return deaths;
+    }
+
+    public boolean isRejected() {
+        return REJECTED.equals(reason);
+    }
+
+}
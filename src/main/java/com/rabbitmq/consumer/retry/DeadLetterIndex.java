@@ -0,0 +1,283 @@
+package com.rabbitmq.consumer.retry;
+
+import com.rabbitmq.consumer.converter.MessageBody;
+import com.rabbitmq.consumer.converter.WireFormatMessageConverter;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+//dead.letter.queue에서 꺼낸 Dead Letter를 원래 Queue, reason(x-death), publisher, 시간 구간별로 세는 메모리상의 색인입니다.
+//receiveDeadLetter가 DeadLetterRetrier로 넘기기 전에 record하며 GET /dead-letters/summary로 조회합니다. (DeadLetterIndexController 참고)
+//dead.letter.queue나 parking lot Queue의 메시지를 꺼내보지 않고도 어느 Queue, publisher에서 Dead Letter가 몰리는지 확인할 수 있습니다.
+//[메모리]
+//1. reason은 브로커가 남기는 값(rejected, expired, maxlen, delivery_limit)과 other로 나누어 정확하게 셉니다.
+//2. 원래 Queue, publisher는 key 종류가 많을 수 있으므로 TopKSketch(상위 topK개)와 CountMinSketch(그 외 key의 추정값)로 셉니다.
+//3. 시간 구간은 bucket 단위로 buckets개만 보관하며 오래된 구간은 새로운 구간이 덮어씁니다.
+//따라서 Dead Letter 수, key 종류와 관계없이 메모리 사용량이 일정합니다.
+//[주의사항]
+//재시도 대기 Queue를 거쳐 다시 reject된 메시지는 dead.letter.queue로 들어올때마다 한번씩 셉니다. 시간 구간은 dead.letter.queue에서 꺼낸 시각 기준입니다.
+//재시작하면 처음부터 다시 셉니다.
+public class DeadLetterIndex {
+
+    public static final String UNKNOWN = "(unknown)";
+
+    static final List<String> REASONS = Arrays.asList(DeadLetter.REJECTED, "expired", "maxlen", "delivery_limit", "other");
+
+    private static final int OTHER = REASONS.size() - 1;
+
+    //publisher는 Producer가 정하는 값이므로 key 하나가 메모리를 많이 차지하지 않도록 자릅니다.
+    private static final int MAX_KEY_LENGTH = 256;
+
+    private final Dimension queues;
+
+    private final Dimension publishers;
+
+    private final long[] reasons = new long[REASONS.size()];
+
+    private final long bucketMillis;
+
+    //구간마다 시작 시각(bucketMillis 단위)과 reason별 개수입니다. 시작 시각이 -1이면 빈 구간입니다.
+    private final long[] bucketStarts;
+
+    private final long[][] bucketCounts;
+
+    private final LongSupplier clock;
+
+    private final long startedMillis;
+
+    private long total;
+
+    public DeadLetterIndex(int topK, int sketchWidth, int sketchDepth, Duration bucket, int buckets) {
+        this(topK, sketchWidth, sketchDepth, bucket, buckets, System::currentTimeMillis);
+    }
+
+    DeadLetterIndex(int topK, int sketchWidth, int sketchDepth, Duration bucket, int buckets, LongSupplier clock) {
+        if (bucket.toMillis() <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("bucket and buckets must be positive: " + bucket + ", " + buckets);
+        }
+        this.queues = new Dimension(topK, sketchWidth, sketchDepth);
+        this.publishers = new Dimension(topK, sketchWidth, sketchDepth);
+        this.bucketMillis = bucket.toMillis();
+        this.bucketStarts = new long[buckets];
+        this.bucketCounts = new long[buckets][REASONS.size()];
+        Arrays.fill(bucketStarts, -1);
+        this.clock = clock;
+        this.startedMillis = clock.getAsLong();
+    }
+
+    public void record(Message message) {
+        DeadLetter deadLetter = DeadLetter.of(message);
+        record(deadLetter.getOriginQueue(), deadLetter.getReason(), publisherOf(message));
+    }
+
+    synchronized void record(String originQueue, String reason, String publisher) {
+        int reasonIndex = REASONS.indexOf(reason);
+        if (reasonIndex < 0) {
+            reasonIndex = OTHER;
+        }
+        total++;
+        reasons[reasonIndex]++;
+        queues.add(keyOf(originQueue));
+        publishers.add(keyOf(publisher));
+
+        long bucket = clock.getAsLong() / bucketMillis;
+        int slot = (int) (bucket % bucketStarts.length);
+        if (bucketStarts[slot] != bucket) {
+            bucketStarts[slot] = bucket;
+            Arrays.fill(bucketCounts[slot], 0);
+        }
+        bucketCounts[slot][reasonIndex]++;
+    }
+
+    //MessageInfo JSON의 publisher 필드를 사용하고 없으면 AMQP app-id를 사용합니다.
+    //body 전체를 변환하지 않고 MessageBody로 publisher 값만 찾으며 CBOR, LZ4 압축 메시지는 body를 읽지 않습니다.
+    static String publisherOf(Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        String contentType = messageProperties.getContentType();
+        if (contentType != null && contentType.contains("json")
+                && !WireFormatMessageConverter.isCompressed(messageProperties)) {
+            try {
+                String publisher = MessageBody.of(message).valueAsString("publisher");
+                if (publisher != null) {
+                    return publisher;
+                }
+            } catch (RuntimeException e) {
+                //JSON이 아닌 body는 app-id로 확인합니다.
+            }
+        }
+        return messageProperties.getAppId();
+    }
+
+    private static String keyOf(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        return value.length() > MAX_KEY_LENGTH ? value.substring(0, MAX_KEY_LENGTH) : value;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    //원래 Queue의 Dead Letter 수입니다. 상위 topK개에 없는 Queue는 CountMinSketch 추정값(실제보다 작지 않음)입니다.
+    public synchronized long countByQueue(String queue) {
+        return queues.count(keyOf(queue));
+    }
+
+    public synchronized long countByPublisher(String publisher) {
+        return publishers.count(keyOf(publisher));
+    }
+
+    //top은 원래 Queue, publisher별로 반환할 최대 key 수입니다. 시간 구간은 오래된 순서로 최근 buckets개 중 Dead Letter가 있는 구간만 반환합니다.
+    public synchronized Summary summary(int top) {
+        Map<String, Long> reasonCounts = new LinkedHashMap<>();
+        for (int i = 0; i < REASONS.size(); i++) {
+            reasonCounts.put(REASONS.get(i), reasons[i]);
+        }
+
+        long current = clock.getAsLong() / bucketMillis;
+        List<Bucket> buckets = new ArrayList<>();
+        for (long bucket = current - bucketStarts.length + 1; bucket <= current; bucket++) {
+            if (bucket < 0) {
+                continue;
+            }
+            int slot = (int) (bucket % bucketStarts.length);
+            if (bucketStarts[slot] == bucket) {
+                buckets.add(new Bucket(Instant.ofEpochMilli(bucket * bucketMillis), bucketCounts[slot]));
+            }
+        }
+        return new Summary(Instant.ofEpochMilli(startedMillis), total, reasonCounts, queues.top(top), publishers.top(top), buckets);
+    }
+
+    //원래 Queue 또는 publisher 하나에 대한 TopKSketch와 CountMinSketch입니다.
+    private static final class Dimension {
+
+        private final TopKSketch topK;
+
+        private final CountMinSketch sketch;
+
+        private Dimension(int topK, int sketchWidth, int sketchDepth) {
+            this.topK = new TopKSketch(topK);
+            this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        }
+
+        private void add(String key) {
+            topK.add(key, 1);
+            sketch.add(key, 1);
+        }
+
+        private long count(String key) {
+            return sketch.estimate(key);
+        }
+
+        //TopKSketch와 CountMinSketch의 개수는 모두 실제보다 작지 않으므로 작은 값을 사용하고 error(실제 개수와의 최대 차이)도 그만큼 줄입니다.
+        private List<TopKSketch.Entry> top(int limit) {
+            List<TopKSketch.Entry> entries = new ArrayList<>();
+            for (TopKSketch.Entry entry : topK.top(topK.size())) {
+                long count = Math.min(entry.getCount(), sketch.estimate(entry.getKey()));
+                long lowerBound = entry.getCount() - entry.getError();
+                entries.add(new TopKSketch.Entry(entry.getKey(), count, Math.max(0, count - lowerBound)));
+            }
+            entries.sort(Comparator.comparingLong(TopKSketch.Entry::getCount).reversed().thenComparing(TopKSketch.Entry::getKey));
+            return entries.subList(0, Math.min(limit, entries.size()));
+        }
+
+    }
+
+    //GET /dead-letters/summary의 응답(JSON)입니다.
+    public static final class Summary {
+
+        private final Instant since;
+
+        private final long total;
+
+        private final Map<String, Long> reasons;
+
+        private final List<TopKSketch.Entry> queues;
+
+        private final List<TopKSketch.Entry> publishers;
+
+        private final List<Bucket> buckets;
+
+        private Summary(Instant since, long total, Map<String, Long> reasons, List<TopKSketch.Entry> queues,
+                        List<TopKSketch.Entry> publishers, List<Bucket> buckets) {
+            this.since = since;
+            this.total = total;
+            this.reasons = reasons;
+            this.queues = queues;
+            this.publishers = publishers;
+            this.buckets = buckets;
+        }
+
+        //세기 시작한 시각(애플리케이션 시작 시각)입니다.
+        public Instant getSince() {
+            return since;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public Map<String, Long> getReasons() {
+            return reasons;
+        }
+
+        public List<TopKSketch.Entry> getQueues() {
+            return queues;
+        }
+
+        public List<TopKSketch.Entry> getPublishers() {
+            return publishers;
+        }
+
+        public List<Bucket> getBuckets() {
+            return buckets;
+        }
+
+    }
+
+    //시간 구간 하나의 Dead Letter 수입니다. reasons에는 개수가 0보다 큰 reason만 포함합니다.
+    public static final class Bucket {
+
+        private final Instant start;
+
+        private final long total;
+
+        private final Map<String, Long> reasons = new LinkedHashMap<>();
+
+        private Bucket(Instant start, long[] counts) {
+            this.start = start;
+            long sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    reasons.put(REASONS.get(i), counts[i]);
+                    sum += counts[i];
+                }
+            }
+            this.total = sum;
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public Map<String, Long> getReasons() {
+            return reasons;
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.rabbitmq.consumer.retry;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//DeadLetterIndex가 집계한 dead.letter.queue의 Dead Letter 수를 조회합니다. (DeadLetterRetryConfig 참고)
+//예: curl "http://localhost:8083/dead-letters/summary?top=10"
+//    curl "http://localhost:8083/dead-letters/count?queue=messageInfo.test.queue&publisher=order-service"
+@Profile("annotation")
+@RestController
+@RequestMapping("/dead-letters")
+public class DeadLetterIndexController {
+
+    private final DeadLetterIndex deadLetterIndex;
+
+    public DeadLetterIndexController(DeadLetterIndex deadLetterIndex) {
+        this.deadLetterIndex = deadLetterIndex;
+    }
+
+    //전체 개수, reason별 개수, 개수가 많은 원래 Queue, publisher top개, 최근 시간 구간별 개수를 반환합니다.
+    @GetMapping("/summary")
+    public DeadLetterIndex.Summary summary(@RequestParam(defaultValue = "10") int top) {
+        return deadLetterIndex.summary(top);
+    }
+
+    //원래 Queue, publisher별 개수를 반환합니다. top에 나타나지 않는 key도 조회할 수 있으며 이 경우 추정값(실제보다 작지 않음)입니다.
+    @GetMapping("/count")
+    public Map<String, Map<String, Long>> count(@RequestParam(name = "queue", required = false) List<String> queues,
+                                                @RequestParam(name = "publisher", required = false) List<String> publishers) {
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        counts.put("queues", countEach(queues, true));
+        counts.put("publishers", countEach(publishers, false));
+        return counts;
+    }
+
+    private Map<String, Long> countEach(List<String> keys, boolean queue) {
+        if (keys == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String key : keys) {
+            counts.put(key, queue ? deadLetterIndex.countByQueue(key) : deadLetterIndex.countByPublisher(key));
+        }
+        return counts;
+    }
+
+}
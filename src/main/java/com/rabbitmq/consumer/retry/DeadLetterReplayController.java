@@ -0,0 +1,31 @@
+package com.rabbitmq.consumer.retry;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.Map;
+
+//parking lot Queue에 보관된 Dead Letter를 원래 Queue로 다시 보냅니다. (DeadLetterRetryConfig 참고)
+//예: curl -X POST "http://localhost:8083/dead-letters/replay?limit=500"
+//원래 Queue로 보내는 속도는 consumer.retry.redeliveries-per-second로 제한되므로 limit이 큰 경우 응답까지 시간이 걸립니다.
+@Profile("annotation")
+@RestController
+@RequestMapping("/dead-letters")
+public class DeadLetterReplayController {
+
+    private final DeadLetterRetrier deadLetterRetrier;
+
+    public DeadLetterReplayController(DeadLetterRetrier deadLetterRetrier) {
+        this.deadLetterRetrier = deadLetterRetrier;
+    }
+
+    @PostMapping("/replay")
+    public Map<String, Integer> replay(@RequestParam(defaultValue = "100") int limit) {
+        return Collections.singletonMap("replayed", deadLetterRetrier.replay(limit));
+    }
+
+}
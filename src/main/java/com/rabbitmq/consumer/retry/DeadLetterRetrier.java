@@ -0,0 +1,172 @@
+package com.rabbitmq.consumer.retry;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.consumer.flow.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//dead.letter.queue로 전달된 Dead Letter를 재시도 대기 Queue 또는 parking lot Queue로 보냅니다. (RetryProperties 참고)
+//[동작 방식]
+//1. 원래 Queue에서 rejected된 메시지는 실패 횟수(DeadLetter.getDeaths)에 맞는 대기 Queue로 보내며 대기 시간이 지나면 원래 Queue로 돌아가서 다시 처리됩니다.
+//2. 실패 횟수가 maxAttempts를 넘거나 rejected가 아닌 이유(expired, maxlen 등)로 Dead Letter가 된 메시지는 parkingLotQueue로 보냅니다.
+//3. parkingLotQueue의 메시지는 replay로 x-death 등의 재시도 기록을 지우고 원래 Queue로 다시 보냅니다.
+//parkingLotQueue에서는 ack 없이(basicGet autoAck = false) 꺼내고 원래 Queue로 보낸 메시지가 publisher confirm으로 확인된 뒤에 ack하므로
+//replay 중에 프로세스가 종료되거나 Connection이 끊어져도 메시지는 parkingLotQueue에 남습니다.
+//[재전송 속도 제한]
+//처리할 수 없는 메시지가 한꺼번에 Dead Letter가 되더라도 원래 Queue로 돌아가는 메시지(재시도, replay)는 TokenBucket으로
+//redeliveriesPerSecond 이하로 제한하므로 원래 Queue의 Consumer가 새로운 메시지를 처리하지 못하는 상황을 막습니다.
+//재시도 대기중인 메시지는 dead.letter.queue의 Consumer 쓰레드에서 기다리며 그동안 dead.letter.queue에 메시지가 쌓입니다.
+@Slf4j
+public class DeadLetterRetrier {
+
+    public enum Outcome { RETRIED, PARKED }
+
+    //replay할때 지우는 재시도 기록입니다. 남겨두면 원래 Queue에서 다시 reject되었을때 이전 실패 횟수부터 이어서 세게 됩니다.
+    private static final List<String> RETRY_HEADERS = Arrays.asList(DeadLetter.ATTEMPTS_HEADER, "x-death",
+            "x-first-death-queue", "x-first-death-reason", "x-first-death-exchange",
+            "x-last-death-queue", "x-last-death-reason", "x-last-death-exchange");
+
+    private static final MessagePropertiesConverter PROPERTIES_CONVERTER = new DefaultMessagePropertiesConverter();
+
+    private static final String CHARSET = "UTF-8";
+
+    private final RabbitOperations rabbitOperations;
+
+    private final RetryProperties properties;
+
+    private final TokenBucket redeliveries;
+
+    private final Counter retried;
+
+    private final Counter parked;
+
+    private final Counter replayed;
+
+    public DeadLetterRetrier(RabbitOperations rabbitOperations, RetryProperties properties, MeterRegistry meterRegistry) {
+        this.rabbitOperations = rabbitOperations;
+        this.properties = properties;
+        this.redeliveries = new TokenBucket(properties.getRedeliveriesPerSecond(), properties.getRedeliveryBurst());
+        this.retried = deadLetters(meterRegistry, "retried");
+        this.parked = deadLetters(meterRegistry, "parked");
+        this.replayed = deadLetters(meterRegistry, "replayed");
+    }
+
+    private static Counter deadLetters(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("rabbitmq.consumer.retry.dead.letters")
+                .description("Dead letters handled by the retry engine by outcome")
+                .tag("outcome", outcome).register(meterRegistry);
+    }
+
+    public Outcome handle(Message message) {
+        DeadLetter deadLetter = DeadLetter.of(message);
+        MessageProperties messageProperties = message.getMessageProperties();
+        if (deadLetter.getOriginQueue() != null) {
+            messageProperties.setHeader(DeadLetter.ORIGIN_QUEUE_HEADER, deadLetter.getOriginQueue());
+        }
+
+        if (deadLetter.getOriginQueue() == null || !deadLetter.isRejected() || deadLetter.getDeaths() > properties.getMaxAttempts()) {
+            rabbitOperations.send("", properties.getParkingLotQueue(), message);
+            parked.increment();
+            log.debug("Parked dead letter from {} ({}, deaths {})", deadLetter.getOriginQueue(), deadLetter.getReason(), deadLetter.getDeaths());
+            return Outcome.PARKED;
+        }
+
+        acquireRedelivery();
+        messageProperties.setHeader(DeadLetter.ATTEMPTS_HEADER, deadLetter.getDeaths());
+        rabbitOperations.send(properties.tierFor(deadLetter.getDeaths()), deadLetter.getOriginQueue(), message);
+        retried.increment();
+        return Outcome.RETRIED;
+    }
+
+    //parkingLotQueue에서 최대 limit개의 메시지를 꺼내서 원래 Queue로 보내고 보낸 개수를 반환합니다.
+    //하나의 Channel에서 꺼낸 메시지를 모두 보낸 뒤 waitForConfirmsOrDie로 확인되면 ack하고 그 전에 실패하면 꺼낸 메시지를 모두 nack(requeue) 합니다.
+    //원래 Queue를 알 수 없는 메시지는 replay가 끝날때까지 unacked로 두었다가 nack(requeue) 하므로 같은 replay에서 다시 꺼내지 않습니다.
+    public int replay(int limit) {
+        String parkingLotQueue = properties.getParkingLotQueue();
+        Integer count = rabbitOperations.execute(channel -> replay(channel, parkingLotQueue, limit));
+        if (count != null && count > 0) {
+            log.info("Replayed {} dead letters from {}", count, parkingLotQueue);
+        }
+        return count != null ? count : 0;
+    }
+
+    private int replay(Channel channel, String parkingLotQueue, int limit) throws Exception {
+        List<Long> published = new ArrayList<>();
+        List<Long> unknownOrigin = new ArrayList<>();
+        channel.confirmSelect();
+        try {
+            for (int i = 0; i < limit; i++) {
+                GetResponse response = channel.basicGet(parkingLotQueue, false);
+                if (response == null) {
+                    break;
+                }
+                long deliveryTag = response.getEnvelope().getDeliveryTag();
+                MessageProperties messageProperties = PROPERTIES_CONVERTER.toMessageProperties(response.getProps(), response.getEnvelope(), CHARSET);
+                String originQueue = DeadLetter.of(new Message(response.getBody(), messageProperties)).getOriginQueue();
+                if (originQueue == null) {
+                    unknownOrigin.add(deliveryTag);
+                    continue;
+                }
+
+                acquireRedelivery();
+                for (String header : RETRY_HEADERS) {
+                    messageProperties.getHeaders().remove(header);
+                }
+                messageProperties.setHeader(DeadLetter.ORIGIN_QUEUE_HEADER, originQueue);
+                channel.basicPublish("", originQueue, false, PROPERTIES_CONVERTER.fromMessageProperties(messageProperties, CHARSET), response.getBody());
+                published.add(deliveryTag);
+            }
+            if (!published.isEmpty()) {
+                channel.waitForConfirmsOrDie(properties.getReplayConfirmTimeout().toMillis());
+            }
+        } catch (Exception e) {
+            //확인되지 않은 메시지는 원래 Queue에 전달되었을 수도 있으므로 중복될 수 있지만 parkingLotQueue에서 잃어버리지는 않습니다.
+            requeue(channel, published);
+            requeue(channel, unknownOrigin);
+            throw e;
+        }
+
+        for (long deliveryTag : published) {
+            channel.basicAck(deliveryTag, false);
+        }
+        requeue(channel, unknownOrigin);
+        replayed.increment(published.size());
+        return published.size();
+    }
+
+    //waitForConfirmsOrDie가 실패하면 Channel이 닫히며 브로커가 unacked 메시지를 되돌리므로 nack 실패는 무시합니다.
+    private static void requeue(Channel channel, List<Long> deliveryTags) {
+        for (long deliveryTag : deliveryTags) {
+            try {
+                if (channel.isOpen()) {
+                    channel.basicNack(deliveryTag, false, true);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to requeue parked dead letter {}", deliveryTag, e);
+            }
+        }
+    }
+
+    private void acquireRedelivery() {
+        try {
+            redeliveries.acquire();
+        } catch (InterruptedException e) {
+            //컨테이너가 멈추는 중이므로 메시지는 nack(requeue) 되어 dead.letter.queue에 남습니다.
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a redelivery permit", e);
+        }
+    }
+
+}
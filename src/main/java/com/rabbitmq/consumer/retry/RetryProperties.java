@@ -0,0 +1,103 @@
+package com.rabbitmq.consumer.retry;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//consumer.retry로 시작하는 application.yml 설정값입니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.retry")
+public class RetryProperties {
+
+    //재시도 단계별 대기 시간입니다. n번째 재시도는 delays[n - 1]만큼 기다린 뒤 원래 Queue로 돌아가며 단계보다 많이 재시도하는 경우 마지막 대기 시간을 사용합니다.
+    private List<Duration> delays = new ArrayList<>(Arrays.asList(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1)));
+
+    //원래 Queue에서 reject(nack)된 횟수가 해당 값을 넘으면 재시도하지 않고 parkingLotQueue로 보냅니다.
+    private int maxAttempts = 5;
+
+    //재시도하지 않는 Dead Letter를 보관하는 Queue입니다. POST /dead-letters/replay로 원래 Queue에 다시 보낼 수 있습니다.
+    private String parkingLotQueue = "dead.letter.parking.queue";
+
+    //원래 Queue로 다시 보내는 메시지(재시도, replay)의 초당 최대 개수입니다. 0 이하이면 제한하지 않습니다.
+    private double redeliveriesPerSecond = 20;
+
+    //redeliveriesPerSecond를 넘어서 한번에 보낼 수 있는 최대 개수입니다.
+    private int redeliveryBurst = 20;
+
+    //replay할때 원래 Queue로 보낸 메시지의 publisher confirm을 기다리는 최대 시간입니다. 넘으면 꺼낸 메시지는 parkingLotQueue에 남습니다.
+    private Duration replayConfirmTimeout = Duration.ofSeconds(5);
+
+    //dead.letter.queue의 Dead Letter를 집계하는 DeadLetterIndex 설정입니다. GET /dead-letters/summary로 조회합니다.
+    private Index index = new Index();
+
+    @Getter
+    @Setter
+    public static class Index {
+
+        //원래 Queue, publisher별로 정확하게 가까운 개수를 기억하는 key 수입니다. (TopKSketch)
+        private int topK = 100;
+
+        //topK에 없는 key의 개수를 추정하는 CountMinSketch 크기입니다. 클수록 추정값이 정확해집니다.
+        private int sketchWidth = 2048;
+
+        private int sketchDepth = 4;
+
+        //시간 구간 단위와 보관할 구간 수입니다. 기본값은 1분 단위로 최근 1시간입니다.
+        private Duration bucket = Duration.ofMinutes(1);
+
+        private int buckets = 60;
+
+        public DeadLetterIndex toIndex() {
+            return new DeadLetterIndex(topK, sketchWidth, sketchDepth, bucket, buckets);
+        }
+
+    }
+
+    //attempt(1부터 시작)번째 재시도에서 사용할 대기 Queue(Exchange) 이름입니다.
+    public String tierFor(int attempt) {
+        return tierName(delays.get(Math.min(attempt, delays.size()) - 1));
+    }
+
+    public static String tierName(Duration delay) {
+        return "dead.letter.retry." + delay.toMillis() + "ms";
+    }
+
+    //[재시도 대기 Queue]
+    //ttl.test.queue와 같이 x-message-ttl, x-dead-letter-exchange로 구성합니다.
+    //1. 대기 단계마다 같은 이름의 Fanout Exchange와 Queue를 만들고 DeadLetterRetrier는 routing key를 원래 Queue 이름으로 설정하여 Exchange에 보냅니다.
+    //2. Queue의 x-message-ttl이 지나면 x-dead-letter-exchange인 기본 Exchange("")로 보내지며 x-dead-letter-routing-key가 없으므로
+    //보낼때의 routing key(원래 Queue 이름)가 그대로 사용되어 원래 Queue로 돌아갑니다.
+    public Declarables toDeclarables() {
+        List<Declarable> declarables = new ArrayList<>();
+        for (Duration delay : delays) {
+            String name = tierName(delay);
+            Map<String, Object> arguments = new HashMap<>();
+            arguments.put("x-message-ttl", (int) delay.toMillis());
+            arguments.put("x-dead-letter-exchange", "");
+
+            FanoutExchange exchange = new FanoutExchange(name);
+            Queue queue = new Queue(name, true, false, false, arguments);
+            Binding binding = BindingBuilder.bind(queue).to(exchange);
+            declarables.add(exchange);
+            declarables.add(queue);
+            declarables.add(binding);
+        }
+        declarables.add(new Queue(parkingLotQueue, true, false, false));
+        return new Declarables(declarables);
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.rabbitmq.consumer.retry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//가장 많이 기록된 key를 capacity개까지만 기억하는 Space-Saving(Metwally) 알고리즘입니다.
+//[동작 방식]
+//1. 기억하고 있는 key는 개수를 올리고 기억하지 않은 key는 빈칸이 있으면 새로 기억합니다.
+//2. 빈칸이 없으면 개수가 가장 작은 key를 잊고 그 자리에 새 key를 (잊은 key의 개수 + 1)로 기억하며 잊은 key의 개수를 error로 남깁니다.
+//[오차]
+//count는 실제 개수보다 작지 않고 count - error는 실제 개수보다 크지 않습니다. 전체 개수의 1 / capacity보다 많이 기록된 key는 반드시 남아있으므로
+//특정 Queue, publisher에서 Dead Letter가 몰리는 경우 해당 key가 top에 나타납니다.
+//기억하지 않은 key가 들어올때마다 capacity개를 훑어서 가장 작은 key를 찾으므로 capacity는 수백 이하로 사용합니다.
+//동기화하지 않으므로 DeadLetterIndex와 같이 호출하는 쪽에서 lock을 걸어야 합니다.
+public class TopKSketch {
+
+    private final int capacity;
+
+    private final Map<String, Counter> counters;
+
+    public TopKSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key, long count) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(key, count, 0));
+            return;
+        }
+
+        Counter min = null;
+        for (Counter candidate : counters.values()) {
+            if (min == null || candidate.count < min.count) {
+                min = candidate;
+            }
+        }
+        counters.remove(min.key);
+        counters.put(key, new Counter(key, min.count + count, min.count));
+    }
+
+    //개수가 많은 순서로 최대 limit개를 반환합니다.
+    public List<Entry> top(int limit) {
+        List<Counter> sorted = new ArrayList<>(counters.values());
+        sorted.sort(Comparator.comparingLong((Counter counter) -> counter.count).reversed().thenComparing(counter -> counter.key));
+        List<Entry> top = new ArrayList<>();
+        for (Counter counter : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            top.add(new Entry(counter.key, counter.count, counter.error));
+        }
+        return top;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private static final class Counter {
+
+        private final String key;
+
+        private long count;
+
+        private final long error;
+
+        private Counter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+    }
+
+    //HTTP 응답(JSON)으로 그대로 사용합니다. 실제 개수는 count - error 이상 count 이하입니다.
+    public static final class Entry {
+
+        private final String key;
+
+        private final long count;
+
+        private final long error;
+
+        public Entry(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + count + (error > 0 ? " (error " + error + ")" : "");
+        }
+
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.rabbitmq.consumer.shard;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//Consumer 하나가 받은 메시지를 key의 hash로 정해지는 lane(쓰레드 하나짜리 Executor)에서 처리합니다.
+//[@RabbitListener concurrency와 다른 점]
+//concurrency를 늘리면 Consumer마다 prefetch한 메시지를 각자 처리하므로 같은 key의 메시지도 순서가 뒤바뀔 수 있습니다.
+//ShardedDispatcher는 같은 key의 메시지를 항상 같은 lane에 넣으므로 key별 순서는 Queue의 순서대로 유지하면서 서로 다른 key는 lanes개의 쓰레드에서 동시에 처리합니다.
+//[ack]
+//1. Listener 처리가 lane에서 끝난 뒤 AckCoalescer로 ack(실패한 경우 requeue 없이 nack)를 기록하므로 컨테이너는 MANUAL ackMode여야 합니다.
+//2. lane마다 처리 속도가 달라서 delivery tag 순서와 처리가 끝나는 순서가 다르지만 AckCoalescer는 처리가 끝난 연속 구간만 multiple로 전송합니다.
+//[backpressure]
+//lane에 넘겼지만 처리가 끝나지 않은 메시지가 maxInFlight개이면 Consumer 쓰레드가 dispatch에서 기다리므로 컨테이너가 더 이상 메시지를 꺼내지 않습니다.
+//prefetch를 maxInFlight 이상으로 설정해야 모든 lane이 쉬지 않고 처리할 수 있습니다.
+@Slf4j
+public class ShardedDispatcher implements SmartLifecycle {
+
+    private final String name;
+
+    private final int laneCount;
+
+    private final int maxInFlight;
+
+    private final AckCoalescers ackCoalescers;
+
+    private final Semaphore inFlight;
+
+    private final Counter failures;
+
+    private volatile ExecutorService[] lanes;
+
+    public ShardedDispatcher(String name, int lanes, int maxInFlight, AckCoalescers ackCoalescers) {
+        this(name, lanes, maxInFlight, ackCoalescers, null);
+    }
+
+    public ShardedDispatcher(String name, int lanes, int maxInFlight, AckCoalescers ackCoalescers, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.laneCount = lanes;
+        this.maxInFlight = maxInFlight;
+        this.ackCoalescers = ackCoalescers;
+        this.inFlight = new Semaphore(maxInFlight);
+        if (meterRegistry != null) {
+            Gauge.builder("rabbitmq.consumer.shard.in.flight", this, ShardedDispatcher::getInFlight)
+                    .description("Deliveries dispatched to a lane and not yet acknowledged")
+                    .tag("dispatcher", name).register(meterRegistry);
+            this.failures = Counter.builder("rabbitmq.consumer.shard.failures")
+                    .description("Deliveries whose listener failed on a lane (nacked without requeue)")
+                    .tag("dispatcher", name).register(meterRegistry);
+        } else {
+            this.failures = null;
+        }
+    }
+
+    //key가 null인 메시지는 순서를 지킬 필요가 없으므로 delivery tag로 lane을 고릅니다.
+    public int laneOf(String key, long deliveryTag) {
+        if (key == null) {
+            return (int) Math.floorMod(deliveryTag, (long) laneCount);
+        }
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), laneCount);
+    }
+
+    //work를 key의 lane에 넘기고 바로 반환합니다. in-flight가 maxInFlight이면 lane 하나가 처리를 끝낼때까지 기다립니다.
+    //기다리는 중에 interrupt되거나 lane이 멈춘 경우 메시지는 requeue nack 처리됩니다.
+    public void dispatch(Channel channel, long deliveryTag, String key, Runnable work) throws IOException {
+        ExecutorService[] current = lanes;
+        try {
+            if (current == null) {
+                throw new RejectedExecutionException("Dispatcher " + name + " is not running");
+            }
+            inFlight.acquire();
+        } catch (InterruptedException | RejectedExecutionException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            ackCoalescers.forChannel(channel).nack(deliveryTag, true);
+            return;
+        }
+
+        try {
+            current[laneOf(key, deliveryTag)].execute(() -> process(channel, deliveryTag, work));
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            ackCoalescers.forChannel(channel).nack(deliveryTag, true);
+        }
+    }
+
+    //lane에 넘기지 않고 requeue 없이 reject합니다. (Queue에 DLX가 설정되어 있으면 Dead Letter가 됩니다.)
+    public void reject(Channel channel, long deliveryTag) throws IOException {
+        ackCoalescers.forChannel(channel).reject(deliveryTag, false);
+    }
+
+    private void process(Channel channel, long deliveryTag, Runnable work) {
+        boolean succeeded = false;
+        try {
+            work.run();
+            succeeded = true;
+        } catch (RuntimeException e) {
+            log.warn("Dispatcher {}: listener failed for delivery {}", name, deliveryTag, e);
+            if (failures != null) {
+                failures.increment();
+            }
+        } finally {
+            inFlight.release();
+        }
+
+        //Consumer가 재시작되어 Channel이 닫힌 경우 해당 메시지는 브로커가 다시 전달하므로 결과를 기록하지 않습니다.
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (succeeded) {
+                ackCoalescers.forChannel(channel).ack(deliveryTag);
+            } else {
+                ackCoalescers.forChannel(channel).nack(deliveryTag, false);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Dispatcher {}: failed to acknowledge delivery {}", name, deliveryTag, e);
+        }
+    }
+
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public int getLaneCount() {
+        return laneCount;
+    }
+
+    @Override
+    public void start() {
+        ExecutorService[] started = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = name + "-lane-" + i;
+            started[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, threadName));
+        }
+        lanes = started;
+    }
+
+    //lane에 남은 메시지를 모두 처리한 뒤 멈추고 기록된 결과를 전송합니다.
+    //컨테이너(phase Integer.MAX_VALUE)가 먼저 멈춰서 더 이상 dispatch가 호출되지 않은 뒤에 멈추도록 phase를 낮게 설정합니다.
+    @Override
+    public void stop() {
+        ExecutorService[] stopping = lanes;
+        if (stopping == null) {
+            return;
+        }
+        lanes = null;
+        for (ExecutorService lane : stopping) {
+            lane.shutdown();
+        }
+        try {
+            for (ExecutorService lane : stopping) {
+                if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Dispatcher {}: lane did not finish in time", name);
+                    lane.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ackCoalescers.flushAll();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return lanes != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.rabbitmq.consumer.shard;
+
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//컨테이너와 Listener 사이에서 메시지를 변환하고 key를 꺼내서 ShardedDispatcher의 lane으로 넘깁니다.
+//변환(payloadOf)과 key 추출은 Consumer 쓰레드에서, handler는 lane 쓰레드에서 실행됩니다.
+//변환할 수 없는 메시지는 순서를 지킬 수 없으므로 lane에 넘기지 않고 requeue 없이 reject합니다.
+@Slf4j
+public class ShardedMessageListener<T> implements ChannelAwareMessageListener {
+
+    //메시지 key를 꺼냅니다. (예: MessageInfo.publisher, 헤더)
+    @FunctionalInterface
+    public interface KeyExtractor<T> {
+
+        String keyOf(Message message, T payload);
+
+    }
+
+    private final ShardedDispatcher dispatcher;
+
+    private final Function<Message, T> payloadOf;
+
+    private final KeyExtractor<T> keyExtractor;
+
+    private final Consumer<T> handler;
+
+    public ShardedMessageListener(ShardedDispatcher dispatcher, Function<Message, T> payloadOf, KeyExtractor<T> keyExtractor,
+                                  Consumer<T> handler) {
+        this.dispatcher = dispatcher;
+        this.payloadOf = payloadOf;
+        this.keyExtractor = keyExtractor;
+        this.handler = handler;
+    }
+
+    //지정한 헤더 값을 key로 사용합니다. 헤더가 없는 메시지는 fallback으로 key를 꺼냅니다.
+    public static <T> KeyExtractor<T> header(String name, KeyExtractor<T> fallback) {
+        return (message, payload) -> {
+            Object value = message.getMessageProperties().getHeader(name);
+            return value != null ? value.toString() : fallback.keyOf(message, payload);
+        };
+    }
+
+    @Override
+    public void onMessage(Message message, Channel channel) throws Exception {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        T payload;
+        String key;
+        try {
+            payload = payloadOf.apply(message);
+            key = keyExtractor.keyOf(message, payload);
+        } catch (RuntimeException e) {
+            log.warn("Reject delivery {} from {}: failed to read payload", deliveryTag, message.getMessageProperties().getConsumerQueue(), e);
+            dispatcher.reject(channel, deliveryTag);
+            return;
+        }
+        dispatcher.dispatch(channel, deliveryTag, key, () -> handler.accept(payload));
+    }
+
+}
@@ -0,0 +1,314 @@
+package com.rabbitmq.consumer.sink;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+//WriteBehindSink의 record를 저장하는 로컬 로그입니다. segmentSize 크기의 파일(segment)을 memory-mapped로 열어서 record를 이어 붙이고
+//가득 차면 다음 segment를 만듭니다. segment 파일 이름은 해당 segment의 시작 위치(position)이며 position은 모든 segment에서 증가하는 값입니다.
+//[record 형식] 길이(int) + CRC32(int) + 내용. 길이가 0이면 해당 segment의 끝입니다.
+//[group commit] append는 page cache에만 쓰고 sync(position)에서 force(fsync)합니다. 여러 쓰레드가 동시에 sync를 호출하면
+//한 쓰레드의 force가 그 전까지 append된 모든 record를 반영하므로 나머지 쓰레드는 force 없이 반환됩니다.
+//[복구] 다시 열때 segment마다 CRC가 맞는 record까지만 인정하고 마지막 segment는 그 위치부터 이어서 씁니다.
+//Downstream으로 보낸 위치는 drained.checkpoint 파일에 저장하며 모두 보낸 segment는 삭제합니다.
+@Slf4j
+final class SinkLog implements Closeable {
+
+    static final int HEADER = 8;
+
+    private static final String SUFFIX = ".log";
+
+    private static final String CHECKPOINT = "drained.checkpoint";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final Object commitLock = new Object();
+
+    private Segment current;
+
+    private long writePosition;
+
+    private volatile long durablePosition;
+
+    private volatile long drainedPosition;
+
+    private volatile long commits;
+
+    static final class Segment {
+
+        final long base;
+        final Path path;
+        final MappedByteBuffer buffer;
+        volatile int end;
+
+        Segment(long base, Path path, MappedByteBuffer buffer) {
+            this.base = base;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+    }
+
+    //read의 결과입니다. next는 마지막 record 다음 위치이며 Downstream으로 보낸 뒤 checkpoint(next)를 호출합니다.
+    static final class Batch {
+
+        final List<byte[]> records;
+        final long next;
+
+        Batch(List<byte[]> records, long next) {
+            this.records = records;
+            this.next = next;
+        }
+
+    }
+
+    private SinkLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    static SinkLog open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER) {
+            throw new IllegalArgumentException("segmentSize must be greater than " + HEADER);
+        }
+        Files.createDirectories(directory);
+        SinkLog sinkLog = new SinkLog(directory, segmentSize);
+        sinkLog.recover();
+        return sinkLog;
+    }
+
+    private void recover() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        long drained = Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint, StandardCharsets.US_ASCII).trim()) : 0;
+
+        List<Long> bases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .forEach(name -> bases.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))));
+        }
+        bases.sort(null);
+
+        for (int i = 0; i < bases.size(); i++) {
+            Segment segment = map(bases.get(i));
+            segment.end = validEnd(segment.buffer);
+            boolean last = i == bases.size() - 1;
+            if (!last && segment.base + segment.end <= drained) {
+                delete(segment);
+                continue;
+            }
+            segments.put(segment.base, segment);
+            if (last) {
+                //CRC가 맞지 않은 부분(쓰다가 멈춘 record)을 지워서 이어 쓴 record 뒤에 남지 않도록 합니다.
+                clear(segment.buffer, segment.end);
+                current = segment;
+            }
+        }
+
+        if (current == null) {
+            current = map(drained);
+            segments.put(current.base, current);
+        }
+        writePosition = current.base + current.end;
+        current.buffer.force();
+        durablePosition = writePosition;
+        drainedPosition = Math.min(Math.max(drained, segments.firstKey()), writePosition);
+        if (writePosition > drainedPosition) {
+            log.info("Recovered sink log {}: {} bytes not drained in {} segments", directory, writePosition - drainedPosition, segments.size());
+        }
+    }
+
+    //record를 추가하고 record 다음 위치를 반환합니다. 반환된 위치를 sync에 넘기면 해당 record까지 디스크에 반영됩니다.
+    synchronized long append(byte[] record) {
+        int size = HEADER + record.length;
+        if (record.length == 0 || size > segmentSize) {
+            throw new IllegalArgumentException("Record size must be between 1 and " + (segmentSize - HEADER) + " bytes: " + record.length);
+        }
+        if (current.end + size > current.buffer.capacity()) {
+            roll();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record);
+
+        ByteBuffer buffer = current.buffer.duplicate();
+        buffer.position(current.end);
+        buffer.putInt(record.length).putInt((int) crc.getValue()).put(record);
+        current.end += size;
+        writePosition = current.base + current.end;
+        return writePosition;
+    }
+
+    private void roll() {
+        long base = current.base + current.buffer.capacity();
+        try {
+            current = map(base);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create sink segment " + base, e);
+        }
+        segments.put(base, current);
+    }
+
+    //position까지 append된 record를 디스크에 반영합니다.
+    void sync(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+        synchronized (commitLock) {
+            if (durablePosition >= position) {
+                return;
+            }
+            long target;
+            synchronized (this) {
+                target = writePosition;
+            }
+            Long from = segments.floorKey(durablePosition);
+            for (Segment segment : segments.tailMap(from == null ? segments.firstKey() : from).values()) {
+                if (segment.base >= target) {
+                    break;
+                }
+                segment.buffer.force();
+            }
+            durablePosition = target;
+            commits++;
+        }
+    }
+
+    //drainedPosition부터 디스크에 반영된 record를 최대 maxRecords개 읽습니다.
+    Batch read(int maxRecords) {
+        List<byte[]> records = new ArrayList<>(Math.min(maxRecords, 1024));
+        long position = drainedPosition;
+        long limit = durablePosition;
+        while (records.size() < maxRecords && position < limit) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+            Segment segment = entry.getValue();
+            int offset = (int) (position - segment.base);
+            if (offset >= segment.end) {
+                Long next = segments.higherKey(segment.base);
+                if (next == null) {
+                    break;
+                }
+                position = next;
+                continue;
+            }
+            ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(offset);
+            byte[] record = new byte[buffer.getInt()];
+            buffer.getInt();
+            buffer.get(record);
+            records.add(record);
+            position += HEADER + record.length;
+        }
+        return new Batch(records, position);
+    }
+
+    //Downstream으로 보낸 위치를 저장하고 모두 보낸 segment를 삭제합니다. 저장하기 전에 멈추면 다시 열때 해당 record를 다시 보냅니다.
+    void checkpoint(long position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(position).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        drainedPosition = position;
+
+        for (Segment segment : segments.values()) {
+            if (segment == current || segment.base + segment.end > position) {
+                break;
+            }
+            segments.remove(segment.base);
+            delete(segment);
+        }
+    }
+
+    //아직 Downstream으로 보내지 않은 byte 수입니다. (segment 끝의 빈 공간 포함)
+    long backlog() {
+        return durablePosition - drainedPosition;
+    }
+
+    long getCommits() {
+        return commits;
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    //memory-mapped 파일은 GC될때 unmap되므로 닫을때는 디스크에 반영만 합니다.
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    private Segment map(long base) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", base, SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(channel.size(), segmentSize);
+            return new Segment(base, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private static int validEnd(MappedByteBuffer mapped) {
+        ByteBuffer buffer = mapped.duplicate();
+        CRC32 crc = new CRC32();
+        int end = 0;
+        while (end + HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(end);
+            if (length <= 0 || length > buffer.capacity() - end - HEADER) {
+                break;
+            }
+            buffer.limit(end + HEADER + length).position(end + HEADER);
+            crc.reset();
+            crc.update(buffer);
+            buffer.limit(buffer.capacity());
+            if ((int) crc.getValue() != buffer.getInt(end + 4)) {
+                break;
+            }
+            end += HEADER + length;
+        }
+        return end;
+    }
+
+    //0이 아닌 byte만 지워서 쓰지 않은 page는 건드리지 않습니다.
+    private static void clear(MappedByteBuffer buffer, int from) {
+        for (int i = from; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private static void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Failed to delete drained sink segment {}", segment.path, e);
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.rabbitmq.consumer.sink;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+//consumer.sink로 시작하는 application.yml 설정값입니다.
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "consumer.sink")
+public class SinkProperties {
+
+    private boolean enabled = false;
+
+    //segment 파일과 drained.checkpoint를 저장할 디렉토리입니다. 인스턴스마다 다른 디렉토리를 사용해야 합니다.
+    private String directory = "data/sink";
+
+    //segment 파일 하나의 크기입니다. record 하나는 해당 크기보다 8 byte 이상 작아야 합니다.
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    //Downstream으로 한번에 보낼 최대 record 수
+    private int drainBatchSize = 500;
+
+    //로그에 남은 record를 Downstream으로 보내는 주기입니다. 보낼 record가 drainBatchSize보다 많으면 기다리지 않고 이어서 보냅니다.
+    private Duration drainInterval = Duration.ofMillis(200);
+
+}
@@ -0,0 +1,12 @@
+package com.rabbitmq.consumer.sink;
+
+import java.util.List;
+
+//WriteBehindSink가 로컬 로그에 모인 record를 한번에 보내는 Downstream입니다. (DB bulk insert, HTTP batch API 등)
+//예외가 발생하면 같은 record를 drainInterval 뒤에 다시 보내므로 Downstream은 같은 record를 여러번 받아도 되도록 처리해야 합니다.
+@FunctionalInterface
+public interface SinkWriter<T> {
+
+    void write(List<T> records) throws Exception;
+
+}
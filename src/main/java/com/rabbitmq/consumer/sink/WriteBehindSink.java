@@ -0,0 +1,190 @@
+package com.rabbitmq.consumer.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Listener가 받은 record를 Downstream에 바로 보내지 않고 로컬 로그(SinkLog)에 추가한 뒤 drainer 쓰레드가 drainBatchSize개씩 모아서 보냅니다.
+//append는 record가 디스크에 반영(group commit)된 뒤에 반환하므로 Listener가 반환된 뒤 ack해도 메시지를 잃어버리지 않으며
+//Downstream이 느리거나 멈춰도 ack는 로그에 쓰는 속도로 전송됩니다. (로그에 쌓인 양은 rabbitmq.consumer.sink.backlog로 확인)
+//Downstream으로 보낸 뒤 checkpoint를 저장하기 전에 멈추면 다시 시작할때 해당 record를 다시 보냅니다. (at-least-once)
+@Slf4j
+public class WriteBehindSink<T> implements SmartLifecycle {
+
+    //record와 로그에 저장하는 byte[]를 변환합니다.
+    public interface Codec<T> {
+
+        byte[] encode(T record);
+
+        T decode(byte[] bytes);
+
+        //record를 JSON으로 저장합니다.
+        static <T> Codec<T> json(ObjectMapper objectMapper, Class<T> type) {
+            return new Codec<>() {
+                @Override
+                public byte[] encode(T record) {
+                    try {
+                        return objectMapper.writeValueAsBytes(record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public T decode(byte[] bytes) {
+                    try {
+                        return objectMapper.readValue(bytes, type);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+        }
+
+    }
+
+    private final String name;
+
+    private final SinkLog sinkLog;
+
+    private final Codec<T> codec;
+
+    private final SinkWriter<T> writer;
+
+    private final int drainBatchSize;
+
+    private final long drainIntervalMillis;
+
+    private final Counter appended;
+
+    private final Counter drained;
+
+    private final Counter failures;
+
+    private ScheduledExecutorService drainer;
+
+    public WriteBehindSink(String name, SinkProperties sinkProperties, Codec<T> codec, SinkWriter<T> writer,
+                           MeterRegistry meterRegistry) throws IOException {
+        this.name = name;
+        this.sinkLog = SinkLog.open(Paths.get(sinkProperties.getDirectory()), (int) sinkProperties.getSegmentSize().toBytes());
+        this.codec = codec;
+        this.writer = writer;
+        this.drainBatchSize = sinkProperties.getDrainBatchSize();
+        this.drainIntervalMillis = sinkProperties.getDrainInterval().toMillis();
+
+        Tags tags = Tags.of("sink", name);
+        this.appended = Counter.builder("rabbitmq.consumer.sink.records").tags(tags).tag("stage", "appended").register(meterRegistry);
+        this.drained = Counter.builder("rabbitmq.consumer.sink.records").tags(tags).tag("stage", "drained").register(meterRegistry);
+        this.failures = Counter.builder("rabbitmq.consumer.sink.failures").tags(tags).register(meterRegistry);
+        FunctionCounter.builder("rabbitmq.consumer.sink.commits", sinkLog, SinkLog::getCommits).tags(tags).register(meterRegistry);
+        Gauge.builder("rabbitmq.consumer.sink.backlog", sinkLog, SinkLog::backlog).tags(tags).baseUnit("bytes").register(meterRegistry);
+    }
+
+    //records를 로그에 추가하고 디스크에 반영될때까지 기다립니다. 여러 Listener 쓰레드가 동시에 호출하면 한번의 fsync로 함께 반영됩니다.
+    public void append(List<T> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long position = 0;
+        for (T record : records) {
+            position = sinkLog.append(codec.encode(record));
+        }
+        sinkLog.sync(position);
+        appended.increment(records.size());
+    }
+
+    public void append(T record) {
+        append(List.of(record));
+    }
+
+    //로그에 남은 record를 drainBatchSize개까지 Downstream으로 보내고 보낸 개수를 반환합니다.
+    int drain() throws Exception {
+        SinkLog.Batch batch = sinkLog.read(drainBatchSize);
+        if (batch.records.isEmpty()) {
+            return 0;
+        }
+        List<T> records = new ArrayList<>(batch.records.size());
+        for (byte[] bytes : batch.records) {
+            try {
+                records.add(codec.decode(bytes));
+            } catch (RuntimeException e) {
+                //변환할 수 없는 record는 다시 보내도 같은 결과이므로 건너뜁니다.
+                log.error("Skip undecodable record in sink {}", name, e);
+            }
+        }
+        if (!records.isEmpty()) {
+            writer.write(records);
+        }
+        sinkLog.checkpoint(batch.next);
+        drained.increment(records.size());
+        return batch.records.size();
+    }
+
+    private void drainAll() {
+        try {
+            while (drain() == drainBatchSize) {
+                //drainBatchSize만큼 보냈으면 남은 record가 있을 수 있으므로 기다리지 않고 이어서 보냅니다.
+            }
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Failed to drain sink {}, {} bytes pending, retry in {}ms", name, sinkLog.backlog(), drainIntervalMillis, e);
+        }
+    }
+
+    public long getBacklog() {
+        return sinkLog.backlog();
+    }
+
+    @Override
+    public void start() {
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sink-drainer-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::drainAll, 0, drainIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //Listener 컨테이너가 멈춘 뒤 남은 record를 한번 더 보내고 로그를 닫습니다. 보내지 못한 record는 다시 시작할때 보냅니다.
+    @Override
+    public void stop() {
+        if (drainer == null) {
+            return;
+        }
+        drainer.shutdown();
+        try {
+            drainer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainer = null;
+        drainAll();
+        sinkLog.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return drainer != null;
+    }
+
+    //SmartLifecycle은 phase가 낮을수록 나중에 멈추므로 Listener 컨테이너(Integer.MAX_VALUE)가 처리중인 메시지를 로그에 추가한 뒤에 멈추도록 합니다.
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+}
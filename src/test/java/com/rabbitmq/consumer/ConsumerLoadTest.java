@@ -0,0 +1,148 @@
+package com.rabbitmq.consumer;
+
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.support.EmbeddedBroker;
+import com.rabbitmq.consumer.support.LoadGenerator;
+import com.rabbitmq.consumer.support.LoadReport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//RabbitMQ 대신 EmbeddedBroker에 연결하여 프로파일(annotation, factory, container)별로 ConsumerApplication 전체를 실행하고
+//LoadGenerator로 목표 속도의 메시지를 보내서 처리량, 지연시간(p50, p99, p999), 재전달, Dead Letter 수를 확인합니다.
+//Listener 컨테이너, advice, MessageConverter, AckCoalescers, DeadLetterRetrier는 실제 애플리케이션과 같은 Bean이 사용됩니다.
+//load 태그로 test에서는 제외되며 CI는 loadTest로 프로파일마다 짧게(load.duration 기본값 PT3S) 실행하고 오래 실행하려면 soakTest로 system property를 전달합니다.
+//./gradlew loadTest
+//./gradlew soakTest -Pload.profiles=annotation -Pload.rate=2000 -Pload.duration=PT10M
+//[system property]
+//load.profiles(annotation,factory,container), load.rate(초당 메시지 수, 500), load.duration(PT3S), load.body-size(128),
+//load.drain-timeout(보낸 뒤 처리가 끝날때까지 기다릴 시간, PT30S), load.max-p99(허용할 p99 지연시간, PT1S)
+@Slf4j
+@Tag("load")
+class ConsumerLoadTest {
+
+    private static final int RATE = Integer.getInteger("load.rate", 500);
+
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT3S"));
+
+    private static final int BODY_SIZE = Integer.getInteger("load.body-size", 128);
+
+    private static final Duration DRAIN_TIMEOUT = Duration.parse(System.getProperty("load.drain-timeout", "PT30S"));
+
+    private static final Duration MAX_P99 = Duration.parse(System.getProperty("load.max-p99", "PT1S"));
+
+    //재시도 대기 시간을 줄여서 nack, reject된 메시지가 실행 시간 안에 parking lot Queue까지 이동하도록 합니다.
+    private static final int MAX_ATTEMPTS = 2;
+
+    static Stream<String> profiles() {
+        return Arrays.stream(System.getProperty("load.profiles", "annotation,factory,container").split(","))
+                .map(String::trim)
+                .filter(profile -> !profile.isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("profiles")
+    void sustainsTargetRate(String profile) throws InterruptedException {
+        try (EmbeddedBroker broker = new EmbeddedBroker()) {
+            LoadGenerator generator = new LoadGenerator(broker).rate(RATE).duration(DURATION).bodySize(BODY_SIZE).drainTimeout(DRAIN_TIMEOUT);
+            scenario(profile, broker, generator);
+
+            LoadReport report;
+            try (ConfigurableApplicationContext context = start(profile, broker)) {
+                report = generator.run();
+            }
+            log.info("[{}]\n{}", profile, report);
+
+            assertThat(report.isDrained()).as(report.toString()).isTrue();
+            assertThat(report.getCompleted()).isEqualTo(report.getPublished());
+            //같은 delivery tag를 두번 ack하는 등 RabbitMQ라면 Channel이 닫히는 오류가 없어야 합니다.
+            assertThat(report.getUnknownDeliveryTags()).isZero();
+            assertThat(report.getDropped()).isZero();
+            assertThat(report.getThroughput()).isGreaterThan(RATE * 0.9);
+            assertThat(report.getP99Millis()).isLessThan(MAX_P99.toMillis());
+
+            if ("annotation".equals(profile)) {
+                long failed = report.getPublished("nack.test.exchange/nack.routing.key") + report.getPublished("reject.test.exchange/reject.routing.key");
+                //처음 nack(reject)된 뒤 MAX_ATTEMPTS번 재시도하고 다시 실패하면 parking lot Queue로 보냅니다.
+                assertThat(report.getRejected()).isEqualTo(failed * (MAX_ATTEMPTS + 1));
+                assertThat(report.getReturned()).isEqualTo(failed * MAX_ATTEMPTS);
+                assertThat(report.getDepth("dead.letter.parking.queue")).isEqualTo((int) failed);
+            } else {
+                assertThat(report.getDeadLettered()).isZero();
+            }
+        }
+    }
+
+    //프로파일별로 애플리케이션이 선언하지 않는 Queue, Exchange를 미리 만들고 Listener가 있는 Queue로 보내도록 설정합니다.
+    private static void scenario(String profile, EmbeddedBroker broker, LoadGenerator generator) {
+        switch (profile) {
+            case "annotation":
+                //dead.letter.exchange, dead.letter.queue는 운영자가 직접 생성합니다. (DeadLetterRetryConfig 참고)
+                Queue deadLetterQueue = new Queue("dead.letter.queue");
+                DirectExchange deadLetterExchange = new DirectExchange("dead.letter.exchange");
+                broker.declare(deadLetterQueue, deadLetterExchange, BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with("dlx.routing.key"));
+                generator.target("messageInfo.test.exchange", "messageInfo.routing.key", 18, MessageInfo.class)
+                        .target("nack.test.exchange", "nack.routing.key", 1, MessageInfo.class)
+                        .target("reject.test.exchange", "reject.routing.key", 1, MessageInfo.class);
+                break;
+            case "factory":
+                generator.target("ack.test.exchange", "ack.routing.key", 1, MessageInfo.class);
+                break;
+            case "container":
+                //container 프로파일은 ack.test.queue를 선언하지 않으므로 미리 만들어 둡니다. (RabbitMQContainerConfig 참고)
+                broker.declare(new Queue("ack.test.queue", false));
+                generator.target("", "ack.test.queue", 1, MessageInfo.class)
+                        .target("ack.receiver.exchange", "ack.receiver.routing.key", 1, String.class)
+                        .target("ack.receiver.exchange", "sharded.routing.key", 1, MessageInfo.class);
+                break;
+            default:
+                throw new IllegalArgumentException("No load scenario for profile " + profile);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String profile, EmbeddedBroker broker) {
+        return new SpringApplicationBuilder(ConsumerApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(new EmbeddedBrokerInitializer(broker))
+                .run("--spring.profiles.active=" + profile,
+                        "--consumer.retry.delays=20ms,50ms",
+                        "--consumer.retry.max-attempts=" + MAX_ATTEMPTS,
+                        "--consumer.retry.redeliveries-per-second=0",
+                        //메시지마다 남기는 Listener 로그를 끄고 결과 로그만 남깁니다.
+                        "--logging.level.com.rabbitmq.consumer=WARN",
+                        "--logging.level.com.rabbitmq.consumer.ConsumerLoadTest=INFO");
+    }
+
+    //Spring Boot는 ConnectionFactory Bean이 있으면 CachingConnectionFactory를 만들지 않으므로 EmbeddedBroker에 연결하는 Bean을 먼저 등록합니다.
+    private static final class EmbeddedBrokerInitializer implements ApplicationContextInitializer<GenericApplicationContext> {
+
+        private final EmbeddedBroker broker;
+
+        private EmbeddedBrokerInitializer(EmbeddedBroker broker) {
+            this.broker = broker;
+        }
+
+        @Override
+        public void initialize(GenericApplicationContext context) {
+            context.registerBean("rabbitConnectionFactory", CachingConnectionFactory.class, () -> new CachingConnectionFactory(broker.connectionFactory()));
+        }
+
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.rabbitmq.consumer.ack;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+//Channel을 mock으로 만들어서 전송된 frame(basicAck, basicNack, basicReject 호출)을 확인합니다. 브로커 없이 실행됩니다.
+class AckCoalescerTest {
+
+    private final Channel channel = mock(Channel.class);
+
+    @Test
+    void contiguousAcksBecomeOneMultipleFrame() throws Exception {
+        AckCoalescer coalescer = new AckCoalescer(channel, 100);
+        for (long tag = 1; tag <= 5; tag++) {
+            coalescer.ack(tag);
+        }
+
+        coalescer.flush(false);
+
+        verify(channel).basicAck(5, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void stopsAtOutstandingTagUntilItIsSettled() throws Exception {
+        AckCoalescer coalescer = new AckCoalescer(channel, 100);
+        coalescer.ack(1);
+        coalescer.ack(2);
+        coalescer.ack(4);
+        coalescer.ack(5);
+
+        coalescer.flush(false);
+        verify(channel).basicAck(2, true);
+        assertThat(coalescer.getPending()).isEqualTo(2);
+
+        coalescer.nack(3, false);
+        coalescer.flush(false);
+
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicAck(2, true);
+        inOrder.verify(channel).basicNack(3, false, false);
+        inOrder.verify(channel).basicAck(5, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void splitsRunsWhenOutcomeChangesAndMapsRejectToNack() throws Exception {
+        AckCoalescer coalescer = new AckCoalescer(channel, 100);
+        coalescer.ack(1);
+        coalescer.ack(2);
+        coalescer.nack(3, false);
+        coalescer.reject(4, false);
+        coalescer.reject(5, true);
+        coalescer.ack(6);
+
+        coalescer.flush(false);
+
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicAck(2, true);
+        inOrder.verify(channel).basicNack(4, true, false);
+        inOrder.verify(channel).basicNack(5, false, true);
+        inOrder.verify(channel).basicAck(6, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void forcedFlushSendsTagsBehindGapIndividually() throws Exception {
+        AckCoalescer coalescer = new AckCoalescer(channel, 100);
+        coalescer.ack(1);
+        coalescer.ack(3);
+        coalescer.ack(4);
+
+        coalescer.flush(true);
+        coalescer.ack(2);
+        coalescer.ack(5);
+        coalescer.ack(6);
+        coalescer.flush(false);
+
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicAck(1, false);
+        inOrder.verify(channel).basicAck(3, false);
+        inOrder.verify(channel).basicAck(4, false);
+        //3, 4는 이미 전송되었으므로 2 ~ 6을 multiple로 전송해도 6이 마지막 frame이 됩니다.
+        inOrder.verify(channel).basicAck(6, true);
+        verifyNoMoreInteractions(channel);
+        assertThatThrownBy(() -> coalescer.ack(3)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void slowTagIsNeverCoveredByMultipleAck() throws Exception {
+        AckCoalescer coalescer = new AckCoalescer(channel, 100);
+        coalescer.ack(1);
+        //2는 Listener가 처리중입니다. flush(true)가 여러번 호출되어도 2 뒤의 결과는 하나씩만 전송합니다.
+        for (long tag = 3; tag <= 7; tag++) {
+            coalescer.ack(tag);
+            coalescer.flush(true);
+            coalescer.flush(true);
+        }
+        verify(channel, never()).basicAck(anyLong(), eq(true));
+        verify(channel, never()).basicAck(eq(2L), anyBoolean());
+
+        coalescer.nack(2, false);
+        coalescer.ack(8);
+        coalescer.ack(9);
+        coalescer.flush(false);
+
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicAck(1, false);
+        for (long tag = 3; tag <= 7; tag++) {
+            inOrder.verify(channel).basicAck(tag, false);
+        }
+        //2의 결과가 기록된 뒤에는 이미 전송된 3 ~ 7을 건너뛰고 다시 multiple로 전송합니다.
+        inOrder.verify(channel).basicNack(2, false, false);
+        inOrder.verify(channel).basicAck(9, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void compactsTagsSentAheadOfGap() throws Exception {
+        AckCoalescer coalescer = new AckCoalescer(channel, 1_000_000);
+        coalescer.ack(1);
+        for (long tag = 3; tag <= 10_000; tag++) {
+            coalescer.ack(tag);
+            if (tag % 100 == 0) {
+                coalescer.flush(true);
+            }
+        }
+        coalescer.flush(true);
+
+        //gap(2) 뒤에 하나씩 전송된 tag는 구간 하나로 보관합니다.
+        assertThat(coalescer.getSettledAheadRanges()).isEqualTo(1);
+        assertThat(coalescer.getStalledNanos()).isPositive();
+
+        coalescer.ack(2);
+        coalescer.flush(false);
+        assertThat(coalescer.getSettledAheadRanges()).isZero();
+        assertThat(coalescer.getStalledNanos()).isZero();
+    }
+
+    @Test
+    void keepsGapWhileLaterTagsAreStillPending() throws Exception {
+        AckCoalescer coalescer = new AckCoalescer(channel, 100);
+        coalescer.ack(1);
+        coalescer.ack(3);
+        coalescer.flush(true);
+        //4가 아직 처리중이므로 2를 건너뛰지 않습니다.
+        coalescer.ack(5);
+        coalescer.flush(true);
+        coalescer.ack(2);
+        coalescer.ack(4);
+        coalescer.flush(false);
+
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicAck(1, false);
+        inOrder.verify(channel).basicAck(3, false);
+        inOrder.verify(channel).basicAck(5, false);
+        inOrder.verify(channel).basicAck(4, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void flushesWhenBatchSizeIsReached() throws Exception {
+        AckCoalescer coalescer = new AckCoalescer(channel, 10);
+        for (long tag = 1; tag <= 1000; tag++) {
+            coalescer.ack(tag);
+        }
+
+        verify(channel, times(100)).basicAck(anyLong(), eq(true));
+        verify(channel).basicAck(1000, true);
+        assertThat(coalescer.getFrames()).isEqualTo(100);
+    }
+
+    @Test
+    void timerFlushesPendingResults() throws Exception {
+        when(channel.isOpen()).thenReturn(true);
+        AckCoalescers coalescers = new AckCoalescers(100, 20);
+        coalescers.start();
+        try {
+            coalescers.forChannel(channel).ack(1);
+            coalescers.forChannel(channel).ack(2);
+
+            verify(channel, timeout(TimeUnit.SECONDS.toMillis(2))).basicAck(2, true);
+        } finally {
+            coalescers.stop();
+        }
+        verify(channel, times(1)).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void closesChannelWhenGapOutlivesOrphanTimeout() throws Exception {
+        when(channel.isOpen()).thenReturn(true);
+        AckCoalescers coalescers = new AckCoalescers(100, 20, 200, null);
+        coalescers.start();
+        try {
+            coalescers.forChannel(channel).ack(1);
+            coalescers.forChannel(channel).ack(3);
+
+            //2의 결과가 기록되지 않으므로 ack하지 않고 Channel을 닫아서 브로커가 다시 전달하게 합니다.
+            verify(channel, timeout(TimeUnit.SECONDS.toMillis(2))).close();
+        } finally {
+            coalescers.stop();
+        }
+        verify(channel, never()).basicAck(eq(2L), anyBoolean());
+        verify(channel, never()).basicAck(anyLong(), eq(true));
+    }
+
+    @Test
+    void forChannelHandlesAlreadyClosedChannel() {
+        //닫힌 Channel은 addShutdownListener를 호출한 쓰레드에서 바로 Listener를 호출합니다.
+        doAnswer(invocation -> {
+            invocation.<ShutdownListener>getArgument(0).shutdownCompleted(new ShutdownSignalException(false, false, null, channel));
+            return null;
+        }).when(channel).addShutdownListener(any());
+        AckCoalescers coalescers = new AckCoalescers(100, 20);
+
+        AckCoalescer coalescer = coalescers.forChannel(channel);
+
+        assertThat(coalescer.getChannel()).isSameAs(channel);
+        assertThat(coalescers.forChannel(channel)).isNotSameAs(coalescer);
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.rabbitmq.consumer.boot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Connection 없이 start()만 기록하는 컨테이너로 ParallelContainerStarter가 LifecycleProcessor의 start()에서는 autoStartup만 끄고
+//이 Bean이 속한 ApplicationContext의 ContextRefreshedEvent(모든 phase가 시작된 뒤)에서 컨테이너를 시작하는지 확인합니다.
+class ParallelContainerStarterTest {
+
+    private final StaticApplicationContext applicationContext = new StaticApplicationContext();
+
+    private final RecordingContainer first = new RecordingContainer();
+
+    private final RecordingContainer second = new RecordingContainer();
+
+    private final ParallelContainerStarter starter = new ParallelContainerStarter(() -> List.<MessageListenerContainer>of(first, second), 2);
+
+    @Test
+    void startsContainersOnlyAfterContextRefreshed() throws InterruptedException {
+        starter.setApplicationContext(applicationContext);
+        starter.start();
+
+        assertThat(first.isAutoStartup()).isFalse();
+        assertThat(second.isAutoStartup()).isFalse();
+        assertThat(first.started.getCount()).isEqualTo(1);
+
+        //actuator 등 자식 ApplicationContext의 이벤트로는 시작하지 않습니다.
+        starter.onApplicationEvent(new ContextRefreshedEvent(new StaticApplicationContext()));
+        assertThat(first.started.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+        starter.onApplicationEvent(new ContextRefreshedEvent(applicationContext));
+        assertThat(first.started.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.started.await(1, TimeUnit.SECONDS)).isTrue();
+
+        //같은 ApplicationContext를 다시 refresh해도 한번만 시작합니다.
+        starter.onApplicationEvent(new ContextRefreshedEvent(applicationContext));
+        assertThat(first.starts).isEqualTo(1);
+        starter.stop();
+    }
+
+    @Test
+    void doesNotStartContainersWhenStoppedBeforeRefresh() throws InterruptedException {
+        starter.setApplicationContext(applicationContext);
+        starter.start();
+        starter.stop();
+
+        starter.onApplicationEvent(new ContextRefreshedEvent(applicationContext));
+        assertThat(first.started.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(starter.isRunning()).isFalse();
+    }
+
+    private static final class RecordingContainer extends SimpleMessageListenerContainer {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private volatile int starts;
+
+        @Override
+        public void start() {
+            starts++;
+            started.countDown();
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.rabbitmq.consumer.boot;
+
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//mock Channel의 queueDeclarePassive, exchangeDeclarePassive 결과에 따라 RabbitAdmin의 선언을 건너뛰는지 확인합니다. 브로커 없이 실행됩니다.
+class TopologyDeclarerTest {
+
+    private final RabbitAdmin rabbitAdmin = mock(RabbitAdmin.class);
+
+    private final Connection connection = mock(Connection.class);
+
+    private final Channel channel = mock(Channel.class);
+
+    private final Queue queue = new Queue("messageInfo.test.queue", false);
+
+    private final DirectExchange exchange = new DirectExchange("messageInfo.test.exchange");
+
+    private final Binding binding = BindingBuilder.bind(queue).to(exchange).with("messageInfo.routing.key");
+
+    private final TopologyDeclarer topologyDeclarer = new TopologyDeclarer(rabbitAdmin, () -> List.<Declarable>of(exchange, queue, binding));
+
+    @BeforeEach
+    void setUp() {
+        when(connection.createChannel(false)).thenReturn(channel);
+        when(channel.isOpen()).thenReturn(true);
+    }
+
+    @Test
+    void skipsDeclarationsWhenTopologyExists() throws IOException {
+        topologyDeclarer.onCreate(connection);
+
+        verify(channel).exchangeDeclarePassive("messageInfo.test.exchange");
+        verify(channel).queueDeclarePassive("messageInfo.test.queue");
+        verify(rabbitAdmin, never()).initialize();
+        assertThat(topologyDeclarer.getSkipped()).isEqualTo(1);
+    }
+
+    @Test
+    void declaresAllWhenQueueIsMissing() throws IOException {
+        when(channel.queueDeclarePassive(anyString())).thenThrow(new IOException("NOT_FOUND - no queue"));
+
+        topologyDeclarer.onCreate(connection);
+
+        verify(rabbitAdmin).initialize();
+        assertThat(topologyDeclarer.getDeclared()).isEqualTo(1);
+    }
+
+    @Test
+    void stopsCheckingAtFirstMissingExchange() throws IOException {
+        when(channel.exchangeDeclarePassive(anyString())).thenThrow(new IOException("NOT_FOUND - no exchange"));
+
+        assertThat(topologyDeclarer.findMissing(connection)).isEqualTo("Exchange messageInfo.test.exchange");
+        //404 이후 Channel은 브로커가 닫으므로 다음 확인을 하지 않습니다.
+        verify(channel, never()).queueDeclarePassive(anyString());
+    }
+
+    @Test
+    void ignoresDeclarablesThatShouldNotBeDeclared() throws IOException {
+        Queue external = new Queue("external.queue", false);
+        external.setShouldDeclare(false);
+        TopologyDeclarer declarer = new TopologyDeclarer(rabbitAdmin, () -> List.<Declarable>of(external));
+
+        assertThat(declarer.findMissing(connection)).isNull();
+        verify(channel, never()).queueDeclarePassive(anyString());
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.rabbitmq.consumer.connection;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+//stripe를 mock ConnectionFactory로 만들어서 Listener 컨테이너가 Queue별로 어떤 stripe를 사용하는지 확인합니다. 브로커 없이 실행됩니다.
+class StripedConnectionFactoryTest {
+
+    private final List<ConnectionFactory> stripes = new ArrayList<>();
+
+    @Test
+    void assignsQueuesToStripesInOrderAndKeepsAssignment() {
+        StripedConnectionFactory connectionFactory = striped(3);
+
+        assertThat(connectionFactory.stripeOf("[a]")).isEqualTo(0);
+        assertThat(connectionFactory.stripeOf("[b]")).isEqualTo(1);
+        assertThat(connectionFactory.stripeOf("[c]")).isEqualTo(2);
+        assertThat(connectionFactory.stripeOf("[d]")).isEqualTo(0);
+        assertThat(connectionFactory.stripeOf("[b]")).isEqualTo(1);
+        assertThat(connectionFactory.getAssignments()).hasSize(4);
+    }
+
+    @Test
+    void listenerContainersUseTheStripeOfTheirQueues() {
+        StripedConnectionFactory connectionFactory = striped(2);
+
+        SimpleMessageListenerContainer simple = new SimpleMessageListenerContainer(connectionFactory);
+        simple.setQueueNames("ack.test.queue");
+        DirectMessageListenerContainer direct = new DirectMessageListenerContainer(connectionFactory);
+        direct.setQueueNames("ack.receiver.queue");
+
+        assertThat(simple.getConnectionFactory()).isSameAs(stripes.get(0));
+        assertThat(direct.getConnectionFactory()).isSameAs(stripes.get(1));
+        //컨테이너를 다시 시작해도 같은 Connection을 사용합니다.
+        assertThat(simple.getConnectionFactory()).isSameAs(stripes.get(0));
+    }
+
+    @Test
+    void templatesAndAdminsUseTheFirstStripe() {
+        StripedConnectionFactory connectionFactory = striped(2);
+        Connection connection = mock(Connection.class);
+        when(stripes.get(0).createConnection()).thenReturn(connection);
+
+        assertThat(connectionFactory.createConnection()).isSameAs(connection);
+        verify(stripes.get(0)).createConnection();
+        verifyNoInteractions(stripes.get(1));
+        assertThat(connectionFactory.getAssignments()).isEmpty();
+    }
+
+    private StripedConnectionFactory striped(int count) {
+        for (int i = 0; i < count; i++) {
+            stripes.add(mock(ConnectionFactory.class));
+        }
+        return new StripedConnectionFactory("consumer", stripes);
+    }
+
+}
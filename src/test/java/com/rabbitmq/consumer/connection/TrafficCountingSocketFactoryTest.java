@@ -0,0 +1,121 @@
+package com.rabbitmq.consumer.connection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//loopback Socket으로 AMQP frame 형식의 byte를 주고받아서 Connection별 byte, frame 수를 확인합니다.
+class TrafficCountingSocketFactoryTest {
+
+    private static final byte[] PROTOCOL_HEADER = {'A', 'M', 'Q', 'P', 0, 0, 9, 1};
+
+    @Test
+    void countsBytesAndFramesInBothDirections() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TrafficCountingSocketFactory socketFactory = new TrafficCountingSocketFactory("consumer-0", meterRegistry);
+
+        //method, content header, body 3개(body가 frame-max보다 큰 경우)와 heartbeat로 메시지 하나를 전달하는 상황입니다.
+        byte[] deliveries = frames(frame(1, 1, 40), frame(2, 1, 30), frame(3, 1, 4096), frame(3, 1, 4096), frame(3, 1, 100), frame(8, 0, 0));
+        byte[] acks = frames(PROTOCOL_HEADER, frame(1, 1, 13), frame(1, 1, 13));
+
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<byte[]> received = CompletableFuture.supplyAsync(() -> {
+                try (Socket socket = server.accept()) {
+                    socket.getOutputStream().write(deliveries);
+                    socket.getOutputStream().flush();
+                    byte[] read = new byte[acks.length];
+                    new DataInputStream(socket.getInputStream()).readFully(read);
+                    return read;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            try (Socket socket = socketFactory.createSocket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+                OutputStream out = socket.getOutputStream();
+                //amqp-client와 같이 protocol header는 1 byte씩, frame은 배열로 보냅니다.
+                for (byte b : PROTOCOL_HEADER) {
+                    out.write(b);
+                }
+                out.write(acks, PROTOCOL_HEADER.length, acks.length - PROTOCOL_HEADER.length);
+                out.flush();
+
+                //frame 경계와 상관없이 잘라서 읽어도 frame 수가 같아야 합니다.
+                InputStream in = socket.getInputStream();
+                byte[] buffer = new byte[1000];
+                int total = 0;
+                while (total < deliveries.length) {
+                    int read = total % 2 == 0 ? in.read(buffer, 0, Math.min(buffer.length, deliveries.length - total)) : readOne(in);
+                    total += read;
+                }
+                assertThat(received.get(10, TimeUnit.SECONDS)).isEqualTo(acks);
+            }
+        }
+
+        assertThat(socketFactory.getBytesIn()).isEqualTo(deliveries.length);
+        assertThat(socketFactory.getFramesIn()).isEqualTo(6);
+        assertThat(socketFactory.getBytesOut()).isEqualTo(acks.length);
+        assertThat(socketFactory.getFramesOut()).isEqualTo(2);
+        assertThat(meterRegistry.get("rabbitmq.consumer.connection.frames").tag("connection", "consumer-0").tag("direction", "in")
+                .functionCounter().count()).isEqualTo(6);
+    }
+
+    @Test
+    void frameCounterHandlesHeadersSplitAcrossReads() {
+        LongAdder frames = new LongAdder();
+        FrameCounter counter = new FrameCounter(frames, 0);
+        byte[] bytes = frames(frame(1, 1, 300), frame(3, 1, 70000), frame(8, 0, 0));
+
+        for (int offset = 0; offset < bytes.length; offset += 3) {
+            counter.update(bytes, offset, Math.min(3, bytes.length - offset));
+        }
+
+        assertThat(frames.sum()).isEqualTo(3);
+    }
+
+    private static int readOne(InputStream in) throws IOException {
+        return in.read() < 0 ? -1 : 1;
+    }
+
+    private static byte[] frame(int type, int channel, int size) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeShort(channel);
+            out.writeInt(size);
+            byte[] payload = new byte[size];
+            byte[] text = "payload".getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(text, 0, payload, 0, Math.min(text.length, size));
+            out.write(payload);
+            out.writeByte(0xCE);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] frames(byte[]... frames) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            bytes.writeBytes(frame);
+        }
+        return bytes.toByteArray();
+    }
+
+}
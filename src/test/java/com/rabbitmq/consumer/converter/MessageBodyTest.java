@@ -0,0 +1,111 @@
+package com.rabbitmq.consumer.converter;
+
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.listener.adapter.MessageListenerAdapter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//큰 메시지를 String으로 변환하지 않고 MessageBody로 넘기는지, MessageBody에서 필요한 값만 복사 없이 읽는지 확인합니다.
+class MessageBodyTest {
+
+    private final MessageConverter json = new JsonMessageConverterConfig().jsonMessageConverter();
+
+    private final MessageConverter wireFormat = new WireFormatMessageConverter(json, false, -1);
+
+    @Test
+    void readsFieldsWithoutCopyingBody() throws Exception {
+        String large = "x".repeat(100_000);
+        MessageBody body = body("{\"skip\":{\"a\":[1,\"}\",{\"b\":\"" + large + "\"}]},\"publisher\":\"p-1\",\"order\":{\"id\":42,\"note\":null},"
+                + "\"message\":\"" + large + "\"}");
+
+        assertThat(body.valueAsString("publisher")).isEqualTo("p-1");
+        assertThat(body.valueAsString("order", "id")).isEqualTo("42");
+        assertThat(body.valueAsString("order", "note")).isNull();
+        assertThat(body.valueAsString("order", "missing")).isNull();
+        assertThat(body.value("publisher", "id")).isNull();
+
+        ByteBuffer message = body.value("message");
+        assertThat(message.isReadOnly()).isTrue();
+        assertThat(message.remaining()).isEqualTo(large.length());
+        try (InputStream stream = body.valueAsStream("message")) {
+            assertThat(stream.readAllBytes()).hasSize(large.length());
+        }
+        assertThat(body.asByteBuffer().remaining()).isEqualTo(body.length());
+    }
+
+    @Test
+    void decodesOnlyEscapedValues() {
+        MessageBody body = body("{\"message\":\"line\\n\\\"quoted\\\" \\u00e9\",\"raw\":\"é\"}");
+
+        assertThat(body.valueAsString("message")).isEqualTo("line\n\"quoted\" é");
+        assertThat(StandardCharsets.UTF_8.decode(body.value("message")).toString()).isEqualTo("line\n\"quoted\" é");
+        assertThat(body.valueAsString("raw")).isEqualTo("é");
+    }
+
+    @Test
+    void readsTopLevelStringOfReceiverMessages() {
+        Message message = json.toMessage("hello", new MessageProperties());
+        message.getMessageProperties().setInferredArgumentType(MessageBody.class);
+
+        MessageBody body = (MessageBody) wireFormat.fromMessage(message);
+
+        assertThat(body.valueAsString()).isEqualTo("hello");
+    }
+
+    @Test
+    void viewsDecompressedBody() {
+        Message compressed = new WireFormatMessageConverter(json, false, 0).toMessage("y".repeat(4096), new MessageProperties());
+        compressed.getMessageProperties().setInferredArgumentType(MessageBody.class);
+
+        MessageBody body = (MessageBody) wireFormat.fromMessage(compressed);
+
+        assertThat(body.length()).isEqualTo(4096 + 2);
+        assertThat(body.value().remaining()).isEqualTo(4096);
+    }
+
+    @Test
+    void bindsLargeMessagesToMessageBodyOverload() throws Exception {
+        RecordingReceiver receiver = new RecordingReceiver();
+        MessageListenerAdapter adapter = new MessageListenerAdapter(receiver, "receiveMessage");
+        adapter.setMessageConverter(new MessageBodyViewConverter(wireFormat, 1024));
+
+        adapter.onMessage(json.toMessage("small", new MessageProperties()), null);
+        adapter.onMessage(json.toMessage("z".repeat(2048), new MessageProperties()), null);
+
+        assertThat(receiver.received).hasSize(2);
+        assertThat(receiver.received.get(0)).isEqualTo("small");
+        assertThat(receiver.received.get(1)).isInstanceOf(MessageBody.class);
+        assertThat(receiver.received.get(1).toString()).hasSizeLessThan(512);
+    }
+
+    private static MessageBody body(String json) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return MessageBody.of(new Message(json.getBytes(StandardCharsets.UTF_8), messageProperties));
+    }
+
+    public static class RecordingReceiver {
+
+        final List<Object> received = new ArrayList<>();
+
+        public void receiveMessage(String message) {
+            received.add(message);
+        }
+
+        public void receiveMessage(MessageBody message) {
+            received.add(message);
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.rabbitmq.consumer.converter;
+
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageInfoMessageConverterTest {
+
+    private final MessageInfoMessageConverter converter =
+            new MessageInfoMessageConverter(new JsonMessageConverterConfig().jsonMessageConverter(), false);
+
+    @Test
+    void readsMessageInfoAndSkipsUnknownFields() {
+        MessageInfo messageInfo = (MessageInfo) converter.fromMessage(
+                json("{\"extra\":{\"a\":[1,2]},\"publisher\":\"producer-1\",\"message\":\"hello\",\"sentAt\":1640995200000}", MessageInfo.class));
+
+        assertThat(messageInfo.getPublisher()).isEqualTo("producer-1");
+        assertThat(messageInfo.getMessage()).isEqualTo("hello");
+    }
+
+    @Test
+    void fallsBackToJsonParserForEscapedStrings() {
+        MessageInfo messageInfo = (MessageInfo) converter.fromMessage(
+                json("{ \"publisher\" : \"p\\\"1\" , \"message\" : \"line\\nbreak \\u00e9\" }", MessageInfo.class));
+
+        assertThat(messageInfo.getPublisher()).isEqualTo("p\"1");
+        assertThat(messageInfo.getMessage()).isEqualTo("line\nbreak \u00e9");
+    }
+
+    @Test
+    void readsNullAndNonStringValues() {
+        MessageInfo messageInfo = (MessageInfo) converter.fromMessage(json("{\"publisher\":null,\"message\":42}", MessageInfo.class));
+
+        assertThat(messageInfo.getPublisher()).isNull();
+        assertThat(messageInfo.getMessage()).isEqualTo("42");
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertThatThrownBy(() -> converter.fromMessage(json("{\"publisher\":\"p\"", MessageInfo.class)))
+                .isInstanceOf(MessageConversionException.class);
+    }
+
+    @Test
+    void internsRepeatedPublishers() {
+        MessageInfo first = (MessageInfo) converter.fromMessage(json("{\"publisher\":\"producer-1\",\"message\":\"a\"}", MessageInfo.class));
+        MessageInfo second = (MessageInfo) converter.fromMessage(json("{\"publisher\":\"producer-1\",\"message\":\"b\"}", MessageInfo.class));
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getPublisher()).isSameAs(first.getPublisher());
+    }
+
+    @Test
+    void reusesInstancePerThreadWhenEnabled() {
+        MessageInfoMessageConverter reusing = new MessageInfoMessageConverter(new JsonMessageConverterConfig().jsonMessageConverter(), true);
+
+        MessageInfo first = (MessageInfo) reusing.fromMessage(json("{\"publisher\":\"p\",\"message\":\"a\"}", MessageInfo.class));
+        MessageInfo second = (MessageInfo) reusing.fromMessage(json("{\"message\":\"b\"}", MessageInfo.class));
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getPublisher()).isNull();
+        assertThat(second.getMessage()).isEqualTo("b");
+    }
+
+    @Test
+    void recognisesProducerTypeIdHeader() {
+        Message message = json("{\"publisher\":\"p\",\"message\":\"a\"}", null);
+        message.getMessageProperties().setHeader("__TypeId__", "com.rabbitmq.producer.dto.MessageInfo");
+
+        assertThat(converter.fromMessage(message)).isInstanceOf(MessageInfo.class);
+    }
+
+    @Test
+    void delegatesOtherTypesToJackson() {
+        Object converted = converter.fromMessage(json("{\"key\":\"value\"}", Map.class));
+
+        assertThat(converted).isEqualTo(Map.of("key", "value"));
+    }
+
+    private static Message json(String body, Class<?> inferredType) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setInferredArgumentType(inferredType);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.rabbitmq.consumer.converter;
+
+import com.rabbitmq.consumer.config.JsonMessageConverterConfig;
+import com.rabbitmq.consumer.dto.MessageInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//JSON, CBOR, LZ4 압축 메시지를 보내는 Producer가 섞여있을때 같은 MessageConverter로 모두 MessageInfo로 변환되는지 확인합니다.
+class WireFormatMessageConverterTest {
+
+    private final MessageConverter json = new JsonMessageConverterConfig().jsonMessageConverter();
+
+    private final WireFormatMessageConverter consumer =
+            new WireFormatMessageConverter(new MessageInfoMessageConverter(json, false), false, -1);
+
+    @Test
+    void readsJsonFromExistingProducers() {
+        Message message = json.toMessage(messageInfo("producer-json", "hello"), new MessageProperties());
+
+        assertThat(read(message)).extracting(MessageInfo::getPublisher, MessageInfo::getMessage).containsExactly("producer-json", "hello");
+    }
+
+    @Test
+    void readsCborWithAndWithoutCompression() {
+        Message cbor = new WireFormatMessageConverter(json, true, -1).toMessage(messageInfo("producer-cbor", "hello"), new MessageProperties());
+        assertThat(cbor.getMessageProperties().getContentType()).isEqualTo(WireFormatMessageConverter.CONTENT_TYPE_CBOR);
+        assertThat(read(cbor).getPublisher()).isEqualTo("producer-cbor");
+
+        Message compressed = new WireFormatMessageConverter(json, true, 0).toMessage(messageInfo("producer-cbor", "x".repeat(4096)), new MessageProperties());
+        assertThat(compressed.getMessageProperties().getContentEncoding()).isEqualTo(WireFormatMessageConverter.CONTENT_ENCODING_LZ4);
+        assertThat(compressed.getBody().length).isLessThan(512);
+        assertThat(read(compressed).getMessage()).hasSize(4096);
+    }
+
+    @Test
+    void restoresCharsetOfCompressedJson() {
+        Message compressed = new WireFormatMessageConverter(json, false, 64).toMessage(messageInfo("producer-lz4", "é".repeat(100)), new MessageProperties());
+        assertThat(compressed.getMessageProperties().getContentEncoding()).isEqualTo("lz4:UTF-8");
+
+        MessageInfo messageInfo = read(compressed);
+        assertThat(messageInfo.getMessage()).isEqualTo("é".repeat(100));
+    }
+
+    @Test
+    void leavesReceivedMessageUnchanged() {
+        Message compressed = new WireFormatMessageConverter(json, false, 64).toMessage(messageInfo("producer-lz4", "x".repeat(4096)), new MessageProperties());
+        byte[] body = compressed.getBody().clone();
+
+        assertThat(read(compressed).getMessage()).hasSize(4096);
+        //DeadLetterRetrier는 받은 Message를 그대로 다시 보내므로 압축된 body와 content-encoding이 유지되어야 합니다.
+        assertThat(compressed.getBody()).isEqualTo(body);
+        assertThat(compressed.getMessageProperties().getContentEncoding()).isEqualTo("lz4:UTF-8");
+        assertThat(compressed.getMessageProperties().getContentLength()).isEqualTo(body.length);
+        assertThat(consumer.fromMessage(compressed)).isInstanceOf(MessageInfo.class);
+    }
+
+    @Test
+    void keepsSmallMessagesUncompressed() {
+        Message message = new WireFormatMessageConverter(json, false, 1024).toMessage(messageInfo("p", "short"), new MessageProperties());
+
+        assertThat(message.getMessageProperties().getContentEncoding()).isEqualTo(StandardCharsets.UTF_8.name());
+    }
+
+    @Test
+    void readsCborWithoutTypeAsMap() {
+        Message cbor = new WireFormatMessageConverter(json, true, -1).toMessage(Map.of("publisher", "p"), new MessageProperties());
+        cbor.getMessageProperties().getHeaders().remove("__TypeId__");
+
+        assertThat(consumer.fromMessage(cbor)).isEqualTo(Map.of("publisher", "p"));
+    }
+
+    @Test
+    void rejectsCorruptedCompressedBody() {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentEncoding(WireFormatMessageConverter.CONTENT_ENCODING_LZ4);
+
+        assertThatThrownBy(() -> consumer.fromMessage(new Message(new byte[]{5, 0, 0, 0, 1, 2, 3}, messageProperties)))
+                .isInstanceOf(MessageConversionException.class);
+    }
+
+    @Test
+    void viewThresholdUsesDecompressedLength() {
+        Message compressed = new WireFormatMessageConverter(json, false, 64).toMessage(messageInfo("producer-lz4", "x".repeat(4096)), new MessageProperties());
+        assertThat(compressed.getBody().length).isLessThan(1024);
+        assertThat(WireFormatMessageConverter.decodedLength(compressed)).isGreaterThan(4096);
+
+        //압축된 body는 1024 byte보다 작지만 압축을 풀면 view-above 이상이므로 MessageBody로 변환합니다.
+        MessageConverter adapterConverter = new MessageBodyViewConverter(new WireFormatMessageConverter(json, false, -1), 1024);
+        assertThat(adapterConverter.fromMessage(compressed)).isInstanceOf(MessageBody.class);
+        //받은 Message의 속성은 바뀌지 않아야 합니다.
+        assertThat(compressed.getMessageProperties().getInferredArgumentType()).isNull();
+        Message small = new WireFormatMessageConverter(json, false, 64).toMessage(messageInfo("producer-lz4", "x".repeat(100)), new MessageProperties());
+        assertThat(adapterConverter.fromMessage(small)).isNotInstanceOf(MessageBody.class);
+    }
+
+    private MessageInfo read(Message message) {
+        message.getMessageProperties().setInferredArgumentType(MessageInfo.class);
+        return (MessageInfo) consumer.fromMessage(message);
+    }
+
+    private static MessageInfo messageInfo(String publisher, String text) {
+        MessageInfo messageInfo = new MessageInfo();
+        messageInfo.setPublisher(publisher);
+        messageInfo.setMessage(text);
+        return messageInfo;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.rabbitmq.consumer.dedup;
+
+import com.rabbitmq.client.Channel;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class DeduplicationAdviceTest {
+
+    private final DeduplicationAdvice advice = new DeduplicationAdvice(new MessageIdCache(1024, 60_000));
+
+    @Test
+    void skipsListenerForRedeliveredMessage() throws Throwable {
+        MethodInvocation first = invocation(message("id-1"));
+        MethodInvocation redelivery = invocation(message("id-1"));
+
+        advice.invoke(first);
+        advice.invoke(redelivery);
+
+        verify(first).proceed();
+        verify(redelivery, never()).proceed();
+    }
+
+    @Test
+    void failedMessageIsProcessedAgain() throws Throwable {
+        MethodInvocation failing = invocation(message("id-1"));
+        when(failing.proceed()).thenThrow(new IllegalStateException("listener failed"));
+        MethodInvocation redelivery = invocation(message("id-1"));
+
+        assertThatThrownBy(() -> advice.invoke(failing)).isInstanceOf(IllegalStateException.class);
+        advice.invoke(redelivery);
+
+        verify(redelivery).proceed();
+    }
+
+    @Test
+    void messagesWithoutIdAreAlwaysProcessed() throws Throwable {
+        MethodInvocation first = invocation(message(null));
+        MethodInvocation second = invocation(message(null));
+
+        advice.invoke(first);
+        advice.invoke(second);
+
+        verify(second).proceed();
+    }
+
+    @Test
+    void removesDuplicatesFromBatch() throws Throwable {
+        advice.invoke(invocation(message("id-1")));
+        Message duplicate = message("id-1");
+        Message fresh = message("id-2");
+        MethodInvocation batch = invocation(List.of(duplicate, fresh));
+
+        advice.invoke(batch);
+
+        verify(batch).proceed();
+        assertThat(batch.getArguments()[1]).isEqualTo(List.of(fresh));
+    }
+
+    @Test
+    void sameIdFromAnotherQueueIsProcessed() throws Throwable {
+        MethodInvocation orders = invocation(message("order.queue", "id-1"));
+        MethodInvocation audit = invocation(message("audit.queue", "id-1"));
+        MethodInvocation redelivery = invocation(message("order.queue", "id-1"));
+
+        advice.invoke(orders);
+        advice.invoke(audit);
+        advice.invoke(redelivery);
+
+        //같은 MessageIdCache를 공유하더라도 Queue마다 따로 중복을 확인합니다.
+        verify(orders).proceed();
+        verify(audit).proceed();
+        verify(redelivery, never()).proceed();
+    }
+
+    private static MethodInvocation invocation(Object data) {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[]{mock(Channel.class), data});
+        return invocation;
+    }
+
+    private static Message message(String messageId) {
+        return message("ack.test.queue", messageId);
+    }
+
+    private static Message message(String queue, String messageId) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setConsumerQueue(queue);
+        messageProperties.setMessageId(messageId);
+        return new Message(new byte[0], messageProperties);
+    }
+
+}
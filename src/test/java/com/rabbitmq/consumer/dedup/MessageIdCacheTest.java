@@ -0,0 +1,68 @@
+package com.rabbitmq.consumer.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageIdCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void remembersProcessedIds() {
+        MessageIdCache cache = new MessageIdCache(1024, 60_000, now::get);
+
+        assertThat(cache.contains("id-1")).isFalse();
+        cache.add("id-1");
+
+        assertThat(cache.contains("id-1")).isTrue();
+        assertThat(cache.contains("id-2")).isFalse();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void forgetsIdsAfterTtl() {
+        MessageIdCache cache = new MessageIdCache(1024, 60_000, now::get);
+        cache.add("id-1");
+
+        now.addAndGet(60_001);
+
+        assertThat(cache.contains("id-1")).isFalse();
+        assertThat(cache.getExpirations()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlySeenIdsWhenFull() {
+        MessageIdCache cache = new MessageIdCache(256, 60_000, now::get);
+        cache.add("recent");
+        for (int i = 0; i < 10_000; i++) {
+            now.incrementAndGet();
+            cache.add("id-" + i);
+            if (i % 16 == 0) {
+                assertThat(cache.contains("recent")).isTrue();
+            }
+        }
+
+        assertThat(cache.getEvictions()).isGreaterThan(9_000);
+        assertThat(cache.contains("recent")).isTrue();
+        assertThat(cache.contains("id-9999")).isTrue();
+        assertThat(cache.contains("id-0")).isFalse();
+    }
+
+    @Test
+    void footprintDoesNotGrowWithIds() {
+        MessageIdCache cache = new MessageIdCache(1 << 16, 60_000, now::get);
+        long footprint = cache.footprintBytes();
+
+        for (int i = 0; i < 2_000_000; i++) {
+            cache.add(Integer.toString(i));
+        }
+
+        assertThat(cache.footprintBytes()).isEqualTo(footprint).isEqualTo((1 << 16) * 16L);
+        assertThat(cache.contains("1999999")).isTrue();
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.rabbitmq.consumer.executor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+//Listener가 I/O를 기다리며 멈춰있는 상황(CountDownLatch 대기)을 Consumer 수만큼 만들어서 mode별로 동시에 처리중인(in-flight) 메시지 수와
+//그때 늘어난 메모리를 비교합니다. 플랫폼 쓰레드의 스택은 heap 밖(native)에 잡히므로 heap 증가량과 함께 프로세스 RSS 증가량(Linux)도 출력합니다.
+//VIRTUAL은 Java 21 이상에서 실행한 경우에만 수행됩니다. (./gradlew test -PruntimeJavaVersion=21)
+@Slf4j
+class ListenerExecutorFactoryTest {
+
+    @Test
+    void platformModeRunsEachConsumerOnItsOwnThread() throws Exception {
+        InFlight inFlight = block(new ListenerExecutorFactory(ListenerExecutorMode.PLATFORM, 0), 500);
+
+        assertThat(inFlight.count).isEqualTo(500);
+    }
+
+    @Test
+    void boundedModeRestartsConsumersWhileOldOnesStillHoldThreads() throws Exception {
+        ListenerExecutorFactory factory = new ListenerExecutorFactory(ListenerExecutorMode.BOUNDED, 8);
+        Executor executor = factory.create("bounded", 8);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch restarted = new CountDownLatch(8);
+        AtomicInteger rejected = new AtomicInteger();
+
+        //SimpleMessageListenerContainer와 같이 Consumer 작업 안에서 새 Consumer 작업을 실행한 뒤 종료합니다.
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                    executor.execute(restarted::countDown);
+                } catch (RejectedExecutionException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        //모든 Consumer가 동시에 재시작해도 거부되지 않습니다.
+        release.countDown();
+
+        assertThat(restarted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(rejected).hasValue(0);
+        factory.destroy();
+    }
+
+    @Test
+    void boundedModeChecksMaxConsumersAtStartup() {
+        ListenerExecutorFactory factory = new ListenerExecutorFactory(ListenerExecutorMode.BOUNDED, 16);
+
+        factory.create("simpleMessageListenerContainer", 16);
+        assertThatThrownBy(() -> factory.create("simpleMessageListenerContainer", 20))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("simpleMessageListenerContainer");
+        //PLATFORM, VIRTUAL은 Consumer 수를 제한하지 않습니다.
+        assertThat(new ListenerExecutorFactory(ListenerExecutorMode.PLATFORM, 16).create("simpleMessageListenerContainer", 20)).isNotNull();
+    }
+
+    @Test
+    void virtualModeHoldsManyBlockedListenersPerMegabyte() throws Exception {
+        assumeTrue(ListenerExecutorFactory.isVirtualThreadSupported(), "virtual threads require Java 21");
+
+        ListenerExecutorFactory factory = new ListenerExecutorFactory(ListenerExecutorMode.VIRTUAL, 0);
+        InFlight virtual = block(factory, 20_000);
+        factory.destroy();
+        InFlight platform = block(new ListenerExecutorFactory(ListenerExecutorMode.PLATFORM, 0), 2_000);
+
+        assertThat(virtual.count).isEqualTo(20_000);
+        assertThat(virtual.perMegabyte()).isGreaterThan(platform.perMegabyte());
+    }
+
+    //listeners개의 Listener 호출을 시작하고 모두 대기 상태가 되거나 더 이상 시작되지 않을때까지 기다린 뒤 in-flight 수와 메모리 증가량을 측정합니다.
+    private static InFlight block(ListenerExecutorFactory factory, int listeners) throws Exception {
+        Executor executor = factory.create("load-test-" + factory.getMode().name().toLowerCase(), listeners);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        long heapBefore = usedHeap();
+        long rssBefore = rss();
+
+        for (int i = 0; i < listeners; i++) {
+            executor.execute(() -> {
+                started.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        int previous = -1;
+        while (started.get() != previous) {
+            previous = started.get();
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+
+        InFlight inFlight = new InFlight(started.get(), usedHeap() - heapBefore, rss() - rssBefore);
+        release.countDown();
+        log.info("{}: in-flight {}, heap +{} KB, rss +{} KB, {} in-flight/MB", factory.getMode(), inFlight.count,
+                inFlight.heapBytes / 1024, inFlight.rssBytes / 1024, String.format("%.1f", inFlight.perMegabyte()));
+        return inFlight;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    //Linux가 아닌 경우 0을 반환하며 이때는 heap 증가량만으로 비교합니다.
+    private static long rss() {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return 0;
+        }
+        try {
+            return Files.readAllLines(status).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                    .findFirst().orElse(0);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static class InFlight {
+        private final int count;
+        private final long heapBytes;
+        private final long rssBytes;
+
+        InFlight(int count, long heapBytes, long rssBytes) {
+            this.count = count;
+            this.heapBytes = heapBytes;
+            this.rssBytes = rssBytes;
+        }
+
+        //RSS에는 heap 증가분도 포함되므로 둘 중 큰 값을 사용합니다.
+        double perMegabyte() {
+            long bytes = Math.max(1, Math.max(heapBytes, rssBytes));
+            return count / (bytes / (1024.0 * 1024.0));
+        }
+    }
+
+}
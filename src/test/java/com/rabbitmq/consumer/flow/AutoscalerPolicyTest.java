@@ -0,0 +1,85 @@
+package com.rabbitmq.consumer.flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Queue에 일정한 속도로 메시지가 들어오고 Consumer가 메시지당 고정된 시간만큼 처리하는 상황을 1초 단위로 시뮬레이션하여
+//AutoscalerPolicy가 적절한 Consumer 수로 수렴하는지 확인합니다.
+class AutoscalerPolicyTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AutoscalerPolicy policy = new AutoscalerProperties().toPolicy();
+
+    @Test
+    void convergesUnderSteadyLoadAndDrainsBacklog() {
+        SimulatedQueue queue = new SimulatedQueue(400, 10);
+
+        List<Integer> history = queue.run(policy, 1, 60);
+
+        //필요한 처리량은 400 msg/s * 10ms = Consumer 4개이며 목표 사용률 0.7 기준으로 6개에서 멈춰야 합니다.
+        assertThat(queue.consumers).isEqualTo(6);
+        assertThat(queue.depth).isZero();
+        assertThat(history.subList(40, 60)).containsOnly(queue.consumers);
+    }
+
+    @Test
+    void scalesDownAfterBurst() {
+        SimulatedQueue queue = new SimulatedQueue(800, 10);
+        queue.run(policy, 1, 30);
+        assertThat(queue.consumers).isEqualTo(10);
+
+        queue.arrivalsPerSecond = 50;
+        queue.run(policy, queue.consumers, 30);
+
+        assertThat(queue.consumers).isBetween(1, 2);
+        assertThat(queue.depth).isZero();
+    }
+
+    @Test
+    void prefetchShrinksForSlowListeners() {
+        AutoscalerPolicy.Decision fast = policy.decide(2, 250, new AutoscalerPolicy.Sample(SECOND, SECOND, 1000, 0));
+        AutoscalerPolicy.Decision slow = policy.decide(2, 250, new AutoscalerPolicy.Sample(SECOND, SECOND, 2, 0));
+
+        assertThat(fast.getPrefetch()).isEqualTo(250);
+        assertThat(slow.getPrefetch()).isEqualTo(2);
+    }
+
+    private static class SimulatedQueue {
+        private long arrivalsPerSecond;
+        private final long serviceMillis;
+        private long depth;
+        private int consumers;
+        private int prefetch = 250;
+
+        SimulatedQueue(long arrivalsPerSecond, long serviceMillis) {
+            this.arrivalsPerSecond = arrivalsPerSecond;
+            this.serviceMillis = serviceMillis;
+        }
+
+        List<Integer> run(AutoscalerPolicy policy, int initialConsumers, int seconds) {
+            consumers = initialConsumers;
+            List<Integer> history = new ArrayList<>();
+            for (int i = 0; i < seconds; i++) {
+                depth += arrivalsPerSecond;
+                long capacity = consumers * (1000 / serviceMillis);
+                long processed = Math.min(depth, capacity);
+                depth -= processed;
+
+                long busyNanos = TimeUnit.MILLISECONDS.toNanos(processed * serviceMillis);
+                AutoscalerPolicy.Decision decision = policy.decide(consumers, prefetch,
+                        new AutoscalerPolicy.Sample(SECOND, busyNanos, processed, depth));
+                consumers = decision.getConsumers();
+                prefetch = decision.getPrefetch();
+                history.add(consumers);
+            }
+            return history;
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.rabbitmq.consumer.flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Listener가 메시지를 Downstream(sink)에 넘기고 sink는 Queue에 들어오는 속도의 절반만 처리하는 상황을 1ms 단위로 시뮬레이션합니다.
+//컨테이너를 멈추지 않으면 Consumer가 받은 메시지가 sink 앞에 계속 쌓여서 지연 시간이 늘어나고
+//BackpressurePolicy로 멈추고 다시 시작하면 메시지는 Queue에서 기다리며 sink에 넘긴 뒤의 지연 시간은 highInFlight / sink 처리량 근처로 유지되는지 확인합니다.
+class BackpressurePolicyTest {
+
+    @Test
+    void boundsLatencyOfSlowSink() {
+        SimulatedSink uncontrolled = new SimulatedSink();
+        uncontrolled.run(null, 20_000);
+        assertThat(uncontrolled.maxLatencyMillis).isGreaterThan(5_000);
+
+        BackpressureProperties properties = new BackpressureProperties();
+        properties.setHighInFlight(500);
+        properties.setLowInFlight(100);
+        properties.setHighLatency(Duration.ofSeconds(2));
+        properties.setLowLatency(Duration.ofMillis(500));
+        properties.setHighHeap(0);
+        //시뮬레이션의 한 주기는 50ms이므로 cooldown 3 주기, probeWindows 3 주기로 확인합니다.
+        properties.setCooldown(Duration.ofSeconds(3));
+
+        SimulatedSink controlled = new SimulatedSink();
+        controlled.run(properties.toPolicy(), 20_000);
+
+        //sink 처리량 1 msg/ms 기준으로 highInFlight(500) + 한 주기(50ms) 동안 더 받은 메시지만큼만 기다립니다.
+        assertThat(controlled.maxLatencyMillis).isLessThan(1_000);
+        assertThat(controlled.maxInFlight).isLessThan(800);
+        assertThat(controlled.pauses).isGreaterThan(10);
+        //멈춘 동안에도 sink에 넘긴 메시지가 남아있도록 다시 시작하므로 sink 처리량은 줄어들지 않습니다.
+        assertThat(controlled.completed).isGreaterThan(19_000);
+    }
+
+    @Test
+    void resumesOnlyBelowLowWatermarks() {
+        BackpressureProperties properties = new BackpressureProperties();
+        properties.setHighInFlight(100);
+        properties.setLowInFlight(20);
+        properties.setCooldown(Duration.ofSeconds(2));
+        properties.setProbeWindows(2);
+        BackpressurePolicy policy = properties.toPolicy();
+
+        assertThat(policy.decide(sample(50, 10, 500, 0.8)).getAction()).isEqualTo(BackpressurePolicy.Action.HOLD);
+        assertThat(policy.decide(sample(150, 10, 100, 0.5)).getAction()).isEqualTo(BackpressurePolicy.Action.PAUSE);
+        //cooldown(2 주기)이 지나기 전에는 low 값 이하여도 다시 시작하지 않습니다.
+        assertThat(policy.decide(sample(0, 0, 0, 0.5)).getReason()).isEqualTo("cooldown");
+        assertThat(policy.decide(sample(50, 0, 0, 0.5)).getReason()).isEqualTo("in-flight");
+        assertThat(policy.decide(sample(20, 0, 0, 0.5)).getAction()).isEqualTo(BackpressurePolicy.Action.PROBE);
+
+        //다시 시작한 뒤 처리가 끝난 메시지가 없는 주기는 세지 않고 연속으로 low 값 이하인 주기가 probeWindows개여야 RESUME합니다.
+        assertThat(policy.decide(sample(10, 0, 0, 0.5)).getReason()).isEqualTo("no-sample");
+        assertThat(policy.decide(sample(10, 10, 100, 0.5)).getReason()).isEqualTo("probe");
+        assertThat(policy.decide(sample(10, 10, 100, 0.5)).getAction()).isEqualTo(BackpressurePolicy.Action.RESUME);
+        assertThat(policy.getState()).isEqualTo(BackpressurePolicy.State.RUNNING);
+
+        BackpressurePolicy.Decision heap = policy.decide(sample(0, 0, 0, 0.95));
+        assertThat(heap.getAction()).isEqualTo(BackpressurePolicy.Action.PAUSE);
+        assertThat(heap.getReason()).isEqualTo("heap");
+        policy.decide(sample(0, 0, 0, 0.8));
+        assertThat(policy.decide(sample(0, 0, 0, 0.8)).getReason()).isEqualTo("heap");
+    }
+
+    //application.yml과 같은 기본값(high-in-flight 사용 안함, latency 1s/200ms, interval 1s)으로 메시지 하나에 3초 걸리는 Downstream을 1초 주기로 확인합니다.
+    //멈춘 동안에는 처리가 끝나는 메시지가 없어 latency를 알 수 없으므로 cooldown마다 한번씩만 다시 시작해보고 Downstream이 느린 동안에는 RESUME하지 않습니다.
+    @Test
+    void holdsWithDefaultsWhileDownstreamIsSlow() {
+        BackpressurePolicy policy = new BackpressureProperties().toPolicy();
+        SlowDownstream downstream = new SlowDownstream(3_000);
+        int pauses = 0;
+        int probes = 0;
+        for (int second = 0; second < 120; second++) {
+            BackpressurePolicy.Sample sample = downstream.tick(policy.getState() != BackpressurePolicy.State.PAUSED);
+            BackpressurePolicy.Action action = policy.decide(sample).getAction();
+            assertThat(action).isNotEqualTo(BackpressurePolicy.Action.RESUME);
+            if (action == BackpressurePolicy.Action.PAUSE) {
+                pauses++;
+            } else if (action == BackpressurePolicy.Action.PROBE) {
+                probes++;
+            }
+        }
+        //멈춘 시간(cooldown 5초) + 다시 시작한 뒤 느린 메시지가 끝나는 시간(3초)마다 한번씩 다시 시작합니다.
+        assertThat(pauses).isGreaterThan(5);
+        assertThat(probes).isLessThanOrEqualTo(120 / 8);
+        assertThat(policy.getState()).isNotEqualTo(BackpressurePolicy.State.RUNNING);
+
+        //Downstream이 회복되면 probeWindows(3) 주기 뒤에 RESUME합니다.
+        downstream.latencyMillis = 50;
+        BackpressurePolicy.Action action = null;
+        for (int second = 0; second < 30 && action != BackpressurePolicy.Action.RESUME; second++) {
+            action = policy.decide(downstream.tick(policy.getState() != BackpressurePolicy.State.PAUSED)).getAction();
+        }
+        assertThat(action).isEqualTo(BackpressurePolicy.Action.RESUME);
+    }
+
+    private static BackpressurePolicy.Sample sample(long inFlight, long completed, double latencyMillis, double heapUsage) {
+        return new BackpressurePolicy.Sample(inFlight, completed, latencyMillis, heapUsage);
+    }
+
+    //Consumer 하나가 메시지 하나를 latencyMillis 동안 처리하는 Downstream입니다. 실행중이면 처리가 끝나는 즉시 다음 메시지를 받고
+    //멈추면 처리중인 메시지만 끝냅니다. 1초마다 BackpressureController와 같이 처리가 끝난 메시지 수와 평균 처리 시간으로 Sample을 만듭니다.
+    static class SlowDownstream {
+
+        long latencyMillis;
+        private long now;
+        private long busyUntil = -1;
+
+        SlowDownstream(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        BackpressurePolicy.Sample tick(boolean running) {
+            long end = now + 1_000;
+            long completed = 0;
+            long latencySum = 0;
+            while (true) {
+                if (busyUntil < 0) {
+                    if (!running) {
+                        break;
+                    }
+                    busyUntil = now + latencyMillis;
+                }
+                if (busyUntil > end) {
+                    break;
+                }
+                now = busyUntil;
+                busyUntil = -1;
+                completed++;
+                latencySum += latencyMillis;
+            }
+            now = end;
+            return new BackpressurePolicy.Sample(busyUntil < 0 ? 0 : 1, completed, completed == 0 ? 0 : (double) latencySum / completed, 0.5);
+        }
+
+    }
+
+    //Queue에 ms마다 2개씩 들어오고 실행중인 Consumer는 ms마다 최대 5개를 받아서 sink에 넘기며 sink는 ms마다 1개씩 처리합니다.
+    //50ms마다 sink에 넘긴 뒤 처리되지 않은 메시지 수(inFlight)와 처리가 끝난 메시지의 평균 지연 시간으로 BackpressurePolicy를 호출합니다.
+    static class SimulatedSink {
+
+        private static final int ARRIVALS_PER_MILLI = 2;
+        private static final int DELIVERIES_PER_MILLI = 5;
+        private static final int COMPLETIONS_PER_MILLI = 1;
+        private static final int INTERVAL_MILLIS = 50;
+
+        long queueDepth;
+        long completed;
+        long maxLatencyMillis;
+        long maxInFlight;
+        int pauses;
+
+        private final Deque<Long> inFlight = new ArrayDeque<>();
+
+        void run(BackpressurePolicy policy, int millis) {
+            long latencySum = 0;
+            long latencyCount = 0;
+            for (int now = 0; now < millis; now++) {
+                queueDepth += ARRIVALS_PER_MILLI;
+                if (policy == null || policy.getState() != BackpressurePolicy.State.PAUSED) {
+                    long deliveries = Math.min(queueDepth, DELIVERIES_PER_MILLI);
+                    queueDepth -= deliveries;
+                    for (int i = 0; i < deliveries; i++) {
+                        inFlight.add((long) now);
+                    }
+                }
+                for (int i = 0; i < COMPLETIONS_PER_MILLI && !inFlight.isEmpty(); i++) {
+                    long latency = now - inFlight.poll();
+                    maxLatencyMillis = Math.max(maxLatencyMillis, latency);
+                    latencySum += latency;
+                    latencyCount++;
+                    completed++;
+                }
+                maxInFlight = Math.max(maxInFlight, inFlight.size());
+
+                if (policy != null && now % INTERVAL_MILLIS == INTERVAL_MILLIS - 1) {
+                    double latencyMillis = latencyCount == 0 ? 0 : (double) latencySum / latencyCount;
+                    BackpressurePolicy.Sample sample = new BackpressurePolicy.Sample(inFlight.size(), latencyCount, latencyMillis, 0);
+                    if (policy.decide(sample).getAction() == BackpressurePolicy.Action.PAUSE) {
+                        pauses++;
+                    }
+                    latencySum = 0;
+                    latencyCount = 0;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.rabbitmq.consumer.flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//시계를 직접 움직여서 허가가 발급되는 속도를 확인합니다.
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void allowsBurstThenSpacesReservationsAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.reserve()).isZero();
+        }
+        //남은 허가가 없으므로 0.1초 간격으로 예약됩니다.
+        assertThat(bucket.reserve()).isEqualTo(SECOND / 10);
+        assertThat(bucket.reserve()).isEqualTo(2 * SECOND / 10);
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        clock.addAndGet(SECOND);
+        //1초 동안 10개가 생겼지만 예약된 2개를 빼면 8개 중 burst(5)까지만 남습니다.
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire()).isTrue();
+        }
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void doesNotLimitWhenRateIsNotPositive() {
+        TokenBucket bucket = new TokenBucket(0, 1, clock::get);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(bucket.reserve()).isZero();
+        }
+        assertThat(bucket.isUnlimited()).isTrue();
+    }
+
+}
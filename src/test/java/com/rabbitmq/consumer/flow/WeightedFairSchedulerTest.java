@@ -0,0 +1,136 @@
+package com.rabbitmq.consumer.flow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Queue 하나에 메시지가 몰린 상황(flood Listener의 Consumer 16개, quiet Listener의 Consumer 4개)을 worker 2개로 실행합니다.
+//worker를 먼저 요청한 쓰레드 순서로 나누면 쓰레드 수 비율대로 flood가 대부분을 차지하고 WeightedFairScheduler를 사용하면 weight 비율대로 나누어 실행되는지 확인합니다.
+//Listener 실행은 Downstream 호출처럼 CPU를 사용하지 않고 WORK_NANOS만큼 기다리는 것으로 흉내내므로 CPU 수와 관계없이 worker 수만큼 동시에 실행됩니다.
+class WeightedFairSchedulerTest {
+
+    private static final long WORK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long RUN_MILLIS = 600;
+
+    @Test
+    void sharesWorkersEquallyUnderSkewedLoad() throws InterruptedException {
+        WeightedFairScheduler scheduler = scheduler(Map.of());
+
+        Result result = run(scheduler, 16, 4);
+
+        //쓰레드 수 비율(4 / 20)이 아니라 weight 비율(1 / 2)에 가깝게 실행됩니다.
+        assertThat(result.quietShare()).isBetween(0.4, 0.6);
+        assertThat(result.utilization).isGreaterThan(0.8);
+    }
+
+    @Test
+    void sharesWorkersByWeight() throws InterruptedException {
+        ListenerSchedulerProperties.ListenerProperties quiet = new ListenerSchedulerProperties.ListenerProperties();
+        quiet.setWeight(3);
+        WeightedFairScheduler scheduler = scheduler(Map.of("quiet", quiet));
+
+        Result result = run(scheduler, 16, 4);
+
+        assertThat(result.quietShare()).isBetween(0.65, 0.85);
+        assertThat(result.utilization).isGreaterThan(0.8);
+    }
+
+    @Test
+    void rateLimitsListenerWithoutHoldingWorkers() throws InterruptedException {
+        ListenerSchedulerProperties.ListenerProperties flood = new ListenerSchedulerProperties.ListenerProperties();
+        flood.setPermitsPerSecond(100);
+        flood.setBurst(1);
+        WeightedFairScheduler scheduler = scheduler(Map.of("flood", flood));
+
+        Result result = run(scheduler, 16, 4);
+
+        //flood는 초당 100개(RUN_MILLIS 동안 60개 정도, 멈출때 이미 허가를 예약한 쓰레드 수만큼 더)만 실행되고 남는 worker는 quiet가 사용합니다.
+        assertThat(result.flood).isBetween(40L, 100L);
+        assertThat(result.quiet).isGreaterThan(result.flood * 10);
+    }
+
+    @Test
+    void withoutContentionFollowsThreadCount() throws InterruptedException {
+        ListenerSchedulerProperties properties = new ListenerSchedulerProperties();
+        properties.setWorkers(1_000);
+        //worker가 충분하면 기다리지 않으므로 쓰레드 수 비율대로 실행됩니다. (flood 16개 쓰레드, quiet 4개 쓰레드가 모두 동시에 실행)
+        Result result = run(properties.toScheduler(new SimpleMeterRegistry()), 16, 4);
+
+        assertThat(result.quietShare()).isBetween(0.1, 0.3);
+    }
+
+    private static WeightedFairScheduler scheduler(Map<String, ListenerSchedulerProperties.ListenerProperties> listeners) {
+        ListenerSchedulerProperties properties = new ListenerSchedulerProperties();
+        properties.setWorkers(2);
+        properties.setListeners(listeners);
+        return properties.toScheduler(new SimpleMeterRegistry());
+    }
+
+    private static Result run(WeightedFairScheduler scheduler, int floodThreads, int quietThreads) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failures = new AtomicInteger();
+        LongAdder busyNanos = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < floodThreads + quietThreads; i++) {
+            WeightedFairScheduler.Flow flow = scheduler.flow(i < floodThreads ? "flood" : "quiet");
+            threads.add(new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        scheduler.acquire(flow);
+                        long start = System.nanoTime();
+                        try {
+                            LockSupport.parkNanos(WORK_NANOS);
+                        } finally {
+                            busyNanos.add(System.nanoTime() - start);
+                            scheduler.release();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    failures.incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        TimeUnit.MILLISECONDS.sleep(RUN_MILLIS);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        assertThat(failures).hasValue(0);
+        double utilization = busyNanos.sum() / (double) (scheduler.getWorkers() * TimeUnit.MILLISECONDS.toNanos(RUN_MILLIS));
+        return new Result(scheduler.flow("flood").getAdmitted(), scheduler.flow("quiet").getAdmitted(), utilization);
+    }
+
+    private static final class Result {
+
+        private final long flood;
+
+        private final long quiet;
+
+        //실행 가능한 시간(worker 수 * 실행 시간) 중 Listener가 실행된 시간의 비율입니다.
+        private final double utilization;
+
+        private Result(long flood, long quiet, double utilization) {
+            this.flood = flood;
+            this.quiet = quiet;
+            this.utilization = utilization;
+        }
+
+        private double quietShare() {
+            return (double) quiet / (flood + quiet);
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.rabbitmq.consumer.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageLoggerTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(MessageLoggerTest.class);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void logsQueuePropertiesAndTruncatedBody() {
+        MessageLoggingProperties properties = new MessageLoggingProperties();
+        properties.setMaxBodyLength(8);
+        MessageLogger messageLogger = new MessageLogging(properties).getLogger(MessageLoggerTest.class);
+
+        messageLogger.info("<==================== Receive Message", message("ack.test.queue", "0123456789abcdef"));
+
+        assertThat(appender.list).singleElement().extracting(ILoggingEvent::getFormattedMessage)
+                .isEqualTo("<==================== Receive Message (queue=ack.test.queue, deliveryTag=7, body[16 bytes]=01234567...)");
+    }
+
+    @Test
+    void doesNotFormatWhenInfoIsDisabled() {
+        logger.setLevel(Level.WARN);
+        MessageLogger messageLogger = new MessageLogging(new MessageLoggingProperties()).getLogger(MessageLoggerTest.class);
+        Object payload = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("payload must not be formatted");
+            }
+        };
+
+        messageLogger.info("<==================== Receive MessageInfo", "messageInfo.test.queue", payload);
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void truncatesPayloadWithoutFormattingRemainingBatchItems() {
+        MessageLoggingProperties properties = new MessageLoggingProperties();
+        properties.setMaxBodyLength(8);
+        MessageLogger messageLogger = new MessageLogging(properties).getLogger(MessageLoggerTest.class);
+        Object unformatted = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("items after maxBodyLength must not be formatted");
+            }
+        };
+
+        messageLogger.info("batch", "batch.test.queue", Arrays.asList("0123", "456789", unformatted));
+        messageLogger.info("bytes", "batch.test.queue", "0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("batch [0123, 4...(3 items)", "bytes 01234567...(16 bytes)");
+    }
+
+    @Test
+    void appliesPerQueueSampleRate() {
+        MessageLoggingProperties properties = new MessageLoggingProperties();
+        properties.setSampleRate(1.0);
+        properties.setSampleRates(Map.of("ack.test.queue", 0.0, "nack.test.queue", 0.1));
+        MessageLogger messageLogger = new MessageLogging(properties).getLogger(MessageLoggerTest.class);
+
+        for (int i = 0; i < 10_000; i++) {
+            messageLogger.info("ack", message("ack.test.queue", "{}"));
+            messageLogger.info("nack", message("nack.test.queue", "{}"));
+            messageLogger.info("reject", message("reject.test.queue", "{}"));
+        }
+
+        assertThat(appender.list.stream().filter(event -> event.getFormattedMessage().startsWith("ack "))).isEmpty();
+        assertThat(appender.list.stream().filter(event -> event.getFormattedMessage().startsWith("nack ")).count()).isBetween(800L, 1_200L);
+        assertThat(appender.list.stream().filter(event -> event.getFormattedMessage().startsWith("reject ")).count()).isEqualTo(10_000);
+    }
+
+    private static Message message(String queue, String body) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setConsumerQueue(queue);
+        messageProperties.setDeliveryTag(7);
+        messageProperties.setContentType(null);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+}
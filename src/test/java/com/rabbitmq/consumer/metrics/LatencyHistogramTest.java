@@ -0,0 +1,60 @@
+package com.rabbitmq.consumer.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void bucketLowerBoundIsWithinThreePercentOfRecordedValue() {
+        for (long nanos = 0; nanos < 10_000_000_000L; nanos = nanos * 3 / 2 + 1) {
+            long lowerBound = LatencyHistogram.lowerBound(LatencyHistogram.indexOf(nanos));
+
+            assertThat(lowerBound).isLessThanOrEqualTo(nanos);
+            assertThat((double) nanos - lowerBound).isLessThanOrEqualTo(nanos / 32d);
+        }
+        assertThat(LatencyHistogram.indexOf(Long.MAX_VALUE)).isLessThan((64 - 5) * 32);
+    }
+
+    @Test
+    void percentilesAreCalculatedFromLastWindow() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000, now::get);
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        now.set(1_000);
+
+        assertThat(histogram.percentile(0.5)).isCloseTo(500_000, within(500_000 * 0.04));
+        assertThat(histogram.percentile(0.99)).isCloseTo(990_000, within(990_000 * 0.04));
+        assertThat(histogram.max()).isCloseTo(1_000_000, within(1_000_000 * 0.04));
+        assertThat(histogram.count()).isEqualTo(1_000);
+
+        histogram.record(5_000_000);
+        now.set(2_000);
+
+        assertThat(histogram.percentile(0.5)).isCloseTo(5_000_000, within(5_000_000 * 0.04));
+        assertThat(histogram.count()).isEqualTo(1_001);
+    }
+
+    @Test
+    void cumulativePercentilesIgnoreWindows() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000, now::get);
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000L);
+            now.addAndGet(10);
+        }
+
+        //10번째 구간까지 나누어 기록했지만 전체 값으로 계산합니다.
+        assertThat(histogram.cumulativePercentile(0.5)).isCloseTo(500_000, within(500_000 * 0.04));
+        assertThat(histogram.cumulativePercentile(1.0)).isCloseTo(1_000_000, within(1_000_000 * 0.04));
+        assertThat(histogram.count()).isEqualTo(1_000);
+    }
+
+}
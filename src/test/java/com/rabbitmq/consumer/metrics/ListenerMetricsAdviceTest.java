@@ -0,0 +1,154 @@
+package com.rabbitmq.consumer.metrics;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.ack.AckCoalescer;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ListenerMetricsAdviceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ListenerMetrics listenerMetrics = new ListenerMetrics(meterRegistry, 60_000);
+
+    private final ListenerMetricsAdvice advice = new ListenerMetricsAdvice(listenerMetrics);
+
+    @Test
+    void recordsStageTimesAndAckForSuccessfulDelivery() throws Throwable {
+        Message message = message("orders", false);
+        TimedMessageConverter converter = new TimedMessageConverter(new SimpleMessageConverter(), listenerMetrics);
+        MethodInvocation invocation = invocation(message);
+        when(invocation.proceed()).thenAnswer(call -> converter.fromMessage(message));
+
+        advice.invoke(invocation);
+
+        assertThat(timerCount("rabbitmq.consumer.process", "orders")).isEqualTo(1);
+        assertThat(timerCount("rabbitmq.consumer.convert", "orders")).isEqualTo(1);
+        assertThat(timerCount("rabbitmq.consumer.handle", "orders")).isEqualTo(1);
+        assertThat(timerCount("rabbitmq.consumer.receive.lag", "orders")).isEqualTo(1);
+        assertThat(deliveries("orders", "ack")).isEqualTo(1);
+    }
+
+    @Test
+    void converterOutsideListenerIsNotTimed() {
+        TimedMessageConverter converter = new TimedMessageConverter(new SimpleMessageConverter(), listenerMetrics);
+
+        converter.fromMessage(message("orders", false));
+
+        assertThat(meterRegistry.find("rabbitmq.consumer.convert").functionTimer()).isNull();
+    }
+
+    @Test
+    void listenerFailureIsRecordedAsRequeuedNack() throws Throwable {
+        MethodInvocation invocation = invocation(message("orders", true));
+        when(invocation.proceed()).thenThrow(new ListenerExecutionFailedException("failed", new IllegalStateException()));
+
+        assertThatThrownBy(() -> advice.invoke(invocation)).isInstanceOf(ListenerExecutionFailedException.class);
+
+        assertThat(deliveries("orders", "nack")).isEqualTo(1);
+        assertThat(meterRegistry.get("rabbitmq.consumer.dead.letters").tag("queue", "orders").counter().count()).isZero();
+        assertThat(meterRegistry.get("rabbitmq.consumer.redeliveries").tag("queue", "orders").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectWithoutRequeueIsCountedAsDeadLetter() throws Throwable {
+        MethodInvocation invocation = invocation(message("orders", false));
+        when(invocation.proceed()).thenThrow(new ListenerExecutionFailedException("failed", new AmqpRejectAndDontRequeueException("poison")));
+
+        assertThatThrownBy(() -> advice.invoke(invocation)).isInstanceOf(ListenerExecutionFailedException.class);
+
+        assertThat(deliveries("orders", "reject")).isEqualTo(1);
+        assertThat(meterRegistry.get("rabbitmq.consumer.dead.letters").tag("queue", "orders").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void manualAckOutcomeComesFromAckCoalescer() throws Throwable {
+        AckCoalescer coalescer = new AckCoalescer(mock(Channel.class), 1, listenerMetrics);
+        MethodInvocation invocation = invocation(message("nack.test.queue", false));
+        when(invocation.proceed()).thenAnswer(call -> {
+            coalescer.nack(1, false);
+            return null;
+        });
+
+        advice.invoke(invocation);
+
+        assertThat(deliveries("nack.test.queue", "nack")).isEqualTo(1);
+        assertThat(deliveries("nack.test.queue", "ack")).isZero();
+        assertThat(meterRegistry.get("rabbitmq.consumer.dead.letters").tag("queue", "nack.test.queue").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("rabbitmq.consumer.ack").functionTimer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchRecordsEveryMessage() throws Throwable {
+        advice.invoke(invocation(List.of(message("ack.test.queue", false), message("ack.test.queue", false), message("ack.test.queue", true))));
+
+        assertThat(timerCount("rabbitmq.consumer.process", "ack.test.queue")).isEqualTo(3);
+        assertThat(deliveries("ack.test.queue", "ack")).isEqualTo(3);
+        assertThat(meterRegistry.get("rabbitmq.consumer.redeliveries").tag("queue", "ack.test.queue").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void receiveLagUsesSentAtHeaderInMilliseconds() throws Throwable {
+        Message message = message("orders", false);
+        message.getMessageProperties().setTimestamp(null);
+        message.getMessageProperties().setHeader(ListenerMetrics.SENT_AT_HEADER, System.currentTimeMillis() - 250);
+
+        advice.invoke(invocation(message));
+
+        FunctionTimer lag = meterRegistry.get("rabbitmq.consumer.receive.lag").tag("queue", "orders").functionTimer();
+        assertThat(lag.count()).isEqualTo(1);
+        assertThat(lag.totalTime(TimeUnit.MILLISECONDS)).isBetween(250.0, 2_000.0);
+    }
+
+    @Test
+    void receiveLagFromTimestampIsWholeSeconds() throws Throwable {
+        Message message = message("orders", false);
+        message.getMessageProperties().setTimestamp(new Date(System.currentTimeMillis() - 2_500));
+
+        advice.invoke(invocation(message));
+
+        //AMQP timestamp는 초 단위이므로 현재 시간도 초 단위로 버려서 2s 또는 3s로 기록됩니다.
+        double lagMillis = meterRegistry.get("rabbitmq.consumer.receive.lag").tag("queue", "orders").functionTimer().totalTime(TimeUnit.MILLISECONDS);
+        assertThat(lagMillis % 1000).isZero();
+        assertThat(lagMillis).isBetween(2_000.0, 3_000.0);
+    }
+
+    private long timerCount(String name, String queue) {
+        return (long) meterRegistry.get(name).tag("queue", queue).functionTimer().count();
+    }
+
+    private double deliveries(String queue, String outcome) {
+        return meterRegistry.get("rabbitmq.consumer.deliveries").tag("queue", queue).tag("outcome", outcome).counter().count();
+    }
+
+    private static MethodInvocation invocation(Object data) {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[]{mock(Channel.class), data});
+        return invocation;
+    }
+
+    private static Message message(String queue, boolean redelivered) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setConsumerQueue(queue);
+        messageProperties.setRedelivered(redelivered);
+        messageProperties.setTimestamp(new Date(System.currentTimeMillis() - 5));
+        return new Message("body".getBytes(), messageProperties);
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.rabbitmq.consumer.pipeline;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+//Channel을 mock으로 만들고 Consumer 쓰레드 대신 테스트 쓰레드에서 delivery tag 순서대로 submit하여
+//변환 시간이 제각각이어도 handler가 받은 순서대로 호출되는지, 결과가 올바른 delivery tag로 전송되는지, ring buffer 크기 제한을 확인합니다.
+class ConversionPipelineTest {
+
+    private final Channel channel = mock(Channel.class);
+
+    //타이머 없이 pipeline.stop()에서만 전송되도록 batchSize를 크게 설정합니다.
+    private final AckCoalescers ackCoalescers = new AckCoalescers(1_000_000, 100);
+
+    private ConversionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        when(channel.isOpen()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void handsOffInDeliveryOrderWhileDecodingInParallel() throws Exception {
+        pipeline = start(64, 4);
+        int messages = 20_000;
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        Set<String> decoderThreads = ConcurrentHashMap.newKeySet();
+        Set<String> handlerThreads = ConcurrentHashMap.newKeySet();
+        Function<Message, Long> decoder = message -> {
+            //decoder마다 변환 시간이 달라지도록 가끔 쓰레드를 양보합니다.
+            if (ThreadLocalRandom.current().nextInt(16) == 0) {
+                Thread.yield();
+            }
+            decoderThreads.add(Thread.currentThread().getName());
+            return Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8));
+        };
+
+        for (int i = 1; i <= messages; i++) {
+            pipeline.submit(channel, message(i, String.valueOf(i)), decoder, sequence -> {
+                handled.add(sequence);
+                handlerThreads.add(Thread.currentThread().getName());
+            });
+        }
+        pipeline.stop();
+
+        assertThat(handled).hasSize(messages).isSorted();
+        assertThat(decoderThreads).hasSizeGreaterThan(1).allMatch(name -> name.startsWith("test-decoder-"));
+        assertThat(handlerThreads).containsExactly("test-handoff");
+        //모든 handler 호출이 끝난 뒤에 전송하므로 multiple ack 한번으로 처리됩니다.
+        verify(channel).basicAck(messages, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void settlesEachDeliveryTagByItsOwnOutcome() throws Exception {
+        pipeline = start(8, 2);
+        Function<Message, String> decoder = message -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            if (body.equals("unreadable")) {
+                throw new IllegalArgumentException("unreadable");
+            }
+            return body;
+        };
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+
+        pipeline.submit(channel, message(1, "ok"), decoder, handled::add);
+        pipeline.submit(channel, message(2, "unreadable"), decoder, handled::add);
+        pipeline.submit(channel, message(3, "poison"), decoder, body -> {
+            throw new IllegalStateException(body);
+        });
+        pipeline.submit(channel, message(4, "ok"), decoder, handled::add);
+        pipeline.stop();
+
+        assertThat(handled).containsExactly("ok", "ok");
+        verify(channel).basicAck(1, false);
+        //변환에 실패한 메시지는 reject, handler가 실패한 메시지는 nack로 기록되며 둘 다 basicNack(requeue = false)로 전송됩니다.
+        verify(channel).basicNack(3, true, false);
+        verify(channel).basicAck(4, false);
+        assertThat(pipeline.getInFlight()).isZero();
+    }
+
+    @Test
+    void blocksConsumerWhenRingBufferIsFull() throws Exception {
+        pipeline = start(2, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Message, String> blocked = message -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "";
+        };
+        pipeline.submit(channel, message(1, ""), blocked, payload -> { });
+        pipeline.submit(channel, message(2, ""), blocked, payload -> { });
+
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {
+            try {
+                pipeline.submit(channel, message(3, ""), Function.identity(), payload -> { });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(third).isNotDone();
+        assertThat(pipeline.getInFlight()).isEqualTo(2);
+
+        release.countDown();
+        third.get(2, TimeUnit.SECONDS);
+        pipeline.stop();
+
+        verify(channel).basicAck(3, true);
+    }
+
+    @Test
+    void skipsHandlerWhenChannelIsClosed() throws Exception {
+        pipeline = start(8, 1);
+        Channel closed = mock(Channel.class);
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+
+        pipeline.submit(closed, message(1, "stale"), message -> "stale", handled::add);
+        pipeline.submit(channel, message(1, "fresh"), message -> "fresh", handled::add);
+        pipeline.stop();
+
+        //닫힌 Channel의 메시지는 브로커가 다시 전달하므로 handler를 호출하지 않고 결과도 보내지 않습니다.
+        assertThat(handled).containsExactly("fresh");
+        verify(closed, never()).basicAck(anyLong(), anyBoolean());
+        verify(channel).basicAck(1, false);
+    }
+
+    @Test
+    void requeuesWhenNotRunning() throws Exception {
+        pipeline = new ConversionPipeline("test", 8, 1, ackCoalescers);
+
+        pipeline.submit(channel, message(1, ""), Function.identity(), payload -> { });
+        ackCoalescers.flushAll();
+
+        verify(channel).basicNack(1, false, true);
+    }
+
+    private ConversionPipeline start(int capacity, int decoders) {
+        ConversionPipeline started = new ConversionPipeline("test", capacity, decoders, ackCoalescers);
+        started.start();
+        return started;
+    }
+
+    private static Message message(long deliveryTag, String body) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setDeliveryTag(deliveryTag);
+        messageProperties.setConsumerQueue("messageInfo.test.queue");
+        return new Message(body.getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+}
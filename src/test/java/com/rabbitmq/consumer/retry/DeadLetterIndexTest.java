@@ -0,0 +1,135 @@
+package com.rabbitmq.consumer.retry;
+
+import com.rabbitmq.consumer.support.InMemoryBroker;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//InMemoryBroker로 reject, TTL 만료된 Dead Letter를 만들어 x-death의 원래 Queue, reason, publisher로 집계되는지 확인하고
+//key 종류가 topK보다 많을때 많이 기록된 key가 top에 남는지, 시간 구간이 buckets개만 보관되는지 확인합니다.
+class DeadLetterIndexTest {
+
+    private final AtomicLong clock = new AtomicLong(Duration.ofHours(1).toMillis());
+
+    @Test
+    void recordsOriginQueueReasonAndPublisherFromDeadLetter() {
+        InMemoryBroker broker = new InMemoryBroker();
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("x-dead-letter-exchange", "dead.letter.exchange");
+        arguments.put("x-dead-letter-routing-key", "dlx.routing.key");
+        Map<String, Object> ttlArguments = new HashMap<>(arguments);
+        ttlArguments.put("x-message-ttl", 1000);
+        Queue deadLetterQueue = new Queue("dead.letter.queue");
+        DirectExchange deadLetterExchange = new DirectExchange("dead.letter.exchange");
+        broker.declare(new Queue("nack.test.queue", false, false, false, arguments),
+                new Queue("ttl.test.queue", false, false, false, ttlArguments), deadLetterQueue, deadLetterExchange,
+                BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with("dlx.routing.key"));
+
+        broker.publish("", "nack.test.queue", json("{\"publisher\":\"order-service\",\"message\":\"poison\"}", null));
+        broker.publish("", "nack.test.queue", json("{\"message\":\"poison\"}", "billing-service"));
+        broker.reject("nack.test.queue", broker.receive("nack.test.queue"));
+        broker.reject("nack.test.queue", broker.receive("nack.test.queue"));
+        broker.publish("", "ttl.test.queue", json("not json", null));
+        broker.advance(Duration.ofSeconds(1));
+
+        DeadLetterIndex index = index(10);
+        for (int i = 0; i < 3; i++) {
+            index.record(broker.receive("dead.letter.queue"));
+        }
+
+        DeadLetterIndex.Summary summary = index.summary(10);
+        assertThat(summary.getTotal()).isEqualTo(3);
+        assertThat(summary.getReasons()).containsEntry("rejected", 2L).containsEntry("expired", 1L).containsEntry("maxlen", 0L);
+        assertThat(summary.getQueues()).extracting(TopKSketch.Entry::getKey).containsExactly("nack.test.queue", "ttl.test.queue");
+        //body의 publisher, app-id 순서로 확인하고 둘 다 없으면 (unknown)으로 집계합니다.
+        assertThat(summary.getPublishers()).extracting(TopKSketch.Entry::getKey)
+                .containsExactlyInAnyOrder("order-service", "billing-service", DeadLetterIndex.UNKNOWN);
+        assertThat(index.countByQueue("nack.test.queue")).isEqualTo(2);
+        assertThat(index.countByPublisher("order-service")).isEqualTo(1);
+    }
+
+    @Test
+    void keepsHeavyHittersWhenKeysOutnumberTopK() {
+        DeadLetterIndex index = index(10);
+        for (int round = 0; round < 100; round++) {
+            index.record("hot.queue", "rejected", "hot-publisher");
+            index.record("warm.queue", "rejected", "warm-publisher");
+            index.record("warm.queue", "rejected", "warm-publisher");
+            //매번 다른 Queue, publisher로 topK를 넘는 key를 기록합니다.
+            for (int i = 0; i < 5; i++) {
+                index.record("cold.queue." + round + "." + i, "expired", "cold-" + round + "-" + i);
+            }
+        }
+
+        DeadLetterIndex.Summary summary = index.summary(2);
+        assertThat(summary.getTotal()).isEqualTo(800);
+        assertThat(summary.getQueues()).extracting(TopKSketch.Entry::getKey).containsExactly("warm.queue", "hot.queue");
+        //실제 개수는 count - error 이상 count 이하입니다.
+        for (TopKSketch.Entry entry : summary.getQueues()) {
+            long actual = entry.getKey().equals("warm.queue") ? 200 : 100;
+            assertThat(entry.getCount()).isGreaterThanOrEqualTo(actual);
+            assertThat(entry.getCount() - entry.getError()).isLessThanOrEqualTo(actual);
+        }
+        assertThat(summary.getPublishers()).extracting(TopKSketch.Entry::getKey).containsExactly("warm-publisher", "hot-publisher");
+        //top에 없는 key는 CountMinSketch 추정값으로 조회하며 실제보다 작지 않습니다.
+        assertThat(index.countByQueue("cold.queue.0.0")).isGreaterThanOrEqualTo(1);
+        assertThat(index.countByQueue("hot.queue")).isEqualTo(100);
+    }
+
+    @Test
+    void keepsOnlyRecentBuckets() {
+        DeadLetterIndex index = index(10);
+        Instant first = Instant.ofEpochMilli(clock.get());
+        index.record("nack.test.queue", "rejected", "order-service");
+        clock.addAndGet(Duration.ofSeconds(30).toMillis());
+        index.record("nack.test.queue", "maxlen", "order-service");
+        clock.addAndGet(Duration.ofMinutes(2).toMillis());
+        index.record("nack.test.queue", "unexpected", "order-service");
+
+        DeadLetterIndex.Summary summary = index.summary(10);
+        assertThat(summary.getBuckets()).extracting(DeadLetterIndex.Bucket::getStart)
+                .containsExactly(first, first.plus(Duration.ofMinutes(2)));
+        assertThat(summary.getBuckets().get(0).getReasons()).containsEntry("rejected", 1L).containsEntry("maxlen", 1L);
+        assertThat(summary.getBuckets().get(1).getReasons()).containsOnlyKeys("other");
+
+        //buckets(3)개를 넘게 지난 구간은 반환하지 않고 새로운 구간이 같은 자리를 사용합니다.
+        clock.addAndGet(Duration.ofMinutes(2).toMillis());
+        index.record("nack.test.queue", "rejected", "order-service");
+        summary = index.summary(10);
+        assertThat(summary.getBuckets()).extracting(DeadLetterIndex.Bucket::getTotal).containsExactly(1L, 1L);
+        assertThat(summary.getTotal()).isEqualTo(4);
+    }
+
+    @Test
+    void doesNotReadCompressedBody() {
+        Message compressed = json("{\"publisher\":\"order-service\"}", "billing-service");
+        compressed.getMessageProperties().setContentEncoding("lz4:UTF-8");
+
+        //압축된 body는 JSON으로 읽지 않고 app-id를 사용합니다.
+        assertThat(DeadLetterIndex.publisherOf(compressed)).isEqualTo("billing-service");
+    }
+
+    private DeadLetterIndex index(int topK) {
+        return new DeadLetterIndex(topK, 512, 4, Duration.ofMinutes(1), 3, clock::get);
+    }
+
+    private static Message json(String body, String appId) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setAppId(appId);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+}
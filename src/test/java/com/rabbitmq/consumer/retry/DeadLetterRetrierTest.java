@@ -0,0 +1,190 @@
+package com.rabbitmq.consumer.retry;
+
+import com.rabbitmq.consumer.support.InMemoryBroker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//InMemoryBroker에 AnnotationMessageListener와 같은 DLX 구성(nack.test.queue -> dead.letter.exchange -> dead.letter.queue)과
+//RetryProperties의 재시도 대기 Queue를 선언하고 Consumer의 reject, TTL 만료를 흉내내어 메시지가 이동하는 경로를 확인합니다.
+class DeadLetterRetrierTest {
+
+    private static final String ORIGIN = "nack.test.queue";
+
+    private static final String DEAD_LETTER_QUEUE = "dead.letter.queue";
+
+    private final InMemoryBroker broker = new InMemoryBroker();
+
+    private final RetryProperties properties = new RetryProperties();
+
+    private DeadLetterRetrier retrier;
+
+    @BeforeEach
+    void setUp() {
+        properties.setDelays(Arrays.asList(Duration.ofSeconds(1), Duration.ofSeconds(10)));
+        properties.setMaxAttempts(3);
+        properties.setRedeliveriesPerSecond(0);
+
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("x-dead-letter-exchange", "dead.letter.exchange");
+        arguments.put("x-dead-letter-routing-key", "dlx.routing.key");
+        Queue origin = new Queue(ORIGIN, false, false, false, arguments);
+        Queue ttlQueue = new Queue("ttl.test.queue", false, false, false, withTtl(arguments));
+        Queue deadLetterQueue = new Queue(DEAD_LETTER_QUEUE);
+        DirectExchange deadLetterExchange = new DirectExchange("dead.letter.exchange");
+        broker.declare(origin, ttlQueue, deadLetterQueue, deadLetterExchange,
+                BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with("dlx.routing.key"));
+        broker.declare(properties.toDeclarables());
+
+        retrier = new DeadLetterRetrier(broker.template(), properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void rejectedMessageWalksRetryTiersThenParks() {
+        broker.publish("", ORIGIN, message("poison"));
+
+        //1초, 10초, 10초(마지막 단계 반복) 대기 후 원래 Queue로 돌아옵니다.
+        Duration[] waits = {Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(10)};
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            rejectFromOrigin();
+            Message deadLetter = broker.receive(DEAD_LETTER_QUEUE);
+            assertThat(DeadLetter.of(deadLetter).getDeaths()).isEqualTo(attempt);
+            assertThat(retrier.handle(deadLetter)).isEqualTo(DeadLetterRetrier.Outcome.RETRIED);
+
+            String tier = RetryProperties.tierName(waits[attempt - 1]);
+            assertThat(broker.depth(tier)).isEqualTo(1);
+            broker.advance(waits[attempt - 1].minusMillis(1));
+            assertThat(broker.depth(ORIGIN)).isZero();
+            broker.advance(Duration.ofMillis(1));
+            assertThat(broker.depth(tier)).isZero();
+            assertThat(broker.depth(ORIGIN)).isEqualTo(1);
+        }
+
+        rejectFromOrigin();
+        Message deadLetter = broker.receive(DEAD_LETTER_QUEUE);
+        assertThat(retrier.handle(deadLetter)).isEqualTo(DeadLetterRetrier.Outcome.PARKED);
+        assertThat(broker.depth(properties.getParkingLotQueue())).isEqualTo(1);
+        assertThat(broker.getDropped()).isZero();
+    }
+
+    @Test
+    void expiredMessageIsParkedWithoutRetry() {
+        broker.publish("", "ttl.test.queue", message("expired"));
+        broker.advance(Duration.ofSeconds(10));
+
+        Message deadLetter = broker.receive(DEAD_LETTER_QUEUE);
+        assertThat(DeadLetter.of(deadLetter).getReason()).isEqualTo("expired");
+        assertThat(retrier.handle(deadLetter)).isEqualTo(DeadLetterRetrier.Outcome.PARKED);
+        assertThat(broker.depth(properties.getParkingLotQueue())).isEqualTo(1);
+    }
+
+    @Test
+    void replaySendsParkedMessagesBackWithFreshAttempts() {
+        properties.setMaxAttempts(0);
+        for (int i = 0; i < 5; i++) {
+            broker.publish("", ORIGIN, message("parked-" + i));
+            rejectFromOrigin();
+            retrier.handle(broker.receive(DEAD_LETTER_QUEUE));
+        }
+        assertThat(broker.depth(properties.getParkingLotQueue())).isEqualTo(5);
+
+        assertThat(retrier.replay(3)).isEqualTo(3);
+        assertThat(broker.depth(ORIGIN)).isEqualTo(3);
+        assertThat(retrier.replay(100)).isEqualTo(2);
+        assertThat(broker.depth(properties.getParkingLotQueue())).isZero();
+
+        Message replayed = broker.receive(ORIGIN);
+        assertThat(new String(replayed.getBody(), StandardCharsets.UTF_8)).isEqualTo("parked-0");
+        assertThat(replayed.getMessageProperties().getXDeathHeader()).isNull();
+
+        //재시도 기록을 지웠으므로 다시 reject되면 첫번째 실패로 처리됩니다.
+        properties.setMaxAttempts(3);
+        broker.reject(ORIGIN, replayed);
+        Message deadLetter = broker.receive(DEAD_LETTER_QUEUE);
+        assertThat(DeadLetter.of(deadLetter).getDeaths()).isEqualTo(1);
+        assertThat(retrier.handle(deadLetter)).isEqualTo(DeadLetterRetrier.Outcome.RETRIED);
+    }
+
+    @Test
+    void replayLeavesMessagesWithoutOriginInParkingLot() {
+        properties.setMaxAttempts(0);
+        broker.publish("", properties.getParkingLotQueue(), message("no-origin"));
+        broker.publish("", ORIGIN, message("parked"));
+        rejectFromOrigin();
+        retrier.handle(broker.receive(DEAD_LETTER_QUEUE));
+
+        //원래 Queue를 알 수 없는 메시지는 replay가 끝난 뒤 nack(requeue) 되므로 limit이 남아도 다시 꺼내지 않습니다.
+        assertThat(retrier.replay(100)).isEqualTo(1);
+        assertThat(broker.depth(ORIGIN)).isEqualTo(1);
+        assertThat(broker.depth(properties.getParkingLotQueue())).isEqualTo(1);
+        assertThat(broker.unackedCount()).isZero();
+        assertThat(new String(broker.receive(properties.getParkingLotQueue()).getBody(), StandardCharsets.UTF_8)).isEqualTo("no-origin");
+    }
+
+    @Test
+    void replayKeepsParkedMessagesWhenPublishIsNotConfirmed() {
+        properties.setMaxAttempts(0);
+        for (int i = 0; i < 3; i++) {
+            broker.publish("", ORIGIN, message("parked-" + i));
+            rejectFromOrigin();
+            retrier.handle(broker.receive(DEAD_LETTER_QUEUE));
+        }
+
+        broker.failConfirms(true);
+        assertThatThrownBy(() -> retrier.replay(100)).isInstanceOf(AmqpException.class);
+        assertThat(broker.depth(properties.getParkingLotQueue())).isEqualTo(3);
+        assertThat(broker.unackedCount()).isZero();
+
+        //확인되지 않은 메시지는 원래 Queue에 중복될 수 있지만 parking lot Queue에서 없어지지 않습니다.
+        broker.failConfirms(false);
+        assertThat(retrier.replay(100)).isEqualTo(3);
+        assertThat(broker.depth(properties.getParkingLotQueue())).isZero();
+    }
+
+    @Test
+    void retryHeaderKeepsCountingWhenBrokerDropsClientXDeath() {
+        broker.publish("", ORIGIN, message("poison"));
+        rejectFromOrigin();
+        retrier.handle(broker.receive(DEAD_LETTER_QUEUE));
+        broker.advance(Duration.ofSeconds(1));
+
+        //RabbitMQ 4.0 이상은 Client가 보낸 x-death를 이어서 세지 않으므로 x-death 없이 x-retry-attempts만 남은 상황입니다.
+        Message returned = broker.receive(ORIGIN);
+        returned.getMessageProperties().getHeaders().remove("x-death");
+        broker.reject(ORIGIN, returned);
+
+        assertThat(DeadLetter.of(broker.receive(DEAD_LETTER_QUEUE)).getDeaths()).isEqualTo(2);
+    }
+
+    private void rejectFromOrigin() {
+        broker.reject(ORIGIN, broker.receive(ORIGIN));
+    }
+
+    private static Map<String, Object> withTtl(Map<String, Object> arguments) {
+        Map<String, Object> copy = new HashMap<>(arguments);
+        copy.put("x-message-ttl", 10000);
+        return copy;
+    }
+
+    private static Message message(String body) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_TEXT_PLAIN);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.rabbitmq.consumer.shard;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.consumer.ack.AckCoalescers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+//Channel을 mock으로 만들고 Consumer 쓰레드 대신 테스트 쓰레드에서 delivery tag 순서대로 dispatch하여
+//key별 처리 순서, ack 전송, in-flight 제한을 확인합니다. 브로커 없이 실행됩니다.
+class ShardedDispatcherTest {
+
+    private final Channel channel = mock(Channel.class);
+
+    //타이머 없이 dispatcher.stop()에서만 전송되도록 batchSize를 크게 설정합니다.
+    private final AckCoalescers ackCoalescers = new AckCoalescers(1_000_000, 100);
+
+    private ShardedDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        when(channel.isOpen()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void keepsPerKeyOrderAcrossLanes() throws Exception {
+        dispatcher = start(4, 64);
+        int messages = 20_000;
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        for (int i = 1; i <= messages; i++) {
+            String key = "publisher-" + (i % 32);
+            int sequence = i;
+            dispatcher.dispatch(channel, i, key, () -> {
+                //lane마다 처리 시간이 달라지도록 가끔 쓰레드를 양보합니다.
+                if (ThreadLocalRandom.current().nextInt(16) == 0) {
+                    Thread.yield();
+                }
+                processed.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                threads.add(Thread.currentThread().getName());
+            });
+        }
+        dispatcher.stop();
+
+        assertThat(processed).hasSize(32);
+        int total = 0;
+        for (List<Integer> sequences : processed.values()) {
+            assertThat(sequences).isSorted();
+            total += sequences.size();
+        }
+        assertThat(total).isEqualTo(messages);
+        assertThat(threads).hasSizeGreaterThan(1).allMatch(name -> name.startsWith("test-lane-"));
+        //모든 lane의 처리가 끝난 뒤에 전송하므로 multiple ack 한번으로 처리됩니다.
+        verify(channel).basicAck(messages, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void sameKeyAlwaysMapsToSameLane() {
+        dispatcher = new ShardedDispatcher("test", 8, 16, ackCoalescers);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(dispatcher.laneOf("publisher-1", i)).isEqualTo(dispatcher.laneOf("publisher-1", 0));
+        }
+        assertThat(dispatcher.laneOf(null, 3)).isEqualTo(3);
+    }
+
+    @Test
+    void blocksConsumerWhenInFlightLimitIsReached() throws Exception {
+        dispatcher = start(2, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        dispatcher.dispatch(channel, 1, "a", blocked);
+        dispatcher.dispatch(channel, 2, "b", blocked);
+
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {
+            try {
+                dispatcher.dispatch(channel, 3, "a", () -> { });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(third).isNotDone();
+        assertThat(dispatcher.getInFlight()).isEqualTo(2);
+
+        release.countDown();
+        third.get(2, TimeUnit.SECONDS);
+        dispatcher.stop();
+
+        verify(channel).basicAck(3, true);
+    }
+
+    @Test
+    void nacksWithoutRequeueWhenListenerFails() throws Exception {
+        dispatcher = start(2, 8);
+
+        dispatcher.dispatch(channel, 1, "a", () -> { });
+        dispatcher.dispatch(channel, 2, "a", () -> {
+            throw new IllegalArgumentException("poison");
+        });
+        dispatcher.dispatch(channel, 3, "a", () -> { });
+        dispatcher.stop();
+
+        verify(channel).basicAck(1, false);
+        verify(channel).basicNack(2, false, false);
+        verify(channel).basicAck(3, false);
+        assertThat(dispatcher.getInFlight()).isZero();
+    }
+
+    @Test
+    void blockedLaneTagIsAckedOnlyAfterItsHandlerReturns() throws Exception {
+        dispatcher = start(2, 64);
+        String slowKey = "slow";
+        String fastKey = "fast";
+        for (int i = 0; dispatcher.laneOf(fastKey, 0) == dispatcher.laneOf(slowKey, 0); i++) {
+            fastKey = "fast-" + i;
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean slowReturned = new AtomicBoolean();
+        List<Boolean> returnedWhenAcked = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            returnedWhenAcked.add(slowReturned.get());
+            return null;
+        }).when(channel).basicNack(eq(1L), anyBoolean(), anyBoolean());
+        doAnswer(invocation -> {
+            returnedWhenAcked.add(slowReturned.get());
+            return null;
+        }).when(channel).basicAck(eq(1L), anyBoolean());
+
+        dispatcher.dispatch(channel, 1, slowKey, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowReturned.set(true);
+            throw new IllegalStateException("slow lane failed");
+        });
+        for (long tag = 2; tag <= 6; tag++) {
+            dispatcher.dispatch(channel, tag, fastKey, () -> { });
+        }
+        //다른 lane이 뒤의 tag를 처리하는 동안 타이머 flush가 여러번 실행되는 상황입니다.
+        for (int tick = 0; tick < 5; tick++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+            ackCoalescers.flushAll();
+        }
+        verify(channel, never()).basicAck(anyLong(), eq(true));
+        verify(channel, never()).basicAck(eq(1L), anyBoolean());
+        verify(channel, never()).basicNack(eq(1L), anyBoolean(), anyBoolean());
+
+        release.countDown();
+        dispatcher.stop();
+
+        //lane의 처리가 끝난 뒤 기록된 결과(requeue 없는 nack)가 그대로 전송됩니다.
+        verify(channel).basicNack(1, false, false);
+        assertThat(returnedWhenAcked).containsExactly(true);
+        for (long tag = 2; tag <= 6; tag++) {
+            verify(channel).basicAck(tag, false);
+        }
+    }
+
+    private ShardedDispatcher start(int lanes, int maxInFlight) {
+        ShardedDispatcher started = new ShardedDispatcher("test", lanes, maxInFlight, ackCoalescers);
+        started.start();
+        return started;
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.rabbitmq.consumer.sink;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//append가 반환된 record는 프로세스가 멈춘 뒤(stop 없이 다시 열기) 다시 열어도 Downstream으로 전달되는지 확인합니다.
+class WriteBehindSinkTest {
+
+    private static final WriteBehindSink.Codec<String> CODEC = new WriteBehindSink.Codec<>() {
+        @Override
+        public byte[] encode(String record) {
+            return record.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    private final List<String> written = new ArrayList<>();
+
+    @Test
+    void recoversAppendedRecordsAfterCrash() throws Exception {
+        WriteBehindSink<String> crashed = sink(1024, 10);
+        crashed.append(List.of("a", "b"));
+        crashed.append("c");
+
+        WriteBehindSink<String> restarted = sink(1024, 10);
+        assertThat(restarted.drain()).isEqualTo(3);
+        assertThat(written).containsExactly("a", "b", "c");
+        assertThat(restarted.getBacklog()).isZero();
+    }
+
+    @Test
+    void truncatesTornRecordAndContinuesAfterIt() throws Exception {
+        WriteBehindSink<String> crashed = sink(1024, 10);
+        crashed.append(List.of("first", "second"));
+
+        //"second" 뒤에 길이만 쓰고 내용을 쓰지 못한 record를 만듭니다.
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(2 * SinkLog.HEADER + "first".length() + "second".length());
+            file.writeInt(100);
+            file.writeInt(12345);
+            file.write("torn".getBytes(StandardCharsets.UTF_8));
+        }
+
+        WriteBehindSink<String> restarted = sink(1024, 10);
+        restarted.append("third");
+        restarted.drain();
+
+        assertThat(written).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void resumesFromCheckpointAndDeletesDrainedSegments() throws Exception {
+        WriteBehindSink<String> crashed = sink(64, 4);
+        List<String> records = IntStream.range(0, 10).mapToObj(i -> "record-" + i).collect(Collectors.toList());
+        crashed.append(records);
+        assertThat(segments()).hasSizeGreaterThan(2);
+
+        assertThat(crashed.drain()).isEqualTo(4);
+
+        WriteBehindSink<String> restarted = sink(64, 4);
+        while (restarted.drain() > 0) {
+            //남은 record를 모두 보냅니다.
+        }
+        assertThat(written).isEqualTo(records);
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void retriesBatchWhenDownstreamFails() throws Exception {
+        List<List<String>> attempts = new ArrayList<>();
+        WriteBehindSink<String> sink = new WriteBehindSink<>("test", properties(1024, 10), CODEC, records -> {
+            attempts.add(records);
+            if (attempts.size() == 1) {
+                throw new IOException("downstream unavailable");
+            }
+        }, new SimpleMeterRegistry());
+        sink.append(List.of("a", "b"));
+
+        assertThatThrownBy(sink::drain).isInstanceOf(IOException.class);
+        assertThat(sink.drain()).isEqualTo(2);
+        assertThat(attempts).containsExactly(List.of("a", "b"), List.of("a", "b"));
+    }
+
+    @Test
+    void rejectsRecordsLargerThanSegment() throws Exception {
+        WriteBehindSink<String> sink = sink(32, 10);
+
+        assertThatThrownBy(() -> sink.append("x".repeat(32))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private WriteBehindSink<String> sink(int segmentSize, int drainBatchSize) throws IOException {
+        return new WriteBehindSink<>("test", properties(segmentSize, drainBatchSize), CODEC, written::addAll, new SimpleMeterRegistry());
+    }
+
+    private SinkProperties properties(int segmentSize, int drainBatchSize) {
+        SinkProperties sinkProperties = new SinkProperties();
+        sinkProperties.setDirectory(directory.toString());
+        sinkProperties.setSegmentSize(DataSize.ofBytes(segmentSize));
+        sinkProperties.setDrainBatchSize(drainBatchSize);
+        return sinkProperties;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".log")).sorted().collect(Collectors.toList());
+        }
+    }
+
+}
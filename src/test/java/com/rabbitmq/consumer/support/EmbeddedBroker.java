@@ -0,0 +1,699 @@
+package com.rabbitmq.consumer.support;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import com.rabbitmq.client.impl.AMQImpl;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.ExchangeBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+//RabbitMQ 없이 애플리케이션 전체(Listener 컨테이너, RabbitAdmin, RabbitTemplate)를 실행하기 위한 JVM 내부 AMQP 브로커 대역입니다.
+//connectionFactory()가 반환하는 com.rabbitmq.client.ConnectionFactory를 CachingConnectionFactory에 전달하면 socket 대신 해당 브로커에 연결됩니다.
+//[동작 방식]
+//1. 라우팅, TTL, Dead Letter(x-death)는 InMemoryBroker가 처리하며 시간은 실제 시간에 맞춰(기본 10ms 주기) 흐릅니다.
+//2. basicConsume한 Consumer에게 prefetch(basicQos)만큼 Round Robin으로 전달하고 ack, nack, reject(multiple 포함)를 delivery tag로 처리합니다.
+//nack, reject(requeue = true)와 ack되지 않은 채로 Channel이 닫힌 메시지는 Queue의 맨 앞으로 돌아가서 redelivered = true로 다시 전달됩니다.
+//3. RabbitMQ 클라이언트와 같이 Consumer 콜백은 Channel마다 하나의 쓰레드에서 순서대로 호출되므로 Listener 컨테이너의 쓰레드 구성은 실제와 같습니다.
+//4. 알 수 없는 delivery tag의 ack(두번 ack 하는 경우 등)는 RabbitMQ에서 Channel이 닫히는 오류이므로 getUnknownDeliveryTags로 확인합니다.
+//Exchange는 기본 Exchange, Direct, Fanout만 라우팅하고 publisher confirm, transaction, x-max-length는 지원하지 않습니다.
+public class EmbeddedBroker implements AutoCloseable {
+
+    private final InMemoryBroker broker = new InMemoryBroker();
+
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+
+    //Queue별 Consumer 목록과 다음에 전달할 Consumer의 위치입니다. 아래 값은 모두 this로 보호됩니다.
+    private final Map<String, List<BrokerConsumer>> consumers = new LinkedHashMap<>();
+
+    private final Map<String, Integer> nextConsumer = new HashMap<>();
+
+    private final List<BrokerChannel> channels = new ArrayList<>();
+
+    private final AtomicInteger connectionIds = new AtomicInteger();
+
+    private final ScheduledExecutorService ticker;
+
+    private BiConsumer<String, Message> settleListener = (queue, message) -> {
+    };
+
+    private long lastTickMillis = System.currentTimeMillis();
+
+    private long published;
+
+    private long delivered;
+
+    private long redelivered;
+
+    private long returned;
+
+    private long acked;
+
+    private long unknownDeliveryTags;
+
+    public EmbeddedBroker() {
+        this(Duration.ofMillis(10));
+    }
+
+    public EmbeddedBroker(Duration tick) {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "embedded-broker-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //메시지가 오가지 않아도 TTL이 지난 메시지가 Dead Letter로 옮겨지도록 주기적으로 시간을 흐르게 합니다.
+        ticker.scheduleWithFixedDelay(this::tick, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    //애플리케이션이 선언하지 않고 운영자가 미리 만들어 두는 Queue, Exchange(dead.letter.queue 등)를 선언합니다.
+    public synchronized EmbeddedBroker declare(Declarable... declarables) {
+        broker.declare(declarables);
+        return this;
+    }
+
+    //Producer가 Exchange로 보낸 것과 같습니다. (socket, Channel을 거치지 않음)
+    public synchronized void publish(String exchange, String routingKey, Message message) {
+        advanceClock();
+        published++;
+        broker.publish(exchange, routingKey, message);
+        dispatch();
+    }
+
+    //ack 또는 Dead Letter(nack, reject의 requeue = false)로 처리가 끝난 메시지마다 (Queue 이름, 메시지)로 호출됩니다.
+    //브로커의 lock을 잡은 상태로 호출되므로 오래 걸리는 작업을 하면 안됩니다.
+    public synchronized void onSettle(BiConsumer<String, Message> settleListener) {
+        this.settleListener = settleListener;
+    }
+
+    public ConnectionFactory connectionFactory() {
+        ConnectionFactory connectionFactory = new ConnectionFactory() {
+            @Override
+            public Connection newConnection(ExecutorService executor, AddressResolver addressResolver, String clientProvidedName) {
+                return new BrokerConnection(connectionIds.incrementAndGet(), clientProvidedName).proxy;
+            }
+        };
+        connectionFactory.setAutomaticRecoveryEnabled(false);
+        return connectionFactory;
+    }
+
+    public synchronized int depth(String queue) {
+        return broker.depth(queue);
+    }
+
+    //ack되지 않은 메시지가 없고 Consumer가 있는 Queue와 TTL을 기다리는 Queue가 모두 비어 있으면 더 이상 메시지가 움직이지 않습니다.
+    //(Consumer가 없는 parking lot Queue 등에 남은 메시지는 제외)
+    public synchronized boolean isIdle() {
+        advanceClock();
+        for (BrokerChannel channel : channels) {
+            if (!channel.unacked.isEmpty()) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, List<BrokerConsumer>> entry : consumers.entrySet()) {
+            if (!entry.getValue().isEmpty() && broker.depth(entry.getKey()) > 0) {
+                return false;
+            }
+        }
+        return !broker.hasExpiringMessages();
+    }
+
+    //비어 있지 않은 Queue의 Ready 메시지 수입니다.
+    public synchronized Map<String, Integer> depths() {
+        Map<String, Integer> depths = new TreeMap<>();
+        for (String queue : broker.queueNames()) {
+            int depth = broker.depth(queue);
+            if (depth > 0) {
+                depths.put(queue, depth);
+            }
+        }
+        return depths;
+    }
+
+    public synchronized long getPublished() {
+        return published;
+    }
+
+    public synchronized long getDelivered() {
+        return delivered;
+    }
+
+    //nack, reject(requeue = true) 또는 Channel이 닫혀서 다시 전달된 수입니다.
+    public synchronized long getRedelivered() {
+        return redelivered;
+    }
+
+    //Dead Letter가 되었던 Queue로 다시 돌아와서(재시도 대기 Queue 등) 전달된 수입니다.
+    public synchronized long getReturned() {
+        return returned;
+    }
+
+    public synchronized long getAcked() {
+        return acked;
+    }
+
+    public synchronized long getDeadLettered(String reason) {
+        return broker.getDeadLettered(reason);
+    }
+
+    //라우팅되는 Queue가 없거나 Dead Letter Exchange가 없어서 버려진 메시지 수입니다.
+    public synchronized long getDropped() {
+        return broker.getDropped();
+    }
+
+    public synchronized long getUnknownDeliveryTags() {
+        return unknownDeliveryTags;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        List<BrokerChannel> remaining;
+        synchronized (this) {
+            remaining = new ArrayList<>(channels);
+        }
+        for (BrokerChannel channel : remaining) {
+            channel.close();
+        }
+    }
+
+    private synchronized void tick() {
+        advanceClock();
+        dispatch();
+    }
+
+    private void advanceClock() {
+        long now = System.currentTimeMillis();
+        if (now > lastTickMillis) {
+            broker.advance(Duration.ofMillis(now - lastTickMillis));
+            lastTickMillis = now;
+        }
+    }
+
+    //Queue마다 prefetch가 남은 Consumer에게 Round Robin으로 메시지를 넘깁니다. 콜백은 Channel의 쓰레드에서 호출됩니다.
+    private void dispatch() {
+        for (Map.Entry<String, List<BrokerConsumer>> entry : consumers.entrySet()) {
+            String queue = entry.getKey();
+            List<BrokerConsumer> queueConsumers = entry.getValue();
+            while (!queueConsumers.isEmpty() && broker.depth(queue) > 0) {
+                BrokerConsumer consumer = nextAvailable(queue, queueConsumers);
+                if (consumer == null) {
+                    break;
+                }
+                deliver(queue, consumer, broker.receive(queue));
+            }
+        }
+    }
+
+    private BrokerConsumer nextAvailable(String queue, List<BrokerConsumer> queueConsumers) {
+        int start = nextConsumer.getOrDefault(queue, 0);
+        for (int i = 0; i < queueConsumers.size(); i++) {
+            int index = (start + i) % queueConsumers.size();
+            BrokerConsumer consumer = queueConsumers.get(index);
+            if (consumer.hasCredit()) {
+                nextConsumer.put(queue, index + 1);
+                return consumer;
+            }
+        }
+        return null;
+    }
+
+    private void deliver(String queue, BrokerConsumer consumer, Message message) {
+        BrokerChannel channel = consumer.channel;
+        MessageProperties messageProperties = message.getMessageProperties();
+        boolean redelivery = Boolean.TRUE.equals(messageProperties.getRedelivered());
+        long deliveryTag = ++channel.deliveryTags;
+        delivered++;
+        if (redelivery) {
+            redelivered++;
+        }
+        if (diedIn(messageProperties, queue)) {
+            returned++;
+        }
+        if (consumer.autoAck) {
+            settle(queue, message);
+        } else {
+            channel.unacked.put(deliveryTag, new Unacked(queue, message, consumer));
+            consumer.inFlight++;
+        }
+
+        Envelope envelope = new Envelope(deliveryTag, redelivery, messageProperties.getReceivedExchange(), messageProperties.getReceivedRoutingKey());
+        AMQP.BasicProperties properties = propertiesConverter.fromMessageProperties(messageProperties, StandardCharsets.UTF_8.name());
+        byte[] body = message.getBody();
+        channel.callbacks.execute(() -> {
+            try {
+                consumer.callback.handleDelivery(consumer.tag, envelope, properties, body);
+            } catch (IOException | RuntimeException e) {
+                //RabbitMQ 클라이언트와 같이 콜백의 예외는 Channel을 닫지 않고 무시합니다.
+            }
+        });
+    }
+
+    private static boolean diedIn(MessageProperties messageProperties, String queue) {
+        Object xDeath = messageProperties.getHeader("x-death");
+        if (!(xDeath instanceof List)) {
+            return false;
+        }
+        for (Object entry : (List<?>) xDeath) {
+            if (entry instanceof Map && queue.equals(String.valueOf(((Map<?, ?>) entry).get("queue")))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void settle(String queue, Message message) {
+        settleListener.accept(queue, message);
+    }
+
+    private synchronized void acknowledge(BrokerChannel channel, long deliveryTag, boolean multiple, Outcome outcome) {
+        advanceClock();
+        List<Unacked> targets = new ArrayList<>();
+        if (multiple) {
+            NavigableMap<Long, Unacked> head = channel.unacked.headMap(deliveryTag, true);
+            targets.addAll(head.values());
+            head.clear();
+        } else {
+            Unacked unacked = channel.unacked.remove(deliveryTag);
+            if (unacked != null) {
+                targets.add(unacked);
+            }
+        }
+        if (targets.isEmpty()) {
+            unknownDeliveryTags++;
+            return;
+        }
+        //requeue된 메시지가 원래 순서대로 Queue의 맨 앞에 놓이도록 마지막 delivery tag부터 되돌립니다.
+        Collections.reverse(targets);
+        for (Unacked unacked : targets) {
+            unacked.consumer.inFlight--;
+            switch (outcome) {
+                case ACK:
+                    acked++;
+                    settle(unacked.queue, unacked.message);
+                    break;
+                case DEAD_LETTER:
+                    settle(unacked.queue, unacked.message);
+                    broker.reject(unacked.queue, unacked.message);
+                    break;
+                default:
+                    broker.requeue(unacked.queue, unacked.message);
+                    break;
+            }
+        }
+        dispatch();
+    }
+
+    private synchronized String consume(BrokerChannel channel, String queue, boolean autoAck, String consumerTag, Consumer callback) throws IOException {
+        if (!broker.hasQueue(queue)) {
+            throw new IOException("NOT_FOUND - no queue '" + queue + "'");
+        }
+        String tag = consumerTag == null || consumerTag.isEmpty() ? "amq.ctag-" + UUID.randomUUID() : consumerTag;
+        BrokerConsumer consumer = new BrokerConsumer(channel, queue, tag, autoAck, channel.prefetch, callback);
+        channel.consumers.put(tag, consumer);
+        consumers.computeIfAbsent(queue, key -> new ArrayList<>()).add(consumer);
+        //basicConsume이 반환되기 전에 consume-ok가 처리되는 것과 같이 첫 메시지보다 먼저 호출됩니다.
+        channel.callbacks.execute(() -> callback.handleConsumeOk(tag));
+        dispatch();
+        return tag;
+    }
+
+    private synchronized void cancel(BrokerChannel channel, String consumerTag) {
+        BrokerConsumer consumer = channel.consumers.remove(consumerTag);
+        if (consumer == null) {
+            return;
+        }
+        consumers.get(consumer.queue).remove(consumer);
+        channel.callbacks.execute(() -> consumer.callback.handleCancelOk(consumerTag));
+    }
+
+    //basicRecover 또는 Channel이 닫힐때 ack되지 않은 메시지를 모두 Queue로 되돌립니다.
+    private synchronized void recover(BrokerChannel channel) {
+        if (!channel.unacked.isEmpty()) {
+            acknowledge(channel, channel.unacked.lastKey(), true, Outcome.REQUEUE);
+        }
+    }
+
+    private synchronized AMQP.Queue.DeclareOk declareQueue(String name, Map<String, Object> arguments, boolean passive) throws IOException {
+        if (passive && !broker.hasQueue(name)) {
+            throw new IOException("NOT_FOUND - no queue '" + name + "'");
+        }
+        String queue = name.isEmpty() ? "amq.gen-" + UUID.randomUUID() : name;
+        if (!passive) {
+            broker.declare(new Queue(queue, false, false, false, arguments));
+        }
+        return new AMQImpl.Queue.DeclareOk(queue, broker.depth(queue), consumers.getOrDefault(queue, List.of()).size());
+    }
+
+    private synchronized AMQP.Exchange.DeclareOk declareExchange(String name, Object type, boolean passive) throws IOException {
+        if (passive) {
+            if (!broker.hasExchange(name)) {
+                throw new IOException("NOT_FOUND - no exchange '" + name + "'");
+            }
+        } else {
+            String exchangeType = type instanceof String ? (String) type : type.toString().toLowerCase();
+            Exchange exchange = new ExchangeBuilder(name, exchangeType).build();
+            broker.declare(exchange);
+        }
+        return new AMQImpl.Exchange.DeclareOk();
+    }
+
+    private synchronized void bind(String queue, String exchange, String routingKey, Map<String, Object> arguments) {
+        broker.declare(new Binding(queue, Binding.DestinationType.QUEUE, exchange, routingKey, arguments));
+    }
+
+    private void basicPublish(Object[] args) {
+        AMQP.BasicProperties properties = (AMQP.BasicProperties) args[args.length - 2];
+        byte[] body = (byte[]) args[args.length - 1];
+        MessageProperties messageProperties = propertiesConverter.toMessageProperties(
+                properties != null ? properties : new AMQP.BasicProperties(), null, StandardCharsets.UTF_8.name());
+        publish((String) args[0], (String) args[1], new Message(body, messageProperties));
+    }
+
+    private enum Outcome {
+        ACK, DEAD_LETTER, REQUEUE
+    }
+
+    private final class BrokerConnection {
+
+        private final int id;
+
+        private final String name;
+
+        private final Connection proxy;
+
+        private final List<BrokerChannel> connectionChannels = new ArrayList<>();
+
+        private volatile boolean open = true;
+
+        private BrokerConnection(int id, String name) {
+            this.id = id;
+            this.name = name != null ? name : "embedded-" + id;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, this::invoke);
+        }
+
+        private Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "createChannel":
+                    return createChannel();
+                case "openChannel":
+                    return Optional.of(createChannel());
+                case "isOpen":
+                    return open;
+                case "close":
+                case "abort":
+                    close();
+                    return null;
+                case "getClientProvidedName":
+                    return name;
+                case "getAddress":
+                    return InetAddress.getLoopbackAddress();
+                case "getPort":
+                    return 5672;
+                case "getChannelMax":
+                    return 2047;
+                case "getServerProperties":
+                case "getClientProperties":
+                    return Map.of("product", "EmbeddedBroker");
+                case "getId":
+                    return "embedded-" + id;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "EmbeddedBrokerConnection[" + name + "]";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private Channel createChannel() {
+            if (!open) {
+                throw new IllegalStateException("Connection " + name + " is closed");
+            }
+            BrokerChannel channel;
+            synchronized (EmbeddedBroker.this) {
+                channel = new BrokerChannel(this, connectionChannels.size() + 1);
+                connectionChannels.add(channel);
+                channels.add(channel);
+            }
+            return channel.proxy;
+        }
+
+        private void close() {
+            open = false;
+            List<BrokerChannel> remaining;
+            synchronized (EmbeddedBroker.this) {
+                remaining = new ArrayList<>(connectionChannels);
+            }
+            for (BrokerChannel channel : remaining) {
+                channel.close();
+            }
+        }
+
+    }
+
+    private final class BrokerChannel {
+
+        private final BrokerConnection connection;
+
+        private final int number;
+
+        private final Channel proxy;
+
+        //RabbitMQ 클라이언트의 ConsumerWorkService와 같이 Channel의 콜백을 순서대로 호출하는 쓰레드입니다.
+        private final ExecutorService callbacks;
+
+        private final List<ShutdownListener> shutdownListeners = new ArrayList<>();
+
+        //아래 값은 EmbeddedBroker.this로 보호됩니다.
+        private final Map<String, BrokerConsumer> consumers = new HashMap<>();
+
+        private final TreeMap<Long, Unacked> unacked = new TreeMap<>();
+
+        private long deliveryTags;
+
+        private int prefetch;
+
+        private volatile boolean open = true;
+
+        private BrokerChannel(BrokerConnection connection, int number) {
+            this.connection = connection;
+            this.number = number;
+            this.callbacks = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "embedded-broker-" + connection.name + "-" + number);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.proxy = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class}, this::invoke);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+            //RabbitMQ 클라이언트와 같이 닫힌 Channel로 보내는 요청은 AlreadyClosedException으로 실패합니다.
+            if (!open && method.getName().startsWith("basic")) {
+                throw new AlreadyClosedException(new ShutdownSignalException(false, true, null, proxy));
+            }
+            switch (method.getName()) {
+                case "basicPublish":
+                    basicPublish(args);
+                    return null;
+                case "basicConsume":
+                    if (args.length != 7) {
+                        throw new UnsupportedOperationException("basicConsume with " + args.length + " arguments");
+                    }
+                    return consume(this, (String) args[0], (Boolean) args[1], (String) args[2], (Consumer) args[6]);
+                case "basicCancel":
+                    cancel(this, (String) args[0]);
+                    return null;
+                case "basicQos":
+                    //basicQos(prefetchCount), basicQos(prefetchCount, global), basicQos(prefetchSize, prefetchCount, global)
+                    prefetch = (Integer) args[args.length == 3 ? 1 : 0];
+                    return null;
+                case "basicAck":
+                    acknowledge(this, (Long) args[0], (Boolean) args[1], Outcome.ACK);
+                    return null;
+                case "basicNack":
+                    acknowledge(this, (Long) args[0], (Boolean) args[1], (Boolean) args[2] ? Outcome.REQUEUE : Outcome.DEAD_LETTER);
+                    return null;
+                case "basicReject":
+                    acknowledge(this, (Long) args[0], false, (Boolean) args[1] ? Outcome.REQUEUE : Outcome.DEAD_LETTER);
+                    return null;
+                case "basicRecover":
+                    recover(this);
+                    return new AMQImpl.Basic.RecoverOk();
+                case "queueDeclare":
+                    if (args == null) {
+                        return declareQueue("", null, false);
+                    }
+                    return declareQueue((String) args[0], (Map<String, Object>) args[4], false);
+                case "queueDeclarePassive":
+                    return declareQueue((String) args[0], null, true);
+                case "exchangeDeclare":
+                    return declareExchange((String) args[0], args[1], false);
+                case "exchangeDeclarePassive":
+                    return declareExchange((String) args[0], null, true);
+                case "queueBind":
+                    bind((String) args[0], (String) args[1], (String) args[2], args.length > 3 ? (Map<String, Object>) args[3] : null);
+                    return new AMQImpl.Queue.BindOk();
+                case "messageCount":
+                    return (long) depth((String) args[0]);
+                case "addShutdownListener":
+                    synchronized (shutdownListeners) {
+                        shutdownListeners.add((ShutdownListener) args[0]);
+                    }
+                    return null;
+                case "removeShutdownListener":
+                    synchronized (shutdownListeners) {
+                        shutdownListeners.remove((ShutdownListener) args[0]);
+                    }
+                    return null;
+                case "close":
+                case "abort":
+                    close();
+                    return null;
+                case "isOpen":
+                    return open;
+                case "getChannelNumber":
+                    return number;
+                case "getConnection":
+                    return connection.proxy;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "EmbeddedBrokerChannel[" + connection.name + "#" + number + "]";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        //Consumer를 취소하고 ack되지 않은 메시지를 Queue로 되돌린 뒤 ShutdownListener를 호출합니다.
+        private void close() {
+            List<ShutdownListener> listeners;
+            synchronized (EmbeddedBroker.this) {
+                if (!open) {
+                    return;
+                }
+                open = false;
+                for (String consumerTag : new ArrayList<>(consumers.keySet())) {
+                    cancel(this, consumerTag);
+                }
+                recover(this);
+                channels.remove(this);
+                connection.connectionChannels.remove(this);
+            }
+            synchronized (shutdownListeners) {
+                listeners = new ArrayList<>(shutdownListeners);
+            }
+            ShutdownSignalException cause = new ShutdownSignalException(false, true, null, proxy);
+            for (ShutdownListener listener : listeners) {
+                listener.shutdownCompleted(cause);
+            }
+            callbacks.shutdown();
+        }
+
+    }
+
+    private static final class BrokerConsumer {
+
+        private final BrokerChannel channel;
+
+        private final String queue;
+
+        private final String tag;
+
+        private final boolean autoAck;
+
+        //0이면 제한하지 않습니다.
+        private final int prefetch;
+
+        private final Consumer callback;
+
+        private int inFlight;
+
+        private BrokerConsumer(BrokerChannel channel, String queue, String tag, boolean autoAck, int prefetch, Consumer callback) {
+            this.channel = channel;
+            this.queue = queue;
+            this.tag = tag;
+            this.autoAck = autoAck;
+            this.prefetch = prefetch;
+            this.callback = callback;
+        }
+
+        private boolean hasCredit() {
+            return autoAck || prefetch <= 0 || inFlight < prefetch;
+        }
+
+    }
+
+    private static final class Unacked {
+
+        private final String queue;
+
+        private final Message message;
+
+        private final BrokerConsumer consumer;
+
+        private Unacked(String queue, Message message, BrokerConsumer consumer) {
+            this.queue = queue;
+            this.message = message;
+            this.consumer = consumer;
+        }
+
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        return null;
+    }
+
+}
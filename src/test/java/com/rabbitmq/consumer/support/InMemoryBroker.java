@@ -0,0 +1,418 @@
+package com.rabbitmq.consumer.support;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//브로커 없이 Queue 사이의 메시지 이동을 확인하기 위한 AMQP 브로커 대역입니다.
+//Exchange(기본 Exchange, Direct, Fanout), Queue의 x-message-ttl, x-dead-letter-exchange, x-dead-letter-routing-key와
+//Dead Letter가 될때 브로커가 추가하는 x-death 헤더를 RabbitMQ와 같은 방식으로 흉내냅니다.
+//시간은 advance를 호출해야만 흐르며 TTL은 RabbitMQ와 같이 Queue의 맨 앞 메시지부터 만료됩니다.
+//Consumer에게 메시지를 전달하는 EmbeddedBroker도 해당 클래스로 라우팅, Dead Letter를 처리합니다.
+public class InMemoryBroker {
+
+    private static final MessagePropertiesConverter PROPERTIES_CONVERTER = new DefaultMessagePropertiesConverter();
+
+    private final Map<String, Exchange> exchanges = new HashMap<>();
+
+    private final Map<String, BrokerQueue> queues = new LinkedHashMap<>();
+
+    private final List<Binding> bindings = new ArrayList<>();
+
+    private long now;
+
+    private long dropped;
+
+    private final Map<String, Long> deadLettered = new HashMap<>();
+
+    //basicGet(autoAck = false)으로 꺼낸 뒤 ack, nack 하지 않은 메시지입니다. (delivery tag -> (Queue, Envelope))
+    private final Map<Long, Map.Entry<String, Envelope>> unacked = new LinkedHashMap<>();
+
+    private long deliveryTag;
+
+    private boolean confirmFailure;
+
+    public InMemoryBroker declare(Declarables declarables) {
+        for (Declarable declarable : declarables.getDeclarables()) {
+            if (declarable instanceof Queue) {
+                Queue queue = (Queue) declarable;
+                queues.putIfAbsent(queue.getName(), new BrokerQueue(queue));
+            } else if (declarable instanceof Exchange) {
+                exchanges.putIfAbsent(((Exchange) declarable).getName(), (Exchange) declarable);
+            } else if (declarable instanceof Binding && !isBound((Binding) declarable)) {
+                //RabbitAdmin은 Connection이 만들어질때마다 다시 선언하므로 같은 Binding은 한번만 추가합니다.
+                bindings.add((Binding) declarable);
+            }
+        }
+        return this;
+    }
+
+    public InMemoryBroker declare(Declarable... declarables) {
+        return declare(new Declarables(declarables));
+    }
+
+    //send(exchange, routingKey, message), receive(queue)를 브로커로 전달하고 execute에는 channel()을 넘기는 RabbitOperations를 만듭니다.
+    public RabbitOperations template() {
+        RabbitOperations template = mock(RabbitOperations.class);
+        doAnswer(invocation -> {
+            publish(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(template).send(anyString(), anyString(), any(Message.class));
+        when(template.receive(anyString())).thenAnswer(invocation -> receive(invocation.getArgument(0)));
+        when(template.execute(any())).thenAnswer(invocation -> {
+            //RabbitTemplate.execute와 같이 Channel에서 발생한 예외를 AmqpException으로 바꿉니다.
+            try {
+                return ((ChannelCallback<?>) invocation.getArgument(0)).doInRabbit(channel());
+            } catch (Exception e) {
+                throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+            }
+        });
+        return template;
+    }
+
+    //basicGet, basicPublish, basicAck, basicNack(requeue), confirmSelect, waitForConfirmsOrDie만 브로커로 전달하는 Channel을 만듭니다.
+    //failConfirms(true)이면 RabbitMQ가 nack한 것과 같이 waitForConfirmsOrDie가 IOException을 던집니다.
+    public Channel channel() throws IOException, InterruptedException, TimeoutException {
+        Channel channel = mock(Channel.class);
+        when(channel.isOpen()).thenReturn(true);
+        when(channel.basicGet(anyString(), eq(false))).thenAnswer(invocation -> get(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            MessageProperties messageProperties = PROPERTIES_CONVERTER.toMessageProperties(invocation.getArgument(3), null, "UTF-8");
+            publish(invocation.getArgument(0), invocation.getArgument(1), new Message(invocation.getArgument(4), messageProperties));
+            return null;
+        }).when(channel).basicPublish(anyString(), anyString(), anyBoolean(), any(AMQP.BasicProperties.class), any(byte[].class));
+        doAnswer(invocation -> {
+            ack(invocation.getArgument(0));
+            return null;
+        }).when(channel).basicAck(anyLong(), eq(false));
+        doAnswer(invocation -> {
+            nack(invocation.getArgument(0));
+            return null;
+        }).when(channel).basicNack(anyLong(), eq(false), eq(true));
+        doAnswer(invocation -> {
+            if (isConfirmFailure()) {
+                throw new IOException("nacks received");
+            }
+            return null;
+        }).when(channel).waitForConfirmsOrDie(anyLong());
+        return channel;
+    }
+
+    public synchronized void failConfirms(boolean confirmFailure) {
+        this.confirmFailure = confirmFailure;
+    }
+
+    private synchronized boolean isConfirmFailure() {
+        return confirmFailure;
+    }
+
+    private synchronized GetResponse get(String queue) {
+        BrokerQueue brokerQueue = queue(queue);
+        Envelope envelope = brokerQueue.messages.pollFirst();
+        if (envelope == null) {
+            return null;
+        }
+        long tag = ++deliveryTag;
+        unacked.put(tag, new AbstractMap.SimpleEntry<>(queue, envelope));
+        MessageProperties messageProperties = envelope.message.getMessageProperties();
+        com.rabbitmq.client.Envelope delivery = new com.rabbitmq.client.Envelope(tag, messageProperties.isRedelivered(), envelope.exchange, envelope.routingKey);
+        return new GetResponse(delivery, PROPERTIES_CONVERTER.fromMessageProperties(messageProperties, "UTF-8"),
+                envelope.message.getBody(), brokerQueue.messages.size());
+    }
+
+    private synchronized void ack(long tag) {
+        if (unacked.remove(tag) == null) {
+            throw new IllegalStateException("PRECONDITION_FAILED - unknown delivery tag " + tag);
+        }
+    }
+
+    private synchronized void nack(long tag) {
+        Map.Entry<String, Envelope> delivery = unacked.remove(tag);
+        if (delivery == null) {
+            throw new IllegalStateException("PRECONDITION_FAILED - unknown delivery tag " + tag);
+        }
+        delivery.getValue().message.getMessageProperties().setRedelivered(true);
+        queue(delivery.getKey()).messages.addFirst(delivery.getValue());
+    }
+
+    //basicGet(autoAck = false)으로 꺼낸 뒤 아직 ack, nack 하지 않은 메시지 수입니다.
+    public synchronized int unackedCount() {
+        return unacked.size();
+    }
+
+    //Exchange로 전달된 메시지를 라우팅합니다. 라우팅되는 Queue가 없으면 RabbitMQ와 같이 메시지를 버립니다.
+    public synchronized void publish(String exchange, String routingKey, Message message) {
+        List<BrokerQueue> targets = route(exchange, routingKey);
+        if (targets.isEmpty()) {
+            dropped++;
+            return;
+        }
+        for (BrokerQueue queue : targets) {
+            queue.messages.addLast(new Envelope(copy(message), exchange, routingKey, now));
+        }
+    }
+
+    //basicGet(autoAck = true)과 같이 Queue의 맨 앞 메시지를 꺼냅니다. 메시지가 없으면 null을 반환합니다.
+    public synchronized Message receive(String queue) {
+        Envelope envelope = queue(queue).messages.pollFirst();
+        if (envelope == null) {
+            return null;
+        }
+        envelope.message.getMessageProperties().setConsumerQueue(queue);
+        envelope.message.getMessageProperties().setReceivedExchange(envelope.exchange);
+        envelope.message.getMessageProperties().setReceivedRoutingKey(envelope.routingKey);
+        return envelope.message;
+    }
+
+    //Consumer가 receive로 꺼낸 메시지를 basicNack(requeue = false) 또는 basicReject(requeue = false) 한 것과 같습니다.
+    public synchronized void reject(String queue, Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        deadLetter(queue(queue), new Envelope(message, messageProperties.getReceivedExchange(), messageProperties.getReceivedRoutingKey(), now), "rejected");
+    }
+
+    //Consumer가 ack하지 않은 메시지를 basicNack(requeue = true) 하거나 Channel이 닫힌 경우와 같이 Queue의 맨 앞으로 되돌립니다.
+    //다시 전달될때 redelivered가 true가 됩니다.
+    public synchronized void requeue(String queue, Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        messageProperties.setRedelivered(true);
+        queue(queue).messages.addFirst(new Envelope(message, messageProperties.getReceivedExchange(), messageProperties.getReceivedRoutingKey(), now));
+    }
+
+    //시간을 흐르게 하고 TTL이 지난 메시지를 Dead Letter로 보냅니다. 만료된 메시지가 다른 Queue로 옮겨진 경우 해당 Queue도 다시 확인합니다.
+    public synchronized void advance(Duration duration) {
+        now += duration.toMillis();
+        boolean expired = true;
+        while (expired) {
+            expired = false;
+            for (BrokerQueue queue : new ArrayList<>(queues.values())) {
+                while (!queue.messages.isEmpty() && queue.ttlMillis >= 0 && now - queue.messages.peekFirst().enqueuedAt >= queue.ttlMillis) {
+                    deadLetter(queue, queue.messages.pollFirst(), "expired");
+                    expired = true;
+                }
+            }
+        }
+    }
+
+    public synchronized int depth(String queue) {
+        return queue(queue).messages.size();
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    //reason(rejected, expired)별로 Dead Letter가 된 메시지 수입니다. x-dead-letter-exchange가 없어서 버려진 메시지는 포함되지 않습니다.
+    public synchronized long getDeadLettered(String reason) {
+        return deadLettered.getOrDefault(reason, 0L);
+    }
+
+    public synchronized boolean hasQueue(String queue) {
+        return queues.containsKey(queue);
+    }
+
+    public synchronized boolean hasExchange(String exchange) {
+        return exchange.isEmpty() || exchanges.containsKey(exchange);
+    }
+
+    public synchronized List<String> queueNames() {
+        return new ArrayList<>(queues.keySet());
+    }
+
+    //TTL이 지나야 다른 Queue로 옮겨지는 메시지가 남아 있는지 확인합니다.
+    public synchronized boolean hasExpiringMessages() {
+        for (BrokerQueue queue : queues.values()) {
+            if (queue.ttlMillis >= 0 && !queue.messages.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //x-dead-letter-exchange가 없거나 선언되지 않은 Exchange이면 RabbitMQ와 같이 메시지를 버립니다.
+    private void deadLetter(BrokerQueue queue, Envelope envelope, String reason) {
+        Object exchange = queue.arguments.get("x-dead-letter-exchange");
+        if (exchange == null || !hasExchange(exchange.toString())) {
+            dropped++;
+            return;
+        }
+        deadLettered.merge(reason, 1L, Long::sum);
+        Object routingKey = queue.arguments.get("x-dead-letter-routing-key");
+        recordDeath(envelope.message.getMessageProperties(), queue.name, reason, envelope);
+        publish(exchange.toString(), routingKey != null ? routingKey.toString() : envelope.routingKey, envelope.message);
+    }
+
+    //같은 (queue, reason) 항목이 있으면 count를 늘려서 맨 앞으로 옮기고 없으면 맨 앞에 새로운 항목을 추가합니다.
+    @SuppressWarnings("unchecked")
+    private void recordDeath(MessageProperties messageProperties, String queue, String reason, Envelope envelope) {
+        Object header = messageProperties.getHeaders().get("x-death");
+        List<Map<String, Object>> xDeath = header instanceof List ? (List<Map<String, Object>>) header : new ArrayList<>();
+        Map<String, Object> entry = null;
+        for (Map<String, Object> candidate : xDeath) {
+            if (queue.equals(candidate.get("queue")) && reason.equals(candidate.get("reason"))) {
+                entry = candidate;
+                break;
+            }
+        }
+        if (entry != null) {
+            xDeath.remove(entry);
+            entry.put("count", ((Number) entry.get("count")).longValue() + 1);
+        } else {
+            entry = new HashMap<>();
+            entry.put("queue", queue);
+            entry.put("reason", reason);
+            entry.put("count", 1L);
+            entry.put("exchange", envelope.exchange);
+            entry.put("routing-keys", Collections.singletonList(envelope.routingKey));
+        }
+        xDeath.add(0, entry);
+        messageProperties.setHeader("x-death", xDeath);
+        if (messageProperties.getHeader("x-first-death-queue") == null) {
+            messageProperties.setHeader("x-first-death-queue", queue);
+            messageProperties.setHeader("x-first-death-reason", reason);
+            messageProperties.setHeader("x-first-death-exchange", envelope.exchange);
+        }
+    }
+
+    private boolean isBound(Binding binding) {
+        for (Binding bound : bindings) {
+            if (bound.getDestination().equals(binding.getDestination()) && bound.getDestinationType() == binding.getDestinationType()
+                    && bound.getExchange().equals(binding.getExchange()) && bound.getRoutingKey().equals(binding.getRoutingKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<BrokerQueue> route(String exchange, String routingKey) {
+        List<BrokerQueue> targets = new ArrayList<>();
+        if (exchange.isEmpty()) {
+            if (queues.containsKey(routingKey)) {
+                targets.add(queues.get(routingKey));
+            }
+            return targets;
+        }
+        Exchange declared = exchanges.get(exchange);
+        if (declared == null) {
+            throw new IllegalStateException("NOT_FOUND - no exchange '" + exchange + "'");
+        }
+        for (Binding binding : bindings) {
+            if (!binding.getExchange().equals(exchange) || !binding.isDestinationQueue()) {
+                continue;
+            }
+            boolean matches = declared instanceof FanoutExchange
+                    || declared instanceof DirectExchange && binding.getRoutingKey().equals(routingKey);
+            if (matches && queues.containsKey(binding.getDestination())) {
+                targets.add(queues.get(binding.getDestination()));
+            }
+        }
+        return targets;
+    }
+
+    private BrokerQueue queue(String name) {
+        BrokerQueue queue = queues.get(name);
+        if (queue == null) {
+            throw new IllegalStateException("NOT_FOUND - no queue '" + name + "'");
+        }
+        return queue;
+    }
+
+    //Queue마다 따로 저장되도록 바디와 헤더를 복사합니다. x-death 항목은 Dead Letter가 될때 수정되므로 항목까지 복사합니다.
+    @SuppressWarnings("unchecked")
+    private static Message copy(Message message) {
+        MessageProperties source = message.getMessageProperties();
+        MessageProperties target = new MessageProperties();
+        target.setContentType(source.getContentType());
+        target.setContentEncoding(source.getContentEncoding());
+        target.setMessageId(source.getMessageId());
+        target.setCorrelationId(source.getCorrelationId());
+        target.setTimestamp(source.getTimestamp());
+        target.setExpiration(source.getExpiration());
+        for (Map.Entry<String, Object> header : source.getHeaders().entrySet()) {
+            if ("x-death".equals(header.getKey()) && header.getValue() instanceof List) {
+                List<Map<String, Object>> xDeath = new ArrayList<>();
+                for (Object entry : (List<?>) header.getValue()) {
+                    xDeath.add(new HashMap<>((Map<String, Object>) entry));
+                }
+                target.setHeader(header.getKey(), xDeath);
+            } else {
+                target.setHeader(header.getKey(), header.getValue());
+            }
+        }
+        return new Message(message.getBody().clone(), target);
+    }
+
+    private static final class BrokerQueue {
+
+        private final String name;
+
+        private final Map<String, Object> arguments;
+
+        private final long ttlMillis;
+
+        private final Deque<Envelope> messages = new ArrayDeque<>();
+
+        private BrokerQueue(Queue queue) {
+            this.name = queue.getName();
+            this.arguments = queue.getArguments();
+            Object ttl = arguments.get("x-message-ttl");
+            this.ttlMillis = ttl instanceof Number ? ((Number) ttl).longValue() : -1;
+        }
+
+    }
+
+    private static final class Envelope {
+
+        private final Message message;
+
+        private final String exchange;
+
+        private final String routingKey;
+
+        private final long enqueuedAt;
+
+        private Envelope(Message message, String exchange, String routingKey, long enqueuedAt) {
+            this.message = message;
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+    }
+
+}
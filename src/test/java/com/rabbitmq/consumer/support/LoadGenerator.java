@@ -0,0 +1,187 @@
+package com.rabbitmq.consumer.support;
+
+import com.rabbitmq.consumer.dto.MessageInfo;
+import com.rabbitmq.consumer.metrics.LatencyHistogram;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//EmbeddedBroker에 목표 속도로 메시지를 보내고 처리 결과를 LoadReport로 정리하는 Producer입니다.
+//[측정 방법]
+//1. i번째 메시지는 시작 시각 + i / ratePerSecond에 보냅니다. 늦어진 경우 기다리지 않고 바로 보내며 지연시간은 보냈어야 하는 시각부터 측정하므로
+//Consumer가 밀려서 Producer가 늦어지더라도 지연시간이 작게 측정되지 않습니다. (coordinated omission)
+//2. 지연시간은 보낸 시각부터 보낸 Queue에서 처음으로 ack 또는 Dead Letter가 될때까지입니다. Dead Letter가 되었다가 돌아온 메시지(x-death)는 제외합니다.
+//3. Target은 weight 비율대로 돌아가며 선택하므로(무작위가 아님) 같은 설정이면 Target별 메시지 수가 항상 같습니다.
+//4. duration 동안 보낸 뒤 모든 메시지가 처리되고 브로커가 idle(EmbeddedBroker.isIdle)이 될때까지 drainTimeout만큼 기다립니다.
+public class LoadGenerator {
+
+    private static final String SENT_NANOS_HEADER = "x-load-sent-nanos";
+
+    private final EmbeddedBroker broker;
+
+    private final List<Target> targets = new ArrayList<>();
+
+    private int ratePerSecond = 1_000;
+
+    private Duration duration = Duration.ofSeconds(10);
+
+    //MessageInfo.message(String이면 문자열)의 길이입니다.
+    private int bodySize = 128;
+
+    //MessageInfo.publisher로 사용할 이름 수입니다.
+    private int publishers = 16;
+
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    public LoadGenerator(EmbeddedBroker broker) {
+        this.broker = broker;
+    }
+
+    //type은 Listener가 받는 타입입니다. MessageInfo이면 MessageInfo JSON, String이면 JSON 문자열을 __TypeId__와 함께 보냅니다.
+    public LoadGenerator target(String exchange, String routingKey, int weight, Class<?> type) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight of " + exchange + "/" + routingKey + " must be positive: " + weight);
+        }
+        targets.add(new Target(exchange, routingKey, weight, type));
+        return this;
+    }
+
+    public LoadGenerator rate(int ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+        return this;
+    }
+
+    public LoadGenerator duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public LoadGenerator bodySize(int bodySize) {
+        this.bodySize = bodySize;
+        return this;
+    }
+
+    public LoadGenerator publishers(int publishers) {
+        this.publishers = publishers;
+        return this;
+    }
+
+    public LoadGenerator drainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+        return this;
+    }
+
+    public LoadReport run() throws InterruptedException {
+        if (targets.isEmpty()) {
+            throw new IllegalStateException("At least one target is required");
+        }
+        //결과는 cumulativePercentile로 계산하므로 구간(windowMillis)은 사용하지 않습니다.
+        LatencyHistogram latency = new LatencyHistogram(TimeUnit.MINUTES.toMillis(1));
+        AtomicLong completed = new AtomicLong();
+        AtomicLong lastCompletedNanos = new AtomicLong();
+        broker.onSettle((queue, message) -> {
+            MessageProperties messageProperties = message.getMessageProperties();
+            Object sentNanos = messageProperties.getHeader(SENT_NANOS_HEADER);
+            if (sentNanos instanceof Long && messageProperties.getHeader("x-death") == null) {
+                long now = System.nanoTime();
+                latency.record(now - (Long) sentNanos);
+                completed.incrementAndGet();
+                lastCompletedNanos.set(now);
+            }
+        });
+
+        int totalWeight = targets.stream().mapToInt(target -> target.weight).sum();
+        long messages = duration.toNanos() * ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        String text = "x".repeat(Math.max(0, bodySize));
+        Map<String, Long> published = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        for (long i = 0; i < messages; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Target target = select(i % totalWeight);
+            broker.publish(target.exchange, target.routingKey, message(i, target, scheduled, text));
+            published.merge(target.toString(), 1L, Long::sum);
+        }
+        long publishedNanos = System.nanoTime() - start;
+
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        boolean drained = false;
+        while (System.nanoTime() < deadline) {
+            if (completed.get() >= messages && broker.isIdle()) {
+                drained = true;
+                break;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        broker.onSettle((queue, message) -> {
+        });
+
+        long elapsedNanos = Math.max(publishedNanos, lastCompletedNanos.get() - start);
+        return new LoadReport(ratePerSecond, published, completed.get(), elapsedNanos, drained, latency, broker);
+    }
+
+    private Target select(long slot) {
+        for (Target target : targets) {
+            if (slot < target.weight) {
+                return target;
+            }
+            slot -= target.weight;
+        }
+        throw new IllegalStateException("slot out of range: " + slot);
+    }
+
+    private Message message(long sequence, Target target, long scheduledNanos, String text) {
+        String body;
+        if (target.type == MessageInfo.class) {
+            body = "{\"publisher\":\"load-" + sequence % publishers + "\",\"message\":\"" + text + "\"}";
+        } else {
+            body = "\"" + text + "\"";
+        }
+
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        messageProperties.setMessageId("load-" + sequence);
+        messageProperties.setHeader("__TypeId__", target.type.getName());
+        messageProperties.setHeader(SENT_NANOS_HEADER, scheduledNanos);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+    private static final class Target {
+
+        private final String exchange;
+
+        private final String routingKey;
+
+        private final int weight;
+
+        private final Class<?> type;
+
+        private Target(String exchange, String routingKey, int weight, Class<?> type) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.weight = weight;
+            this.type = type;
+        }
+
+        @Override
+        public String toString() {
+            return (exchange.isEmpty() ? "(default)" : exchange) + "/" + routingKey;
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.rabbitmq.consumer.support;
+
+import com.rabbitmq.consumer.metrics.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//LoadGenerator 실행 결과입니다. 브로커 값(delivered, redelivered, dead-lettered 등)은 실행이 끝난 시점의 EmbeddedBroker 누적값이므로
+//애플리케이션이 보낸 메시지(재시도 대기 Queue로 보낸 Dead Letter 등)도 포함됩니다.
+public class LoadReport {
+
+    private final int targetRate;
+
+    private final Map<String, Long> published;
+
+    private final long completed;
+
+    private final long elapsedNanos;
+
+    private final boolean drained;
+
+    private final double p50Nanos;
+
+    private final double p99Nanos;
+
+    private final double p999Nanos;
+
+    private final double maxNanos;
+
+    private final long delivered;
+
+    private final long redelivered;
+
+    private final long returned;
+
+    private final long rejected;
+
+    private final long expired;
+
+    private final long dropped;
+
+    private final long unknownDeliveryTags;
+
+    private final Map<String, Integer> depths;
+
+    LoadReport(int targetRate, Map<String, Long> published, long completed, long elapsedNanos, boolean drained,
+               LatencyHistogram latency, EmbeddedBroker broker) {
+        this.targetRate = targetRate;
+        this.published = new LinkedHashMap<>(published);
+        this.completed = completed;
+        this.elapsedNanos = elapsedNanos;
+        this.drained = drained;
+        this.p50Nanos = latency.cumulativePercentile(0.5);
+        this.p99Nanos = latency.cumulativePercentile(0.99);
+        this.p999Nanos = latency.cumulativePercentile(0.999);
+        this.maxNanos = latency.cumulativePercentile(1.0);
+        this.delivered = broker.getDelivered();
+        this.redelivered = broker.getRedelivered();
+        this.returned = broker.getReturned();
+        this.rejected = broker.getDeadLettered("rejected");
+        this.expired = broker.getDeadLettered("expired");
+        this.dropped = broker.getDropped();
+        this.unknownDeliveryTags = broker.getUnknownDeliveryTags();
+        this.depths = broker.depths();
+    }
+
+    public long getPublished() {
+        return published.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    //Target("exchange/routingKey")별로 보낸 메시지 수입니다.
+    public long getPublished(String target) {
+        return published.getOrDefault(target, 0L);
+    }
+
+    //보낸 Queue에서 ack 또는 Dead Letter로 처리가 끝난 메시지 수입니다.
+    public long getCompleted() {
+        return completed;
+    }
+
+    //처음 보낸 시각부터 마지막 메시지의 처리가 끝날때까지의 초당 처리 수입니다.
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : completed * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public boolean isDrained() {
+        return drained;
+    }
+
+    public double getP50Millis() {
+        return p50Nanos / 1_000_000d;
+    }
+
+    public double getP99Millis() {
+        return p99Nanos / 1_000_000d;
+    }
+
+    public double getP999Millis() {
+        return p999Nanos / 1_000_000d;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos / 1_000_000d;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    //requeue로 다시 전달된 수와 Dead Letter가 되었다가 원래 Queue로 돌아와서 전달된 수의 합입니다.
+    public long getRedeliveries() {
+        return redelivered + returned;
+    }
+
+    public long getRedelivered() {
+        return redelivered;
+    }
+
+    public long getReturned() {
+        return returned;
+    }
+
+    public long getDeadLettered() {
+        return rejected + expired;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getExpired() {
+        return expired;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getUnknownDeliveryTags() {
+        return unknownDeliveryTags;
+    }
+
+    //실행이 끝난 시점에 메시지가 남아 있는 Queue(parking lot Queue 등)의 Ready 메시지 수입니다.
+    public int getDepth(String queue) {
+        return depths.getOrDefault(queue, 0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("published=%d %s completed=%d drained=%s%n", getPublished(), published, completed, drained)
+                + String.format("throughput=%.1f/s (target %d/s) latency p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms%n",
+                getThroughput(), targetRate, getP50Millis(), getP99Millis(), getP999Millis(), getMaxMillis())
+                + String.format("delivered=%d redeliveries=%d (requeued=%d, returned=%d) dead-lettered=%d (rejected=%d, expired=%d) dropped=%d%n",
+                delivered, getRedeliveries(), redelivered, returned, getDeadLettered(), rejected, expired, dropped)
+                + String.format("unknown-delivery-tags=%d remaining=%s", unknownDeliveryTags, depths);
+    }
+
+}